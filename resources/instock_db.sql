@@ -2,6 +2,15 @@ DROP DATABASE IF EXISTS instock_db;
 CREATE DATABASE instock_db;
 USE instock_db;
 
+-- Tabela utilizada pelo Hibernate para gerar os ids em blocos (pooled-lo), o que permite
+-- agrupar os INSERTs em lotes JDBC. Cada linha guarda o início do próximo bloco de ids
+-- da entidade. As colunas AUTO_INCREMENT foram mantidas apenas por compatibilidade
+CREATE TABLE gerador_id(
+	entidade VARCHAR(255) NOT NULL,
+    proximo_id BIGINT NOT NULL,
+    PRIMARY KEY(entidade)
+);
+
 CREATE TABLE usuario(
 	id BIGINT SIGNED NOT NULL AUTO_INCREMENT,
     nome VARCHAR(40) NOT NULL,
@@ -18,7 +27,10 @@ CREATE
 		TRIGGER trg_usuario_insert BEFORE INSERT
 		ON usuario
 		FOR EACH ROW BEGIN
-			SET NEW.senha = md5(NEW.senha);
+			-- Senhas inseridas em texto plano direto na base; as da aplicação já chegam em BCrypt
+			IF NEW.senha NOT LIKE '$2%' THEN
+				SET NEW.senha = md5(NEW.senha);
+			END IF;
 	END$$
 DELIMITER ;
 
@@ -53,7 +65,11 @@ CREATE TABLE item(
     tipo_id BIGINT SIGNED NOT NULL,
     cadastrante_id BIGINT SIGNED NOT NULL,
     ambiente_atual_id BIGINT SIGNED NOT NULL,
+    versao BIGINT NOT NULL DEFAULT 0,
+    -- Nula nos itens cadastrados antes da coluna, considerados existentes em qualquer instante
+    data_cadastro DATETIME NULL,
     PRIMARY KEY(id),
+    INDEX idx_item_data_cadastro(data_cadastro),
     FOREIGN KEY(tipo_id) REFERENCES tipo_item(id),
     FOREIGN KEY(cadastrante_id) REFERENCES usuario(id),
     FOREIGN KEY(ambiente_atual_id) REFERENCES ambiente(id)
@@ -67,17 +83,61 @@ CREATE TABLE movimentacao(
     ambiente_posterior_id BIGINT SIGNED NOT NULL,
     movimentador_id BIGINT SIGNED NOT NULL,
     PRIMARY KEY(id),
+    -- Índices do histórico: cada filtro seguido da ordenação (data_movimentacao, id), de forma que a
+    -- consulta filtra, ordena e avança o cursor percorrendo somente o índice
+    INDEX idx_movimentacao_data(data_movimentacao, id),
+    INDEX idx_movimentacao_item(item_movimentado_id, data_movimentacao, id),
+    INDEX idx_movimentacao_anterior(ambiente_anterior_id, data_movimentacao, id),
+    INDEX idx_movimentacao_posterior(ambiente_posterior_id, data_movimentacao, id),
+    INDEX idx_movimentacao_movimentador(movimentador_id, data_movimentacao, id),
     FOREIGN KEY(item_movimentado_id) REFERENCES item(id),
     FOREIGN KEY(ambiente_anterior_id) REFERENCES ambiente(id),
     FOREIGN KEY(ambiente_posterior_id) REFERENCES ambiente(id),
     FOREIGN KEY(movimentador_id) REFERENCES usuario(id)
 );
 
+-- A aplicação já move o item com um UPDATE condicionado ao ambiente lido antes de inserir a
+-- movimentação, nesse caso a condição evita reescrever (e bloquear novamente) a linha do item
 DELIMITER $$
 CREATE
 		TRIGGER trg_movimentacao_insert AFTER INSERT
 		ON movimentacao
 		FOR EACH ROW BEGIN
-			UPDATE item SET ambiente_atual_id  = NEW.ambiente_posterior_id WHERE id = NEW.item_movimentado_id;
+			UPDATE item SET ambiente_atual_id  = NEW.ambiente_posterior_id WHERE id = NEW.item_movimentado_id AND ambiente_atual_id <> NEW.ambiente_posterior_id;
 	END$$
-DELIMITER ;
\ No newline at end of file
+DELIMITER ;
+
+-- Quantidade de itens de cada tipo em cada ambiente, mantida pela aplicação na mesma transação
+-- que cadastra, movimenta ou exclui o item. Somente combinações com itens (ou que já tiveram)
+-- possuem linha. Divergências são corrigidas periodicamente pela reconciliação da aplicação
+CREATE TABLE ocupacao(
+	ambiente_id BIGINT SIGNED NOT NULL,
+    tipo_id BIGINT SIGNED NOT NULL,
+    total BIGINT NOT NULL,
+    PRIMARY KEY(ambiente_id, tipo_id)
+);
+
+-- Fotografias periódicas da localização de todos os itens (pares id do item, id do ambiente
+-- compactados), ponto de partida das consultas de localização em um instante passado e da
+-- verificação do ambiente atual dos itens, que reproduzem somente as movimentações a partir dela.
+-- ultima_movimentacao_id guarda o maior id de movimentação existente na leitura
+CREATE TABLE snapshot_localizacao(
+	id BIGINT SIGNED NOT NULL AUTO_INCREMENT,
+    data_snapshot DATETIME NOT NULL,
+    ultima_movimentacao_id BIGINT SIGNED NOT NULL,
+    quantidade_itens INT NOT NULL,
+    conteudo LONGBLOB NOT NULL,
+    PRIMARY KEY(id),
+    INDEX idx_snapshot_localizacao_data(data_snapshot)
+);
+
+-- Para bancos já populados o próximo bloco começa após o maior id existente
+INSERT INTO gerador_id(entidade, proximo_id) SELECT 'usuario', COALESCE(MAX(id), 0) + 1 FROM usuario;
+INSERT INTO gerador_id(entidade, proximo_id) SELECT 'ambiente', COALESCE(MAX(id), 0) + 1 FROM ambiente;
+INSERT INTO gerador_id(entidade, proximo_id) SELECT 'tipo_item', COALESCE(MAX(id), 0) + 1 FROM tipo_item;
+INSERT INTO gerador_id(entidade, proximo_id) SELECT 'tipo_item_tag', COALESCE(MAX(id), 0) + 1 FROM tipo_item_tag;
+INSERT INTO gerador_id(entidade, proximo_id) SELECT 'item', COALESCE(MAX(id), 0) + 1 FROM item;
+INSERT INTO gerador_id(entidade, proximo_id) SELECT 'movimentacao', COALESCE(MAX(id), 0) + 1 FROM movimentacao;
+
+-- Para bancos já populados a ocupação parte da contagem atual dos itens
+INSERT INTO ocupacao(ambiente_id, tipo_id, total) SELECT ambiente_atual_id, tipo_id, COUNT(*) FROM item GROUP BY ambiente_atual_id, tipo_id;
@@ -13,8 +13,8 @@ import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 /**
- * <h1> Classe de configurao do Hibernate Framework </h1>
- * <p> Define configuraes gerais do banco a ser utilizado</p>
+ * <h1> Classe de configuração do Hibernate Framework </h1>
+ * <p> Define configurações gerais do banco a ser utilizado</p>
  * <p> Define o pacote com os modelos a serem interpretados para o ORM.</p>
  * 
  * @author Mateus A.S
@@ -24,8 +24,12 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 public class PersistenceConfig {
 	
 	/**
-	 * 		Mtodo que define as propriedades do Hibernate quanto
+	 * 		Método que define as propriedades do Hibernate quanto
 	 * ao banco de dados utilizado, como o dialeto, o tipo de banco, etc
+	 * 		O cache de segundo nível pode ser desligado com a propriedade de sistema
+	 * instock.cache.habilitado=false, o tamanho dos lotes JDBC definido com a
+	 * propriedade instock.jdbc.batch_size e as estatísticas do Hibernate ligadas com
+	 * a propriedade instock.hibernate.estatisticas=true
 	 * 
 	 * @return objeto Properties com as propriedades do Hibernate
 	 */
@@ -38,14 +42,31 @@ public class PersistenceConfig {
 		properties.setProperty("hibernate.connection.CharSet", "utf8");
 		properties.setProperty("hibernate.connection.characterEncoding", "utf8");
 		properties.setProperty("hibernate.connection.useUnicode", "true");
+		// Ids gerados em blocos pela tabela gerador_id (o valor da tabela é o início do próximo bloco)
+		properties.setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+		// Agrupamento das escritas em lotes JDBC
+		properties.setProperty("hibernate.jdbc.batch_size", System.getProperty("instock.jdbc.batch_size", "50"));
+		properties.setProperty("hibernate.order_inserts", "true");
+		properties.setProperty("hibernate.order_updates", "true");
+		properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+		// Cache de segundo nível (regiões definidas no ehcache.xml)
+		String cacheHabilitado = System.getProperty("instock.cache.habilitado", "true");
+		properties.setProperty("hibernate.cache.use_second_level_cache", cacheHabilitado);
+		properties.setProperty("hibernate.cache.use_query_cache", cacheHabilitado);
+		properties.setProperty("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+		properties.setProperty("net.sf.ehcache.configurationResourceName", "/ehcache.xml");
+		// Estatísticas do Hibernate (exibidas em /api/v1/cache), desligadas por padrão pelo custo em cada sessão
+		properties.setProperty("hibernate.generate_statistics",
+				System.getProperty("instock.hibernate.estatisticas", "false"));
+		properties.setProperty("hibernate.session.events.log", "false");
 		return properties;
 	}
 	
 	/**
-	 * 		Bean que popula um objeto BasicDataSource com informaes referentes ao banco,
+	 * 		Bean que popula um objeto BasicDataSource com informações referentes ao banco,
 	 * como a url, o driver e o login
 	 * 
-	 * @return DataSource j preenchido
+	 * @return DataSource já preenchido
 	 */
 	@Bean
 	public DataSource getDataSource() {
@@ -57,6 +78,7 @@ public class PersistenceConfig {
 				+ "autoReconnect=true&"
 				+ "useUnicode=true&"
 				+ "createDatabaseIfNotExist=true&"
+				+ "rewriteBatchedStatements=true&"
 				+ "characterEncoding=utf-8");
 		dataSource.setUsername("root");
 		dataSource.setPassword("root132");
@@ -65,10 +87,10 @@ public class PersistenceConfig {
 	
 	/**
 	 *  	Bean que popula um objeto LocalSessionFactoryBean com o DataSource contendo
-	 *  as informaes de conexo com o banco, as propriedades configuradas para o Hibernate,
+	 *  as informações de conexão com o banco, as propriedades configuradas para o Hibernate,
 	 *  e o pacote com os modelos para o ORM.
 	 *  
-	 * @return LocalSessionFactoryBean j populado
+	 * @return LocalSessionFactoryBean já populado
 	 */
 	@Bean							
 	public LocalSessionFactoryBean getSessionFactory() {
@@ -81,11 +103,11 @@ public class PersistenceConfig {
 	}
 
 	/**
-	 * 		Bean que popula um objeto HibernateTransactionManager, que cuida da conexo com
-	 * o banco de dados,  com a LocalSessionFactory j populada com todas as informaes que
-	 * o Hibernate precisa pra iniciar uma conexo.
+	 * 		Bean que popula um objeto HibernateTransactionManager, que cuida da conexão com
+	 * o banco de dados,  com a LocalSessionFactory já populada com todas as informações que
+	 * o Hibernate precisa pra iniciar uma conexão.
 	 * 
-	 * @return HibernateTrasactionManager pronto para iniciar uma conexo com o banco
+	 * @return HibernateTrasactionManager pronto para iniciar uma conexão com o banco
 	 */
 	@Bean
 	@Autowired
@@ -1,5 +1,6 @@
 package br.com.lupus.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -8,13 +9,15 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import br.com.lupus.config.filters.JWTFilter;
+import br.com.lupus.config.filters.LimiteRequisicaoFilter;
 import br.com.lupus.models.Permissao;
 
 /**
- * <h1>	Classe de configurao do Spring Security </h1>
- * <p>	Configura os end-points liberados e os quais necessitam autenticao </p>
+ * <h1>	Classe de configuração do Spring Security </h1>
+ * <p>	Configura os end-points liberados e os quais necessitam autenticação </p>
  * <p> 	Desativa o csrf e mantem ativado o cors </p>
- * <p>	Define o filtro utilizado para fazer a autenticao e a o tipo de autenticao </p>
+ * <p>	Define o filtro utilizado para fazer a autenticação e a o tipo de autenticação </p>
+ * <p>	Define o filtro que limita a taxa de requisições de cada usuário </p>
  * 
  * @author Mateus A.S
  */
@@ -22,17 +25,25 @@ import br.com.lupus.models.Permissao;
 @EnableWebSecurity
 public class SecurityConfig extends WebSecurityConfigurerAdapter{
 
+	@Autowired
+	private JWTFilter jwtFilter;
+
+	@Autowired
+	private LimiteRequisicaoFilter limiteRequisicaoFilter;
+
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
 		http.sessionManagement()
 								.sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
 								.authorizeRequests()
-								.antMatchers("/api/v1/jwt", "/app/**", "/assets/**").permitAll()
-								.antMatchers("/api/v1/usuario/**").hasAuthority(Permissao.ADMINISTRADOR.toString())
+								.antMatchers("/api/v1/jwt", "/api/v1/jwt/refresh", "/app/**", "/assets/**").permitAll()
+								.antMatchers("/api/v1/usuario/**", "/api/v1/cache/**", "/api/v1/snapshot/**", "/api/v1/metricas/**").hasAuthority(Permissao.ADMINISTRADOR.toString())
 								.anyRequest().authenticated()
 								.and()
 								.csrf().disable()
 								.cors();
-		http.addFilterBefore(new JWTFilter(), UsernamePasswordAuthenticationFilter.class);
+		http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+		// Após o JWTFilter, para que o limite seja aplicado por usuário
+		http.addFilterAfter(limiteRequisicaoFilter, JWTFilter.class);
 	}
 }
@@ -1,25 +1,35 @@
 package br.com.lupus.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import br.com.lupus.config.interceptors.CompartimentoInterceptor;
+
 /**
- * <h1> Classe de configurao do Spring MVC </h1>
+ * <h1> Classe de configuração do Spring MVC </h1>
  * 
  * @author Mateus A.S
  */
 @Configuration
 @EnableWebMvc
+@EnableScheduling
 @ComponentScan("br.com.lupus")
 @Import(value = PersistenceConfig.class)
 public class WebConfig implements WebMvcConfigurer {
+
+	@Autowired
+	private CompartimentoInterceptor compartimentoInterceptor;
 	
 	/**
 	 * 
-	 * 		Mtodo que mapeia ao Spring onde esto os pacotes de recursos livres de acesso pblico (resources).
+	 * 		Método que mapeia ao Spring onde estão os pacotes de recursos livres de acesso público (resources).
 	 */
 	@Override
 	public void addResourceHandlers(ResourceHandlerRegistry registry) {
@@ -32,4 +42,15 @@ public class WebConfig implements WebMvcConfigurer {
 			.addResourceHandler("/resources/**")
 			.addResourceLocations("/resources/");
 	}
+
+	/**
+	 * 
+	 * 		Método que registra o interceptor dos compartimentos (bulkheads) dos controllers da API.
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry
+			.addInterceptor(compartimentoInterceptor)
+			.addPathPatterns("/api/v1/**");
+	}
 }
@@ -1,26 +1,37 @@
 package br.com.lupus.config.filters;
 
 import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.GenericFilterBean;
 
-import br.com.lupus.models.Usuario;
+import br.com.lupus.services.RevogacaoService;
 import br.com.lupus.utils.JwtUtils;
+import br.com.lupus.utils.JwtUtils.TokenVerificado;
 
 /**
- * 	Filtro utilizado para validar se existe um token na requisio, e se sim, validar o prprio token
+ * 	Filtro utilizado para validar se existe um token na requisição, e se sim, validar o próprio token.
+ * Tokens de usuários desativados ou alterados após a emissão são recusados pelas revogações em memória
  * 
  * 	@author Mateus A.S
  */
 @Component
 public class JWTFilter extends GenericFilterBean {
 
+	/** Formato do header authorization, o grupo 1 é o token */
+	private static final Pattern BEARER = Pattern.compile("Bearer ([\\w.\\-]+)");
+
+	@Autowired
+	private RevogacaoService revogacaoService;
+
 	@Override
 	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
 			throws IOException, ServletException {
@@ -28,18 +39,17 @@ public class JWTFilter extends GenericFilterBean {
 		String authorization = request.getHeader("authorization");
 		if (authorization != null) {
 
-			if (authorization.matches("(Bearer )(\\w|\\.|\\-)+")) {
-				String token = authorization.split(" ")[1];
-
+			Matcher matcher = BEARER.matcher(authorization);
+			if (matcher.matches()) {
 				try {
-					JwtUtils.validarToken(token);
-					Usuario usuarioToken = JwtUtils.getUsuarioToken(token);
-					SecurityContextHolder.getContext().setAuthentication(usuarioToken);
+					TokenVerificado token = JwtUtils.verificarToken(matcher.group(1));
+					if (!revogacaoService.isRevogado(token.getId(), token.getEmissao()))
+						SecurityContextHolder.getContext().setAuthentication(token.criarUsuario());
 				} catch (Exception e) {
-					// Token invlido
+					// Token inválido
 				}
 			} else {
-				// Formato do Token invlido
+				// Formato do Token inválido
 			}
 		} else {
 			// Token nulo
@@ -0,0 +1,55 @@
+package br.com.lupus.config.filters;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import br.com.lupus.models.Usuario;
+import br.com.lupus.services.LimiteRequisicaoService;
+
+/**
+ * 	Filtro que limita a taxa de requisições à API de cada usuário (ou IP, se não autenticado), executado após o
+ * JWTFilter. Requisições acima do limite recebem 429 (TOO MANY REQUESTS) com o header Retry-After, antes de chegar
+ * ao DispatcherServlet. Não é executado novamente no despacho assíncrono do login
+ * 
+ * 	@author Mateus A.S
+ */
+@Component
+public class LimiteRequisicaoFilter extends OncePerRequestFilter {
+
+	private static final String PREFIXO_API = "/api/v1/";
+
+	private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+	@Autowired
+	private LimiteRequisicaoService limiteRequisicaoService;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String caminho = URL_PATH_HELPER.getPathWithinApplication(request);
+		if (caminho.startsWith(PREFIXO_API)) {
+			Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+			Long usuarioId = autenticacao instanceof Usuario ? ((Usuario) autenticacao).getId() : null;
+			long espera = limiteRequisicaoService.consumir(usuarioId, request.getRemoteAddr(), request.getMethod(),
+					caminho, parametro -> request.getParameter(parametro) != null);
+			if (espera > 0) {
+				// 429 - TOO MANY REQUESTS
+				response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(espera));
+				response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+				return;
+			}
+		}
+		chain.doFilter(request, response);
+	}
+}
@@ -0,0 +1,23 @@
+package br.com.lupus.config.interceptors;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Define o compartimento (bulkhead) do controller: os end-points de
+ * controllers do mesmo compartimento dividem um limite de requisições
+ * simultâneas, ajustado pela latência observada (ver CompartimentoService)
+ *
+ * @author Mateus A.S
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Compartimento {
+
+	/** Nome do compartimento */
+	String value();
+}
@@ -0,0 +1,98 @@
+package br.com.lupus.config.interceptors;
+
+import java.io.IOException;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import br.com.lupus.services.CompartimentoService;
+import br.com.lupus.services.CompartimentoService.Vaga;
+
+/**
+ * 	Interceptor que ocupa uma vaga do compartimento do controller antes da execução do end-point e a libera ao
+ * fim da requisição. Se o compartimento estiver cheio a requisição é recusada imediatamente com 503 (SERVICE
+ * UNAVAILABLE) e o header Retry-After, em vez de aguardar uma conexão com a base de dados. Nas requisições
+ * assíncronas (login) a vaga é liberada somente ao fim do processamento assíncrono
+ * 
+ * 	@author Mateus A.S
+ */
+@Component
+public class CompartimentoInterceptor implements AsyncHandlerInterceptor {
+
+	/** Atributo da requisição que guarda a vaga ocupada */
+	private static final String ATRIBUTO = CompartimentoInterceptor.class.getName();
+
+	@Autowired
+	private CompartimentoService compartimentoService;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		// O despacho assíncrono continua a requisição que já ocupou a vaga
+		if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC)
+			return true;
+		Compartimento compartimento = ((HandlerMethod) handler).getBeanType().getAnnotation(Compartimento.class);
+		if (compartimento == null)
+			return true;
+		Vaga vaga = compartimentoService.ocupar(compartimento.value());
+		if (vaga == null) {
+			// 503 - SERVICE UNAVAILABLE
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(CompartimentoService.TENTAR_APOS));
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			return false;
+		}
+		request.setAttribute(ATRIBUTO, vaga);
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		Vaga vaga = (Vaga) request.getAttribute(ATRIBUTO);
+		if (vaga == null)
+			return;
+		request.removeAttribute(ATRIBUTO);
+		request.getAsyncContext().addListener(new AsyncListener() {
+
+			@Override
+			public void onComplete(AsyncEvent event) throws IOException {
+				vaga.liberar(isFalha((HttpServletResponse) event.getSuppliedResponse()));
+			}
+
+			@Override
+			public void onTimeout(AsyncEvent event) throws IOException {
+				vaga.liberar(true);
+			}
+
+			@Override
+			public void onError(AsyncEvent event) throws IOException {
+				vaga.liberar(true);
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) throws IOException {
+			}
+		});
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		Vaga vaga = (Vaga) request.getAttribute(ATRIBUTO);
+		if (vaga == null)
+			return;
+		request.removeAttribute(ATRIBUTO);
+		vaga.liberar(ex != null || isFalha(response));
+	}
+
+	private static boolean isFalha(HttpServletResponse response) {
+		return response != null && response.getStatus() >= 500;
+	}
+}
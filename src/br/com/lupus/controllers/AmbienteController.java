@@ -1,6 +1,10 @@
 package br.com.lupus.controllers;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -13,16 +17,21 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.com.lupus.config.interceptors.Compartimento;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.exceptions.UnprocessableEntityException;
 import br.com.lupus.models.Ambiente;
-import br.com.lupus.models.Item;
-import br.com.lupus.models.TipoItem;
-import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.AmbienteResumo;
+import br.com.lupus.models.serializer.Visao;
 import br.com.lupus.services.AmbienteService;
+import br.com.lupus.services.LocalizacaoService;
 import br.com.lupus.utils.BindingResultUtils;
+import br.com.lupus.utils.JsonStreamUtils;
+import br.com.lupus.utils.PaginacaoUtils;
 
 /**
  * Controller com os end-points relacionados ao CRUD de ambientes no sistema
@@ -30,24 +39,87 @@ import br.com.lupus.utils.BindingResultUtils;
  * @author Mateus A.S
  */
 @RestController
+@Compartimento("ambiente")
 @RequestMapping("/api/v1/ambiente")
 public class AmbienteController {
 
 	@Autowired
 	public AmbienteService ambienteService;
 
+	@Autowired
+	private LocalizacaoService localizacaoService;
+
 	/**
-	 * End-point de URL /api/v1/ambiente - Retorna ao cliente que fez a requisio
-	 * um array de objetos JSON representando os ambientes cadastrados no sistema
+	 * End-point de URL /api/v1/ambiente - Retorna ao cliente que fez a requisição
+	 * um array de objetos JSON representando uma página dos ambientes cadastrados
+	 * no sistema. O cursor da próxima página é retornado no header
+	 * x-proximo-cursor
 	 * 
-	 * @return ResponseEntity populado com os ambientes cadastrados no sistema
+	 * @param cursor
+	 *            id do último registro da página anterior (ausente na primeira página)
+	 * @param limit
+	 *            quantidade de registros da página (padrão 50, máximo 500)
+	 * @param sort
+	 *            direção da ordenação pelo id (asc / desc)
+	 * @return ResponseEntity populado com os ambientes da página
 	 */
 	@GetMapping
-	public ResponseEntity<Object> listarAmbientes() {
+	public ResponseEntity<Object> listarAmbientes(@RequestParam(value = "cursor", required = false) Long cursor,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "sort", required = false) String sort,
+			@RequestParam(value = "fields", required = false) String fields) {
 		try {
 			// 200 - OK
-			Ambiente.setParametros(new Ambiente(), "id", "descricao");
-			return ResponseEntity.ok(ambienteService.buscarAmbientes());
+			int limite = PaginacaoUtils.limitar(limit);
+			return PaginacaoUtils.pagina(ambienteService.buscarAmbientes(cursor, limite, Ordenacao.de(sort)),
+					limite, AmbienteResumo::getId, Ambiente.RESUMO.restringir(fields).getProjecao());
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/ambiente/exportar - Escreve no corpo da resposta, por
+	 * streaming, um array de objetos JSON representando todos os ambientes cadastrados
+	 * no sistema. Os registros são lidos e escritos um a um, mantendo o uso de
+	 * memória constante independente do tamanho da tabela.
+	 * Se a leitura falhar após o início da escrita o array não é fechado, de
+	 * forma que a resposta incompleta não é um JSON válido
+	 * 
+	 * @param fields
+	 *            campos a serem retornados (ex.: id,tipo.nome), ausente para todos
+	 * @param response
+	 *            resposta em que o array é escrito
+	 * @throws IOException
+	 *             disparada se não for possível escrever no corpo da resposta
+	 */
+	@GetMapping("/exportar")
+	public void exportarAmbientes(@RequestParam(value = "fields", required = false) String fields,
+			HttpServletResponse response) throws IOException {
+		JsonStreamUtils.exportar(response, Ambiente.RESUMO.restringir(fields).getProjecao(),
+				ambienteService::exportarAmbientes);
+	}
+
+	/**
+	 * End-point de URL /api/v1/ambiente/contagens - Retorna ao cliente um array com o id e a
+	 * quantidade de itens de cada ambiente ({id, total}). Com o parâmetro tipo
+	 * retorna a matriz ambiente x tipo ({ambiente, tipo, total}), restrita aos
+	 * ids informados ou completa se o parâmetro estiver vazio
+	 * 
+	 * @param tipos
+	 *            ids dos tipos da matriz (ex.: ?tipo=1,2), ausente para a contagem simples
+	 * @return ResponseEntity populado com as contagens com status 200 (OK) ou 500
+	 *         (INTERNAL SERVER ERROR)
+	 */
+	@GetMapping("/contagens")
+	public ResponseEntity<Object> contarItens(@RequestParam(value = "tipo", required = false) List<Long> tipos) {
+		try {
+			// 200 - OK
+			if (tipos == null)
+				return ResponseEntity.ok(ambienteService.contarItens());
+			return ResponseEntity.ok(ambienteService.contarItensPorTipo(tipos));
 		} catch (Exception e) {
 			// 500 - INTERNAL SERVER ERROR
 			e.printStackTrace();
@@ -57,23 +129,58 @@ public class AmbienteController {
 
 	/**
 	 * End-point de URL /api/v1/ambiente/{id do ambiente procurado} - Retorna ao
-	 * cliente que fez a requisio um objeto JSON representando o ambiente
+	 * cliente que fez a requisição um objeto JSON representando o ambiente
 	 * solicitado
 	 * 
 	 * @param id
 	 *            id presente na URL para procura do ambiente
+	 * @param fields
+	 *            campos a serem retornados (ex.: id,tipo.nome), ausente para todos
 	 * @return ResponseEntity populado com o ambiente solicitado com status 200
 	 *         (OK), 404 (NOT FOUND) ou 500 (INTERNAL SERVER ERROR)
 	 */
 	@GetMapping("/{id}")
-	public ResponseEntity<Object> buscarAmbiente(@PathVariable Long id) {
+	public ResponseEntity<Object> buscarAmbiente(@PathVariable Long id,
+			@RequestParam(value = "fields", required = false) String fields) {
+		try {
+			// 200 - OK
+			Visao visao = Ambiente.DETALHE.restringir(fields);
+			return ResponseEntity.ok(visao.aplicar(ambienteService.buscarAmbiente(id, visao)));
+		} catch (EntityNotFound e) {
+			// 404 - NOT FOUND
+			return ResponseEntity.notFound().build();
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/ambiente/{id do ambiente}/itens - Retorna ao
+	 * cliente um array com os ids dos itens que se encontram no ambiente,
+	 * respondido pelo índice de localização em memória. Com o parâmetro em são
+	 * retornados os itens que se encontravam no ambiente no instante, reconstruídos
+	 * a partir da fotografia de localização mais próxima. Itens cadastrados após o
+	 * instante não são retornados; a exclusão de itens não é registrada, portanto
+	 * itens já excluídos podem ser retornados e itens excluídos após o instante
+	 * podem ser omitidos
+	 * 
+	 * @param id
+	 *            id presente na URL para procura do ambiente
+	 * @param em
+	 *            instante consultado, em milissegundos desde 01/01/1970 (ausente para
+	 *            os itens atuais)
+	 * @return ResponseEntity populado com os ids dos itens com status 200 (OK),
+	 *         404 (NOT FOUND) ou 500 (INTERNAL SERVER ERROR)
+	 */
+	@GetMapping("/{id}/itens")
+	public ResponseEntity<Object> buscarItensAmbiente(@PathVariable Long id,
+			@RequestParam(value = "em", required = false) Long em) {
 		try {
 			// 200 - OK
-			Ambiente.setParametros(new Ambiente(), "id", "descricao", "cadastrante", "itens");
-			Usuario.setParametros(new Usuario(), "id", "nome", "ativo");
-			Item.setParametros(new Item(), "id", "tipo");
-			TipoItem.setParametros(new TipoItem(), "nome");
-			return ResponseEntity.ok(ambienteService.buscarAmbiente(id));
+			return ResponseEntity.ok(
+					em == null ? localizacaoService.buscarItens(id) : localizacaoService.buscarItens(id, new Date(em)));
 		} catch (EntityNotFound e) {
 			// 404 - NOT FOUND
 			return ResponseEntity.notFound().build();
@@ -86,13 +193,13 @@ public class AmbienteController {
 
 	/**
 	 * End-point de URL /api/v1/ambiente - Recebe um objeto JSON no corpo da
-	 * requisio representando um ambiente a ser cadastrado, o end-point valida ele
+	 * requisição representando um ambiente a ser cadastrado, o end-point valida ele
 	 * e tenta persistir, se o processo ocorrer com sucesso retorna um status 204
 	 * 
 	 * @param ambiente
 	 *            ambiente a ser cadastrado
 	 * @param brAmbiente
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @return ResponseEntity populado com status 202 (OK - NO CONTENT), 422
 	 *         (UNPROCESSABLE ENTITY) ou 500 (INTERNAL SERVER ERROR)
 	 */
@@ -114,8 +221,8 @@ public class AmbienteController {
 
 	/**
 	 * End-point de URL /api/v1/ambiente/{id do ambiente a ser editado} - Recebe no
-	 * corpo da requisio um objeto JSON representando um ambiente a ser editado, o
-	 * end-point valida ele e tenta editar no id informado na url da requisio, se
+	 * corpo da requisição um objeto JSON representando um ambiente a ser editado, o
+	 * end-point valida ele e tenta editar no id informado na url da requisição, se
 	 * o processo ocorrer com sucesso retorna o ambiente editado
 	 * 
 	 * @param id
@@ -123,7 +230,7 @@ public class AmbienteController {
 	 * @param ambiente
 	 *            objeto ambiente com os valores a serem alterados
 	 * @param brAmbiente
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * 
 	 * @return ResponseEntity populado com o ambiente editado com status 202 (OK -
 	 *         NO CONTENT), 404 (NOT FOUND), 422 (UNPROCESSABLE ENTITY) ou 500
@@ -135,9 +242,8 @@ public class AmbienteController {
 		try {
 			// 200 - OK
 			ambiente.setId(id);
-			Ambiente.setParametros(new Ambiente(), "id", "descricao", "cadastrante");
-			Usuario.setParametros(new Usuario(), "id", "nome", "email", "permissao", "ativo");
-			return ResponseEntity.ok(ambienteService.atualizar(ambiente, brAmbiente));
+			return ResponseEntity.ok(Ambiente.EDICAO.aplicar(
+					ambienteService.atualizar(ambiente, brAmbiente)));
 		} catch (EntityNotFound e) {
 			// 404 - NOT FOUND
 			return ResponseEntity.notFound().build();
@@ -154,9 +260,9 @@ public class AmbienteController {
 	/**
 	 * End-point de URL /api/v1/ambiente/{id do ambiente a ser deletado} - Recebe na
 	 * URL o id de um ambiente a ser excluido, retornando no ResponseEntity o status
-	 * 202 se tudo ocorrer bem, 404 se o ambiente referente no existir, 422 se
-	 * existirem itens apontando para este ambiente e 500 para outros possveis
-	 * erros no tratados
+	 * 202 se tudo ocorrer bem, 404 se o ambiente referente não existir, 422 se
+	 * existirem itens apontando para este ambiente e 500 para outros possíveis
+	 * erros não tratados
 	 * 
 	 * @param id
 	 *            id do ambiente a ser excluido
@@ -1,11 +1,15 @@
 package br.com.lupus.controllers;
 
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -14,56 +18,112 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
+
+import br.com.lupus.config.interceptors.Compartimento;
 import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.exceptions.ServiceUnavailableException;
 import br.com.lupus.exceptions.UnprocessableEntityException;
 import br.com.lupus.models.Usuario;
+import br.com.lupus.services.AutenticacaoService;
 import br.com.lupus.services.UsuarioService;
 import br.com.lupus.utils.BindingResultUtils;
 import br.com.lupus.utils.JwtUtils;
 
 /**
- * 	Controller de autenticao
- * 	Contm um end-point que recebe um usuario e valida ele,
- * caso a validao for bem sucedida, retorna um 
- * token ao usurio de acesso a aplicao.
+ * 	Controller de autenticação
+ * 	Contém um end-point que recebe um usuario e valida ele,
+ * caso a validação for bem sucedida, retorna um 
+ * token ao usuário de acesso a aplicação.
+ * 	Contém também o end-point que troca o token de renovação
+ * por um novo par de tokens.
  * 
  * @author Mateus A.S
  */
 @RestController
+@Compartimento("auth")
 @RequestMapping(value = "/api/v1")
 public class AutenticacaoController {
 	
 	@Autowired
 	private UsuarioService usuarioService;
+
+	@Autowired
+	private AutenticacaoService autenticacaoService;
 	
 	/**
 	 *	End point de URL /api/v1/jwt
-	 *	Recebe um usurio na requisio, valida ele para poder retornar um token de acesso ao cliente
+	 *	Recebe um usuário na requisição, valida ele para poder retornar um token de acesso ao cliente.
+	 *	A senha é verificada no pool de autenticação, liberando a thread da requisição até a resposta
 	 *
-	 * @param usuario usurio populado com o email e a senha para tentativa de autenticao
-	 * @param brUsuario BindingResult com possveis erros de validao
-	 * @return token
+	 * @param usuario usuário populado com o email e a senha para tentativa de autenticação
+	 * @param brUsuario BindingResult com possíveis erros de validação
+	 * @return token de acesso e token de renovação com status 200 (OK), 404 (NOT FOUND), 422 (UNPROCESSABLE
+	 *         ENTITY), 503 (SERVICE UNAVAILABLE) ou 500 (INTERNAL SERVER ERROR)
 	 */
 	@PostMapping("/jwt")
-	public ResponseEntity<Object> autenticar(@Valid @RequestBody Usuario usuario, BindingResult brUsuario){
+	public CompletableFuture<ResponseEntity<Object>> autenticar(@Valid @RequestBody Usuario usuario, BindingResult brUsuario){
 		try {
-			// 200 - OK
-			Usuario authUser = usuarioService.getEmailSenha(usuario, brUsuario);
-			Map<String, String> tokenMap = new HashMap<>();
-			tokenMap.put("token", JwtUtils.getToken(authUser));
-			return ResponseEntity.ok(tokenMap);
+			return autenticacaoService.autenticar(usuario, brUsuario).handle(this::responderAutenticacao);
 		} catch (UnprocessableEntityException e) {
 			// 422 - UNPROCESSABLE  ENTITY
 			List<String> fields = new ArrayList<>();
 			fields.add("email");
 			fields.add("senha");
-			return ResponseEntity.unprocessableEntity().body(BindingResultUtils.toHashMap(brUsuario, fields));
+			return CompletableFuture.completedFuture(
+					ResponseEntity.unprocessableEntity().body(BindingResultUtils.toHashMap(brUsuario, fields)));
+		} catch (ServiceUnavailableException e) {
+			// 503 - SERVICE UNAVAILABLE
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getTentarApos())).build());
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+		}
+	}
+
+	/**
+	 *	End point de URL /api/v1/jwt/refresh
+	 *	Recebe o token de renovação (campo tokenRenovacao) e retorna ao cliente um novo par de tokens. O token
+	 *	de renovação recebido é invalidado, o cliente deve guardar o novo
+	 *
+	 * @param corpo objeto JSON com o token de renovação
+	 * @return token de acesso e token de renovação com status 200 (OK), 401 (UNAUTHORIZED) ou 500
+	 *         (INTERNAL SERVER ERROR)
+	 */
+	@PostMapping("/jwt/refresh")
+	public ResponseEntity<Object> renovar(@RequestBody Map<String, String> corpo) {
+		try {
+			// 200 - OK
+			return ResponseEntity.ok(criarTokens(usuarioService.renovar(corpo.get("tokenRenovacao"))));
+		} catch (JWTVerificationException e) {
+			// 401 - UNAUTHORIZED
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+		}
+	}
+
+	private ResponseEntity<Object> responderAutenticacao(Usuario authUser, Throwable erro) {
+		try {
+			if (erro != null)
+				throw erro instanceof CompletionException ? erro.getCause() : erro;
+			// 200 - OK
+			return ResponseEntity.ok(criarTokens(authUser));
 		} catch (EntityNotFound e) {
 			// 404 - NOT FOUND
 			return ResponseEntity.notFound().build();
-		} catch (Exception e) {
+		} catch (Throwable e) {
 			// 500 - INTERNAL SERVER ERROR
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
 		}
 	}
+
+	private Map<String, String> criarTokens(Usuario usuario) throws UnsupportedEncodingException {
+		Map<String, String> tokenMap = new HashMap<>();
+		tokenMap.put("token", JwtUtils.getToken(usuario));
+		tokenMap.put("tokenRenovacao", JwtUtils.getTokenRenovacao(usuario));
+		return tokenMap;
+	}
 }
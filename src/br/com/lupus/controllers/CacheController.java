@@ -0,0 +1,88 @@
+package br.com.lupus.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.lupus.services.CacheService;
+
+/**
+ * Controller com os end-points de acompanhamento do cache de segundo nível.
+ * Necessita de permissão de administrador para acessar qualquer um dos
+ * end-points
+ * 
+ * @author Mateus A.S
+ */
+@RestController
+@RequestMapping("/api/v1/cache")
+public class CacheController {
+
+	@Autowired
+	private CacheService cacheService;
+
+	/**
+	 * End-point de URL /api/v1/cache - Retorna ao cliente que fez a requisição um
+	 * objeto JSON com as estatísticas (hits, misses, puts e registros em memória)
+	 * de cada região do cache
+	 * 
+	 * @return ResponseEntity populado com as estatísticas das regiões
+	 */
+	@GetMapping
+	public ResponseEntity<Object> buscarEstatisticas() {
+		try {
+			// 200 - OK
+			return ResponseEntity.ok(cacheService.buscarEstatisticas());
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/cache/estatisticas - Liga ou desliga a coleta das
+	 * estatísticas retornadas em /api/v1/cache
+	 * 
+	 * @param habilitadas
+	 *            true para coletar as estatísticas
+	 * @return ResponseEntity com status 202 (OK - NO CONTENT) ou 500 (INTERNAL
+	 *         SERVER ERROR)
+	 */
+	@PutMapping("/estatisticas")
+	public ResponseEntity<Object> habilitarEstatisticas(@RequestParam("habilitadas") boolean habilitadas) {
+		try {
+			// 202 - OK / NO CONTENT
+			cacheService.habilitarEstatisticas(habilitadas);
+			return ResponseEntity.noContent().build();
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/cache - Limpa todas as regiões do cache
+	 * 
+	 * @return ResponseEntity com status 202 (OK - NO CONTENT) ou 500 (INTERNAL
+	 *         SERVER ERROR)
+	 */
+	@DeleteMapping
+	public ResponseEntity<Object> limpar() {
+		try {
+			// 202 - OK / NO CONTENT
+			cacheService.limpar();
+			return ResponseEntity.noContent().build();
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
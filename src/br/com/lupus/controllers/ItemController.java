@@ -1,9 +1,15 @@
 package br.com.lupus.controllers;
 
+import java.io.IOException;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -15,19 +21,24 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.com.lupus.config.interceptors.Compartimento;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.exceptions.ConflictException;
 import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.exceptions.UnprocessableEntityException;
-import br.com.lupus.models.Ambiente;
 import br.com.lupus.models.Item;
 import br.com.lupus.models.Movimentacao;
-import br.com.lupus.models.TipoItem;
-import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.ItemResumo;
+import br.com.lupus.models.serializer.Visao;
 import br.com.lupus.services.ItemService;
+import br.com.lupus.services.LocalizacaoService;
 import br.com.lupus.services.MovimentacaoService;
 import br.com.lupus.utils.BindingResultUtils;
+import br.com.lupus.utils.JsonStreamUtils;
+import br.com.lupus.utils.PaginacaoUtils;
 
 /**
  * Controller com os end-points relacionados ao CRUD de itens no sistema
@@ -35,6 +46,7 @@ import br.com.lupus.utils.BindingResultUtils;
  * @author Mateus A.S
  */
 @RestController
+@Compartimento("item")
 @RequestMapping("/api/v1/item")
 public class ItemController {
 
@@ -44,19 +56,32 @@ public class ItemController {
 	@Autowired
 	private MovimentacaoService movimentacaoService;
 
+	@Autowired
+	private LocalizacaoService localizacaoService;
+
 	/**
-	 * End-point de URL /api/v1/item - Retorna ao cliente que fez a requisio um
-	 * array de objetos JSON representando os itens cadastrados no sistema
+	 * End-point de URL /api/v1/item - Retorna ao cliente que fez a requisição um
+	 * array de objetos JSON representando uma página dos itens cadastrados no
+	 * sistema. O cursor da próxima página é retornado no header x-proximo-cursor
 	 * 
-	 * @return ResponseEntity populado com os itens cadastrados no sistema
+	 * @param cursor
+	 *            id do último registro da página anterior (ausente na primeira página)
+	 * @param limit
+	 *            quantidade de registros da página (padrão 50, máximo 500)
+	 * @param sort
+	 *            direção da ordenação pelo id (asc / desc)
+	 * @return ResponseEntity populado com os itens da página
 	 */
 	@GetMapping
-	private ResponseEntity<Object> listarItens() {
+	private ResponseEntity<Object> listarItens(@RequestParam(value = "cursor", required = false) Long cursor,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "sort", required = false) String sort,
+			@RequestParam(value = "fields", required = false) String fields) {
 		try {
 			// 200 - OK
-			Item.setParametros(new Item(), "id", "tipo");
-			TipoItem.setParametros(new TipoItem(), "id", "nome");
-			return ResponseEntity.ok(itemService.buscarItens());
+			int limite = PaginacaoUtils.limitar(limit);
+			return PaginacaoUtils.pagina(itemService.buscarItens(cursor, limite, Ordenacao.de(sort)), limite,
+					ItemResumo::getId, Item.RESUMO.restringir(fields).getProjecao());
 		} catch (Exception e) {
 			// 500 - INTERNAL SERVER ERROR
 			e.printStackTrace();
@@ -64,41 +89,98 @@ public class ItemController {
 		}
 	}
 
+	/**
+	 * End-point de URL /api/v1/item/exportar - Escreve no corpo da resposta, por
+	 * streaming, um array de objetos JSON representando todos os itens cadastrados
+	 * no sistema. Os registros são lidos e escritos um a um, mantendo o uso de
+	 * memória constante independente do tamanho da tabela.
+	 * Se a leitura falhar após o início da escrita o array não é fechado, de
+	 * forma que a resposta incompleta não é um JSON válido
+	 * 
+	 * @param fields
+	 *            campos a serem retornados (ex.: id,tipo.nome), ausente para todos
+	 * @param response
+	 *            resposta em que o array é escrito
+	 * @throws IOException
+	 *             disparada se não for possível escrever no corpo da resposta
+	 */
+	@GetMapping("/exportar")
+	public void exportarItens(@RequestParam(value = "fields", required = false) String fields,
+			HttpServletResponse response) throws IOException {
+		JsonStreamUtils.exportar(response, Item.RESUMO.restringir(fields).getProjecao(), itemService::exportarItens);
+	}
+
 	/**
 	 * End-point de URL /api/v1/item/{id do item procurado} - Retorna ao cliente que
-	 * fez a requisio um objeto JSON representando o item solicitado
+	 * fez a requisição um objeto JSON representando o item solicitado
 	 * 
 	 * @param id
 	 *            id presente na URL para procura do item
+	 * @param fields
+	 *            campos a serem retornados (ex.: id,tipo.nome), ausente para todos
 	 * @return ResponseEntity populado com o item solicitado
 	 */
 	@GetMapping("/{id}")
-	private ResponseEntity<Object> buscarItem(@PathVariable Long id) {
+	private ResponseEntity<Object> buscarItem(@PathVariable Long id,
+			@RequestParam(value = "fields", required = false) String fields) {
+		try {
+			// 200 - OK
+			Visao visao = Item.DETALHE.restringir(fields);
+			return ResponseEntity.ok(visao.aplicar(itemService.buscar(id, visao)));
+		} catch (EntityNotFound e) {
+			// 404 - NOT FOUND
+			return ResponseEntity.notFound().build();
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/item/{id do item procurado}/localizacao - Retorna ao
+	 * cliente um objeto JSON com o id do item e o id do ambiente em que ele se
+	 * encontra, respondido pelo índice de localização em memória. Com o parâmetro
+	 * em é retornado o ambiente em que o item se encontrava no instante, respondido
+	 * pelo histórico de movimentações do item, ou 404 se o item foi cadastrado após
+	 * o instante
+	 * 
+	 * @param id
+	 *            id presente na URL para procura do item
+	 * @param em
+	 *            instante consultado, em milissegundos desde 01/01/1970 (ausente para
+	 *            a localização atual)
+	 * @return ResponseEntity populado com a localização do item com status 200
+	 *         (OK), 404 (NOT FOUND) ou 500 (INTERNAL SERVER ERROR)
+	 */
+	@GetMapping("/{id}/localizacao")
+	public ResponseEntity<Object> buscarLocalizacao(@PathVariable Long id,
+			@RequestParam(value = "em", required = false) Long em) {
 		try {
 			// 200 - OK
-			Item.setParametros(new Item(), "id", "tipo", "cadastrante", "ambienteAtual");
-			TipoItem.setParametros(new TipoItem(), "id", "nome");
-			Usuario.setParametros(new Usuario(), "id", "nome", "email", "ativo");
-			Ambiente.setParametros(new Ambiente(), "id", "descricao");
-			return ResponseEntity.ok(itemService.buscar(id));
+			HashMap<String, Long> localizacao = new HashMap<>();
+			localizacao.put("item", id);
+			localizacao.put("ambiente",
+					em == null ? localizacaoService.buscarAmbiente(id) : localizacaoService.buscarAmbiente(id, new Date(em)));
+			return ResponseEntity.ok(localizacao);
 		} catch (EntityNotFound e) {
 			// 404 - NOT FOUND
 			return ResponseEntity.notFound().build();
 		} catch (Exception e) {
 			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
 			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
 
 	/**
-	 * End-point de URL /api/v1/item - Recebe um objeto JSON no corpo da requisio
+	 * End-point de URL /api/v1/item - Recebe um objeto JSON no corpo da requisição
 	 * representando um item a ser cadastrado, o end-point valida ele e tenta
 	 * persistir, se o processo ocorrer com sucesso retorna um status 204
 	 * 
 	 * @param item
 	 *            item a ser cadastrado
 	 * @param brItem
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @return ResponseEntity com status 202
 	 */
 	@PostMapping
@@ -116,10 +198,36 @@ public class ItemController {
 		}
 	}
 
+	/**
+	 * End-point de URL /api/v1/item/lote - Recebe no corpo da requisição uma lista
+	 * de itens a serem cadastrados, um por linha, em NDJSON (content-type
+	 * application/x-ndjson) ou CSV (content-type text/csv, colunas
+	 * tipo_id,ambiente_id). O corpo é lido e persistido em lotes, as linhas
+	 * inválidas são rejeitadas sem interromper a importação
+	 * 
+	 * @param request
+	 *            requisição com a lista de itens no corpo
+	 * @return ResponseEntity populado com o relatório da importação (itens
+	 *         importados e erros por linha) com status 200 (OK) ou 500 (INTERNAL
+	 *         SERVER ERROR)
+	 */
+	@PostMapping("/lote")
+	public ResponseEntity<Object> importarItens(HttpServletRequest request) {
+		try {
+			// 200 - OK
+			boolean csv = request.getContentType() != null && request.getContentType().startsWith("text/csv");
+			return ResponseEntity.ok(itemService.importar(request.getReader(), csv));
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
 	/**
 	 * End-point de URL /api/v1/item/{id do item a ser editado} - Recebe no
-	 * corpo da requisio um objeto JSON representando um item a ser editado, o
-	 * end-point valida ele e tenta editar no id informado na url da requisio, se
+	 * corpo da requisição um objeto JSON representando um item a ser editado, o
+	 * end-point valida ele e tenta editar no id informado na url da requisição, se
 	 * o processo ocorrer com sucesso retorna o item editado
 	 * 
 	 * @param id
@@ -127,8 +235,8 @@ public class ItemController {
 	 * @param item
 	 *            objeto item com os valores a serem alterados
 	 * @return ResponseEntity populado com o item editado com status 202 (OK -
-	 *         NO CONTENT), 404 (NOT FOUND), 422 (UNPROCESSABLE ENTITY) ou 500
-	 *         (INTERNAL SERVER ERROR)
+	 *         NO CONTENT), 404 (NOT FOUND), 409 (CONFLICT), 422 (UNPROCESSABLE
+	 *         ENTITY) ou 500 (INTERNAL SERVER ERROR)
 	 */
 	@PutMapping("/{id}")
 	public ResponseEntity<Object> editarItem(@PathVariable Long id, @Valid @RequestBody Item item,
@@ -136,17 +244,18 @@ public class ItemController {
 		try {
 			// 200 - OK
 			item.setId(id);
-			Item.setParametros(new Item(), "id", "tipo", "cadastrante", "ambienteAtual");
-			TipoItem.setParametros(new TipoItem(), "id", "nome");
-			Usuario.setParametros(new Usuario(), "id", "nome", "email", "permissao", "ativo");
-			Ambiente.setParametros(new Ambiente(), "id", "descricao");
-			return ResponseEntity.ok(itemService.atualizar(item, brItem));
+			return ResponseEntity.ok(Item.EDICAO.aplicar(itemService.atualizar(item, brItem)));
 		} catch (EntityNotFound e) {
 			// 404 - NOT FOUND
 			return ResponseEntity.notFound().build();
 		} catch (UnprocessableEntityException e) {
 			// 422 - UNPROCESSABLE ENTITY
 			return ResponseEntity.unprocessableEntity().body(BindingResultUtils.toHashMap(brItem));
+		} catch (OptimisticLockingFailureException e) {
+			// 409 - CONFLICT
+			HashMap<String, String> map = new HashMap<>();
+			map.put("x-motivo", "O item foi alterado por outra requisição, tente novamente");
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(map);
 		} catch (Exception e) {
 			// 500 - INTERNAL SERVER ERROR
 			e.printStackTrace();
@@ -157,8 +266,8 @@ public class ItemController {
 	/**
 	 * End-point de URL /api/v1/item/{id do item a ser deletado} - Recebe na URL o
 	 * id de um item a ser excluido, retornando no ResponseEntity o status 202 se
-	 * tudo ocorrer bem, 404 se o item referente no existir e 500 para outros
-	 * possveis erros no tratados
+	 * tudo ocorrer bem, 404 se o item referente não existir e 500 para outros
+	 * possíveis erros não tratados
 	 * 
 	 * @param id
 	 *            id do item a ser excluido
@@ -180,19 +289,51 @@ public class ItemController {
 		}
 	}
 	
+	/**
+	 * End-point de URL /api/v1/item/movimenta/{id do ambiente de destino} - Recebe
+	 * no corpo da requisição um array com os ids dos itens a serem movimentados
+	 * para o ambiente informado na URL. Os itens que já se encontram no ambiente
+	 * são ignorados e os ids inexistentes são apenas reportados
+	 * 
+	 * @param ambienteId
+	 *            id do ambiente de destino
+	 * @param itens
+	 *            ids dos itens a serem movimentados
+	 * @return ResponseEntity populado com as movimentações registradas, os itens
+	 *         ignorados e os não encontrados com status 200 (OK), 404 (NOT FOUND),
+	 *         422 (UNPROCESSABLE ENTITY) ou 500 (INTERNAL SERVER ERROR)
+	 */
+	@PatchMapping("/movimenta/{ambienteId}")
+	public ResponseEntity<Object> movimentarLote(@PathVariable Long ambienteId, @RequestBody List<Long> itens) {
+		try {
+			// 200 - OK
+			return ResponseEntity.ok(Movimentacao.REGISTRO.aplicar(
+					movimentacaoService.movimentarLote(itens, ambienteId)));
+		} catch (EntityNotFound e) {
+			// 404 - NOT FOUND
+			return ResponseEntity.notFound().build();
+		} catch (UnprocessableEntityException e) {
+			// 422 - UNPROCESSABLE ENTITY
+			HashMap<String, String> map = new HashMap<>();
+			map.put("itens", "Informe entre 1 e " + MovimentacaoService.LIMITE_LOTE_MOVIMENTACAO + " itens");
+			return ResponseEntity.unprocessableEntity().body(map);
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
 	@PatchMapping("/{itemId}/movimenta/{ambienteId}")
 	public ResponseEntity<Object> movimentar(@PathVariable Long itemId, @PathVariable Long ambienteId) {
 		try {
-			Movimentacao.setParametros(new Movimentacao(), "id", "dataMovimentacao", "itemMovimentado", "ambienteAnterior", "ambientePosterior", "movimentador");
-			Item.setParametros(new Item(), "id");
-			Ambiente.setParametros(new Ambiente(), "id");
-			Usuario.setParametros(new Usuario(), "id", "nome", "permissao", "ativo");
-			return ResponseEntity.ok(movimentacaoService.movimentar(itemId, ambienteId));
+			return ResponseEntity.ok(Movimentacao.REGISTRO.aplicar(
+					movimentacaoService.movimentar(itemId, ambienteId)));
 		} catch (EntityNotFound e) {
 			return ResponseEntity.notFound().build();
 		} catch (ConflictException e) {
 			HashMap<String, String> map = new HashMap<>();
-			map.put("x-motivo", "O item j se encontra nesse ambiente");
+			map.put("x-motivo", e.getMessage() != null ? e.getMessage() : "O item já se encontra nesse ambiente");
 			return ResponseEntity.status(HttpStatus.CONFLICT).body(map);
 		}
 	}
@@ -0,0 +1,68 @@
+package br.com.lupus.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.lupus.services.CompartimentoService;
+import br.com.lupus.services.LimiteRequisicaoService;
+
+/**
+ * Controller com os end-points de acompanhamento do controle de carga da API.
+ * Necessita de permissão de administrador para acessar qualquer um dos
+ * end-points
+ * 
+ * @author Mateus A.S
+ */
+@RestController
+@RequestMapping("/api/v1/metricas")
+public class MetricaController {
+
+	@Autowired
+	private LimiteRequisicaoService limiteRequisicaoService;
+
+	@Autowired
+	private CompartimentoService compartimentoService;
+
+	/**
+	 * End-point de URL /api/v1/metricas/limite - Retorna ao cliente que fez a
+	 * requisição um objeto JSON com a configuração do limite de requisições e a
+	 * quantidade de requisições permitidas e rejeitadas (total e por rota)
+	 * 
+	 * @return ResponseEntity populado com as estatísticas do limite de requisições
+	 */
+	@GetMapping("/limite")
+	public ResponseEntity<Object> buscarEstatisticasLimite() {
+		try {
+			// 200 - OK
+			return ResponseEntity.ok(limiteRequisicaoService.buscarEstatisticas());
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/metricas/compartimentos - Retorna ao cliente que fez
+	 * a requisição um objeto JSON com o limite atual, as vagas ocupadas, a latência
+	 * mínima e as requisições permitidas, recusadas e com falha de cada
+	 * compartimento
+	 * 
+	 * @return ResponseEntity populado com as estatísticas dos compartimentos
+	 */
+	@GetMapping("/compartimentos")
+	public ResponseEntity<Object> buscarEstatisticasCompartimentos() {
+		try {
+			// 200 - OK
+			return ResponseEntity.ok(compartimentoService.buscarEstatisticas());
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package br.com.lupus.controllers;
+
+import java.io.IOException;
+import java.util.Date;
+
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.lupus.config.interceptors.Compartimento;
+import br.com.lupus.dao.CursorMovimentacao;
+import br.com.lupus.dao.FiltroMovimentacao;
+import br.com.lupus.dao.Ordenacao;
+import br.com.lupus.models.Movimentacao;
+import br.com.lupus.services.MovimentacaoService;
+import br.com.lupus.utils.JsonStreamUtils;
+import br.com.lupus.utils.PaginacaoUtils;
+
+/**
+ * Controller com os end-points de consulta das movimentações registradas no
+ * sistema
+ * 
+ * @author Mateus A.S
+ */
+@RestController
+@Compartimento("movimentacao")
+@RequestMapping("/api/v1/movimentacao")
+public class MovimentacaoController {
+
+	@Autowired
+	private MovimentacaoService movimentacaoService;
+
+	/**
+	 * End-point de URL /api/v1/movimentacao - Retorna ao cliente um array de
+	 * objetos JSON representando uma página do histórico de movimentações,
+	 * ordenada pela data e pelo id. O cursor da próxima página é retornado no
+	 * header x-proximo-cursor
+	 * 
+	 * @param item
+	 *            id do item movimentado
+	 * @param ambiente
+	 *            id do ambiente de origem ou de destino
+	 * @param movimentador
+	 *            id do usuário que efetuou a movimentação
+	 * @param de
+	 *            início do período em milissegundos (inclusivo)
+	 * @param ate
+	 *            fim do período em milissegundos (exclusivo)
+	 * @param cursor
+	 *            cursor retornado pela página anterior (ausente na primeira página)
+	 * @param limit
+	 *            quantidade de registros da página (padrão 50, máximo 500)
+	 * @param sort
+	 *            direção da ordenação pela data (asc / desc)
+	 * @param fields
+	 *            campos a serem retornados (ex.: id,dataMovimentacao), ausente para
+	 *            todos
+	 * @return ResponseEntity populado com as movimentações da página com status
+	 *         200 (OK), 400 (BAD REQUEST) se o cursor for inválido ou 500
+	 *         (INTERNAL SERVER ERROR)
+	 */
+	@GetMapping
+	public ResponseEntity<Object> listarMovimentacoes(@RequestParam(value = "item", required = false) Long item,
+			@RequestParam(value = "ambiente", required = false) Long ambiente,
+			@RequestParam(value = "movimentador", required = false) Long movimentador,
+			@RequestParam(value = "de", required = false) Long de,
+			@RequestParam(value = "ate", required = false) Long ate,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "sort", required = false) String sort,
+			@RequestParam(value = "fields", required = false) String fields) {
+		try {
+			// 200 - OK
+			int limite = PaginacaoUtils.limitar(limit);
+			FiltroMovimentacao filtro = new FiltroMovimentacao(item, ambiente, movimentador,
+					de == null ? null : new Date(de), ate == null ? null : new Date(ate));
+			return PaginacaoUtils.pagina(
+					movimentacaoService.buscarHistorico(filtro, CursorMovimentacao.de(cursor), limite,
+							Ordenacao.de(sort)),
+					limite, CursorMovimentacao::de, Movimentacao.HISTORICO.restringir(fields).getProjecao());
+		} catch (IllegalArgumentException e) {
+			// 400 - BAD REQUEST
+			return ResponseEntity.badRequest().build();
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/movimentacao/exportar - Escreve no corpo da
+	 * resposta, por streaming, um array de objetos JSON representando todas as
+	 * movimentações registradas no sistema. Os registros são lidos e escritos um a
+	 * um, mantendo o uso de memória constante independente do tamanho da tabela.
+	 * Se a leitura falhar após o início da escrita o array não é fechado, de
+	 * forma que a resposta incompleta não é um JSON válido
+	 * 
+	 * @param fields
+	 *            campos a serem retornados (ex.: id,tipo.nome), ausente para todos
+	 * @param response
+	 *            resposta em que o array é escrito
+	 * @throws IOException
+	 *             disparada se não for possível escrever no corpo da resposta
+	 */
+	@GetMapping("/exportar")
+	public void exportarMovimentacoes(@RequestParam(value = "fields", required = false) String fields,
+			HttpServletResponse response) throws IOException {
+		JsonStreamUtils.exportar(response, Movimentacao.EXPORTACAO.restringir(fields).getProjecao(),
+				movimentacaoService::exportarMovimentacoes);
+	}
+}
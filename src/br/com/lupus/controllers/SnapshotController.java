@@ -0,0 +1,89 @@
+package br.com.lupus.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.lupus.services.LocalizacaoService;
+import br.com.lupus.services.SnapshotLocalizacaoService;
+
+/**
+ * Controller com os end-points de manutenção das fotografias de localização dos
+ * itens e do ambiente atual gravado em cada item. Necessita de permissão de
+ * administrador para acessar qualquer um dos end-points
+ * 
+ * @author Mateus A.S
+ */
+@RestController
+@RequestMapping("/api/v1/snapshot")
+public class SnapshotController {
+
+	@Autowired
+	private SnapshotLocalizacaoService snapshotService;
+
+	@Autowired
+	private LocalizacaoService localizacaoService;
+
+	/**
+	 * End-point de URL /api/v1/snapshot - Grava uma fotografia da localização atual
+	 * de todos os itens, sem aguardar o agendamento
+	 * 
+	 * @return ResponseEntity populado com os dados da fotografia gravada com status
+	 *         200 (OK) ou 500 (INTERNAL SERVER ERROR)
+	 */
+	@PostMapping
+	public ResponseEntity<Object> gerar() {
+		try {
+			// 200 - OK
+			return ResponseEntity.ok(snapshotService.gerar());
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/snapshot/verificacao - Retorna ao cliente um array
+	 * de objetos JSON com os itens cujo ambiente atual diverge do obtido pela
+	 * reprodução das movimentações a partir da última fotografia
+	 * 
+	 * @return ResponseEntity populado com as divergências com status 200 (OK) ou
+	 *         500 (INTERNAL SERVER ERROR)
+	 */
+	@GetMapping("/verificacao")
+	public ResponseEntity<Object> verificar() {
+		try {
+			// 200 - OK
+			return ResponseEntity.ok(snapshotService.verificar());
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * End-point de URL /api/v1/snapshot/reconstrucao - Corrige o ambiente atual dos
+	 * itens divergentes a partir das movimentações e retorna ao cliente um array de
+	 * objetos JSON com as divergências corrigidas
+	 * 
+	 * @return ResponseEntity populado com as divergências corrigidas com status 200
+	 *         (OK) ou 500 (INTERNAL SERVER ERROR)
+	 */
+	@PostMapping("/reconstrucao")
+	public ResponseEntity<Object> reconstruir() {
+		try {
+			// 200 - OK
+			return ResponseEntity.ok(localizacaoService.corrigirDivergencias());
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
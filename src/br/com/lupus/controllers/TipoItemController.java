@@ -15,16 +15,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.com.lupus.config.interceptors.Compartimento;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.exceptions.UnprocessableEntityException;
-import br.com.lupus.models.Item;
 import br.com.lupus.models.TipoItem;
 import br.com.lupus.models.TipoItemTag;
-import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.TipoItemResumo;
+import br.com.lupus.models.serializer.Visao;
 import br.com.lupus.services.TipoItemService;
 import br.com.lupus.utils.BindingResultUtils;
+import br.com.lupus.utils.PaginacaoUtils;
 
 /**
  * Controller com os end-points relacionados ao CRUD dos tipos dos itens no
@@ -33,6 +37,7 @@ import br.com.lupus.utils.BindingResultUtils;
  * @author Mateus A.S
  */
 @RestController
+@Compartimento("tipo")
 @RequestMapping("/api/v1/item/tipos")
 public class TipoItemController {
 
@@ -40,39 +45,76 @@ public class TipoItemController {
 	private TipoItemService tipoItemService;
 
 	/**
-	 * End-point de URL /api/v1/item/tipos - Retorna ao cliente que fez a requisio
-	 * um array de objetos JSON representando os tipo-itens cadastrados no sistema
+	 * End-point de URL /api/v1/item/tipos - Retorna ao cliente que fez a requisição
+	 * um array de objetos JSON representando uma página dos tipo-itens cadastrados
+	 * no sistema. O cursor da próxima página é retornado no header
+	 * x-proximo-cursor
 	 * 
-	 * @return ResponseEntity populado com os tipo-itens cadastrados no sistema
+	 * @param cursor
+	 *            id do último registro da página anterior (ausente na primeira página)
+	 * @param limit
+	 *            quantidade de registros da página (padrão 50, máximo 500)
+	 * @param sort
+	 *            direção da ordenação pelo id (asc / desc)
+	 * @return ResponseEntity populado com os tipo-itens da página
 	 */
 	@GetMapping
-	private ResponseEntity<Object> listatTipos() {
+	private ResponseEntity<Object> listatTipos(@RequestParam(value = "cursor", required = false) Long cursor,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "sort", required = false) String sort,
+			@RequestParam(value = "fields", required = false) String fields) {
 		try {
-			TipoItem.setParametros(new TipoItem(), "id", "nome");
-			return ResponseEntity.ok(tipoItemService.buscarTipos());
+			int limite = PaginacaoUtils.limitar(limit);
+			return PaginacaoUtils.pagina(tipoItemService.buscarTipos(cursor, limite, Ordenacao.de(sort)), limite,
+					TipoItemResumo::getId, TipoItem.RESUMO.restringir(fields).getProjecao());
 		} catch (Exception e) {
 			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
 
+	/**
+	 * End-point de URL /api/v1/item/tipos/contagens - Retorna ao cliente um array com o id e a
+	 * quantidade de itens de cada tipo-item ({id, total}). Com o parâmetro ambiente
+	 * retorna a matriz ambiente x tipo ({ambiente, tipo, total}), restrita aos
+	 * ids informados ou completa se o parâmetro estiver vazio
+	 * 
+	 * @param ambientes
+	 *            ids dos ambientes da matriz (ex.: ?ambiente=1,2), ausente para a contagem simples
+	 * @return ResponseEntity populado com as contagens com status 200 (OK) ou 500
+	 *         (INTERNAL SERVER ERROR)
+	 */
+	@GetMapping("/contagens")
+	public ResponseEntity<Object> contarItens(@RequestParam(value = "ambiente", required = false) List<Long> ambientes) {
+		try {
+			// 200 - OK
+			if (ambientes == null)
+				return ResponseEntity.ok(tipoItemService.contarItens());
+			return ResponseEntity.ok(tipoItemService.contarItensPorAmbiente(ambientes));
+		} catch (Exception e) {
+			// 500 - INTERNAL SERVER ERROR
+			e.printStackTrace();
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
 	/**
 	 * End-point de URL /api/v1/item/tipos/{id do tipo-item procurado} - Retorna ao
-	 * cliente que fez a requisio um objeto JSON representando o tipo-item
+	 * cliente que fez a requisição um objeto JSON representando o tipo-item
 	 * solicitado
 	 * 
 	 * @param id
 	 *            id presente na URL para procura do tipo-item
+	 * @param fields
+	 *            campos a serem retornados (ex.: id,tipo.nome), ausente para todos
 	 * @return ResponseEntity populado com o tipo-item solicitado com status 200
 	 *         (OK), 404 (NOT FOUND) ou 500 (INTERNAL SERVER ERROR)
 	 */
 	@GetMapping("/{id}")
-	private ResponseEntity<Object> buscarTipo(@PathVariable Long id) {
+	private ResponseEntity<Object> buscarTipo(@PathVariable Long id,
+			@RequestParam(value = "fields", required = false) String fields) {
 		try {
-			TipoItem.setParametros(new TipoItem(), "id", "nome", "cadastrante", "tagsAnexadas", "itensAnexados");
-			Usuario.setParametros(new Usuario(), "id", "nome", "email", "permissao", "ativo");
-			TipoItemTag.setParametros(new TipoItemTag(), "id", "cabecalho", "corpo", "tipo");
-			Item.setParametros(new Item(), "id");
-			return ResponseEntity.ok(tipoItemService.buscaTipo(id));
+			Visao visao = TipoItem.DETALHE.restringir(fields);
+			return ResponseEntity.ok(visao.aplicar(tipoItemService.buscaTipo(id, visao)));
 		} catch (EntityNotFound e) {
 			return ResponseEntity.notFound().build();
 		} catch (Exception e) {
@@ -82,14 +124,14 @@ public class TipoItemController {
 
 	/**
 	 * End-point de URL /api/v1/item/tipos - Recebe um objeto JSON no corpo da
-	 * requisio representando um tipo-item a ser cadastrado, o end-point valida
+	 * requisição representando um tipo-item a ser cadastrado, o end-point valida
 	 * ele e tenta persistir, se o processo ocorrer com sucesso retorna um status
 	 * 204
 	 * 
 	 * @param tipoitem
 	 *            tipo-item a ser cadastrado
 	 * @param brTipo
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @return ResponseEntity populado com status 202 (OK - NO CONTENT), 422
 	 *         (UNPROCESSABLE ENTITY) ou 500 (INTERNAL SERVER ERROR)
 	 */
@@ -107,16 +149,16 @@ public class TipoItemController {
 
 	/**
 	 * End-point de URL /api/v1/item/tipos/{id do tipo-item a ser editado} - Recebe
-	 * no corpo da requisio um objeto JSON representando um tipo-item a ser
+	 * no corpo da requisição um objeto JSON representando um tipo-item a ser
 	 * editado, o end-point valida ele e tenta editar no id informado na url da
-	 * requisio, se o processo ocorrer com sucesso retorna o tipo-item editado
+	 * requisição, se o processo ocorrer com sucesso retorna o tipo-item editado
 	 * 
 	 * @param id
 	 *            id do tipo-item a ser editado
 	 * @param tipoItem
 	 *            objeto tipo-item com os valores a serem alterados
 	 * @param brTipo
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @return ResponseEntity populado com o tipo-item editado com status 202 (OK -
 	 *         NO CONTENT), 404 (NOT FOUND), 422 (UNPROCESSABLE ENTITY) ou 500
 	 *         (INTERNAL SERVER ERROR)
@@ -126,7 +168,8 @@ public class TipoItemController {
 			BindingResult brTipo) {
 		try {
 			tipoItem.setId(id);
-			return ResponseEntity.ok(tipoItemService.editarTipo(tipoItem, brTipo));
+			return ResponseEntity.ok(TipoItem.RESUMO.aplicar(
+					tipoItemService.editarTipo(tipoItem, brTipo)));
 		} catch (UnprocessableEntityException e) {
 			return ResponseEntity.unprocessableEntity().body(BindingResultUtils.toHashMap(brTipo));
 		} catch (Exception e) {
@@ -137,9 +180,9 @@ public class TipoItemController {
 	/**
 	 * End-point de URL /api/v1/item/tipos/{id do tipo-item a ser deletado} - Recebe
 	 * na URL o id de um tipo-item a ser excluido, retornando no ResponseEntity o
-	 * status 202 se tudo ocorrer bem, 404 se o tipo-item referente no existir, 422
-	 * se existirem itens apontando para este tipo-item e 500 para outros possveis
-	 * erros no tratados
+	 * status 202 se tudo ocorrer bem, 404 se o tipo-item referente não existir, 422
+	 * se existirem itens apontando para este tipo-item e 500 para outros possíveis
+	 * erros não tratados
 	 * 
 	 * @param id
 	 *            id do tipo-item a ser excluido
@@ -165,10 +208,10 @@ public class TipoItemController {
 	/**
 	 * End-point de URL /api/v1/item/tipos/{id do tipo-item referente a tag}/tag -
 	 * Recebe na URL o id de um tipo-item a ser adicionado a tag presente no body,
-	 * se a tag for vlida, insere a tag apontando para o tipo-item referente ao id
+	 * se a tag for válida, insere a tag apontando para o tipo-item referente ao id
 	 * passado. Retorna um ResponseEntity com status 202 se tudo ocorrer bem, 404 se
-	 * o tipo-item referente no existir, 422 se hover erros de validao na tag e
-	 * 500 para outros possveis erros no tratados
+	 * o tipo-item referente não existir, 422 se hover erros de validação na tag e
+	 * 500 para outros possíveis erros não tratados
 	 * 
 	 * @param id
 	 *            id do tipo-item referente a tag
@@ -193,9 +236,9 @@ public class TipoItemController {
 	/**
 	 * End-point de URL /api/v1/item/tipos/{id do tipo-item referente as tags}/tags
 	 * - Recebe na URL o id de um tipo-item a ser adicionado as tags presente no
-	 * body, percorre todas as tags, persistindo somente as vlidas. Retorna um
+	 * body, percorre todas as tags, persistindo somente as válidas. Retorna um
 	 * ResponseEntity com status 202 se tudo ocorrer bem, 404 se o tipo-item
-	 * referente no existir e 500 para outros possveis erros no tratado
+	 * referente não existir e 500 para outros possíveis erros não tratado
 	 * 
 	 * @param id
 	 *            id do tipo-item referente a tag
@@ -8,17 +8,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.com.lupus.config.interceptors.Compartimento;
 import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.services.TipoItemTagService;
 
 /**
- * Controller com os end-points relacionados ao CRUD de usurios no sistema
- * Necessita de permisso de administrador para acessar qualquer um dos
+ * Controller com os end-points relacionados ao CRUD de usuários no sistema
+ * Necessita de permissão de administrador para acessar qualquer um dos
  * end-points
  * 
  * @author Mateus A.S
  */
 @RestController
+@Compartimento("tipo")
 @RequestMapping("/api/v1/item/tipo/tag")
 public class TipoItemTagController {
 
@@ -28,8 +30,8 @@ public class TipoItemTagController {
 	/**
 	 * End-point de URL /api/v1/item/tipo/tag/{id da tag a ser deletada} - Recebe na
 	 * URL o id de uma tag a ser excluida, retornando no ResponseEntity o status
-	 * 202 se tudo ocorrer bem, 404 se a tag referente no existir e 500 para outros possveis
-	 * erros no tratados
+	 * 202 se tudo ocorrer bem, 404 se a tag referente não existir e 500 para outros possíveis
+	 * erros não tratados
 	 * 
 	 * @param id
 	 *            id da tag a ser excluida
@@ -11,22 +11,28 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.com.lupus.config.interceptors.Compartimento;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.exceptions.UnprocessableEntityException;
 import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.UsuarioResumo;
 import br.com.lupus.services.UsuarioService;
 import br.com.lupus.utils.BindingResultUtils;
+import br.com.lupus.utils.PaginacaoUtils;
 
 /**
- * Controller com os end-points relacionados ao CRUD de usurios no sistema
- * Necessita de permisso de administrador para acessar qualquer um dos
+ * Controller com os end-points relacionados ao CRUD de usuários no sistema
+ * Necessita de permissão de administrador para acessar qualquer um dos
  * end-points
  * 
  * @author Mateus A.S
  */
 @RestController
+@Compartimento("usuario")
 @RequestMapping("/api/v1/usuario")
 public class UsuarioController {
 
@@ -34,17 +40,28 @@ public class UsuarioController {
 	private UsuarioService usuarioService;
 
 	/**
-	 * End-point de URL /api/v1/usuario - Retorna ao cliente que fez a requisio um
-	 * array de objetos JSON representando os usurios cadastrados no sistema
+	 * End-point de URL /api/v1/usuario - Retorna ao cliente que fez a requisição um
+	 * array de objetos JSON representando uma página dos usuários cadastrados no
+	 * sistema. O cursor da próxima página é retornado no header x-proximo-cursor
 	 * 
-	 * @return ResponseEntity populado com os usurios cadastrados no sistema
+	 * @param cursor
+	 *            id do último registro da página anterior (ausente na primeira página)
+	 * @param limit
+	 *            quantidade de registros da página (padrão 50, máximo 500)
+	 * @param sort
+	 *            direção da ordenação pelo id (asc / desc)
+	 * @return ResponseEntity populado com os usuários da página
 	 */
 	@GetMapping("")
-	public ResponseEntity<Object> listarUsuarios() {
+	public ResponseEntity<Object> listarUsuarios(@RequestParam(value = "cursor", required = false) Long cursor,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "sort", required = false) String sort,
+			@RequestParam(value = "fields", required = false) String fields) {
 		try {
 			// 200 - OK
-			Usuario.setParametros(new Usuario(), "id", "nome", "email", "dataNascimento", "permissao", "ativo");
-			return ResponseEntity.ok(usuarioService.buscarTodos());
+			int limite = PaginacaoUtils.limitar(limit);
+			return PaginacaoUtils.pagina(usuarioService.buscarTodos(cursor, limite, Ordenacao.de(sort)), limite,
+					UsuarioResumo::getId, Usuario.PADRAO.restringir(fields).getProjecao());
 		} catch (Exception e) {
 			// 500 - INTERNAL SERVER ERROR
 			e.printStackTrace();
@@ -54,19 +71,21 @@ public class UsuarioController {
 
 	/**
 	 * End-point de URL /api/v1/usuario/{id do usuario procurado} - Retorna ao
-	 * cliente que fez a requisio um objeto JSON representando o usurio
+	 * cliente que fez a requisição um objeto JSON representando o usuário
 	 * solicitado
 	 * 
 	 * @param id
-	 *            id presente na URL para procura do usurio
-	 * @return ResponseEntity populado com o usurio solicitado
+	 *            id presente na URL para procura do usuário
+	 * @param fields
+	 *            campos a serem retornados (ex.: id,tipo.nome), ausente para todos
+	 * @return ResponseEntity populado com o usuário solicitado
 	 */
 	@GetMapping("/{id}")
-	public ResponseEntity<Object> buscarUsuario(@PathVariable Long id) {
+	public ResponseEntity<Object> buscarUsuario(@PathVariable Long id,
+			@RequestParam(value = "fields", required = false) String fields) {
 		try {
 			// 200 - OK
-			Usuario.setParametros(new Usuario(), "id", "nome", "email", "dataNascimento", "permissao", "ativo");
-			return ResponseEntity.ok(usuarioService.buscar(id));
+			return ResponseEntity.ok(Usuario.PADRAO.restringir(fields).aplicar(usuarioService.buscar(id)));
 		} catch (EntityNotFound e) {
 			// 404 - NOT FOUND
 			return ResponseEntity.notFound().build();
@@ -78,14 +97,14 @@ public class UsuarioController {
 	}
 
 	/**
-	 * End-point de URL /api/v1/usuario - Recebe no corpo da requisio um objeto
-	 * JSON representando um usurio a ser cadastrado, o end-point valida ele e
+	 * End-point de URL /api/v1/usuario - Recebe no corpo da requisição um objeto
+	 * JSON representando um usuário a ser cadastrado, o end-point valida ele e
 	 * tenta persistir, se o processo ocorrer com sucesso retorna um status 204
 	 * 
 	 * @param usuario
-	 *            usurio a ser cadastrado
+	 *            usuário a ser cadastrado
 	 * @param brUsuario
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @return ResponseEntity com status 202
 	 */
 	@PostMapping("")
@@ -106,15 +125,15 @@ public class UsuarioController {
 
 	/**
 	 * End-point de URL /api/v1/usuario/{id do usuario a ser editado} - Recebe no
-	 * corpo da requisio um objeto JSON representando um usurio a ser editado, o
-	 * end-point valida ele e tenta editar no id informado na url da requisio, se
-	 * o processo ocorrer com sucesso retorna o usurio editado
+	 * corpo da requisição um objeto JSON representando um usuário a ser editado, o
+	 * end-point valida ele e tenta editar no id informado na url da requisição, se
+	 * o processo ocorrer com sucesso retorna o usuário editado
 	 * 
 	 * @param id
-	 *            id do usurio a ser editado
+	 *            id do usuário a ser editado
 	 * @param usuario
 	 *            objeto usuario com os valores a serem alterados
-	 * @return ResponseEntity populado com o usurio editado
+	 * @return ResponseEntity populado com o usuário editado
 	 */
 	@PutMapping("/{id}")
 	public ResponseEntity<Object> editarUsuario(@PathVariable Long id, @Valid @RequestBody Usuario usuario,
@@ -122,8 +141,8 @@ public class UsuarioController {
 		try {
 			// 200 - OK
 			usuario.setId(id);
-			Usuario.setParametros(new Usuario(), "id", "nome", "email", "dataNascimento", "permissao", "ativo");
-			return ResponseEntity.ok(usuarioService.atualizar(usuario, brUsuario));
+			return ResponseEntity.ok(Usuario.PADRAO.aplicar(
+					usuarioService.atualizar(usuario, brUsuario)));
 		} catch (UnprocessableEntityException e) {
 			// 422 - UNPROCESSABLE ENTITY
 			return ResponseEntity.unprocessableEntity().body(BindingResultUtils.toHashMap(brUsuario));
@@ -136,19 +155,18 @@ public class UsuarioController {
 
 	/**
 	 * End-point de URL /api/v1/usuario/desativar/{id do usuario a ser desativado} -
-	 * Recebe na url o id de um usurio a ser desativado, se o usurio existir
-	 * desativa e retorna o usurio que foi desativado
+	 * Recebe na url o id de um usuário a ser desativado, se o usuário existir
+	 * desativa e retorna o usuário que foi desativado
 	 * 
 	 * @param id
-	 *            id do usurio a ser desativado
-	 * @return ResponseEntity populado com o usurio desativado
+	 *            id do usuário a ser desativado
+	 * @return ResponseEntity populado com o usuário desativado
 	 */
 	@PutMapping("/desativar/{id}")
 	public ResponseEntity<Object> desativarUsuario(@PathVariable Long id) {
 		try {
 			// 200 - OK
-			Usuario.setParametros(new Usuario(), "id", "nome", "email", "dataNascimento", "permissao", "ativo");
-			return ResponseEntity.ok(usuarioService.desativar(id));
+			return ResponseEntity.ok(Usuario.PADRAO.aplicar(usuarioService.desativar(id)));
 		} catch (Exception e) {
 			// 500 - INTERNAL SERVER ERROR
 			e.printStackTrace();
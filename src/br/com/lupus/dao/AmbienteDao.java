@@ -1,6 +1,17 @@
 package br.com.lupus.dao;
 
+import java.util.List;
+
+import org.springframework.transaction.annotation.Transactional;
+
 import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.dto.AmbienteResumo;
 
 public interface AmbienteDao extends DAO<Ambiente>{
+
+	@Transactional(readOnly = true)
+	public List<AmbienteResumo> buscarResumos(Long cursor, int limite, Ordenacao ordenacao);
+
+	@Transactional(readOnly = true)
+	public boolean possuiItens(Long id);
 }
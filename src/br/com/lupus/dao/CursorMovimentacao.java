@@ -0,0 +1,58 @@
+package br.com.lupus.dao;
+
+import java.util.Date;
+
+import br.com.lupus.models.Movimentacao;
+
+/**
+ * 	Posição de uma página do histórico de movimentações, ordenado pela data e pelo
+ * id. É trafegado no formato {data em milissegundos}_{id}
+ * 
+ * @author Mateus A.S
+ */
+public class CursorMovimentacao {
+
+	private final Date data;
+
+	private final Long id;
+
+	public CursorMovimentacao(Date data, Long id) {
+		this.data = data;
+		this.id = id;
+	}
+
+	/**
+	 * 	Converte o cursor recebido na requisição
+	 * 
+	 * @param valor cursor recebido na requisição (nulo na primeira página)
+	 * @return cursor convertido, ou nulo se o valor for nulo
+	 * @throws IllegalArgumentException disparada se o valor não estiver no formato do cursor
+	 */
+	public static CursorMovimentacao de(String valor) {
+		if (valor == null || valor.isEmpty())
+			return null;
+		int separador = valor.indexOf('_');
+		if (separador < 0)
+			throw new IllegalArgumentException("Cursor inválido: " + valor);
+		return new CursorMovimentacao(new Date(Long.parseLong(valor.substring(0, separador))),
+				Long.valueOf(valor.substring(separador + 1)));
+	}
+
+	/**
+	 * 	Monta o cursor que aponta para a movimentação
+	 * 
+	 * @param movimentacao última movimentação da página
+	 * @return cursor no formato {data em milissegundos}_{id}
+	 */
+	public static String de(Movimentacao movimentacao) {
+		return movimentacao.getDataMovimentacao().getTime() + "_" + movimentacao.getId();
+	}
+
+	public Date getData() {
+		return data;
+	}
+
+	public Long getId() {
+		return id;
+	}
+}
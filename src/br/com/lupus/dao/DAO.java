@@ -1,10 +1,14 @@
 package br.com.lupus.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 import org.springframework.transaction.annotation.Transactional;
 
+import br.com.lupus.models.serializer.Visao;
+
 /**
- * 	Interface abstrata dos mtodos utilizados para o CRUD das entidades
+ * 	Interface abstrata dos métodos utilizados para o CRUD das entidades
  *
  * @param <T> modelo representativo da entidade a ser realizado o CRUD
  * @author Mateus A.S
@@ -14,9 +18,27 @@ public interface DAO<T> {
 	@Transactional
 	public T buscar(Long id);
 
+	@Transactional
+	public T buscar(Long id, Visao visao);
+
+	@Transactional
+	public T referenciar(Long id);
+
+	@Transactional
+	public List<Long> buscarIds(Collection<Long> ids);
+
 	@Transactional
 	public List<T> buscarTodos();
 
+	@Transactional
+	public List<T> buscarPagina(Long cursor, int limite, Ordenacao ordenacao);
+
+	@Transactional
+	public List<T> buscarPagina(Long cursor, int limite, Ordenacao ordenacao, Visao visao);
+
+	@Transactional(readOnly = true)
+	public void percorrerTodos(Consumer<T> consumidor);
+
 	@Transactional
 	public void atualizar(T obj);
 
@@ -0,0 +1,55 @@
+package br.com.lupus.dao;
+
+import java.util.Date;
+
+/**
+ * 	Filtros da consulta do histórico de movimentações. Os filtros nulos não
+ * restringem a consulta
+ * 
+ * @author Mateus A.S
+ */
+public class FiltroMovimentacao {
+
+	/** Id do item movimentado */
+	private final Long item;
+
+	/** Id do ambiente de origem ou de destino */
+	private final Long ambiente;
+
+	/** Id do usuário que efetuou a movimentação */
+	private final Long movimentador;
+
+	/** Início do período (inclusivo) */
+	private final Date de;
+
+	/** Fim do período (exclusivo) */
+	private final Date ate;
+
+	public FiltroMovimentacao(Long item, Long ambiente, Long movimentador, Date de, Date ate) {
+		this.item = item;
+		this.ambiente = ambiente;
+		this.movimentador = movimentador;
+		this.de = de;
+		this.ate = ate;
+	}
+
+	public Long getItem() {
+		return item;
+	}
+
+	public Long getAmbiente() {
+		return ambiente;
+	}
+
+	public Long getMovimentador() {
+		return movimentador;
+	}
+
+	public Date getDe() {
+		return de;
+	}
+
+	public Date getAte() {
+		return ate;
+	}
+}
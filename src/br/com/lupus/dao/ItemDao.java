@@ -1,7 +1,37 @@
 package br.com.lupus.dao;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.lupus.models.Ambiente;
 import br.com.lupus.models.Item;
+import br.com.lupus.models.dto.ContagemCruzada;
+import br.com.lupus.models.dto.ItemResumo;
 
 public interface ItemDao extends DAO<Item> {
 
+	public List<Item> buscarParaMovimentar(Collection<Long> ids);
+
+	public int atualizarAmbiente(Collection<Long> ids, Ambiente ambiente);
+
+	public boolean mover(Long id, Ambiente origem, Ambiente destino);
+
+	@Transactional(readOnly = true)
+	public List<ItemResumo> buscarResumos(Long cursor, int limite, Ordenacao ordenacao);
+
+	@Transactional(readOnly = true)
+	public List<ContagemCruzada> contarPorAmbienteETipo(Collection<Long> ambientes, Collection<Long> tipos);
+
+	@Transactional(readOnly = true)
+	public void percorrerLocalizacoes(BiConsumer<Long, Long> consumidor);
+
+	@Transactional(readOnly = true)
+	public void percorrerCadastradosApos(Date data, BiConsumer<Long, Long> consumidor);
+
+	@Transactional(readOnly = true)
+	public void percorrerLocalizacoes(Long ambiente, BiConsumer<Long, Long> consumidor);
 }
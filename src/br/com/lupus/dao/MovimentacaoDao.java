@@ -1,6 +1,34 @@
 package br.com.lupus.dao;
 
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.springframework.transaction.annotation.Transactional;
+
 import br.com.lupus.models.Movimentacao;
 
 public interface MovimentacaoDao extends DAO<Movimentacao> {
+
+	@Transactional(readOnly = true)
+	public List<Movimentacao> buscarHistorico(FiltroMovimentacao filtro, CursorMovimentacao cursor, int limite,
+			Ordenacao ordenacao);
+
+	@Transactional(readOnly = true)
+	public Long buscarDestinoAte(Long item, Date data);
+
+	@Transactional(readOnly = true)
+	public Long buscarOrigemApos(Long item, Date data);
+
+	@Transactional(readOnly = true)
+	public void percorrerDestinos(Date inicio, Date fim, BiConsumer<Long, Long> consumidor);
+
+	@Transactional(readOnly = true)
+	public void percorrerOrigens(Date inicio, Date fim, BiConsumer<Long, Long> consumidor);
+
+	@Transactional(readOnly = true)
+	public void percorrerDestinos(Long ambiente, Date inicio, Date fim, BiConsumer<Long, Long> consumidor);
+
+	@Transactional(readOnly = true)
+	public void percorrerOrigens(Long ambiente, Date inicio, Date fim, BiConsumer<Long, Long> consumidor);
 }
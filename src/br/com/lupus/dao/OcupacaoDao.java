@@ -0,0 +1,35 @@
+package br.com.lupus.dao;
+
+import java.util.List;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.lupus.models.dto.ContagemCruzada;
+
+/**
+ * 	DAO da tabela de ocupação, com a quantidade de itens de cada tipo em cada
+ * ambiente. A tabela não é mapeada como entidade, as alterações são feitas por
+ * soma para que transações concorrentes não sobrescrevam o total uma da outra.
+ * 
+ * @author Mateus A.S
+ */
+public interface OcupacaoDao {
+
+	@Transactional
+	public void somar(Long ambiente, Long tipo, long variacao);
+
+	@Transactional(readOnly = true)
+	public List<ContagemCruzada> buscarTodas();
+
+	@Transactional(readOnly = true)
+	public List<Long> buscarAmbientes();
+
+	@Transactional(readOnly = true)
+	public List<Long> buscarTipos();
+
+	@Transactional
+	public void removerAmbiente(Long id);
+
+	@Transactional
+	public void removerTipo(Long id);
+}
@@ -0,0 +1,25 @@
+package br.com.lupus.dao;
+
+/**
+ * 	Enum que define a direção da ordenação das páginas retornadas pelos DAO's
+ * (sempre aplicada sobre o id da entidade)
+ * 
+ * @author Mateus A.S
+ */
+public enum Ordenacao {
+
+	CRESCENTE, DECRESCENTE;
+
+	/**
+	 * 	Converte o valor recebido na requisição (asc / desc) para uma constante do enum.
+	 * Valores nulos ou não reconhecidos resultam na ordenação crescente.
+	 * 
+	 * @param valor valor recebido na requisição
+	 * @return constante do enum referente ao valor
+	 */
+	public static Ordenacao de(String valor) {
+		if (valor != null && valor.equalsIgnoreCase("desc"))
+			return DECRESCENTE;
+		return CRESCENTE;
+	}
+}
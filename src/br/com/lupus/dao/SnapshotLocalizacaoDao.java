@@ -0,0 +1,35 @@
+package br.com.lupus.dao;
+
+import java.util.Date;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.lupus.models.dto.SnapshotLocalizacao;
+
+/**
+ * 	DAO das fotografias periódicas da localização dos itens. A tabela não é mapeada
+ * como entidade, os dados da fotografia e o seu conteúdo são lidos separadamente
+ * para que a escolha da fotografia não traga o conteúdo de todas as candidatas.
+ * 
+ * @author Mateus A.S
+ */
+public interface SnapshotLocalizacaoDao {
+
+	@Transactional
+	public void persistir(Date data, Long ultimaMovimentacao, int quantidadeItens, byte[] conteudo);
+
+	@Transactional(readOnly = true)
+	public Long buscarUltimaMovimentacao();
+
+	@Transactional(readOnly = true)
+	public SnapshotLocalizacao buscarUltimo();
+
+	@Transactional(readOnly = true)
+	public SnapshotLocalizacao buscarAnterior(Date data);
+
+	@Transactional(readOnly = true)
+	public SnapshotLocalizacao buscarPosterior(Date data);
+
+	@Transactional(readOnly = true)
+	public byte[] buscarConteudo(Long id);
+}
@@ -1,6 +1,17 @@
 package br.com.lupus.dao;
 
+import java.util.List;
+
+import org.springframework.transaction.annotation.Transactional;
+
 import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.dto.TipoItemResumo;
 
 public interface TipoItemDao extends DAO<TipoItem>{
+
+	@Transactional(readOnly = true)
+	public List<TipoItemResumo> buscarResumos(Long cursor, int limite, Ordenacao ordenacao);
+
+	@Transactional(readOnly = true)
+	public boolean possuiItens(Long id);
 }
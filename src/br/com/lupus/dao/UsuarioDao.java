@@ -2,14 +2,20 @@ package br.com.lupus.dao;
 
 import java.util.List;
 
+import org.springframework.transaction.annotation.Transactional;
 
 import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.UsuarioResumo;
 
 public interface UsuarioDao extends DAO<Usuario> {
 	
-	public Usuario buscar(String email, String senha);
-	
 	public Usuario buscar(String email);
 	
 	public List<Usuario> buscarTodos(boolean ativo);
+
+	@Transactional
+	public boolean atualizarSenha(Long id, String senhaAnterior, String senhaCriptografada);
+
+	@Transactional(readOnly = true)
+	public List<UsuarioResumo> buscarResumos(Long cursor, int limite, Ordenacao ordenacao);
 }
@@ -1,17 +1,31 @@
 package br.com.lupus.dao.jpa;
 
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import javax.persistence.TypedQuery;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import br.com.lupus.dao.DAO;
+import br.com.lupus.dao.Ordenacao;
+import br.com.lupus.models.serializer.Visao;
 
 /**
- * 	Classe abstrata que substitui a implementao dos mtodos comuns de todos
+ * 	Classe abstrata que substitui a implementação dos métodos comuns de todos
  * os DAO's, como inserir, alterar, deletar, buscar por id e buscar todos.
  * 
  * @param <T> POJO representativo de uma entidade
@@ -22,18 +36,118 @@ import br.com.lupus.dao.DAO;
 @Transactional
 public abstract class AbstractJPA<T> implements DAO<T> {
 
+	/** Quantidade de registros percorridos entre cada limpeza da sessão */
+	private static final int TAMANHO_LOTE_PERCURSO = 500;
+
 	@Autowired
 	protected SessionFactory sessionFactory;
 
+	/** Planos de busca das visões já compiladas, indexados pelo nome da visão */
+	private final Map<String, GrafoVisao<T>> grafos = new ConcurrentHashMap<>();
+
+	/** Classe da entidade representada pelo placeholder */
+	private final Class<T> classeEntidade;
+
+	/**
+	 * 	Construtor que resolve a classe da entidade através do placeholder declarado
+	 * pela subclasse
+	 */
+	@SuppressWarnings("unchecked")
+	protected AbstractJPA() {
+		Class<?> classe = getClass();
+		while (classe.getSuperclass() != AbstractJPA.class)
+			classe = classe.getSuperclass();
+		classeEntidade = (Class<T>) ((ParameterizedType) classe.getGenericSuperclass()).getActualTypeArguments()[0];
+	}
+
+	/**
+	 * 	Registra na SessionFactory, ao iniciar a aplicação, as consultas definidas em
+	 * getConsultas() como named queries, que são compiladas uma única vez.
+	 */
+	@PostConstruct
+	public void registrarConsultas() {
+		try (Session sessao = sessionFactory.openSession()) {
+			for (Map.Entry<String, String> consulta : getConsultas().entrySet())
+				sessionFactory.addNamedQuery(getNomeConsulta(consulta.getKey()), sessao.createQuery(consulta.getValue()));
+		}
+	}
+
+	/**
+	 * 	Define as consultas da entidade registradas como named queries (nome -> HQL).
+	 * Pode ser sobrescrito para adicionar as consultas específicas de cada DAO.
+	 * 
+	 * @return mapa com o nome e o HQL de cada consulta
+	 */
+	protected Map<String, String> getConsultas() {
+		String from = "FROM " + getNomeEntidade() + " o";
+		Map<String, String> consultas = new LinkedHashMap<>();
+		consultas.put("buscarTodos", from);
+		consultas.put("buscarPorId", from + " WHERE o.id = :id");
+		consultas.put("buscarIds", "SELECT o.id " + from + " WHERE o.id IN (:ids)");
+		consultas.put("paginaCrescente", from + " ORDER BY o.id ASC");
+		consultas.put("paginaCrescenteCursor", from + " WHERE o.id > :cursor ORDER BY o.id ASC");
+		consultas.put("paginaDecrescente", from + " ORDER BY o.id DESC");
+		consultas.put("paginaDecrescenteCursor", from + " WHERE o.id < :cursor ORDER BY o.id DESC");
+		consultas.put("percorrerTodos", getHqlPercurso());
+		String resumo = getHqlResumo();
+		if (resumo != null) {
+			consultas.put("resumoCrescente", resumo + " ORDER BY o.id ASC");
+			consultas.put("resumoCrescenteCursor", resumo + " WHERE o.id > :cursor ORDER BY o.id ASC");
+			consultas.put("resumoDecrescente", resumo + " ORDER BY o.id DESC");
+			consultas.put("resumoDecrescenteCursor", resumo + " WHERE o.id < :cursor ORDER BY o.id DESC");
+		}
+		return consultas;
+	}
+
+	/**
+	 * @param consulta nome da consulta definida em getConsultas()
+	 * @return nome com que a consulta foi registrada na SessionFactory
+	 */
+	protected String getNomeConsulta(String consulta) {
+		return getNomeEntidade() + "." + consulta;
+	}
+
 	/**
-	 * @return retorna a sesso com o banco
+	 * @param consulta nome da consulta definida em getConsultas()
+	 * @return consulta registrada, pronta para ser executada na sessão atual
+	 */
+	protected Query<T> criarConsulta(String consulta) {
+		return getSessao().createNamedQuery(getNomeConsulta(consulta), classeEntidade);
+	}
+
+	/**
+	 * 	Percorre por streaming os pares de ids (duas primeiras colunas) retornados pela
+	 * consulta, sem carregar nenhuma entidade
+	 * 
+	 * @param query consulta que seleciona os dois ids
+	 * @param consumidor recebe os dois ids de cada linha
+	 */
+	protected void percorrerPares(Query<?> query, BiConsumer<Long, Long> consumidor) {
+		query.setReadOnly(true);
+		// Valor que faz o driver do MySQL entregar as linhas por streaming
+		query.setFetchSize(Integer.MIN_VALUE);
+		try (ScrollableResults resultados = query.scroll(ScrollMode.FORWARD_ONLY)) {
+			while (resultados.next())
+				consumidor.accept(resultados.getLong(0), resultados.getLong(1));
+		}
+	}
+
+	/**
+	 * @return retorna a classe da entidade que o placeholder representa
+	 */
+	public Class<T> getClasseEntidade() {
+		return classeEntidade;
+	}
+
+	/**
+	 * @return retorna a sessão com o banco
 	 */
 	public Session getSessao() {
 		return sessionFactory.getCurrentSession();
 	}
 
 	/**
-	 * 	Mtodo que deve ser implementado na instncia dessa classe.
+	 * 	Método que deve ser implementado na instância dessa classe.
 	 * Deve retornar o nome da entidade que o placeholder representa.
 	 * @return o nome da entidade que o placeholder representa.
 	 */
@@ -56,7 +170,7 @@ public abstract class AbstractJPA<T> implements DAO<T> {
 	}
 
 	/**
-	 * Deleta um registro na entidade representada pelo placeholder atravs do id
+	 * Deleta um registro na entidade representada pelo placeholder através do id
 	 */
 	@Override
 	public void deletar(Long id) {
@@ -64,7 +178,7 @@ public abstract class AbstractJPA<T> implements DAO<T> {
 	}
 
 	/** 
-	 * Edita um registro na entidade representada pelo placeholder atravs do objeto
+	 * Edita um registro na entidade representada pelo placeholder através do objeto
 	 */
 	@Override
 	public void deletar(T obj) {
@@ -72,30 +186,183 @@ public abstract class AbstractJPA<T> implements DAO<T> {
 	}
 
 	/**
-	 * 	Retorna um modelo representativo da entidade definida pelo placeholder atravs de seu id
+	 * 	Retorna um modelo representativo da entidade definida pelo placeholder através de seu id.
+	 * A busca é feita pela chave primária, passando antes pela sessão atual e pelo cache de
+	 * segundo nível, só consultando o banco se o registro não estiver em nenhum dos dois.
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public T buscar(Long id) {
-		String hql = "FROM " + getNomeEntidade() + " o WHERE o.id = :id";
-		TypedQuery<T> query = getSessao().createQuery(hql);
-		query.setParameter("id", id);
-		List<T> lista = (List<T>) query.getResultList();
-		if(!lista.isEmpty()) {
-			return lista.get(0);
+		if (id == null)
+			return null;
+		return getSessao().get(classeEntidade, id);
+	}
+
+	/**
+	 * 	Retorna o registro da entidade definida pelo placeholder através de seu id, carregando
+	 * em uma única consulta as associações que a visão renderiza (entity graph). Quando a
+	 * visão renderiza associações a busca é feita por consulta, já que o registro servido
+	 * pelo cache de segundo nível não aplicaria o grafo e cada associação custaria um SELECT.
+	 */
+	@Override
+	public T buscar(Long id, Visao visao) {
+		if (id == null)
+			return null;
+		GrafoVisao<T> grafo = getGrafo(visao);
+		T registro;
+		if (grafo.isVazio()) {
+			registro = getSessao().find(classeEntidade, id);
+		} else {
+			Query<T> query = criarConsulta("buscarPorId").setParameter("id", id);
+			grafo.getDicas().forEach(query::setHint);
+			List<T> registros = query.getResultList();
+			registro = registros.isEmpty() ? null : registros.get(0);
 		}
-		return null;
+		if (registro != null)
+			grafo.inicializar(registro);
+		return registro;
+	}
+
+	/**
+	 * 	Retorna uma referência (proxy) para o registro da entidade definida pelo placeholder
+	 * sem consultar o banco, utilizada para apontar associações para registros que já se
+	 * sabe existirem
+	 */
+	@Override
+	public T referenciar(Long id) {
+		return getSessao().load(classeEntidade, id);
+	}
+
+	/**
+	 * 	Retorna, dentre os ids passados, os que possuem registro na entidade definida pelo
+	 * placeholder, em uma única consulta
+	 */
+	@Override
+	public List<Long> buscarIds(Collection<Long> ids) {
+		if (ids.isEmpty())
+			return new ArrayList<>();
+		return getSessao().createNamedQuery(getNomeConsulta("buscarIds"), Long.class).setParameter("ids", ids)
+				.getResultList();
 	}
 
 	/**
 	 * Retona todos os registros da entidade defina pelo placeholder populadas no modelo definido pelo placeholder
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public List<T> buscarTodos() {
-		String hql = "FROM " + getNomeEntidade();
-		TypedQuery<T> query = getSessao().createQuery(hql);
+		return criarConsulta("buscarTodos").getResultList();
+	}
+
+	/**
+	 * 	Retorna uma página de registros da entidade definida pelo placeholder através de
+	 * uma consulta por chave (keyset), ordenada pelo id e iniciada após o id do cursor.
+	 * O custo da consulta não cresce com a profundidade da página.
+	 */
+	@Override
+	public List<T> buscarPagina(Long cursor, int limite, Ordenacao ordenacao) {
+		return criarConsultaPagina(cursor, limite, ordenacao).getResultList();
+	}
+
+	/**
+	 * 	Retorna uma página de registros como em buscarPagina, carregando na mesma consulta
+	 * as associações que a visão renderiza. Visões de listagem não devem renderizar
+	 * coleções, que fariam o limite ser aplicado em memória.
+	 */
+	@Override
+	public List<T> buscarPagina(Long cursor, int limite, Ordenacao ordenacao, Visao visao) {
+		GrafoVisao<T> grafo = getGrafo(visao);
+		Query<T> query = criarConsultaPagina(cursor, limite, ordenacao);
+		grafo.getDicas().forEach(query::setHint);
+		List<T> registros = query.getResultList();
+		registros.forEach(grafo::inicializar);
+		return registros;
+	}
+
+	private Query<T> criarConsultaPagina(Long cursor, int limite, Ordenacao ordenacao) {
+		String consulta = ordenacao == Ordenacao.DECRESCENTE ? "paginaDecrescente" : "paginaCrescente";
+		Query<T> query = criarConsulta(cursor != null ? consulta + "Cursor" : consulta);
+		if (cursor != null)
+			query.setParameter("cursor", cursor);
+		query.setMaxResults(limite);
+		return query;
+	}
+
+	/**
+	 * 	Retorna o plano de busca da visão, compilado na primeira utilização. Visões
+	 * restringidas pelo cliente são compiladas a cada requisição.
+	 */
+	private GrafoVisao<T> getGrafo(Visao visao) {
+		if (visao.isRestrita())
+			return GrafoVisao.compilar(getSessao(), classeEntidade, visao.getProjecao());
+		return grafos.computeIfAbsent(visao.getNome(),
+				nome -> GrafoVisao.compilar(getSessao(), classeEntidade, visao.getProjecao()));
+	}
+
+	/**
+	 * 	HQL (SELECT new ... FROM entidade o, sem WHERE e ORDER BY) que monta os registros
+	 * resumidos das listagens. Nulo por padrão, as entidades que possuem listagem resumida
+	 * sobrescrevem o método e as consultas paginadas são registradas a partir dele.
+	 * 
+	 * @return HQL da expressão construtora do resumo
+	 */
+	protected String getHqlResumo() {
+		return null;
+	}
+
+	/**
+	 * 	Retorna uma página de registros resumidos, montados pela expressão construtora de
+	 * getHqlResumo() em uma única consulta. Os registros não são entidades, portanto não
+	 * entram no contexto de persistência nem passam pela verificação de alterações.
+	 * 
+	 * @param cursor id do último registro da página anterior (nulo na primeira página)
+	 * @param limite quantidade máxima de registros
+	 * @param ordenacao direção da ordenação pelo id
+	 * @param classe classe do registro resumido
+	 * @return registros da página
+	 */
+	protected <R> List<R> buscarPaginaResumo(Long cursor, int limite, Ordenacao ordenacao, Class<R> classe) {
+		String consulta = ordenacao == Ordenacao.DECRESCENTE ? "resumoDecrescente" : "resumoCrescente";
+		Query<R> query = getSessao().createNamedQuery(getNomeConsulta(cursor != null ? consulta + "Cursor" : consulta),
+				classe);
+		if (cursor != null)
+			query.setParameter("cursor", cursor);
+		query.setMaxResults(limite);
 		return query.getResultList();
 	}
 
+	/**
+	 * 	HQL utilizado para percorrer todos os registros da entidade. Pode ser sobrescrito
+	 * para trazer (JOIN FETCH) as associações que serão lidas durante o percurso, já que
+	 * enquanto o resultado está aberto a conexão não aceita outras consultas.
+	 * 
+	 * @return HQL da consulta de percurso
+	 */
+	protected String getHqlPercurso() {
+		return "FROM " + getNomeEntidade() + " o ORDER BY o.id";
+	}
+
+	/**
+	 * 	Percorre todos os registros da entidade definida pelo placeholder entregando um a um
+	 * ao consumidor, sem materializar a lista. A leitura é feita somente para frente e a
+	 * sessão é limpa periodicamente, mantendo o uso de memória constante.
+	 * 	Não deve ser chamado dentro de uma transação com alterações pendentes.
+	 */
+	@Override
+	public void percorrerTodos(Consumer<T> consumidor) {
+		Session sessao = getSessao();
+		Query<T> query = criarConsulta("percorrerTodos");
+		query.setReadOnly(true);
+		query.setCacheMode(CacheMode.IGNORE);
+		// Valor que faz o driver do MySQL entregar as linhas por streaming
+		query.setFetchSize(Integer.MIN_VALUE);
+		try (ScrollableResults resultados = query.scroll(ScrollMode.FORWARD_ONLY)) {
+			int lidos = 0;
+			while (resultados.next()) {
+				@SuppressWarnings("unchecked")
+				T registro = (T) resultados.get(0);
+				consumidor.accept(registro);
+				if (++lidos % TAMANHO_LOTE_PERCURSO == 0)
+					sessao.clear();
+			}
+		}
+	}
 }
@@ -1,12 +1,17 @@
 package br.com.lupus.dao.jpa;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.stereotype.Repository;
 
 import br.com.lupus.dao.AmbienteDao;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.dto.AmbienteResumo;
 
 /**
- * 	AmbienteJPA que herda todos os mtodos comuns aos DAO's da classe AbstractJPA
+ * 	AmbienteJPA que herda todos os métodos comuns aos DAO's da classe AbstractJPA
  * 
  * @author Mateus A.S
  */
@@ -17,4 +22,36 @@ public class AmbienteJPA extends AbstractJPA<Ambiente> implements AmbienteDao{
 	public String getNomeEntidade() {
 		return "Ambiente";
 	}
+
+	@Override
+	protected Map<String, String> getConsultas() {
+		Map<String, String> consultas = super.getConsultas();
+		consultas.put("possuiItens", "SELECT i.id FROM Item i WHERE i.ambienteAtual.id = :id");
+		return consultas;
+	}
+
+	@Override
+	protected String getHqlResumo() {
+		return "SELECT new br.com.lupus.models.dto.AmbienteResumo(o.id, o.descricao) FROM Ambiente o";
+	}
+
+	/**
+	 * 	Implementação do método adicional do AmbienteDao que o AbstractJPA não supre.
+	 * 	Retorna uma página de ambientes resumidos (id e descrição), sem carregar as entidades.
+	 */
+	@Override
+	public List<AmbienteResumo> buscarResumos(Long cursor, int limite, Ordenacao ordenacao) {
+		return buscarPaginaResumo(cursor, limite, ordenacao, AmbienteResumo.class);
+	}
+
+	/**
+	 * 	Implementação do método adicional do AmbienteDao que o AbstractJPA não supre.
+	 * 	Verifica se existe algum item referenciado ao ambiente lendo no máximo uma linha do
+	 * índice da chave estrangeira, sem carregar a coleção de itens.
+	 */
+	@Override
+	public boolean possuiItens(Long id) {
+		return !getSessao().createNamedQuery(getNomeConsulta("possuiItens"), Long.class).setParameter("id", id)
+				.setMaxResults(1).getResultList().isEmpty();
+	}
 }
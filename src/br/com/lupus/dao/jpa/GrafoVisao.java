@@ -0,0 +1,184 @@
+package br.com.lupus.dao.jpa;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.Subgraph;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.PluralAttribute;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+
+import br.com.lupus.models.serializer.Projecao;
+
+/**
+ * 	Plano de busca compilado a partir da projeção de uma visão. Cada associação
+ * escrita pela projeção vira um nó do entity graph, exceto as que são escritas
+ * apenas com o id (o proxy já responde o id sem consulta). Somente a primeira
+ * coleção entra no grafo, as demais multiplicariam as linhas do JOIN e são
+ * carregadas em seguida com uma consulta cada. Depois da busca o plano garante
+ * que tudo o que será renderizado está inicializado, inclusive quando a entidade
+ * vem do cache de segundo nível, onde o grafo não é aplicado.
+ *
+ * @param <T> entidade raiz do plano
+ *
+ * @author Mateus A.S
+ */
+class GrafoVisao<T> {
+
+	private final EntityGraph<T> grafo;
+
+	private final List<No> nos = new ArrayList<>();
+
+	private int colecoes;
+
+	private GrafoVisao(EntityGraph<T> grafo) {
+		this.grafo = grafo;
+	}
+
+	/**
+	 * 	Compila o plano de busca da classe para a projeção
+	 *
+	 * @param sessao sessão utilizada para criar o grafo e acessar o metamodelo
+	 * @param classe classe da entidade raiz
+	 * @param projecao projeção da visão
+	 * @return plano compilado, reutilizável entre sessões
+	 */
+	static <T> GrafoVisao<T> compilar(Session sessao, Class<T> classe, Projecao projecao) {
+		GrafoVisao<T> plano = new GrafoVisao<>(sessao.createEntityGraph(classe));
+		Set<Class<?>> caminho = new HashSet<>(Collections.singleton(classe));
+		plano.adicionar(sessao.getMetamodel(), classe, projecao, plano.grafo::addSubgraph, plano.nos, caminho);
+		return plano;
+	}
+
+	/**
+	 * @return dicas a serem passadas à busca para aplicar o grafo
+	 */
+	Map<String, Object> getDicas() {
+		return Collections.singletonMap(QueryHints.HINT_FETCHGRAPH, grafo);
+	}
+
+	EntityGraph<T> getGrafo() {
+		return grafo;
+	}
+
+	/**
+	 * @return true se a visão não renderiza nenhuma associação além do id
+	 */
+	boolean isVazio() {
+		return nos.isEmpty();
+	}
+
+	/**
+	 * 	Inicializa as associações do plano que ainda não foram carregadas
+	 *
+	 * @param entidade entidade buscada com o plano
+	 */
+	void inicializar(Object entidade) {
+		inicializar(entidade, nos);
+	}
+
+	/**
+	 * 	Adiciona ao plano as associações da classe escritas pela projeção. Com o
+	 * subgrafo nulo as associações só entram na inicialização, fora do grafo
+	 */
+	private void adicionar(Metamodel metamodel, Class<?> classe, Projecao projecao,
+			Function<String, Subgraph<?>> subgrafo, List<No> destino, Set<Class<?>> caminho) {
+		String[] campos = projecao.campos(classe);
+		if (campos == null)
+			return;
+		ManagedType<?> tipo = metamodel.managedType(classe);
+		for (String campo : campos) {
+			Attribute<?, ?> atributo = atributo(tipo, campo);
+			if (atributo == null || !atributo.isAssociation())
+				continue;
+			Class<?> alvo = atributo.isCollection() ? ((PluralAttribute<?, ?, ?>) atributo).getElementType().getJavaType()
+					: atributo.getJavaType();
+			Projecao filho = projecao.filho(campo);
+			String[] camposAlvo = filho.campos(alvo);
+			if (camposAlvo == null || caminho.contains(alvo))
+				continue;
+			if (!atributo.isCollection() && camposAlvo.length == 1 && "id".equals(camposAlvo[0]))
+				continue;
+			No no = new No(atributo.getJavaMember(), atributo.isCollection());
+			destino.add(no);
+			Function<String, Subgraph<?>> proximo = null;
+			if (subgrafo != null && (!atributo.isCollection() || colecoes++ == 0))
+				proximo = subgrafo.apply(campo)::addSubgraph;
+			caminho.add(alvo);
+			adicionar(metamodel, alvo, filho, proximo, no.filhos, caminho);
+			caminho.remove(alvo);
+		}
+	}
+
+	private static Attribute<?, ?> atributo(ManagedType<?> tipo, String campo) {
+		try {
+			return tipo.getAttribute(campo);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static void inicializar(Object entidade, List<No> nos) {
+		for (No no : nos) {
+			Object valor = no.ler(entidade);
+			if (valor == null)
+				continue;
+			if (!Hibernate.isInitialized(valor))
+				Hibernate.initialize(valor);
+			if (no.filhos.isEmpty())
+				continue;
+			if (no.colecao)
+				for (Object elemento : (Collection<?>) valor)
+					inicializar(elemento, no.filhos);
+			else
+				inicializar(valor, no.filhos);
+		}
+	}
+
+	/**
+	 * 	Associação renderizada pela visão
+	 */
+	private static class No {
+
+		private final Member membro;
+
+		private final boolean colecao;
+
+		private final List<No> filhos = new ArrayList<>();
+
+		No(Member membro, boolean colecao) {
+			this.membro = membro;
+			this.colecao = colecao;
+			if (membro instanceof Field)
+				((Field) membro).setAccessible(true);
+			else
+				((Method) membro).setAccessible(true);
+		}
+
+		Object ler(Object entidade) {
+			Object alvo = Hibernate.unproxy(entidade);
+			try {
+				if (membro instanceof Field)
+					return ((Field) membro).get(alvo);
+				return ((Method) membro).invoke(alvo);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Não foi possível ler " + membro.getName(), e);
+			}
+		}
+	}
+}
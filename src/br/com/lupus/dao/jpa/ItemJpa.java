@@ -1,12 +1,26 @@
 package br.com.lupus.dao.jpa;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import javax.persistence.LockModeType;
+
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
 import br.com.lupus.dao.ItemDao;
+import br.com.lupus.dao.Ordenacao;
+import br.com.lupus.models.Ambiente;
 import br.com.lupus.models.Item;
+import br.com.lupus.models.dto.ContagemCruzada;
+import br.com.lupus.models.dto.ItemResumo;
 
 /**
- * 	ItemJpa que herda todos os mtodos comuns aos DAO's da classe AbstractJPA
+ * 	ItemJpa que herda todos os métodos comuns aos DAO's da classe AbstractJPA
  * 
  * @author Mateus A.S
  */
@@ -18,4 +32,138 @@ public class ItemJpa extends AbstractJPA<Item> implements ItemDao {
 		
 		return "Item";
 	}
+
+	@Override
+	protected String getHqlPercurso() {
+		return "FROM Item o JOIN FETCH o.tipo ORDER BY o.id";
+	}
+
+	@Override
+	protected String getHqlResumo() {
+		return "SELECT new br.com.lupus.models.dto.ItemResumo(o.id, t.id, t.nome) FROM Item o JOIN o.tipo t";
+	}
+
+	@Override
+	protected Map<String, String> getConsultas() {
+		Map<String, String> consultas = super.getConsultas();
+		consultas.put("buscarPorIds", "FROM Item o WHERE o.id IN (:ids)");
+		consultas.put("atualizarAmbiente", "UPDATE Item o SET o.ambienteAtual = :ambiente, o.versao = o.versao + 1 "
+				+ "WHERE o.id IN (:ids) AND o.ambienteAtual <> :ambiente");
+		consultas.put("mover", "UPDATE Item o SET o.ambienteAtual = :destino, o.versao = o.versao + 1 "
+				+ "WHERE o.id = :id AND o.ambienteAtual = :origem");
+		consultas.put("localizacoes", "SELECT o.id, o.ambienteAtual.id FROM Item o");
+		consultas.put("localizacoesAmbiente", "SELECT o.id, o.ambienteAtual.id FROM Item o WHERE o.ambienteAtual.id = :ambiente");
+		consultas.put("localizacoesCadastradosApos",
+				"SELECT o.id, o.ambienteAtual.id FROM Item o WHERE o.dataCadastro > :data");
+		String contagem = "SELECT new br.com.lupus.models.dto.ContagemCruzada(o.ambienteAtual.id, o.tipo.id, COUNT(o.id)) "
+				+ "FROM Item o ";
+		String agrupamento = " GROUP BY o.ambienteAtual.id, o.tipo.id ORDER BY o.ambienteAtual.id, o.tipo.id";
+		consultas.put("contagemCruzada", contagem + agrupamento);
+		consultas.put("contagemCruzadaAmbientes", contagem + "WHERE o.ambienteAtual.id IN (:ambientes)" + agrupamento);
+		consultas.put("contagemCruzadaTipos", contagem + "WHERE o.tipo.id IN (:tipos)" + agrupamento);
+		consultas.put("contagemCruzadaAmbientesTipos",
+				contagem + "WHERE o.ambienteAtual.id IN (:ambientes) AND o.tipo.id IN (:tipos)" + agrupamento);
+		return consultas;
+	}
+
+	/**
+	 * 	Implementação do método adicional do ItemDao que o AbstractJPA não supre.
+	 * 	Retorna uma página de itens resumidos, com o id e o nome do tipo trazidos na mesma
+	 * consulta (JOIN), sem carregar as entidades.
+	 */
+	@Override
+	public List<ItemResumo> buscarResumos(Long cursor, int limite, Ordenacao ordenacao) {
+		return buscarPaginaResumo(cursor, limite, ordenacao, ItemResumo.class);
+	}
+
+	/**
+	 * 	Implementação do método adicional do ItemDao que o AbstractJPA não supre.
+	 * 	Retorna a matriz ambiente x tipo com a quantidade de itens de cada combinação
+	 * existente, em uma única consulta agregada. Os filtros nulos ou vazios não restringem
+	 * a consulta.
+	 */
+	@Override
+	public List<ContagemCruzada> contarPorAmbienteETipo(Collection<Long> ambientes, Collection<Long> tipos) {
+		boolean filtraAmbientes = ambientes != null && !ambientes.isEmpty();
+		boolean filtraTipos = tipos != null && !tipos.isEmpty();
+		String consulta = "contagemCruzada" + (filtraAmbientes ? "Ambientes" : "") + (filtraTipos ? "Tipos" : "");
+		Query<ContagemCruzada> query = getSessao().createNamedQuery(getNomeConsulta(consulta), ContagemCruzada.class);
+		if (filtraAmbientes)
+			query.setParameter("ambientes", ambientes);
+		if (filtraTipos)
+			query.setParameter("tipos", tipos);
+		return query.getResultList();
+	}
+
+	/**
+	 * 	Implementação do método adicional do ItemDao que o AbstractJPA não supre.
+	 * 	Retorna os itens referentes aos ids passados em uma única consulta, bloqueando
+	 * as linhas até o fim da transação para que nenhuma outra movimentação as altere
+	 * entre a leitura e o UPDATE.
+	 */
+	@Override
+	public List<Item> buscarParaMovimentar(Collection<Long> ids) {
+		if (ids.isEmpty())
+			return new ArrayList<>();
+		return criarConsulta("buscarPorIds").setParameter("ids", ids).setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+	}
+
+	/**
+	 * 	Implementação do método adicional do ItemDao que o AbstractJPA não supre.
+	 * 	Aponta todos os itens passados para o ambiente em um único UPDATE, ignorando os
+	 * que já se encontram no ambiente. Retorna a quantidade de itens atualizados.
+	 */
+	@Override
+	public int atualizarAmbiente(Collection<Long> ids, Ambiente ambiente) {
+		if (ids.isEmpty())
+			return 0;
+		return getSessao().createNamedQuery(getNomeConsulta("atualizarAmbiente")).setParameter("ids", ids)
+				.setParameter("ambiente", ambiente).executeUpdate();
+	}
+
+	/**
+	 * 	Implementação do método adicional do ItemDao que o AbstractJPA não supre.
+	 * 	Aponta o item para o ambiente de destino somente se ele ainda se encontrar no
+	 * ambiente de origem, em um único UPDATE. Retorna false se outra transação já
+	 * tiver movido o item.
+	 */
+	@Override
+	public boolean mover(Long id, Ambiente origem, Ambiente destino) {
+		return getSessao().createNamedQuery(getNomeConsulta("mover")).setParameter("id", id)
+				.setParameter("origem", origem).setParameter("destino", destino).executeUpdate() == 1;
+	}
+
+	/**
+	 * 	Implementação do método adicional do ItemDao que o AbstractJPA não supre.
+	 * 	Percorre o par (id do item, id do ambiente atual) de todos os itens por
+	 * streaming, sem carregar nenhuma entidade.
+	 */
+	@Override
+	public void percorrerLocalizacoes(BiConsumer<Long, Long> consumidor) {
+		percorrerPares(getSessao().createNamedQuery(getNomeConsulta("localizacoes")), consumidor);
+	}
+
+	/**
+	 * 	Implementação do método adicional do ItemDao que o AbstractJPA não supre.
+	 * 	Percorre por streaming o par (id do item, id do ambiente atual) dos itens
+	 * cadastrados após a data (índice idx_item_data_cadastro). Itens sem data de
+	 * cadastro não são percorridos.
+	 */
+	@Override
+	public void percorrerCadastradosApos(Date data, BiConsumer<Long, Long> consumidor) {
+		percorrerPares(getSessao().createNamedQuery(getNomeConsulta("localizacoesCadastradosApos"))
+				.setParameter("data", data), consumidor);
+	}
+
+	/**
+	 * 	Implementação do método adicional do ItemDao que o AbstractJPA não supre.
+	 * 	Percorre por streaming o par (id do item, id do ambiente atual) dos itens que se
+	 * encontram no ambiente, sem carregar nenhuma entidade.
+	 */
+	@Override
+	public void percorrerLocalizacoes(Long ambiente, BiConsumer<Long, Long> consumidor) {
+		percorrerPares(getSessao().createNamedQuery(getNomeConsulta("localizacoesAmbiente"))
+				.setParameter("ambiente", ambiente), consumidor);
+	}
 }
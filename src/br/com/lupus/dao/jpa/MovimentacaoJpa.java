@@ -1,20 +1,238 @@
 package br.com.lupus.dao.jpa;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
+import br.com.lupus.dao.CursorMovimentacao;
+import br.com.lupus.dao.FiltroMovimentacao;
 import br.com.lupus.dao.MovimentacaoDao;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.models.Movimentacao;
 
 /**
- * 	MovimentacaoJpa que herda todos os mtodos comuns aos DAO's da classe AbstractJPA
+ * 	MovimentacaoJpa que herda todos os métodos comuns aos DAO's da classe AbstractJPA
  * 
  * @author Mateus A.S
  */
 @Repository("movimentacaoDao")
 public class MovimentacaoJpa extends AbstractJPA<Movimentacao> implements MovimentacaoDao {
 
+	private static final Comparator<Movimentacao> ORDEM_HISTORICO = Comparator
+			.comparing(Movimentacao::getDataMovimentacao).thenComparing(Movimentacao::getId);
+
 	@Override
 	public String getNomeEntidade() {
 		return "Movimentacao";
 	}
+
+	@Override
+	protected String getHqlPercurso() {
+		return "FROM Movimentacao o JOIN FETCH o.itemMovimentado i JOIN FETCH i.tipo JOIN FETCH o.ambienteAnterior "
+				+ "JOIN FETCH o.ambientePosterior JOIN FETCH o.movimentador ORDER BY o.id";
+	}
+
+	@Override
+	protected Map<String, String> getConsultas() {
+		Map<String, String> consultas = super.getConsultas();
+		consultas.put("destinoAte", "SELECT o.ambientePosterior.id FROM Movimentacao o WHERE o.itemMovimentado.id = :item "
+				+ "AND o.dataMovimentacao <= :data ORDER BY o.dataMovimentacao DESC, o.id DESC");
+		consultas.put("origemApos", "SELECT o.ambienteAnterior.id FROM Movimentacao o WHERE o.itemMovimentado.id = :item "
+				+ "AND o.dataMovimentacao > :data ORDER BY o.dataMovimentacao, o.id");
+		String destinos = "SELECT o.itemMovimentado.id, o.ambientePosterior.id FROM Movimentacao o "
+				+ "WHERE o.dataMovimentacao > :inicio";
+		String crescente = " ORDER BY o.dataMovimentacao, o.id";
+		consultas.put("destinos", destinos + crescente);
+		consultas.put("destinosAte", destinos + " AND o.dataMovimentacao <= :fim" + crescente);
+		String origens = "SELECT o.itemMovimentado.id, o.ambienteAnterior.id FROM Movimentacao o "
+				+ "WHERE o.dataMovimentacao > :inicio";
+		String decrescente = " ORDER BY o.dataMovimentacao DESC, o.id DESC";
+		consultas.put("origens", origens + decrescente);
+		consultas.put("origensAte", origens + " AND o.dataMovimentacao <= :fim" + decrescente);
+		String ambiente = " AND (o.ambienteAnterior.id = :ambiente OR o.ambientePosterior.id = :ambiente)";
+		consultas.put("destinosAmbiente", destinos + ambiente + crescente);
+		consultas.put("destinosAmbienteAte", destinos + " AND o.dataMovimentacao <= :fim" + ambiente + crescente);
+		consultas.put("origensAmbiente", origens + ambiente + decrescente);
+		consultas.put("origensAmbienteAte", origens + " AND o.dataMovimentacao <= :fim" + ambiente + decrescente);
+		return consultas;
+	}
+
+	/**
+	 * 	Implementação do método adicional do MovimentacaoDao que o AbstractJPA não supre.
+	 * 	Retorna uma página do histórico ordenada pela data e pelo id (keyset), percorrendo o
+	 * índice composto (coluna filtrada, data_movimentacao, id). Sem filtro de item, o filtro
+	 * de ambiente (origem OU destino) é feito com uma consulta por coluna, cada uma em ordem
+	 * pelo seu índice, e as duas páginas são intercaladas, evitando a ordenação em memória
+	 * que o OR faria o banco executar sobre todo o histórico do ambiente.
+	 */
+	@Override
+	public List<Movimentacao> buscarHistorico(FiltroMovimentacao filtro, CursorMovimentacao cursor, int limite,
+			Ordenacao ordenacao) {
+		if (filtro.getAmbiente() == null || filtro.getItem() != null)
+			return consultarHistorico(filtro, filtro.getAmbiente() == null ? null
+					: "(o.ambienteAnterior.id = :ambiente OR o.ambientePosterior.id = :ambiente)", cursor, limite,
+					ordenacao);
+		List<Movimentacao> saidas = consultarHistorico(filtro, "o.ambienteAnterior.id = :ambiente", cursor, limite,
+				ordenacao);
+		List<Movimentacao> entradas = consultarHistorico(filtro, "o.ambientePosterior.id = :ambiente", cursor, limite,
+				ordenacao);
+		Map<Long, Movimentacao> pagina = new LinkedHashMap<>();
+		Comparator<Movimentacao> ordem = ordenacao == Ordenacao.DECRESCENTE ? ORDEM_HISTORICO.reversed()
+				: ORDEM_HISTORICO;
+		int s = 0, e = 0;
+		while (pagina.size() < limite && (s < saidas.size() || e < entradas.size())) {
+			Movimentacao proxima;
+			if (e == entradas.size() || (s < saidas.size() && ordem.compare(saidas.get(s), entradas.get(e)) <= 0))
+				proxima = saidas.get(s++);
+			else
+				proxima = entradas.get(e++);
+			pagina.putIfAbsent(proxima.getId(), proxima);
+		}
+		return new ArrayList<>(pagina.values());
+	}
+
+	/**
+	 * 	Implementação do método adicional do MovimentacaoDao que o AbstractJPA não supre.
+	 * 	Retorna o ambiente de destino da última movimentação do item feita até a data, ou
+	 * nulo se não houver nenhuma. A consulta lê uma única entrada do índice
+	 * (item_movimentado_id, data_movimentacao, id).
+	 */
+	@Override
+	public Long buscarDestinoAte(Long item, Date data) {
+		return buscarAmbiente("destinoAte", item, data);
+	}
+
+	/**
+	 * 	Implementação do método adicional do MovimentacaoDao que o AbstractJPA não supre.
+	 * 	Retorna o ambiente de origem da primeira movimentação do item feita após a data, ou
+	 * nulo se não houver nenhuma. A consulta lê uma única entrada do índice
+	 * (item_movimentado_id, data_movimentacao, id).
+	 */
+	@Override
+	public Long buscarOrigemApos(Long item, Date data) {
+		return buscarAmbiente("origemApos", item, data);
+	}
+
+	/**
+	 * 	Implementação do método adicional do MovimentacaoDao que o AbstractJPA não supre.
+	 * 	Percorre por streaming o par (id do item, id do ambiente de destino) das
+	 * movimentações feitas após o início e até o fim (nulo para não limitar), da mais
+	 * antiga para a mais recente. Aplicados em ordem, os pares levam a localização dos
+	 * itens do início ao fim do período.
+	 */
+	@Override
+	public void percorrerDestinos(Date inicio, Date fim, BiConsumer<Long, Long> consumidor) {
+		percorrerPeriodo("destinos", inicio, fim, consumidor);
+	}
+
+	/**
+	 * 	Implementação do método adicional do MovimentacaoDao que o AbstractJPA não supre.
+	 * 	Percorre por streaming o par (id do item, id do ambiente de origem) das
+	 * movimentações feitas após o início e até o fim (nulo para não limitar), da mais
+	 * recente para a mais antiga. Aplicados em ordem, os pares levam a localização dos
+	 * itens do fim de volta ao início do período.
+	 */
+	@Override
+	public void percorrerOrigens(Date inicio, Date fim, BiConsumer<Long, Long> consumidor) {
+		percorrerPeriodo("origens", inicio, fim, consumidor);
+	}
+
+	/**
+	 * 	Implementação do método adicional do MovimentacaoDao que o AbstractJPA não supre.
+	 * 	Igual a percorrerDestinos, restrito às movimentações com origem ou destino no
+	 * ambiente (índices idx_movimentacao_anterior e idx_movimentacao_posterior).
+	 * Aplicados em ordem, os pares levam o conjunto de itens do ambiente do início ao
+	 * fim do período.
+	 */
+	@Override
+	public void percorrerDestinos(Long ambiente, Date inicio, Date fim, BiConsumer<Long, Long> consumidor) {
+		percorrerPeriodo("destinosAmbiente", ambiente, inicio, fim, consumidor);
+	}
+
+	/**
+	 * 	Implementação do método adicional do MovimentacaoDao que o AbstractJPA não supre.
+	 * 	Igual a percorrerOrigens, restrito às movimentações com origem ou destino no
+	 * ambiente (índices idx_movimentacao_anterior e idx_movimentacao_posterior).
+	 * Aplicados em ordem, os pares levam o conjunto de itens do ambiente do fim de volta
+	 * ao início do período.
+	 */
+	@Override
+	public void percorrerOrigens(Long ambiente, Date inicio, Date fim, BiConsumer<Long, Long> consumidor) {
+		percorrerPeriodo("origensAmbiente", ambiente, inicio, fim, consumidor);
+	}
+
+	private Long buscarAmbiente(String consulta, Long item, Date data) {
+		List<Long> ambientes = getSessao().createNamedQuery(getNomeConsulta(consulta), Long.class)
+				.setParameter("item", item).setParameter("data", data).setMaxResults(1).getResultList();
+		return ambientes.isEmpty() ? null : ambientes.get(0);
+	}
+
+	private void percorrerPeriodo(String consulta, Date inicio, Date fim, BiConsumer<Long, Long> consumidor) {
+		percorrerPeriodo(consulta, null, inicio, fim, consumidor);
+	}
+
+	private void percorrerPeriodo(String consulta, Long ambiente, Date inicio, Date fim,
+			BiConsumer<Long, Long> consumidor) {
+		Query<?> query = getSessao().createNamedQuery(getNomeConsulta(fim == null ? consulta : consulta + "Ate"))
+				.setParameter("inicio", inicio);
+		if (fim != null)
+			query.setParameter("fim", fim);
+		if (ambiente != null)
+			query.setParameter("ambiente", ambiente);
+		percorrerPares(query, consumidor);
+	}
+
+	/**
+	 * 	Monta e executa a consulta do histórico com os filtros informados
+	 */
+	private List<Movimentacao> consultarHistorico(FiltroMovimentacao filtro, String condicaoAmbiente,
+			CursorMovimentacao cursor, int limite, Ordenacao ordenacao) {
+		boolean decrescente = ordenacao == Ordenacao.DECRESCENTE;
+		List<String> condicoes = new ArrayList<>();
+		if (filtro.getItem() != null)
+			condicoes.add("o.itemMovimentado.id = :item");
+		if (condicaoAmbiente != null)
+			condicoes.add(condicaoAmbiente);
+		if (filtro.getMovimentador() != null)
+			condicoes.add("o.movimentador.id = :movimentador");
+		if (filtro.getDe() != null)
+			condicoes.add("o.dataMovimentacao >= :de");
+		if (filtro.getAte() != null)
+			condicoes.add("o.dataMovimentacao < :ate");
+		// A comparação isolada da data limita a faixa percorrida no índice, o OR só desempata pelo id
+		if (cursor != null)
+			condicoes.add(decrescente
+					? "o.dataMovimentacao <= :cursorData AND (o.dataMovimentacao < :cursorData OR o.id < :cursorId)"
+					: "o.dataMovimentacao >= :cursorData AND (o.dataMovimentacao > :cursorData OR o.id > :cursorId)");
+		StringBuilder hql = new StringBuilder("FROM Movimentacao o");
+		if (!condicoes.isEmpty())
+			hql.append(" WHERE ").append(String.join(" AND ", condicoes));
+		hql.append(decrescente ? " ORDER BY o.dataMovimentacao DESC, o.id DESC"
+				: " ORDER BY o.dataMovimentacao, o.id");
+		Query<Movimentacao> query = getSessao().createQuery(hql.toString(), Movimentacao.class);
+		if (filtro.getItem() != null)
+			query.setParameter("item", filtro.getItem());
+		if (condicaoAmbiente != null)
+			query.setParameter("ambiente", filtro.getAmbiente());
+		if (filtro.getMovimentador() != null)
+			query.setParameter("movimentador", filtro.getMovimentador());
+		if (filtro.getDe() != null)
+			query.setParameter("de", filtro.getDe());
+		if (filtro.getAte() != null)
+			query.setParameter("ate", filtro.getAte());
+		if (cursor != null) {
+			query.setParameter("cursorData", cursor.getData());
+			query.setParameter("cursorId", cursor.getId());
+		}
+		query.setReadOnly(true);
+		query.setMaxResults(limite);
+		return query.getResultList();
+	}
 }
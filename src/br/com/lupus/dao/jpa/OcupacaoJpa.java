@@ -0,0 +1,108 @@
+package br.com.lupus.dao.jpa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.lupus.dao.OcupacaoDao;
+import br.com.lupus.models.dto.ContagemCruzada;
+
+/**
+ * 	Implementação do OcupacaoDao com SQL nativo. Todas as consultas declaram a
+ * tabela ocupacao como único espaço afetado, assim o Hibernate não descarta as
+ * regiões do cache de segundo nível nem sincroniza a sessão inteira a cada soma.
+ * 
+ * @author Mateus A.S
+ */
+@Repository("ocupacaoDao")
+@Transactional
+public class OcupacaoJpa implements OcupacaoDao {
+
+	private static final String TABELA = "ocupacao";
+
+	private static final String SOMAR = "INSERT INTO ocupacao(ambiente_id, tipo_id, total) VALUES (:ambiente, :tipo, :variacao) "
+			+ "ON DUPLICATE KEY UPDATE total = total + VALUES(total)";
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	public Session getSessao() {
+		return sessionFactory.getCurrentSession();
+	}
+
+	/**
+	 * 	Soma a variação ao total da combinação, criando a linha se ainda não existir.
+	 * A soma é feita pelo banco sobre o valor já gravado, bloqueando apenas a linha
+	 * da combinação até o fim da transação.
+	 */
+	@Override
+	public void somar(Long ambiente, Long tipo, long variacao) {
+		criarConsulta(SOMAR).setParameter("ambiente", ambiente).setParameter("tipo", tipo)
+				.setParameter("variacao", variacao).executeUpdate();
+	}
+
+	/**
+	 * 	Retorna todas as combinações gravadas, inclusive as zeradas, ordenadas por
+	 * ambiente e tipo.
+	 */
+	@Override
+	public List<ContagemCruzada> buscarTodas() {
+		List<?> linhas = criarConsulta("SELECT ambiente_id, tipo_id, total FROM ocupacao ORDER BY ambiente_id, tipo_id")
+				.getResultList();
+		List<ContagemCruzada> contagens = new ArrayList<>(linhas.size());
+		for (Object linha : linhas) {
+			Object[] colunas = (Object[]) linha;
+			contagens.add(new ContagemCruzada(longValue(colunas[0]), longValue(colunas[1]), longValue(colunas[2])));
+		}
+		return contagens;
+	}
+
+	/**
+	 * 	Retorna os ids de todos os ambientes, inclusive dos que nunca tiveram itens.
+	 */
+	@Override
+	public List<Long> buscarAmbientes() {
+		return buscarIds("ambiente");
+	}
+
+	/**
+	 * 	Retorna os ids de todos os tipos de item, inclusive dos que nunca tiveram itens.
+	 */
+	@Override
+	public List<Long> buscarTipos() {
+		return buscarIds("tipo_item");
+	}
+
+	@Override
+	public void removerAmbiente(Long id) {
+		criarConsulta("DELETE FROM ocupacao WHERE ambiente_id = :id").setParameter("id", id).executeUpdate();
+	}
+
+	@Override
+	public void removerTipo(Long id) {
+		criarConsulta("DELETE FROM ocupacao WHERE tipo_id = :id").setParameter("id", id).executeUpdate();
+	}
+
+	private List<Long> buscarIds(String tabela) {
+		List<?> linhas = getSessao().createNativeQuery("SELECT id FROM " + tabela).addSynchronizedQuerySpace(tabela)
+				.getResultList();
+		List<Long> ids = new ArrayList<>(linhas.size());
+		for (Object id : linhas)
+			ids.add(longValue(id));
+		return ids;
+	}
+
+	private NativeQuery<?> criarConsulta(String sql) {
+		return getSessao().createNativeQuery(sql).addSynchronizedQuerySpace(TABELA);
+	}
+
+	private static Long longValue(Object valor) {
+		return ((Number) valor).longValue();
+	}
+}
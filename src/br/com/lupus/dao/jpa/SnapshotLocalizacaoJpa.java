@@ -0,0 +1,105 @@
+package br.com.lupus.dao.jpa;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.TemporalType;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.lupus.dao.SnapshotLocalizacaoDao;
+import br.com.lupus.models.dto.SnapshotLocalizacao;
+
+/**
+ * 	Implementação do SnapshotLocalizacaoDao com SQL nativo. As consultas declaram a
+ * tabela snapshot_localizacao como único espaço afetado, assim o Hibernate não
+ * descarta as regiões do cache de segundo nível ao gravar uma fotografia.
+ * 
+ * @author Mateus A.S
+ */
+@Repository("snapshotLocalizacaoDao")
+@Transactional
+public class SnapshotLocalizacaoJpa implements SnapshotLocalizacaoDao {
+
+	private static final String TABELA = "snapshot_localizacao";
+
+	private static final String COLUNAS = "SELECT id, data_snapshot, ultima_movimentacao_id, quantidade_itens "
+			+ "FROM snapshot_localizacao ";
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	public Session getSessao() {
+		return sessionFactory.getCurrentSession();
+	}
+
+	@Override
+	public void persistir(Date data, Long ultimaMovimentacao, int quantidadeItens, byte[] conteudo) {
+		criarConsulta("INSERT INTO snapshot_localizacao(data_snapshot, ultima_movimentacao_id, quantidade_itens, conteudo) "
+				+ "VALUES (:data, :ultimaMovimentacao, :quantidadeItens, :conteudo)")
+				.setParameter("data", data, TemporalType.TIMESTAMP)
+				.setParameter("ultimaMovimentacao", ultimaMovimentacao)
+				.setParameter("quantidadeItens", quantidadeItens)
+				.setParameter("conteudo", conteudo, StandardBasicTypes.BINARY).executeUpdate();
+	}
+
+	/**
+	 * 	Retorna o maior id de movimentação existente (0 se não houver nenhuma), lido na
+	 * mesma transação em que a fotografia lê a localização dos itens.
+	 */
+	@Override
+	public Long buscarUltimaMovimentacao() {
+		Object maior = getSessao().createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM movimentacao")
+				.addSynchronizedQuerySpace("movimentacao").getSingleResult();
+		return ((Number) maior).longValue();
+	}
+
+	@Override
+	public SnapshotLocalizacao buscarUltimo() {
+		return buscarUm(criarConsulta(COLUNAS + "ORDER BY data_snapshot DESC, id DESC"));
+	}
+
+	/**
+	 * 	Retorna a fotografia mais recente tirada até a data, ou nulo se não houver.
+	 */
+	@Override
+	public SnapshotLocalizacao buscarAnterior(Date data) {
+		return buscarUm(criarConsulta(COLUNAS + "WHERE data_snapshot <= :data ORDER BY data_snapshot DESC, id DESC")
+				.setParameter("data", data, TemporalType.TIMESTAMP));
+	}
+
+	/**
+	 * 	Retorna a fotografia mais antiga tirada após a data, ou nulo se não houver.
+	 */
+	@Override
+	public SnapshotLocalizacao buscarPosterior(Date data) {
+		return buscarUm(criarConsulta(COLUNAS + "WHERE data_snapshot > :data ORDER BY data_snapshot, id")
+				.setParameter("data", data, TemporalType.TIMESTAMP));
+	}
+
+	@Override
+	public byte[] buscarConteudo(Long id) {
+		List<?> conteudos = criarConsulta("SELECT conteudo FROM snapshot_localizacao WHERE id = :id")
+				.addScalar("conteudo", StandardBasicTypes.BINARY).setParameter("id", id).getResultList();
+		return conteudos.isEmpty() ? null : (byte[]) conteudos.get(0);
+	}
+
+	private SnapshotLocalizacao buscarUm(NativeQuery<?> query) {
+		List<?> linhas = query.setMaxResults(1).getResultList();
+		if (linhas.isEmpty())
+			return null;
+		Object[] colunas = (Object[]) linhas.get(0);
+		return new SnapshotLocalizacao(((Number) colunas[0]).longValue(), new Date(((Date) colunas[1]).getTime()),
+				((Number) colunas[2]).longValue(), ((Number) colunas[3]).intValue());
+	}
+
+	private NativeQuery<?> criarConsulta(String sql) {
+		return getSessao().createNativeQuery(sql).addSynchronizedQuerySpace(TABELA);
+	}
+}
@@ -1,12 +1,17 @@
 package br.com.lupus.dao.jpa;
 
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.stereotype.Repository;
 
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.dao.TipoItemDao;
 import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.dto.TipoItemResumo;
 
 /**
- * 	TipoItemJPA que herda todos os mtodos comuns aos DAO's da classe AbstractJPA
+ * 	TipoItemJPA que herda todos os métodos comuns aos DAO's da classe AbstractJPA
  * 
  * @author Mateus A.S
  */
@@ -18,4 +23,35 @@ public class TipoItemJpa extends AbstractJPA<TipoItem> implements TipoItemDao {
 		return "TipoItem";
 	}
 
+	@Override
+	protected Map<String, String> getConsultas() {
+		Map<String, String> consultas = super.getConsultas();
+		consultas.put("possuiItens", "SELECT i.id FROM Item i WHERE i.tipo.id = :id");
+		return consultas;
+	}
+
+	@Override
+	protected String getHqlResumo() {
+		return "SELECT new br.com.lupus.models.dto.TipoItemResumo(o.id, o.nome) FROM TipoItem o";
+	}
+
+	/**
+	 * 	Implementação do método adicional do TipoItemDao que o AbstractJPA não supre.
+	 * 	Retorna uma página de tipos de item resumidos (id e nome), sem carregar as entidades.
+	 */
+	@Override
+	public List<TipoItemResumo> buscarResumos(Long cursor, int limite, Ordenacao ordenacao) {
+		return buscarPaginaResumo(cursor, limite, ordenacao, TipoItemResumo.class);
+	}
+
+	/**
+	 * 	Implementação do método adicional do TipoItemDao que o AbstractJPA não supre.
+	 * 	Verifica se existe algum item referenciado ao tipo lendo no máximo uma linha do
+	 * índice da chave estrangeira, sem carregar a coleção de itens.
+	 */
+	@Override
+	public boolean possuiItens(Long id) {
+		return !getSessao().createNamedQuery(getNomeConsulta("possuiItens"), Long.class).setParameter("id", id)
+				.setMaxResults(1).getResultList().isEmpty();
+	}
 }
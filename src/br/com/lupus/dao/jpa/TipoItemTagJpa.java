@@ -6,7 +6,7 @@ import br.com.lupus.dao.TipoItemTagDao;
 import br.com.lupus.models.TipoItemTag;
 
 /**
- * 	TipoItemTagJPA que herda todos os mtodos comuns aos DAO's da classe AbstractJPA
+ * 	TipoItemTagJPA que herda todos os métodos comuns aos DAO's da classe AbstractJPA
  * 
  * @author Mateus A.S
  */
@@ -15,6 +15,6 @@ public class TipoItemTagJpa extends AbstractJPA<TipoItemTag> implements TipoItem
 
 	@Override
 	public String getNomeEntidade() {
-		return "tipoItemTag";
+		return "TipoItemTag";
 	}
 }
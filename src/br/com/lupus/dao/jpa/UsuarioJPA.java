@@ -1,14 +1,18 @@
 package br.com.lupus.dao.jpa;
 
 import java.util.List;
+import java.util.Map;
 import javax.persistence.TypedQuery;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.dao.UsuarioDao;
 import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.UsuarioResumo;
 
 /**
- * 	UsuarioJPA que herda todos os mtodos comuns aos DAO's da classe AbstractJPA
+ * 	UsuarioJPA que herda todos os métodos comuns aos DAO's da classe AbstractJPA
  * 
  * @author Mateus A.S
  */
@@ -20,16 +24,33 @@ public class UsuarioJPA extends AbstractJPA<Usuario> implements UsuarioDao{
 		return "Usuario";
 	}
 
+	@Override
+	protected String getHqlResumo() {
+		return "SELECT new br.com.lupus.models.dto.UsuarioResumo(o.id, o.nome, o.email, o.dataNascimento, "
+				+ "o.permissao, o.ativo) FROM Usuario o";
+	}
+
+	@Override
+	protected Map<String, String> getConsultas() {
+		Map<String, String> consultas = super.getConsultas();
+		consultas.put("buscarPorEmail", "FROM Usuario u WHERE u.email = :email");
+		consultas.put("atualizarSenha", "UPDATE Usuario u SET u.senhaCriptografada = :senha "
+				+ "WHERE u.id = :id AND u.senhaCriptografada = :anterior");
+		consultas.put("buscarPorAtivo", "FROM Usuario u WHERE u.ativo = :ativo");
+		return consultas;
+	}
+
 	/**
-	 * 	Implementao do mtodo adicional do UsuarioDao que o AbstractJPA no supre.
-	 * 	Retorna um usurio pelo email.
+	 * 	Implementação do método adicional do UsuarioDao que o AbstractJPA não supre.
+	 * 	Retorna um usuário pelo email. O resultado é mantido no cache de consultas (região
+	 * usuarioPorEmail), invalidado automaticamente a cada alteração na tabela usuario.
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public Usuario buscar(String email) {
-		String hql = "FROM Usuario u WHERE u.email = :email";
-		TypedQuery<Usuario> query = getSessao().createQuery(hql);
+		TypedQuery<Usuario> query = criarConsulta("buscarPorEmail");
 		query.setParameter("email", email);
+		query.setHint(QueryHints.HINT_CACHEABLE, true);
+		query.setHint(QueryHints.HINT_CACHE_REGION, "usuarioPorEmail");
 		List<Usuario> lista =  query.getResultList();
 		if(!lista.isEmpty()) {
 			return lista.get(0);
@@ -38,37 +59,38 @@ public class UsuarioJPA extends AbstractJPA<Usuario> implements UsuarioDao{
 	}
 	
 	/**
-	 * 	Implementao do mtodo adicional do UsuarioDao que o AbstractJPA no supre.
-	 * 	Retorna um usurio pelo email e por sua senha.
+	 * 	Implementação do método adicional do UsuarioDao que o AbstractJPA não supre.
+	 * 	Substitui a senha criptografada somente se ela ainda for a anterior, em um único
+	 * UPDATE. Retorna false se a senha já tiver sido alterada por outra transação.
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
-	public Usuario buscar(String email, String senha) {
-		String hql = "FROM Usuario u WHERE u.email = :email AND u.senhaCriptografada = :senha";
-		TypedQuery<Usuario> query = getSessao().createQuery(hql);
-		query.setParameter("email", email);
-		query.setParameter("senha", senha);
-		List<Usuario> lista = (List<Usuario>) query.getResultList();
-		if(!lista.isEmpty()) {
-			return lista.get(0);
-		}
-		return null;
+	public boolean atualizarSenha(Long id, String senhaAnterior, String senhaCriptografada) {
+		return getSessao().createNamedQuery(getNomeConsulta("atualizarSenha")).setParameter("id", id)
+				.setParameter("anterior", senhaAnterior).setParameter("senha", senhaCriptografada)
+				.executeUpdate() == 1;
 	}
 
 	/**
-	 * 	Implementao do mtodo adicional do UsuarioDao que o AbstractJPA no supre.
-	 * 	Retorna uma lista de usurios pelo seu estado ativo.
+	 * 	Implementação do método adicional do UsuarioDao que o AbstractJPA não supre.
+	 * 	Retorna uma lista de usuários pelo seu estado ativo.
 	 */
-	@SuppressWarnings("unchecked")
 	@Override
 	public List<Usuario> buscarTodos(boolean ativo) {
-		String hql = "FROM Usuario u WHERE u.ativo = :ativo";
-		TypedQuery<Usuario> query = getSessao().createQuery(hql);
+		TypedQuery<Usuario> query = criarConsulta("buscarPorAtivo");
 		query.setParameter("ativo", ativo);
-		List<Usuario> lista = (List<Usuario>) query.getResultList();
+		List<Usuario> lista = query.getResultList();
 		if(!lista.isEmpty()) {
 			return lista;
 		}
 		return null;
 	}
+
+	/**
+	 * 	Implementação do método adicional do UsuarioDao que o AbstractJPA não supre.
+	 * 	Retorna uma página de usuários resumidos, sem a senha e sem carregar as entidades.
+	 */
+	@Override
+	public List<UsuarioResumo> buscarResumos(Long cursor, int limite, Ordenacao ordenacao) {
+		return buscarPaginaResumo(cursor, limite, ordenacao, UsuarioResumo.class);
+	}
 }
@@ -2,4 +2,11 @@ package br.com.lupus.exceptions;
 
 public class ConflictException extends Exception {
 	private static final long serialVersionUID = 1L;
+
+	public ConflictException() {
+	}
+
+	public ConflictException(String motivo) {
+		super(motivo);
+	}
 }
@@ -0,0 +1,22 @@
+package br.com.lupus.exceptions;
+
+/**
+ * Exception disparada quando a requisição é descartada por sobrecarga, deve ser
+ * respondida com 503 (SERVICE UNAVAILABLE) e o cabeçalho Retry-After
+ *
+ * @author Mateus A.S
+ */
+public class ServiceUnavailableException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	/** Segundos que o cliente deve aguardar antes de tentar novamente */
+	private final int tentarApos;
+
+	public ServiceUnavailableException(int tentarApos) {
+		this.tentarApos = tentarApos;
+	}
+
+	public int getTentarApos() {
+		return tentarApos;
+	}
+}
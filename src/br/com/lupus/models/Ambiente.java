@@ -2,6 +2,7 @@ package br.com.lupus.models;
 
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -11,15 +12,21 @@ import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 import javax.validation.constraints.Size;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Projecao;
 import br.com.lupus.models.serializer.Serializer;
+import br.com.lupus.models.serializer.Visao;
 
 
 /**
@@ -30,9 +37,27 @@ import br.com.lupus.models.serializer.Serializer;
  */
 @Entity
 @Table(name = "ambiente")
+@Cacheable
+@BatchSize(size = 50)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ambiente")
 @JsonSerialize(using = Serializer.class)
 public class Ambiente extends Model {
 
+	// Visões
+
+	/** Listagem e exportação de ambientes */
+	public static final Visao RESUMO = Visao.de("ambiente-resumo", Projecao.de(Ambiente.class, "id", "descricao"));
+
+	/** Busca de um ambiente, com os itens nele contidos */
+	public static final Visao DETALHE = Visao.de("ambiente-detalhe",
+			Projecao.de(Ambiente.class, "id", "descricao", "cadastrante", "itens")
+					.e(Usuario.class, "id", "nome", "ativo").e(Item.class, "id", "tipo").e(TipoItem.class, "nome"));
+
+	/** Edição de um ambiente */
+	public static final Visao EDICAO = Visao.de("ambiente-edicao",
+			Projecao.de(Ambiente.class, "id", "descricao", "cadastrante")
+					.e(Usuario.class, "id", "nome", "email", "permissao", "ativo"));
+
 	// Construtores
 	
 	/**
@@ -43,12 +68,12 @@ public class Ambiente extends Model {
 	}
 	
 	/**
-	 * Construtor que preenche todos os parmetros
+	 * Construtor que preenche todos os parâmetros
 	 * 
-	 * @param id parmetro id do objeto Ambiente
-	 * @param descricao parmetro descricao do objeto Ambiente
-	 * @param cadastrante parmetro cadastrante do objeto Ambiente
-	 * @param itens parmetro itens do objeto Ambiente
+	 * @param id parâmetro id do objeto Ambiente
+	 * @param descricao parâmetro descricao do objeto Ambiente
+	 * @param cadastrante parâmetro cadastrante do objeto Ambiente
+	 * @param itens parâmetro itens do objeto Ambiente
 	 */
 	public Ambiente(Long id, String descricao, Usuario cadastrante, List<Item> itens) {
 		
@@ -58,20 +83,21 @@ public class Ambiente extends Model {
 		this.itens = itens;
 	}
 
-	// Parmetros	
-	/** Identificao dos diferentes registros de ambientes.
-	 *  Valor gerado automticamente ao ser persistido. */
+	// Parâmetros	
+	/** Identificação dos diferentes registros de ambientes.
+	 *  Valor gerado automáticamente ao ser persistido. */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "gerador_ambiente")
+	@TableGenerator(name = "gerador_ambiente", table = "gerador_id", pkColumnName = "entidade", valueColumnName = "proximo_id", pkColumnValue = "ambiente", allocationSize = 50)
 	@Column(columnDefinition = "BIGINT UNSIGNED")
 	private Long id;
 
-	/** String descritiva do ambiente, mximo de 75 caracteres */
+	/** String descritiva do ambiente, máximo de 75 caracteres */
 	@Column(unique = false, nullable = false, length = 75)
-	@Size(max = 75, message = "Tamanho mximo de 75 caracteres")
+	@Size(max = 75, message = "Tamanho máximo de 75 caracteres")
 	private String descricao;
 
-	/** Usurio que cadastrou/est tentando cadastrar esse ambiente.*/
+	/** Usuário que cadastrou/está tentando cadastrar esse ambiente.*/
 	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	private Usuario cadastrante;
 	
@@ -83,7 +109,7 @@ public class Ambiente extends Model {
 	// Getters & Setters
 	
 	/**
-	 *  Retorna o nmero de identificao do registro
+	 *  Retorna o número de identificação do registro
 	 *  
 	 * @return id do Ambiente
 	 */
@@ -92,26 +118,26 @@ public class Ambiente extends Model {
 	}
 
 	/**
-	 * 	Define o nmero de identificao do Ambiente
-	 * (Sempre, ao ser persistido, o nmero de identificao  gerado automaticamente)
+	 * 	Define o número de identificação do Ambiente
+	 * (Sempre, ao ser persistido, o número de identificação é gerado automaticamente)
 	 * 
-	 * @param id nmero de identificao do registro
+	 * @param id número de identificação do registro
 	 */
 	public void setId(Long id) {
 		this.id = id;
 	}
 
 	/**
-	 * Retorna a descrio do registro Ambiente
+	 * Retorna a descrição do registro Ambiente
 	 * 
-	 * @return String de descrio do registro
+	 * @return String de descrição do registro
 	 */
 	public String getDescricao() {
 		return descricao;
 	}
 
 	/**
-	 * Define uma descrio para o Ambiente
+	 * Define uma descrição para o Ambiente
 	 * 
 	 * @param descricao String que descreve o ambiente
 	 */
@@ -129,9 +155,9 @@ public class Ambiente extends Model {
 	}
 
 	/**
-	 * Define o usurio cadastrante para esse ambiente
+	 * Define o usuário cadastrante para esse ambiente
 	 * 
-	 * @param cadastrante usurio que vai cadastrar esse ambiente
+	 * @param cadastrante usuário que vai cadastrar esse ambiente
 	 */
 	public void setCadastrante(Usuario cadastrante) {
 		this.cadastrante = cadastrante;
@@ -140,7 +166,7 @@ public class Ambiente extends Model {
 	/**
 	 * Retorna todos os itens que se encontram anexados ao id do ambiente atual
 	 * 
-	 * @return itens que esto referenciados ao id desse registro
+	 * @return itens que estão referenciados ao id desse registro
 	 */
 	public List<Item> getItens() {
 		return itens;
@@ -0,0 +1,28 @@
+package br.com.lupus.models;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Conversor da senha criptografada para a coluna senha, do tipo blob. A senha
+ * é gravada como os bytes do texto, já que um texto atribuído a uma coluna blob
+ * é lido como hexadecimal por algumas bases de dados (H2), o que rejeita as
+ * senhas em BCrypt
+ *
+ * @author Mateus A.S
+ */
+@Converter
+public class ConversorSenha implements AttributeConverter<String, byte[]> {
+
+	@Override
+	public byte[] convertToDatabaseColumn(String senhaCriptografada) {
+		return senhaCriptografada == null ? null : senhaCriptografada.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String convertToEntityAttribute(byte[] coluna) {
+		return coluna == null ? null : new String(coluna, StandardCharsets.UTF_8);
+	}
+}
@@ -1,5 +1,7 @@
 package br.com.lupus.models;
 
+import java.util.Date;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -8,12 +10,19 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.BatchSize;
 
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Projecao;
 import br.com.lupus.models.serializer.Serializer;
+import br.com.lupus.models.serializer.Visao;
 
 /**
  * <h1>Item</h1>
@@ -25,9 +34,25 @@ import br.com.lupus.models.serializer.Serializer;
  */
 @Entity
 @Table(name = "item")
+@BatchSize(size = 50)
 @JsonSerialize(using = Serializer.class)
 public class Item extends Model {
 
+	// Visões
+
+	/** Listagem e exportação de itens */
+	public static final Visao RESUMO = Visao.de("item-resumo",
+			Projecao.de(Item.class, "id", "tipo").e(TipoItem.class, "id", "nome"));
+
+	/** Busca de um item */
+	public static final Visao DETALHE = Visao.de("item-detalhe",
+			Projecao.de(Item.class, "id", "tipo", "cadastrante", "ambienteAtual").e(TipoItem.class, "id", "nome")
+					.e(Usuario.class, "id", "nome", "email", "ativo").e(Ambiente.class, "id", "descricao"));
+
+	/** Edição de um item */
+	public static final Visao EDICAO = Visao.de("item-edicao",
+			DETALHE.getProjecao().e(Usuario.class, "id", "nome", "email", "permissao", "ativo"));
+
 	// Construtores
 
 	/**
@@ -37,16 +62,16 @@ public class Item extends Model {
 	}
 
 	/**
-	 * Construtor com todos os parmetros.
+	 * Construtor com todos os parâmetros.
 	 * 
 	 * @param id
-	 *            parmetro id do Objeto
+	 *            parâmetro id do Objeto
 	 * @param tipo
-	 *            parmetro tipo do Objeto
+	 *            parâmetro tipo do Objeto
 	 * @param cadastrante
-	 *            parmetro cadastrante do Objeto
+	 *            parâmetro cadastrante do Objeto
 	 * @param ambienteAtual
-	 *            parmetro ambienteAtual do Objeto
+	 *            parâmetro ambienteAtual do Objeto
 	 */
 	public Item(Long id, TipoItem tipo, Usuario cadastrante, Ambiente ambienteAtual) {
 
@@ -56,25 +81,26 @@ public class Item extends Model {
 		this.ambienteAtual = ambienteAtual;
 	}
 
-	// Parmetros
+	// Parâmetros
 
 	/**
-	 * Identificao dos diferentes registros de itens. Valor gerado automticamente
+	 * Identificação dos diferentes registros de itens. Valor gerado automáticamente
 	 * ao ser persistido.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "gerador_item")
+	@TableGenerator(name = "gerador_item", table = "gerador_id", pkColumnName = "entidade", valueColumnName = "proximo_id", pkColumnValue = "item", allocationSize = 50)
 	@Column(columnDefinition = "BIGINT UNSIGNED")
 	private Long id;
 
 	/**
 	 * Tipo cadastrado que representa esse item. Registro com as
-	 * definies/descries desse item.
+	 * definições/descrições desse item.
 	 */
-	@ManyToOne(optional = false, fetch = FetchType.EAGER)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	private TipoItem tipo;
 
-	/** Usurio que cadastrou/est tentando cadastrar esse item. */
+	/** Usuário que cadastrou/está tentando cadastrar esse item. */
 	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	private Usuario cadastrante;
 
@@ -83,10 +109,25 @@ public class Item extends Model {
 	@JoinColumn(name = "ambiente_atual_id")
 	private Ambiente ambienteAtual;
 
+	/**
+	 * Versão do registro, incrementada a cada alteração. Impede que duas
+	 * alterações concorrentes sobre o mesmo item sobrescrevam uma à outra.
+	 */
+	@Version
+	@Column(nullable = false)
+	private Long versao;
+
+	/**
+	 * Data em que o item foi cadastrado, definida ao ser persistido. Nula nos
+	 * itens cadastrados antes da criação da coluna
+	 */
+	@Column(name = "data_cadastro", updatable = false)
+	private Date dataCadastro;
+
 	// Getters & Setters
 
 	/**
-	 * Mtodo que retorna o nmero de identificao do registro Item
+	 * Método que retorna o número de identificação do registro Item
 	 * 
 	 * @return id do item
 	 */
@@ -95,18 +136,18 @@ public class Item extends Model {
 	}
 
 	/**
-	 * Define o nmero de identificao para o objeto Item (Sempre, ao ser
-	 * persistido, o nmero de identificao  gerado automaticamente)
+	 * Define o número de identificação para o objeto Item (Sempre, ao ser
+	 * persistido, o número de identificação é gerado automaticamente)
 	 * 
 	 * @param id
-	 *            nmero de identificao
+	 *            número de identificação
 	 */
 	public void setId(Long id) {
 		this.id = id;
 	}
 
 	/**
-	 * Retorna um objeto TipoItem populado com as definies/descries desse item
+	 * Retorna um objeto TipoItem populado com as definições/descrições desse item
 	 * 
 	 * @return TipoItem que representa esse item
 	 */
@@ -115,11 +156,11 @@ public class Item extends Model {
 	}
 
 	/**
-	 * Define um objeto TipoItem que representa as definies/descries desse tipo
+	 * Define um objeto TipoItem que representa as definições/descrições desse tipo
 	 * de item
 	 * 
 	 * @param tipo
-	 *            objeto TipoItem com as definies desse item
+	 *            objeto TipoItem com as definições desse item
 	 */
 	public void setTipo(TipoItem tipo) {
 		this.tipo = tipo;
@@ -135,10 +176,10 @@ public class Item extends Model {
 	}
 
 	/**
-	 * Define o usurio cadastrante para esse item
+	 * Define o usuário cadastrante para esse item
 	 * 
 	 * @param cadastrante
-	 *            usurio que vai cadastrar esse item
+	 *            usuário que vai cadastrar esse item
 	 */
 	public void setCadastrante(Usuario cadastrante) {
 		this.cadastrante = cadastrante;
@@ -163,6 +204,56 @@ public class Item extends Model {
 		this.ambienteAtual = ambienteAtual;
 	}
 
+	/**
+	 * Retorna a versão atual do registro Item
+	 * 
+	 * @return versão do item
+	 */
+	public Long getVersao() {
+		return versao;
+	}
+
+	/**
+	 * Define a versão do objeto Item (Sempre, ao ser persistido ou alterado, a
+	 * versão é gerenciada automaticamente)
+	 * 
+	 * @param versao
+	 *            versão do registro
+	 */
+	public void setVersao(Long versao) {
+		this.versao = versao;
+	}
+
+	/**
+	 * Retorna a data em que o item foi cadastrado
+	 * 
+	 * @return data de cadastro do item
+	 */
+	public Date getDataCadastro() {
+		return dataCadastro;
+	}
+
+	/**
+	 * Define a data de cadastro do objeto Item (Se não definida, ao ser
+	 * persistido, recebe a data atual)
+	 * 
+	 * @param dataCadastro
+	 *            data de cadastro do item
+	 */
+	public void setDataCadastro(Date dataCadastro) {
+		this.dataCadastro = dataCadastro;
+	}
+
+	/**
+	 * Define a data de cadastro antes da inserção, em todas as formas de cadastro
+	 * (individual e importação)
+	 */
+	@PrePersist
+	private void definirDataCadastro() {
+		if (dataCadastro == null)
+			dataCadastro = new Date();
+	}
+
 	@Override
 	public String toString() {
 		return "Item [id=" + id + ", tipo=" + tipo + ", cadastrante=" + cadastrante + ", ambienteAtual=" + ambienteAtual
@@ -4,23 +4,27 @@ import java.util.Date;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Projecao;
 import br.com.lupus.models.serializer.Serializer;
+import br.com.lupus.models.serializer.Visao;
 
 /**
  * <h1>Movimentacao</h1>
  * 
  * <p>
- * Classe representativa da entidade movimentao
+ * Classe representativa da entidade movimentação
  * </p>
  * 
  * @author Mateus A.S
@@ -30,6 +34,26 @@ import br.com.lupus.models.serializer.Serializer;
 @JsonSerialize(using = Serializer.class)
 public class Movimentacao extends Model {
 
+	// Visões
+
+	/** Movimentações registradas pelos end-points de itens */
+	public static final Visao REGISTRO = Visao.de("movimentacao-registro",
+			Projecao.de(Movimentacao.class, "id", "dataMovimentacao", "itemMovimentado", "ambienteAnterior",
+					"ambientePosterior", "movimentador").e(Item.class, "id").e(Ambiente.class, "id")
+					.e(Usuario.class, "id", "nome", "permissao", "ativo"));
+
+	/** Exportação de movimentações */
+	public static final Visao EXPORTACAO = Visao.de("movimentacao-exportacao",
+			Projecao.de(Movimentacao.class, "id", "dataMovimentacao", "itemMovimentado", "ambienteAnterior",
+					"ambientePosterior", "movimentador").e(Item.class, "id").e(Ambiente.class, "id")
+					.e(Usuario.class, "id", "nome"));
+
+	/** Histórico de movimentações, as associações são escritas apenas com o id */
+	public static final Visao HISTORICO = Visao.de("movimentacao-historico",
+			Projecao.de(Movimentacao.class, "id", "dataMovimentacao", "itemMovimentado", "ambienteAnterior",
+					"ambientePosterior", "movimentador").e(Item.class, "id").e(Ambiente.class, "id")
+					.e(Usuario.class, "id"));
+
 	// Construtores
 
 	/**
@@ -39,20 +63,20 @@ public class Movimentacao extends Model {
 	}
 
 	/**
-	 * Construtor que popula o novo objeto com todos os parmetros
+	 * Construtor que popula o novo objeto com todos os parâmetros
 	 * 
 	 * @param id
-	 *            parmetro id do objeto Movimentao
+	 *            parâmetro id do objeto Movimentação
 	 * @param dataMovimentacao
-	 *            parmetro dataMovimentacao do objeto Movimentao
+	 *            parâmetro dataMovimentacao do objeto Movimentação
 	 * @param itemMovimentado
-	 *            parmetro itemMovimentado do objeto Movimentao
+	 *            parâmetro itemMovimentado do objeto Movimentação
 	 * @param ambienteAnterior
-	 *            parmetro ambienteAnterior do objeto Movimentao
+	 *            parâmetro ambienteAnterior do objeto Movimentação
 	 * @param ambientePosterior
-	 *            parmetro ambientePosterior do objeto Movimentao
+	 *            parâmetro ambientePosterior do objeto Movimentação
 	 * @param movimentador
-	 *            parmetro movimentador do objeto Movimentao
+	 *            parâmetro movimentador do objeto Movimentação
 	 */
 	public Movimentacao(Long id, Date dataMovimentacao, Item itemMovimentado, Ambiente ambienteAnterior,
 			Ambiente ambientePosterior, Usuario movimentador) {
@@ -65,14 +89,15 @@ public class Movimentacao extends Model {
 		this.movimentador = movimentador;
 	}
 
-	// Parmetros
+	// Parâmetros
 
 	/**
-	 * Identificao dos diferentes registros de movimentaes. Valor gerado
-	 * automticamente ao ser persistido.
+	 * Identificação dos diferentes registros de movimentações. Valor gerado
+	 * automáticamente ao ser persistido.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "gerador_movimentacao")
+	@TableGenerator(name = "gerador_movimentacao", table = "gerador_id", pkColumnName = "entidade", valueColumnName = "proximo_id", pkColumnValue = "movimentacao", allocationSize = 50)
 	@Column(columnDefinition = "BIGINT UNSIGNED")
 	private Long id;
 
@@ -81,7 +106,7 @@ public class Movimentacao extends Model {
 	private Date dataMovimentacao;
 
 	/** Objeto que representa o registro do item movimentado */
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "item_movimentado_id")
 	private Item itemMovimentado;
 
@@ -89,35 +114,35 @@ public class Movimentacao extends Model {
 	 * Objeto que representa o registro do ambiente em que o item estava anexado
 	 * anteriormente
 	 */
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ambiente_anterior_id")
 	private Ambiente ambienteAnterior;
 
 	/**
 	 * Objeto que representa o registro do ambiente a qual o item vai ser anexado
 	 */
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ambiente_posterior_id")
 	private Ambiente ambientePosterior;
 
-	/** Objeto que representa o registro do usurio que efetuou a movimentao */
-	@ManyToOne
+	/** Objeto que representa o registro do usuário que efetuou a movimentação */
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Usuario movimentador;
 
 	// Getters and Setters
 
 	/**
-	 * Retorna o nmero de identificao do objeto Movimentao
+	 * Retorna o número de identificação do objeto Movimentação
 	 * 
-	 * @return id da movimentao
+	 * @return id da movimentação
 	 */
 	public Long getId() {
 		return id;
 	}
 
 	/**
-	 * Define o nmero de identificao do Usurio (Sempre, ao ser persistido, o
-	 * nmero de identificao  gerado automaticamente)
+	 * Define o número de identificação do Usuário (Sempre, ao ser persistido, o
+	 * número de identificação é gerado automaticamente)
 	 * 
 	 * @param id
 	 */
@@ -126,22 +151,22 @@ public class Movimentacao extends Model {
 	}
 
 	/**
-	 * Retorna um objeto Date que representa a data em que a movimentao foi
+	 * Retorna um objeto Date que representa a data em que a movimentação foi
 	 * efetuada
 	 * 
-	 * @return data de movimentao em um objeto Date
+	 * @return data de movimentação em um objeto Date
 	 */
 	public Date getDataMovimentacao() {
 		return dataMovimentacao;
 	}
 
 	/**
-	 * Define um objeto date que represent a data em que foi efetuada a
-	 * movimentao
+	 * Define um objeto date que representá a data em que foi efetuada a
+	 * movimentação
 	 * 
 	 * @param dataMovimentacao
 	 *            objeto Date representando a data em que foi efetuada a
-	 *            movimentao
+	 *            movimentação
 	 */
 	public void setDataMovimentacao(Date dataMovimentacao) {
 		this.dataMovimentacao = dataMovimentacao;
@@ -157,10 +182,10 @@ public class Movimentacao extends Model {
 	}
 
 	/**
-	 * Define um objeto Item que representar o item movimentado
+	 * Define um objeto Item que representará o item movimentado
 	 * 
 	 * @param itemMovimentado
-	 *            objeto Item que ser anexado a movimentao
+	 *            objeto Item que será anexado a movimentação
 	 */
 	public void setItemMovimentado(Item itemMovimentado) {
 		this.itemMovimentado = itemMovimentado;
@@ -177,11 +202,11 @@ public class Movimentacao extends Model {
 	}
 
 	/**
-	 * Define um objeto Ambiente que representar o ambiente em que o item se
+	 * Define um objeto Ambiente que representará o ambiente em que o item se
 	 * encontrava
 	 * 
 	 * @param ambienteAnterior
-	 *            objeto Ambiente que ser anexado como ambiente anterior
+	 *            objeto Ambiente que será anexado como ambiente anterior
 	 */
 	public void setAmbienteAnterior(Ambiente ambienteAnterior) {
 		this.ambienteAnterior = ambienteAnterior;
@@ -198,31 +223,31 @@ public class Movimentacao extends Model {
 	}
 
 	/**
-	 * Define um objeto Ambiente que representar o ambiente em que o item ir se
+	 * Define um objeto Ambiente que representará o ambiente em que o item irá se
 	 * encontrar
 	 * 
 	 * @param ambientePosterior
-	 *            objeto Ambiente que ser anexado com ambiente posterior
+	 *            objeto Ambiente que será anexado com ambiente posterior
 	 */
 	public void setAmbientePosterior(Ambiente ambientePosterior) {
 		this.ambientePosterior = ambientePosterior;
 	}
 
 	/**
-	 * Retorna um objeto Usurio populado com os dados do registro do usurio
+	 * Retorna um objeto Usuário populado com os dados do registro do usuário
 	 * movimentador
 	 * 
-	 * @return usurio movimentador
+	 * @return usuário movimentador
 	 */
 	public Usuario getMovimentador() {
 		return movimentador;
 	}
 
 	/**
-	 * Define um usurio que representar o usurio movimentador
+	 * Define um usuário que representará o usuário movimentador
 	 * 
 	 * @param movimentador
-	 *            objeto Usurio que ser anexado a movimentao como movimentador
+	 *            objeto Usuário que será anexado a movimentação como movimentador
 	 */
 	public void setMovimentador(Usuario movimentador) {
 		this.movimentador = movimentador;
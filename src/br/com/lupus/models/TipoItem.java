@@ -1,6 +1,7 @@
 package br.com.lupus.models;
 
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -10,17 +11,25 @@ import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 import javax.persistence.CascadeType;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Projecao;
 import br.com.lupus.models.serializer.Serializer;
+import br.com.lupus.models.serializer.Visao;
 
 /**
  * <h1>TipoItem</h1>
  * 
  * <p>
- * Classe modelo representativa da entidade tipo item, entidade que contm todos
+ * Classe modelo representativa da entidade tipo item, entidade que contém todos
  * os aspectos de um tipo de item
  * </p>
  * 
@@ -28,9 +37,23 @@ import br.com.lupus.models.serializer.Serializer;
  */
 @Entity
 @Table(name = "tipo_item")
+@Cacheable
+@BatchSize(size = 50)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tipoItem")
 @JsonSerialize(using = Serializer.class)
 public class TipoItem extends Model {
 
+	// Visões
+
+	/** Listagem e edição de tipos de item */
+	public static final Visao RESUMO = Visao.de("tipo-item-resumo", Projecao.de(TipoItem.class, "id", "nome"));
+
+	/** Busca de um tipo de item, com suas tags e itens */
+	public static final Visao DETALHE = Visao.de("tipo-item-detalhe",
+			Projecao.de(TipoItem.class, "id", "nome", "cadastrante", "tagsAnexadas", "itensAnexados")
+					.e(Usuario.class, "id", "nome", "email", "permissao", "ativo")
+					.e(TipoItemTag.class, "id", "cabecalho", "corpo", "tipo").e(Item.class, "id"));
+
 	// Construtores
 
 	/**
@@ -40,14 +63,14 @@ public class TipoItem extends Model {
 	}
 
 	/**
-	 * Construtor que preenche todos os parmetros do objeto TipoItem
+	 * Construtor que preenche todos os parâmetros do objeto TipoItem
 	 * 
 	 * @param id
-	 *            parmetro id do objeto TipoItem
+	 *            parâmetro id do objeto TipoItem
 	 * @param nome
-	 *            parmetro nome do objeto TipoItem
+	 *            parâmetro nome do objeto TipoItem
 	 * @param tagsAnexadas
-	 *            parmetro tagsAnexadas do objeto TipoItem
+	 *            parâmetro tagsAnexadas do objeto TipoItem
 	 */
 	public TipoItem(Long id, String nome, Usuario cadastrante, List<TipoItemTag> tagsAnexadas) {
 
@@ -57,46 +80,49 @@ public class TipoItem extends Model {
 		this.tagsAnexadas = tagsAnexadas;
 	}
 
-	// Parmetros
+	// Parâmetros
 
 	/**
-	 * Identificao dos diferentes registros de tipos de itens. Valor gerado
-	 * automticamente ao ser persistido.
+	 * Identificação dos diferentes registros de tipos de itens. Valor gerado
+	 * automáticamente ao ser persistido.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "gerador_tipo_item")
+	@TableGenerator(name = "gerador_tipo_item", table = "gerador_id", pkColumnName = "entidade", valueColumnName = "proximo_id", pkColumnValue = "tipo_item", allocationSize = 50)
 	@Column(columnDefinition = "BIGINT UNSIGNED")
 	private Long id;
 
 	/**
-	 * String referente ao nome descritivo do item, com largura mxima de 75
+	 * String referente ao nome descritivo do item, com largura máxima de 75
 	 * caracteres
 	 */
 	@Column(unique = false, nullable = false, length = 75)
 	private String nome;
 
-	/** Usurio que cadastrou/est tentando cadastrar esse registro */
+	/** Usuário que cadastrou/está tentando cadastrar esse registro */
 	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	private Usuario cadastrante;
 
 	/**
-	 * Lista de tags que esto referenciadas por uma chave estrangeira ao id desse
+	 * Lista de tags que estão referenciadas por uma chave estrangeira ao id desse
 	 * objeto
 	 */
 	@OneToMany(mappedBy = "tipoItem", targetEntity = TipoItemTag.class, fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.REMOVE})
+	@Fetch(FetchMode.SUBSELECT)
 	private List<TipoItemTag> tagsAnexadas;
 	
 	/**
-	 * Lista de itens que esto referenciadas por uma chave estrangeira ao id desse
+	 * Lista de itens que estão referenciadas por uma chave estrangeira ao id desse
 	 * objeto
 	 */
 	@OneToMany(mappedBy = "tipo", targetEntity = Item.class, fetch = FetchType.LAZY)
+	@Fetch(FetchMode.SUBSELECT)
 	private List<Item> itensAnexados;
 
 	// Getters & Setters
 
 	/**
-	 * Mtodo que retorna o nmero de identificao (id) do registro TipoItem
+	 * Método que retorna o número de identificação (id) do registro TipoItem
 	 * 
 	 * @return id do TipoItem
 	 */
@@ -105,18 +131,18 @@ public class TipoItem extends Model {
 	}
 
 	/**
-	 * Define um nmero de identificao para o objeto. (Sempre, ao ser persistido,
-	 * o nmero de identificao  gerado automaticamente)
+	 * Define um número de identificação para o objeto. (Sempre, ao ser persistido,
+	 * o número de identificação é gerado automaticamente)
 	 * 
 	 * @param id
-	 *            nmero positivo a ser definido como id
+	 *            número positivo a ser definido como id
 	 */
 	public void setId(Long id) {
 		this.id = id;
 	}
 
 	/**
-	 * Mtodo que retorna o nome do registro
+	 * Método que retorna o nome do registro
 	 * 
 	 * @return nome do TipoItem
 	 */
@@ -125,10 +151,10 @@ public class TipoItem extends Model {
 	}
 
 	/**
-	 * Define um nome (at 75 caracteres) descritivo para o TipoItem
+	 * Define um nome (até 75 caracteres) descritivo para o TipoItem
 	 * 
 	 * @param nome
-	 *            nome descritivo de at 75 caracteres
+	 *            nome descritivo de até 75 caracteres
 	 */
 	public void setNome(String nome) {
 		this.nome = nome;
@@ -144,17 +170,17 @@ public class TipoItem extends Model {
 	}
 
 	/**
-	 * Define o usurio cadastrante para esse registro
+	 * Define o usuário cadastrante para esse registro
 	 * 
 	 * @param cadastrante
-	 *            usurio que vai cadastrar esse registro
+	 *            usuário que vai cadastrar esse registro
 	 */
 	public void setCadastrante(Usuario cadastrante) {
 		this.cadastrante = cadastrante;
 	}
 
 	/**
-	 * Mtodo que retorna uma lista de tags que esto referenciadas ao id desse
+	 * Método que retorna uma lista de tags que estão referenciadas ao id desse
 	 * objeto
 	 * 
 	 * @return lista de tags referenciadas ao id desse objeto
@@ -174,7 +200,7 @@ public class TipoItem extends Model {
 	}
 
 	/**
-	 * Mtodo que retorna uma lista de itens que esto referenciadas ao id desse
+	 * Método que retorna uma lista de itens que estão referenciadas ao id desse
 	 * objeto
 	 * 
 	 * @return lista de itens referenciadas ao id desse objeto
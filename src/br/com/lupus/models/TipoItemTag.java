@@ -1,15 +1,21 @@
 package br.com.lupus.models;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
@@ -27,6 +33,8 @@ import br.com.lupus.models.serializer.Serializer;
  */
 @Entity
 @Table(name = "tipo_item_tag")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tipoItemTag")
 @JsonSerialize(using = Serializer.class)
 public class TipoItemTag extends Model {
 
@@ -39,18 +47,18 @@ public class TipoItemTag extends Model {
 	}
 
 	/**
-	 * Construtor que preenche todos os parmetros do objeto
+	 * Construtor que preenche todos os parâmetros do objeto
 	 * 
 	 * @param id
-	 *            parmetro id do objeto TipoItemTag
+	 *            parâmetro id do objeto TipoItemTag
 	 * @param cabecalho
-	 *            parmetro cabecalho do objeto TipoItemTag
+	 *            parâmetro cabecalho do objeto TipoItemTag
 	 * @param corpo
-	 *            parmetro corpo do objeto TipoItemTag
+	 *            parâmetro corpo do objeto TipoItemTag
 	 * @param tipo
-	 *            parmetro tipo do objeto TipoItemTag
+	 *            parâmetro tipo do objeto TipoItemTag
 	 * @param tipoItem
-	 *            parmetro tipoItem do objeto TipoItemTag
+	 *            parâmetro tipoItem do objeto TipoItemTag
 	 */
 	public TipoItemTag(Long id, String cabecalho, String corpo, String tipo, TipoItem tipoItem) {
 
@@ -61,43 +69,44 @@ public class TipoItemTag extends Model {
 		this.tipoItem = tipoItem;
 	}
 
-	// Parmetros
+	// Parâmetros
 
 	/**
-	 * Identificao dos diferentes registros de tags. Valor gerado automticamente
+	 * Identificação dos diferentes registros de tags. Valor gerado automáticamente
 	 * ao ser persistido.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "gerador_tipo_item_tag")
+	@TableGenerator(name = "gerador_tipo_item_tag", table = "gerador_id", pkColumnName = "entidade", valueColumnName = "proximo_id", pkColumnValue = "tipo_item_tag", allocationSize = 50)
 	@Column(columnDefinition = "BIGINT UNSIGNED")
 	private Long id;
 
-	/** String referente ao nome da tag. Tamanho mximo de 50 caracteres. */
+	/** String referente ao nome da tag. Tamanho máximo de 50 caracteres. */
 	@Column(unique = false, nullable = false, length = 50)
 	@NotNull
 	private String cabecalho;
 
-	/** String referente ao valor da tag. Tamanho mximo de 50 caracteres. */
+	/** String referente ao valor da tag. Tamanho máximo de 50 caracteres. */
 	@Column(unique = false, nullable = true, length = 50)
 	private String corpo;
 
 	/**
 	 * String referente ao tipo de dado que o valor da tag representa (como data,
-	 * nmero, etc). Tamanho mximo de 50 caracteres.
+	 * número, etc). Tamanho máximo de 50 caracteres.
 	 */
 	@Column(unique = false, nullable = true, length = 50)
 	@JsonIgnore
 	private String tipo;
 
 	/** TipoItem a qual a tag pertence. */
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JoinColumn(name = "tipo_item_id")
 	private TipoItem tipoItem;
 
 	// Getters & Setters
 
 	/**
-	 * Mtodo que retorna o nmero de identificao do registro TipoItemTag
+	 * Método que retorna o número de identificação do registro TipoItemTag
 	 * 
 	 * @return id da tag
 	 */
@@ -106,27 +115,27 @@ public class TipoItemTag extends Model {
 	}
 
 	/**
-	 * Define um nmero de identificao para o objeto TipoItemTag (Sempre, ao ser
-	 * persistido, o nmero de identificao  gerado automaticamente)
+	 * Define um número de identificação para o objeto TipoItemTag (Sempre, ao ser
+	 * persistido, o número de identificação é gerado automaticamente)
 	 * 
 	 * @param id
-	 *            nmero de identificao
+	 *            número de identificação
 	 */
 	public void setId(Long id) {
 		this.id = id;
 	}
 
 	/**
-	 * Mtodo que retorna o nome do objeto TipoItemTag (cabealho)
+	 * Método que retorna o nome do objeto TipoItemTag (cabeçalho)
 	 * 
-	 * @return cabealho da tag
+	 * @return cabeçalho da tag
 	 */
 	public String getCabecalho() {
 		return cabecalho;
 	}
 
 	/**
-	 * Define um nome para o objeto TipoItemTag (cabealho)
+	 * Define um nome para o objeto TipoItemTag (cabeçalho)
 	 * 
 	 * @param cabecalho
 	 *            nome a ser colocado na tag
@@ -136,7 +145,7 @@ public class TipoItemTag extends Model {
 	}
 
 	/**
-	 * Mtodo que retorna o valor do objeto TipoItemTag (corpo)
+	 * Método que retorna o valor do objeto TipoItemTag (corpo)
 	 * 
 	 * @return corpo da tag
 	 */
@@ -145,7 +154,7 @@ public class TipoItemTag extends Model {
 	}
 
 	/**
-	 * Define um nome para o objeto TipoItemTag (cabealho)
+	 * Define um nome para o objeto TipoItemTag (cabeçalho)
 	 * 
 	 * @param cabecalho
 	 *            nome a ser colocado na tag
@@ -155,7 +164,7 @@ public class TipoItemTag extends Model {
 	}
 
 	/**
-	 * Mtodo que retorna o tipo do objeto TipoItemTag
+	 * Método que retorna o tipo do objeto TipoItemTag
 	 * 
 	 * @return tipo de dado do valor da tag
 	 */
@@ -174,20 +183,20 @@ public class TipoItemTag extends Model {
 	}
 
 	/**
-	 * Mtodo que retonar o TipoItem a qual a tag est anexada.
+	 * Método que retonar o TipoItem a qual a tag está anexada.
 	 * 
-	 * @return objeto TipoItem a qual a tag est anexada.
+	 * @return objeto TipoItem a qual a tag está anexada.
 	 */
 	public TipoItem getTipoItem() {
 		return tipoItem;
 	}
 
 	/**
-	 * Define a qual TipoItem a tag  relacionada.
+	 * Define a qual TipoItem a tag é relacionada.
 	 * 
 	 * @param tipoItem
 	 *            objeto TipoItem (necessita ser populado com o registro de TipoItem
-	 *            j existente e no pendente a existir, com o campo id correto).
+	 *            já existente e não pendente a existir, com o campo id correto).
 	 */
 	public void setTipoItem(TipoItem tipoItem) {
 		this.tipoItem = tipoItem;
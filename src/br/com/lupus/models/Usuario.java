@@ -1,20 +1,25 @@
 package br.com.lupus.models;
 
-import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 import javax.persistence.Transient;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.Past;
 import javax.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -23,7 +28,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Projecao;
 import br.com.lupus.models.serializer.Serializer;
+import br.com.lupus.models.serializer.Visao;
 
 /**
  * <h1>Usuario</h1>
@@ -31,19 +38,28 @@ import br.com.lupus.models.serializer.Serializer;
  * Classe modelo representativa da entidade Usuario
  * </p>
  * <p>
- * Utilizada tambm para autenticao realizada pelo Spring Security atravs da
- * implementao da interface Authentication
+ * Utilizada também para autenticação realizada pelo Spring Security através da
+ * implementação da interface Authentication
  * </p>
  * 
  * @author Mateus A.S
  */
 @Entity
 @Table(name = "usuario")
+@Cacheable
+@BatchSize(size = 50)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuario")
 @JsonSerialize(using = Serializer.class)
 public class Usuario extends Model implements Authentication {
 
 	private static final long serialVersionUID = 1L;
 
+	// Visões
+
+	/** Usuário retornado em todos os end-points de usuários */
+	public static final Visao PADRAO = Visao.de("usuario",
+			Projecao.de(Usuario.class, "id", "nome", "email", "dataNascimento", "permissao", "ativo"));
+
 	// Construtores
 	/**
 	 * Construtor vazio
@@ -52,18 +68,18 @@ public class Usuario extends Model implements Authentication {
 	}
 
 	/**
-	 * Construtor que popula todos os parmetros do novo objeto Usuario
+	 * Construtor que popula todos os parâmetros do novo objeto Usuario
 	 * 
 	 * @param id
-	 *            parmetro id do objeto
+	 *            parâmetro id do objeto
 	 * @param nome
-	 *            parmetro nome do objeto
+	 *            parâmetro nome do objeto
 	 * @param email
-	 *            parmetro email do objeto
+	 *            parâmetro email do objeto
 	 * @param dataNascimento
-	 *            parmetro dataNascimento do objeto
+	 *            parâmetro dataNascimento do objeto
 	 * @param permissao
-	 *            parmetro permisso do objeto
+	 *            parâmetro permissão do objeto
 	 */
 	public Usuario(Long id, String nome, String email, Date dataNascimento, Permissao permissao, String senha, boolean ativo) {
 		this.id = id;
@@ -75,113 +91,116 @@ public class Usuario extends Model implements Authentication {
 		this.ativo = ativo;
 	}
 
-	// Parmetros
+	// Parâmetros
 
 	/**
-	 * Identificao dos diferentes registros de usurios. Valor gerado
-	 * automticamente ao ser persistido.
+	 * Identificação dos diferentes registros de usuários. Valor gerado
+	 * automáticamente ao ser persistido.
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "gerador_usuario")
+	@TableGenerator(name = "gerador_usuario", table = "gerador_id", pkColumnName = "entidade", valueColumnName = "proximo_id", pkColumnValue = "usuario", allocationSize = 50)
 	@Column(columnDefinition = "BIGINT UNSIGNED")
 	private Long id;
 
-	/** String que representa o nome do usurio */
+	/** String que representa o nome do usuário */
 	@Column(unique = false, nullable = false, length = 75)
 	@Size(min = 3, max = 75)
 	private String nome;
 
-	/** String que representa o email do usurio */
+	/** String que representa o email do usuário */
 	@Column(unique = true, nullable = false, length = 125)
 	@Email
 	private String email;
 
-	/** Data de nascimento do usurio */
+	/** Data de nascimento do usuário */
 	@Column(name = "data_nascimento", unique = false, nullable = false)
 	@DateTimeFormat(pattern = "dd/MM/yyyy")
 	@JsonFormat(pattern = "dd/MM/yyyy")
 	@Past
 	private Date dataNascimento;
 
-	/** Nvel de permisso do usurio */
+	/** Nível de permissão do usuário */
 	@Column(unique = false, nullable = false)
 	private Permissao permissao;
 
-	/** Chave de acesso do usurio */
+	/** Chave de acesso do usuário */
 	@Size(min = 3, max = 20)
 	@Transient
 	private String senha;
 	
+	/** Chave de acesso criptografada, guardada na coluna senha */
 	@Column(nullable = false, unique = false, name = "senha", columnDefinition = "blob")
+	@Convert(converter = ConversorSenha.class)
 	private String senhaCriptografada;
 	
-	/** Campo que define se o usurio se encontra ativo ou no */
+	/** Campo que define se o usuário se encontra ativo ou não */
 	@Column(nullable = false)
 	private Boolean ativo;
 	
 	// Getters & Setters
 
 	/**
-	 * Retorna o nmero de identificao do registro Usurio
+	 * Retorna o número de identificação do registro Usuário
 	 * 
-	 * @return id do usurio
+	 * @return id do usuário
 	 */
 	public Long getId() {
 		return id;
 	}
 
 	/**
-	 * Define o nmero de identificao para o objeto Usurio (Sempre, ao ser
-	 * persistido, o nmero de identificao  gerado automaticamente)
+	 * Define o número de identificação para o objeto Usuário (Sempre, ao ser
+	 * persistido, o número de identificação é gerado automaticamente)
 	 * 
 	 * @param id
-	 *            nmero de identificao
+	 *            número de identificação
 	 */
 	public void setId(Long id) {
 		this.id = id;
 	}
 
 	/**
-	 * Retorna uma string referente ao nome do usurio
+	 * Retorna uma string referente ao nome do usuário
 	 * 
-	 * @return nome do usurio
+	 * @return nome do usuário
 	 */
 	public String getNome() {
 		return nome;
 	}
 
 	/**
-	 * Define um nome para o objeto Usurio
+	 * Define um nome para o objeto Usuário
 	 * 
 	 * @param nome
-	 *            String referente ao nome do usurio
+	 *            String referente ao nome do usuário
 	 */
 	public void setNome(String nome) {
 		this.nome = nome;
 	}
 
 	/**
-	 * Retorna uma string referente ao email do usurio
+	 * Retorna uma string referente ao email do usuário
 	 * 
-	 * @return email do usurio
+	 * @return email do usuário
 	 */
 	public String getEmail() {
 		return email;
 	}
 
 	/**
-	 * Define um email para o objeto Usurio
+	 * Define um email para o objeto Usuário
 	 * 
 	 * @param email
-	 *            String referente ao email do usurio
+	 *            String referente ao email do usuário
 	 */
 	public void setEmail(String email) {
 		this.email = email;
 	}
 
 	/**
-	 * Retorna um objeto Date que contm as informaes da data de nascimento do
-	 * objeto Usurio
+	 * Retorna um objeto Date que contém as informações da data de nascimento do
+	 * objeto Usuário
 	 * 
 	 * @return data de nascimento em um objeto Date
 	 */
@@ -190,28 +209,28 @@ public class Usuario extends Model implements Authentication {
 	}
 
 	/**
-	 * Define um objeto Date que represente a data de nascimento do usurio
+	 * Define um objeto Date que represente a data de nascimento do usuário
 	 * 
 	 * @param dataNascimento
-	 *            objeto Date representando a data de nascimento do usurio
+	 *            objeto Date representando a data de nascimento do usuário
 	 */
 	public void setDataNascimento(Date dataNascimento) {
 		this.dataNascimento = dataNascimento;
 	}
 
 	/**
-	 * Retorna um enum de permisso que determina o qu o usurio pode ou no fazer
-	 * na aplicao
+	 * Retorna um enum de permissão que determina o quê o usuário pode ou não fazer
+	 * na aplicação
 	 * 
-	 * @return enum de permisso
+	 * @return enum de permissão
 	 */
 	public Permissao getPermissao() {
 		return permissao;
 	}
 
 	/**
-	 * Define uma das constantes do enum Permissao como a permisso que esse objeto
-	 * Usurio tem sobre a aplicao
+	 * Define uma das constantes do enum Permissao como a permissão que esse objeto
+	 * Usuário tem sobre a aplicação
 	 * 
 	 * @param permissao
 	 *            uma constante do enum Permissao
@@ -221,36 +240,37 @@ public class Usuario extends Model implements Authentication {
 	}
 
 	/**
-	 * Retorna a chave de acesso do usurio
+	 * Retorna a chave de acesso do usuário
 	 * 
-	 * @return chave de acesso do usurio
+	 * @return chave de acesso do usuário
 	 */
 	public String getSenha() {
 		return senha;
 	}
 	
 	/**
-	 * Mtodo retorna o campo senha criptografado atravs do algoritmo MD5
+	 * Retorna a senha criptografada guardada na base de dados (BCrypt, ou MD5 nas
+	 * senhas ainda não recriptografadas)
 	 * 
-	 * @return campo senha em MD5
+	 * @return senha criptografada
 	 */
+	@JsonIgnore
 	public String getSenhaCriptografada() {
-		try {
-			MessageDigest md = MessageDigest.getInstance("MD5");
-			byte[] array = md.digest(senha.getBytes());
-			StringBuffer sb = new StringBuffer();
-            for (int i = 0; i < array.length; ++i) {
-              sb.append(Integer.toHexString((array[i] & 0xFF) | 0x100).substring(1,3));
-           }
-            return sb.toString();
-		} catch (Exception e) {
-			e.printStackTrace();
-			return null;
-		}
+		return senhaCriptografada;
+	}
+
+	/**
+	 * Define a senha criptografada a ser guardada na base de dados
+	 * 
+	 * @param senhaCriptografada
+	 *            senha criptografada (ver SenhaUtils.criptografar)
+	 */
+	public void setSenhaCriptografada(String senhaCriptografada) {
+		this.senhaCriptografada = senhaCriptografada;
 	}
 
 	/**
-	 * Define uma chave de acesso para o usurio
+	 * Define uma chave de acesso para o usuário
 	 * 
 	 * @param senha
 	 *            chave de acesso
@@ -261,7 +281,7 @@ public class Usuario extends Model implements Authentication {
 	
 
 	/**
-	 * Retorna o estado do usurio (ativo / desativado)
+	 * Retorna o estado do usuário (ativo / desativado)
 	 *  
 	 * @return true se ativo, false se desativado
 	 */
@@ -270,14 +290,14 @@ public class Usuario extends Model implements Authentication {
 	}
 
 	/**
-	 * Define o estado do usurio (ativo / desativado)
+	 * Define o estado do usuário (ativo / desativado)
 	 * @param ativo true se ativo, false se desativado
 	 */
 	public void setAtivo(Boolean ativo) {
 		this.ativo = ativo;
 	}
 	
-	// Mtodos sobreescritos para a autenticao com o Spring Security
+	// Métodos sobreescritos para a autenticação com o Spring Security
 	@Override
 	@JsonIgnore
 	public String getName() {
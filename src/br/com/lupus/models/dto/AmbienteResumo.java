@@ -0,0 +1,51 @@
+package br.com.lupus.models.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Serializer;
+
+/**
+ * <h1>AmbienteResumo</h1>
+ * <p>
+ * Registro somente leitura de um ambiente, montado diretamente pela consulta
+ * da listagem de ambientes. É serializado com os campos de Ambiente definidos
+ * na visão
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+@JsonSerialize(using = Serializer.class)
+public class AmbienteResumo extends Model {
+
+	private final Long id;
+
+	private final String descricao;
+
+	/**
+	 * Construtor utilizado pela expressão construtora da consulta
+	 * 
+	 * @param id
+	 *            id do ambiente
+	 * @param descricao
+	 *            descrição do ambiente
+	 */
+	public AmbienteResumo(Long id, String descricao) {
+		this.id = id;
+		this.descricao = descricao;
+	}
+
+	@Override
+	public Class<? extends Model> getClasseProjecao() {
+		return Ambiente.class;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getDescricao() {
+		return descricao;
+	}
+}
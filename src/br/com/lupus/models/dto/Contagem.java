@@ -0,0 +1,40 @@
+package br.com.lupus.models.dto;
+
+/**
+ * <h1>Contagem</h1>
+ * <p>
+ * Quantidade de itens referenciados a um registro (ambiente ou tipo de item),
+ * montada diretamente pela consulta agregada
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+public class Contagem {
+
+	/** Id do ambiente ou do tipo de item */
+	private final Long id;
+
+	/** Quantidade de itens */
+	private final long total;
+
+	/**
+	 * Construtor utilizado pela expressão construtora da consulta
+	 * 
+	 * @param id
+	 *            id do registro contado
+	 * @param total
+	 *            quantidade de itens do registro
+	 */
+	public Contagem(Long id, Long total) {
+		this.id = id;
+		this.total = total;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+}
@@ -0,0 +1,50 @@
+package br.com.lupus.models.dto;
+
+/**
+ * <h1>ContagemCruzada</h1>
+ * <p>
+ * Célula da matriz ambiente x tipo: quantidade de itens de um tipo que se
+ * encontram em um ambiente. Combinações sem itens não são retornadas
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+public class ContagemCruzada {
+
+	/** Id do ambiente */
+	private final Long ambiente;
+
+	/** Id do tipo de item */
+	private final Long tipo;
+
+	/** Quantidade de itens do tipo no ambiente */
+	private final long total;
+
+	/**
+	 * Construtor utilizado pela expressão construtora da consulta
+	 * 
+	 * @param ambiente
+	 *            id do ambiente
+	 * @param tipo
+	 *            id do tipo de item
+	 * @param total
+	 *            quantidade de itens do tipo no ambiente
+	 */
+	public ContagemCruzada(Long ambiente, Long tipo, Long total) {
+		this.ambiente = ambiente;
+		this.tipo = tipo;
+		this.total = total;
+	}
+
+	public Long getAmbiente() {
+		return ambiente;
+	}
+
+	public Long getTipo() {
+		return tipo;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+}
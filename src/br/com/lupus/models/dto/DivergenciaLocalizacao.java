@@ -0,0 +1,48 @@
+package br.com.lupus.models.dto;
+
+/**
+ * <h1>DivergenciaLocalizacao</h1>
+ * <p>
+ * Item cujo ambiente atual gravado difere do ambiente obtido pela reprodução
+ * das movimentações
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+public class DivergenciaLocalizacao {
+
+	/** Id do item */
+	private final Long item;
+
+	/** Id do ambiente obtido pela reprodução das movimentações */
+	private final Long esperado;
+
+	/** Id do ambiente atual gravado no item */
+	private final Long atual;
+
+	/**
+	 * @param item
+	 *            id do item
+	 * @param esperado
+	 *            id do ambiente obtido pela reprodução das movimentações
+	 * @param atual
+	 *            id do ambiente atual gravado no item
+	 */
+	public DivergenciaLocalizacao(Long item, Long esperado, Long atual) {
+		this.item = item;
+		this.esperado = esperado;
+		this.atual = atual;
+	}
+
+	public Long getItem() {
+		return item;
+	}
+
+	public Long getEsperado() {
+		return esperado;
+	}
+
+	public Long getAtual() {
+		return atual;
+	}
+}
@@ -0,0 +1,53 @@
+package br.com.lupus.models.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import br.com.lupus.models.Item;
+import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Serializer;
+
+/**
+ * <h1>ItemResumo</h1>
+ * <p>
+ * Registro somente leitura de um item com o seu tipo, montado em uma única
+ * consulta (JOIN) pela listagem de itens. É serializado com os campos de Item
+ * definidos na visão
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+@JsonSerialize(using = Serializer.class)
+public class ItemResumo extends Model {
+
+	private final Long id;
+
+	private final TipoItemResumo tipo;
+
+	/**
+	 * Construtor utilizado pela expressão construtora da consulta
+	 * 
+	 * @param id
+	 *            id do item
+	 * @param tipoId
+	 *            id do tipo do item
+	 * @param tipoNome
+	 *            nome do tipo do item
+	 */
+	public ItemResumo(Long id, Long tipoId, String tipoNome) {
+		this.id = id;
+		this.tipo = new TipoItemResumo(tipoId, tipoNome);
+	}
+
+	@Override
+	public Class<? extends Model> getClasseProjecao() {
+		return Item.class;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public TipoItemResumo getTipo() {
+		return tipo;
+	}
+}
@@ -0,0 +1,68 @@
+package br.com.lupus.models.dto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h1>RelatorioImportacao</h1>
+ * <p>
+ * Resultado de uma importação em lote: quantidade de registros persistidos e os
+ * erros encontrados em cada linha rejeitada
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+public class RelatorioImportacao {
+
+	/** Quantidade de registros persistidos */
+	private int importados;
+
+	/** Erros de cada linha rejeitada, na ordem em que foram encontrados */
+	private List<Map<String, Object>> erros = new ArrayList<>();
+
+	/**
+	 * Soma registros persistidos ao relatório
+	 * 
+	 * @param quantidade
+	 *            quantidade de registros persistidos
+	 */
+	public void registrarImportados(int quantidade) {
+		importados += quantidade;
+	}
+
+	/**
+	 * Adiciona ao relatório os erros de uma linha rejeitada
+	 * 
+	 * @param linha
+	 *            número da linha no corpo da requisição (iniciando em 1)
+	 * @param errosCampos
+	 *            erros da linha, indexados pelo campo
+	 */
+	public void registrarErro(int linha, HashMap<String, String> errosCampos) {
+		Map<String, Object> erro = new LinkedHashMap<>();
+		erro.put("linha", linha);
+		erro.put("erros", errosCampos);
+		erros.add(erro);
+	}
+
+	/**
+	 * Retorna a quantidade de registros persistidos
+	 * 
+	 * @return quantidade de registros persistidos
+	 */
+	public int getImportados() {
+		return importados;
+	}
+
+	/**
+	 * Retorna os erros de cada linha rejeitada
+	 * 
+	 * @return lista com o número da linha e os erros de cada linha rejeitada
+	 */
+	public List<Map<String, Object>> getErros() {
+		return erros;
+	}
+}
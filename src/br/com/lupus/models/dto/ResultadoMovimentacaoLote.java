@@ -0,0 +1,55 @@
+package br.com.lupus.models.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import br.com.lupus.models.Movimentacao;
+
+/**
+ * <h1>ResultadoMovimentacaoLote</h1>
+ * <p>
+ * Resultado da movimentação de vários itens para um mesmo ambiente: as
+ * movimentações registradas, os itens ignorados por já estarem no ambiente e os
+ * ids que não correspondem a nenhum item
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+public class ResultadoMovimentacaoLote {
+
+	/** Movimentações registradas */
+	private List<Movimentacao> movimentacoes = new ArrayList<>();
+
+	/** Ids dos itens que já se encontravam no ambiente de destino */
+	private List<Long> ignorados = new ArrayList<>();
+
+	/** Ids que não correspondem a nenhum item cadastrado */
+	private List<Long> naoEncontrados = new ArrayList<>();
+
+	/**
+	 * Retorna as movimentações registradas
+	 * 
+	 * @return lista de movimentações registradas
+	 */
+	public List<Movimentacao> getMovimentacoes() {
+		return movimentacoes;
+	}
+
+	/**
+	 * Retorna os ids dos itens que já se encontravam no ambiente de destino
+	 * 
+	 * @return lista de ids dos itens ignorados
+	 */
+	public List<Long> getIgnorados() {
+		return ignorados;
+	}
+
+	/**
+	 * Retorna os ids que não correspondem a nenhum item cadastrado
+	 * 
+	 * @return lista de ids não encontrados
+	 */
+	public List<Long> getNaoEncontrados() {
+		return naoEncontrados;
+	}
+}
@@ -0,0 +1,60 @@
+package br.com.lupus.models.dto;
+
+import java.util.Date;
+
+/**
+ * <h1>SnapshotLocalizacao</h1>
+ * <p>
+ * Dados de uma fotografia da localização de todos os itens, sem o conteúdo,
+ * que só é lido quando a fotografia é escolhida para uma consulta
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+public class SnapshotLocalizacao {
+
+	/** Id da fotografia */
+	private final Long id;
+
+	/** Momento em que a localização dos itens foi lida */
+	private final Date data;
+
+	/** Maior id de movimentação existente no momento da leitura */
+	private final Long ultimaMovimentacao;
+
+	/** Quantidade de itens na fotografia */
+	private final int quantidadeItens;
+
+	/**
+	 * @param id
+	 *            id da fotografia
+	 * @param data
+	 *            momento em que a localização dos itens foi lida
+	 * @param ultimaMovimentacao
+	 *            maior id de movimentação existente no momento da leitura
+	 * @param quantidadeItens
+	 *            quantidade de itens na fotografia
+	 */
+	public SnapshotLocalizacao(Long id, Date data, Long ultimaMovimentacao, int quantidadeItens) {
+		this.id = id;
+		this.data = data;
+		this.ultimaMovimentacao = ultimaMovimentacao;
+		this.quantidadeItens = quantidadeItens;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Date getData() {
+		return data;
+	}
+
+	public Long getUltimaMovimentacao() {
+		return ultimaMovimentacao;
+	}
+
+	public int getQuantidadeItens() {
+		return quantidadeItens;
+	}
+}
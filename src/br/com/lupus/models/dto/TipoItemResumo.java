@@ -0,0 +1,51 @@
+package br.com.lupus.models.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Serializer;
+
+/**
+ * <h1>TipoItemResumo</h1>
+ * <p>
+ * Registro somente leitura de um tipo de item, montado diretamente pela
+ * consulta das listagens. É serializado com os campos de TipoItem definidos na
+ * visão
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+@JsonSerialize(using = Serializer.class)
+public class TipoItemResumo extends Model {
+
+	private final Long id;
+
+	private final String nome;
+
+	/**
+	 * Construtor utilizado pela expressão construtora da consulta
+	 * 
+	 * @param id
+	 *            id do tipo de item
+	 * @param nome
+	 *            nome do tipo de item
+	 */
+	public TipoItemResumo(Long id, String nome) {
+		this.id = id;
+		this.nome = nome;
+	}
+
+	@Override
+	public Class<? extends Model> getClasseProjecao() {
+		return TipoItem.class;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getNome() {
+		return nome;
+	}
+}
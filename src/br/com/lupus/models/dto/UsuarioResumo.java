@@ -0,0 +1,91 @@
+package br.com.lupus.models.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import br.com.lupus.models.Permissao;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.serializer.Model;
+import br.com.lupus.models.serializer.Serializer;
+
+/**
+ * <h1>UsuarioResumo</h1>
+ * <p>
+ * Registro somente leitura de um usuário, sem a senha, montado diretamente
+ * pela consulta da listagem de usuários. É serializado com os campos de
+ * Usuario definidos na visão
+ * </p>
+ * 
+ * @author Mateus A.S
+ */
+@JsonSerialize(using = Serializer.class)
+public class UsuarioResumo extends Model {
+
+	private final Long id;
+
+	private final String nome;
+
+	private final String email;
+
+	private final Date dataNascimento;
+
+	private final Permissao permissao;
+
+	private final Boolean ativo;
+
+	/**
+	 * Construtor utilizado pela expressão construtora da consulta
+	 * 
+	 * @param id
+	 *            id do usuário
+	 * @param nome
+	 *            nome do usuário
+	 * @param email
+	 *            email do usuário
+	 * @param dataNascimento
+	 *            data de nascimento do usuário
+	 * @param permissao
+	 *            permissão do usuário
+	 * @param ativo
+	 *            true se o usuário estiver ativo
+	 */
+	public UsuarioResumo(Long id, String nome, String email, Date dataNascimento, Permissao permissao,
+			Boolean ativo) {
+		this.id = id;
+		this.nome = nome;
+		this.email = email;
+		this.dataNascimento = dataNascimento;
+		this.permissao = permissao;
+		this.ativo = ativo;
+	}
+
+	@Override
+	public Class<? extends Model> getClasseProjecao() {
+		return Usuario.class;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public Date getDataNascimento() {
+		return dataNascimento;
+	}
+
+	public Permissao getPermissao() {
+		return permissao;
+	}
+
+	public Boolean getAtivo() {
+		return ativo;
+	}
+}
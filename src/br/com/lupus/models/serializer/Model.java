@@ -1,20 +1,17 @@
 package br.com.lupus.models.serializer;
 
-import java.util.HashMap;
-
 public abstract class Model {
-	private static HashMap<String, String[]> parametros = new HashMap<>();
-	
+
 	public String getClassName() {
 		return this.getClass().getName();
 	};
-	
-	public static void setParametros(Model model, String...listaParametros) {
-		parametros.put(model.getClassName(), listaParametros);
-	}
-	
-	public String[] getParametros() {
-		
-		return parametros.get(getClassName());
+
+	/**
+	 * @return classe cujos campos definidos na projeção são escritos na
+	 *         serialização. Registros resumidos (DTO's) retornam a entidade que
+	 *         representam, mantendo o mesmo formato e as mesmas visões
+	 */
+	public Class<? extends Model> getClasseProjecao() {
+		return getClass();
 	}
 }
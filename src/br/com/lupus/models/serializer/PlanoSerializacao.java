@@ -0,0 +1,306 @@
+package br.com.lupus.models.serializer;
+
+import java.io.IOException;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+/**
+ * Plano de serialização de uma classe modelo para uma lista de campos. Cada campo
+ * é lido por um acessor gerado uma única vez a partir do getter (via
+ * LambdaMetafactory) e escrito de acordo com o tipo de retorno, sem buscar o
+ * método por reflexão a cada objeto serializado. Os planos ficam em cache por
+ * classe e lista de campos
+ *
+ * @author Mateus A.S
+ */
+public class PlanoSerializacao {
+
+	/** Quantidade máxima de listas de campos distintas guardadas por classe */
+	private static final int LIMITE_PLANOS_POR_CLASSE = 64;
+
+	private static final ClassValue<PlanosClasse> PLANOS = new ClassValue<PlanosClasse>() {
+		@Override
+		protected PlanosClasse computeValue(Class<?> classe) {
+			return new PlanosClasse(classe);
+		}
+	};
+
+	private final String[] nomes;
+
+	private final Campo[] campos;
+
+	private PlanoSerializacao(String[] nomes, Campo[] campos) {
+		this.nomes = nomes;
+		this.campos = campos;
+	}
+
+	/**
+	 * Retorna o plano da classe para a lista de campos, criando-o na primeira vez
+	 * em que a combinação é utilizada
+	 *
+	 * @param classe
+	 *            classe do objeto a ser serializado
+	 * @param nomes
+	 *            nomes dos campos a serem escritos, na ordem de escrita
+	 * @return plano de serialização
+	 * @throws JsonMappingException
+	 *             disparada se algum campo não possuir getter na classe
+	 */
+	public static PlanoSerializacao de(Class<?> classe, String[] nomes) throws JsonMappingException {
+		PlanosClasse planosClasse = PLANOS.get(classe);
+		PlanoSerializacao ultimo = planosClasse.ultimo;
+		if (ultimo != null && (ultimo.nomes == nomes || Arrays.equals(ultimo.nomes, nomes)))
+			return ultimo;
+		List<String> chave = Arrays.asList(nomes);
+		PlanoSerializacao plano = planosClasse.planos.get(chave);
+		if (plano == null) {
+			Campo[] campos = new Campo[nomes.length];
+			for (int i = 0; i < nomes.length; i++)
+				campos[i] = planosClasse.campo(nomes[i]);
+			plano = new PlanoSerializacao(nomes, campos);
+			if (planosClasse.planos.size() < LIMITE_PLANOS_POR_CLASSE)
+				planosClasse.planos.putIfAbsent(chave, plano);
+		}
+		planosClasse.ultimo = plano;
+		return plano;
+	}
+
+	/**
+	 * Escreve os campos do plano no objeto JSON já aberto no gerador. Os objetos
+	 * aninhados são escritos com a projeção do campo em que se encontram
+	 *
+	 * @param objeto
+	 *            objeto a ser serializado
+	 * @param gerador
+	 *            gerador em que os campos são escritos
+	 * @param provider
+	 *            provider utilizado para os campos que não são valores simples
+	 * @param projecao
+	 *            projeção utilizada na escrita do objeto
+	 * @throws IOException
+	 *             disparada se não for possível escrever ou ler algum campo
+	 */
+	public void escrever(Object objeto, JsonGenerator gerador, SerializerProvider provider, Projecao projecao)
+			throws IOException {
+		for (int i = 0; i < campos.length; i++) {
+			Campo campo = campos[i];
+			gerador.writeFieldName(campo.nome);
+			Projecao filho = projecao.filho(nomes[i]);
+			if (filho != projecao)
+				provider.setAttribute(Projecao.ATRIBUTO, filho);
+			try {
+				campo.escrever(objeto, gerador, provider);
+			} catch (IOException e) {
+				throw e;
+			} catch (RuntimeException e) {
+				throw JsonMappingException.from(gerador, "Não foi possível serializar o campo " + campo.nome, e);
+			} finally {
+				if (filho != projecao)
+					provider.setAttribute(Projecao.ATRIBUTO, projecao);
+			}
+		}
+	}
+
+	/**
+	 * Campos e planos já criados para uma classe
+	 */
+	private static class PlanosClasse {
+
+		private final Class<?> classe;
+
+		private final Map<String, Campo> campos = new ConcurrentHashMap<>();
+
+		private final Map<List<String>, PlanoSerializacao> planos = new ConcurrentHashMap<>();
+
+		/** Último plano utilizado, evita a busca no mapa ao serializar listas */
+		private volatile PlanoSerializacao ultimo;
+
+		private PlanosClasse(Class<?> classe) {
+			this.classe = classe;
+		}
+
+		private Campo campo(String nome) throws JsonMappingException {
+			Campo campo = campos.get(nome);
+			if (campo == null) {
+				campo = Campo.criar(classe, nome);
+				campos.putIfAbsent(nome, campo);
+			}
+			return campo;
+		}
+	}
+
+	/**
+	 * Acessor de um campo, escreve o valor de acordo com o tipo de retorno do getter
+	 */
+	private abstract static class Campo {
+
+		protected final SerializedString nome;
+
+		protected Campo(String nome) {
+			this.nome = new SerializedString(nome);
+		}
+
+		abstract void escrever(Object objeto, JsonGenerator gerador, SerializerProvider provider) throws IOException;
+
+		@SuppressWarnings("unchecked")
+		static Campo criar(Class<?> classe, String nome) throws JsonMappingException {
+			Method getter;
+			try {
+				getter = classe.getMethod("get" + Character.toUpperCase(nome.charAt(0)) + nome.substring(1));
+			} catch (NoSuchMethodException e) {
+				throw new JsonMappingException(null, "Campo " + nome + " não possui getter em " + classe.getName(), e);
+			}
+			Class<?> retorno = getter.getReturnType();
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.lookup();
+				MethodHandle handle = lookup.unreflect(getter);
+				if (retorno == long.class || retorno == int.class || retorno == short.class) {
+					CallSite site = LambdaMetafactory.metafactory(lookup, "applyAsLong",
+							MethodType.methodType(ToLongFunction.class), MethodType.methodType(long.class, Object.class),
+							handle, MethodType.methodType(long.class, getter.getDeclaringClass()));
+					return new CampoLongPrimitivo(nome, (ToLongFunction<Object>) site.getTarget().invoke());
+				}
+				CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+						MethodType.methodType(Object.class, Object.class), handle,
+						MethodType.methodType(retorno.isPrimitive() ? wrapper(retorno) : retorno,
+								getter.getDeclaringClass()));
+				Function<Object, Object> acessor = (Function<Object, Object>) site.getTarget().invoke();
+				if (retorno == Long.class || retorno == Integer.class || retorno == Short.class)
+					return new CampoLong(nome, acessor);
+				if (retorno == String.class)
+					return new CampoString(nome, acessor);
+				if (retorno == Boolean.class || retorno == boolean.class)
+					return new CampoBoolean(nome, acessor);
+				if (Date.class.isAssignableFrom(retorno))
+					return new CampoData(nome, acessor);
+				return new CampoObjeto(nome, acessor);
+			} catch (Throwable e) {
+				throw new JsonMappingException(null, "Não foi possível criar o acessor do campo " + nome, e);
+			}
+		}
+
+		private static Class<?> wrapper(Class<?> primitivo) {
+			return MethodType.methodType(primitivo).wrap().returnType();
+		}
+	}
+
+	private static class CampoLongPrimitivo extends Campo {
+
+		private final ToLongFunction<Object> acessor;
+
+		CampoLongPrimitivo(String nome, ToLongFunction<Object> acessor) {
+			super(nome);
+			this.acessor = acessor;
+		}
+
+		@Override
+		void escrever(Object objeto, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			gerador.writeNumber(acessor.applyAsLong(objeto));
+		}
+	}
+
+	private static class CampoLong extends Campo {
+
+		private final Function<Object, Object> acessor;
+
+		CampoLong(String nome, Function<Object, Object> acessor) {
+			super(nome);
+			this.acessor = acessor;
+		}
+
+		@Override
+		void escrever(Object objeto, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			Number valor = (Number) acessor.apply(objeto);
+			if (valor == null)
+				gerador.writeNull();
+			else
+				gerador.writeNumber(valor.longValue());
+		}
+	}
+
+	private static class CampoString extends Campo {
+
+		private final Function<Object, Object> acessor;
+
+		CampoString(String nome, Function<Object, Object> acessor) {
+			super(nome);
+			this.acessor = acessor;
+		}
+
+		@Override
+		void escrever(Object objeto, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			gerador.writeString((String) acessor.apply(objeto));
+		}
+	}
+
+	private static class CampoBoolean extends Campo {
+
+		private final Function<Object, Object> acessor;
+
+		CampoBoolean(String nome, Function<Object, Object> acessor) {
+			super(nome);
+			this.acessor = acessor;
+		}
+
+		@Override
+		void escrever(Object objeto, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			Boolean valor = (Boolean) acessor.apply(objeto);
+			if (valor == null)
+				gerador.writeNull();
+			else
+				gerador.writeBoolean(valor);
+		}
+	}
+
+	private static class CampoData extends Campo {
+
+		private final Function<Object, Object> acessor;
+
+		CampoData(String nome, Function<Object, Object> acessor) {
+			super(nome);
+			this.acessor = acessor;
+		}
+
+		@Override
+		void escrever(Object objeto, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			Date valor = (Date) acessor.apply(objeto);
+			if (valor == null)
+				gerador.writeNull();
+			else if (valor instanceof java.sql.Date)
+				provider.defaultSerializeValue(valor, gerador);
+			else
+				provider.defaultSerializeDateValue(valor, gerador);
+		}
+	}
+
+	private static class CampoObjeto extends Campo {
+
+		private final Function<Object, Object> acessor;
+
+		CampoObjeto(String nome, Function<Object, Object> acessor) {
+			super(nome);
+			this.acessor = acessor;
+		}
+
+		@Override
+		void escrever(Object objeto, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			provider.defaultSerializeValue(acessor.apply(objeto), gerador);
+		}
+	}
+}
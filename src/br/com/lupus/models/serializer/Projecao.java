@@ -0,0 +1,163 @@
+package br.com.lupus.models.serializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Projeção imutável que define quais campos de cada classe modelo são escritos
+ * na resposta. É criada uma vez por end-point (constante do controller) e
+ * entregue ao Serializer pelo contexto de serialização do Jackson, através de
+ * ValorProjetado, sem estado global compartilhado entre requisições.
+ * <p>
+ * Uma projeção pode ser restringida pelos campos pedidos pelo cliente
+ * (parâmetro fields, ex.: id,tipo.nome). Campos não listados na projeção do
+ * end-point nunca são escritos, mesmo que pedidos.
+ * </p>
+ *
+ * @author Mateus A.S
+ */
+public final class Projecao {
+
+	/** Nome do atributo do SerializerProvider que carrega a projeção atual */
+	public static final String ATRIBUTO = Projecao.class.getName();
+
+	/** Campos de cada classe definidos pelo end-point */
+	private final Map<Class<?>, String[]> campos;
+
+	/** Campos pedidos pelo cliente neste nível (nulo quando não há restrição) */
+	private final Set<String> selecionados;
+
+	/** Restrições dos campos aninhados, indexadas pelo nome do campo */
+	private final Map<String, Projecao> filhos;
+
+	/** Projeção do end-point sem restrições */
+	private final Projecao base;
+
+	/** Campos de cada classe já filtrados pelos selecionados */
+	private final Map<Class<?>, String[]> filtrados = new ConcurrentHashMap<>();
+
+	private Projecao(Map<Class<?>, String[]> campos, Set<String> selecionados, Map<String, Projecao> filhos,
+			Projecao base) {
+		this.campos = campos;
+		this.selecionados = selecionados;
+		this.filhos = filhos;
+		this.base = base == null ? this : base;
+	}
+
+	/**
+	 * Cria uma projeção com os campos da classe informada
+	 *
+	 * @param classe
+	 *            classe modelo
+	 * @param campos
+	 *            campos escritos para a classe, na ordem de escrita
+	 * @return nova projeção
+	 */
+	public static Projecao de(Class<? extends Model> classe, String... campos) {
+		return new Projecao(Collections.emptyMap(), null, Collections.emptyMap(), null).e(classe, campos);
+	}
+
+	/**
+	 * Retorna uma nova projeção com os campos desta e os da classe informada
+	 *
+	 * @param classe
+	 *            classe modelo
+	 * @param campos
+	 *            campos escritos para a classe, na ordem de escrita
+	 * @return nova projeção
+	 */
+	public Projecao e(Class<? extends Model> classe, String... campos) {
+		Map<Class<?>, String[]> novosCampos = new HashMap<>(this.campos);
+		novosCampos.put(classe, campos.clone());
+		return new Projecao(Collections.unmodifiableMap(novosCampos), null, Collections.emptyMap(), null);
+	}
+
+	/**
+	 * Retorna a projeção restrita aos campos pedidos pelo cliente, separados por
+	 * vírgula, com campos aninhados separados por ponto (ex.: id,tipo.nome). Um
+	 * campo aninhado pedido sem subcampos é escrito com todos os campos da projeção
+	 * do end-point
+	 *
+	 * @param fields
+	 *            valor do parâmetro fields (nulo ou vazio para não restringir)
+	 * @return projeção restrita, ou a própria projeção do end-point
+	 */
+	public Projecao restringir(String fields) {
+		if (fields == null || fields.trim().isEmpty())
+			return base;
+		Set<String> nomes = new LinkedHashSet<>();
+		Set<String> completos = new LinkedHashSet<>();
+		Map<String, List<String>> subcampos = new LinkedHashMap<>();
+		for (String caminho : fields.split(",")) {
+			caminho = caminho.trim();
+			if (caminho.isEmpty())
+				continue;
+			int ponto = caminho.indexOf('.');
+			String nome = ponto < 0 ? caminho : caminho.substring(0, ponto);
+			nomes.add(nome);
+			if (ponto < 0)
+				completos.add(nome);
+			else
+				subcampos.computeIfAbsent(nome, n -> new ArrayList<>()).add(caminho.substring(ponto + 1));
+		}
+		if (nomes.isEmpty())
+			return base;
+		Map<String, Projecao> novosFilhos = new HashMap<>();
+		subcampos.forEach((nome, caminhos) -> {
+			if (!completos.contains(nome))
+				novosFilhos.put(nome, base.restringir(String.join(",", caminhos)));
+		});
+		return new Projecao(campos, Collections.unmodifiableSet(nomes), novosFilhos, base);
+	}
+
+	/**
+	 * Retorna os campos a serem escritos para a classe. Para a mesma classe é
+	 * sempre retornado o mesmo array, que não deve ser alterado
+	 *
+	 * @param classe
+	 *            classe do objeto serializado
+	 * @return campos da classe, ou nulo se a projeção não define a classe
+	 */
+	public String[] campos(Class<?> classe) {
+		String[] definidos = campos.get(classe);
+		if (selecionados == null || definidos == null)
+			return definidos;
+		return filtrados.computeIfAbsent(classe, c -> {
+			List<String> filtrados = new ArrayList<>();
+			for (String campo : definidos)
+				if (selecionados.contains(campo))
+					filtrados.add(campo);
+			return filtrados.toArray(new String[0]);
+		});
+	}
+
+	/**
+	 * Retorna a projeção aplicada aos objetos escritos no campo informado
+	 *
+	 * @param campo
+	 *            nome do campo
+	 * @return projeção do campo
+	 */
+	public Projecao filho(String campo) {
+		Projecao filho = filhos.get(campo);
+		return filho == null ? base : filho;
+	}
+
+	/**
+	 * Envolve o valor para que seja serializado com esta projeção
+	 *
+	 * @param valor
+	 *            objeto, lista ou mapa a ser retornado ao cliente
+	 * @return valor pronto para ser usado como corpo da resposta
+	 */
+	public ValorProjetado aplicar(Object valor) {
+		return new ValorProjetado(valor, this);
+	}
+}
@@ -1,6 +1,12 @@
 package br.com.lupus.models.serializer;
 
-import java.io.IOException;import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 
@@ -9,20 +15,28 @@ public class Serializer extends JsonSerializer<Model> {
 	@Override
 	public void serialize(Model model, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
 			throws IOException {
-		jsonGenerator.writeStartObject();
-		String[] parametros = model.getParametros();
-		for (int i = 0; i < parametros.length; i++) {
-			String parametro = parametros[i];
-			try{				
-				String nomeMetodo = "get" + parametro.substring(0, 1).toUpperCase().concat(parametro.substring(1));
-				Object valor = model.getClass().getMethod(nomeMetodo).invoke(model);
-				jsonGenerator.writeObjectField(parametro, valor);
-			}catch(Exception e) {
-				System.err.println("No foi possvel serializar o campo " + parametro + " a" + e.getMessage());
-				e.printStackTrace();
+		Projecao projecao = (Projecao) serializerProvider.getAttribute(Projecao.ATRIBUTO);
+		if (model instanceof HibernateProxy) {
+			LazyInitializer proxy = ((HibernateProxy) model).getHibernateLazyInitializer();
+			// Associações escritas apenas com o id não são carregadas, o proxy já conhece o id
+			if (proxy.isUninitialized() && projecao != null) {
+				String[] campos = projecao.campos(proxy.getPersistentClass());
+				if (campos != null && campos.length == 1 && "id".equals(campos[0])) {
+					jsonGenerator.writeStartObject();
+					jsonGenerator.writeFieldName("id");
+					serializerProvider.defaultSerializeValue(proxy.getIdentifier(), jsonGenerator);
+					jsonGenerator.writeEndObject();
+					return;
+				}
 			}
+			model = (Model) proxy.getImplementation();
 		}
-
+		String[] parametros = projecao == null ? null : projecao.campos(model.getClasseProjecao());
+		if (parametros == null)
+			throw JsonMappingException.from(jsonGenerator, "Nenhuma projeção define os campos de " + model.getClassName());
+		PlanoSerializacao plano = PlanoSerializacao.de(model.getClass(), parametros);
+		jsonGenerator.writeStartObject();
+		plano.escrever(model, jsonGenerator, serializerProvider, projecao);
 		jsonGenerator.writeEndObject();
 	}
 }
@@ -0,0 +1,47 @@
+package br.com.lupus.models.serializer;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Corpo de resposta que serializa o valor com a projeção definida pelo
+ * end-point, disponibilizando-a aos Serializers pelo contexto da serialização
+ *
+ * @author Mateus A.S
+ */
+public class ValorProjetado implements JsonSerializable {
+
+	private final Object valor;
+
+	private final Projecao projecao;
+
+	ValorProjetado(Object valor, Projecao projecao) {
+		this.valor = valor;
+		this.projecao = projecao;
+	}
+
+	public Object getValor() {
+		return valor;
+	}
+
+	@Override
+	public void serialize(JsonGenerator gerador, SerializerProvider provider) throws IOException {
+		Object anterior = provider.getAttribute(Projecao.ATRIBUTO);
+		provider.setAttribute(Projecao.ATRIBUTO, projecao);
+		try {
+			provider.defaultSerializeValue(valor, gerador);
+		} finally {
+			provider.setAttribute(Projecao.ATRIBUTO, anterior);
+		}
+	}
+
+	@Override
+	public void serializeWithType(JsonGenerator gerador, SerializerProvider provider, TypeSerializer typeSer)
+			throws IOException {
+		serialize(gerador, provider);
+	}
+}
@@ -0,0 +1,79 @@
+package br.com.lupus.models.serializer;
+
+/**
+ * Visão nomeada de uma entidade (ex.: item-resumo, ambiente-detalhe). A mesma
+ * declaração define os campos escritos na resposta (projeção) e, nos DAO's, as
+ * associações carregadas junto da entidade, de forma que a consulta traga
+ * exatamente o que será renderizado
+ *
+ * @author Mateus A.S
+ */
+public final class Visao {
+
+	private final String nome;
+
+	private final Projecao projecao;
+
+	/** true se a projeção foi restringida pelos campos pedidos pelo cliente */
+	private final boolean restrita;
+
+	private Visao(String nome, Projecao projecao, boolean restrita) {
+		this.nome = nome;
+		this.projecao = projecao;
+		this.restrita = restrita;
+	}
+
+	/**
+	 * Cria uma visão nomeada
+	 *
+	 * @param nome
+	 *            nome único da visão
+	 * @param projecao
+	 *            campos escritos de cada classe alcançada pela visão
+	 * @return nova visão
+	 */
+	public static Visao de(String nome, Projecao projecao) {
+		return new Visao(nome, projecao, false);
+	}
+
+	/**
+	 * Retorna a visão restrita aos campos pedidos pelo cliente (ver
+	 * Projecao.restringir). As associações não pedidas deixam de ser carregadas
+	 *
+	 * @param fields
+	 *            valor do parâmetro fields (nulo ou vazio para não restringir)
+	 * @return visão restrita, ou a própria visão
+	 */
+	public Visao restringir(String fields) {
+		if (fields == null || fields.trim().isEmpty())
+			return this;
+		return new Visao(nome, projecao.restringir(fields), true);
+	}
+
+	/**
+	 * Envolve o valor para que seja serializado com a projeção da visão
+	 *
+	 * @param valor
+	 *            objeto, lista ou mapa a ser retornado ao cliente
+	 * @return valor pronto para ser usado como corpo da resposta
+	 */
+	public ValorProjetado aplicar(Object valor) {
+		return projecao.aplicar(valor);
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	public Projecao getProjecao() {
+		return projecao;
+	}
+
+	/**
+	 * @return true se a visão foi restringida pelo cliente, nesse caso o plano de
+	 *         busca não deve ser guardado em cache pelo nome
+	 */
+	public boolean isRestrita() {
+		return restrita;
+	}
+}
@@ -1,10 +1,11 @@
 package br.com.lupus.services;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.transaction.Transactional;
 import javax.transaction.Transactional.TxType;
 
-import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -12,13 +13,18 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
 import br.com.lupus.dao.AmbienteDao;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.exceptions.UnprocessableEntityException;
 import br.com.lupus.models.Ambiente;
 import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.AmbienteResumo;
+import br.com.lupus.models.dto.Contagem;
+import br.com.lupus.models.dto.ContagemCruzada;
+import br.com.lupus.models.serializer.Visao;
 
 /**
- * Classe com os mtodos auxiliares referentes ao CRUD de ambientes
+ * Classe com os métodos auxiliares referentes ao CRUD de ambientes
  * 
  * @author Mateus A.S
  */
@@ -28,76 +34,120 @@ public class AmbienteService {
 	@Autowired
 	private AmbienteDao ambienteDao;
 
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
+	/**
+	 * Método que retorna uma página de ambientes cadastrados na base de dados,
+	 * ordenada pelo id e iniciada após o cursor informado. Retorna até limite + 1
+	 * registros, o registro excedente indica a existência de uma próxima página
+	 * 
+	 * @param cursor
+	 *            id do último registro da página anterior (nulo na primeira página)
+	 * @param limite
+	 *            quantidade de registros da página
+	 * @param ordenacao
+	 *            direção da ordenação pelo id
+	 * @return lista de ambientes resumidos da página
+	 */
+	public List<AmbienteResumo> buscarAmbientes(Long cursor, int limite, Ordenacao ordenacao) {
+		return ambienteDao.buscarResumos(cursor, limite + 1, ordenacao);
+	}
+
 	/**
-	 * Mtodo que retorna uma lista com todos os ambientes cadastrados na base de
-	 * dados
+	 * Método que retorna a quantidade de itens de cada ambiente cadastrado,
+	 * inclusive dos ambientes vazios, respondida pela ocupação mantida em memória
 	 * 
-	 * @return lista de ambientes cadastrados
+	 * @return lista com o id e o total de itens de cada ambiente
 	 */
-	public List<Ambiente> buscarAmbientes() {
-		return ambienteDao.buscarTodos();
+	public List<Contagem> contarItens() {
+		return ocupacaoService.contarPorAmbiente();
 	}
 
 	/**
-	 * Mtodo que retorna um ambiente cadastrado na base de dados atravs do seu id
+	 * Método que retorna a matriz ambiente x tipo, com a quantidade de itens de
+	 * cada tipo em cada ambiente, respondida pela ocupação mantida em memória
+	 * 
+	 * @param tipos
+	 *            ids dos tipos considerados (vazio para todos os tipos)
+	 * @return lista com o total de itens de cada combinação existente
+	 */
+	public List<ContagemCruzada> contarItensPorTipo(Collection<Long> tipos) {
+		return ocupacaoService.contarCruzado(null, tipos);
+	}
+
+	/**
+	 * Método que percorre todos os ambientes cadastrados na base de dados, entregando um
+	 * a um ao consumidor sem carregar a lista inteira em memória
+	 * 
+	 * @param consumidor
+	 *            consumidor que recebe cada ambiente lido
+	 */
+	public void exportarAmbientes(Consumer<Ambiente> consumidor) {
+		ambienteDao.percorrerTodos(consumidor);
+	}
+
+	/**
+	 * Método que retorna um ambiente cadastrado na base de dados através do seu id
 	 * 
 	 * @param id
 	 *            id do ambiente procurado
+	 * @param visao
+	 *            visão renderizada, define as associações carregadas na consulta
 	 * @return objeto ambiente populado
 	 * @throws EntityNotFound
-	 *             disparada quando no existe ambiente referenciado ao id passado
+	 *             disparada quando não existe ambiente referenciado ao id passado
 	 */
 	@Transactional(value = TxType.REQUIRED)
-	public Ambiente buscarAmbiente(Long id) throws EntityNotFound {
-		Ambiente ambiente = ambienteDao.buscar(id);
+	public Ambiente buscarAmbiente(Long id, Visao visao) throws EntityNotFound {
+		Ambiente ambiente = ambienteDao.buscar(id, visao);
 		if (ambiente == null)
 			throw new EntityNotFound();
-		Hibernate.initialize(ambiente.getCadastrante());
-		Hibernate.initialize(ambiente.getItens()); // Popula os itens antes de retornar o ambiente
 		return ambiente;
 	}
 
 	/**
-	 * Mtodo que persiste um ambiente na base de dados. Recebe um objeto ambiente
-	 * populado, verifica se h erros de validao, se no houver define o usurio
-	 * logado como o cadastrante do ambiente e efetua a persistncia
+	 * Método que persiste um ambiente na base de dados. Recebe um objeto ambiente
+	 * populado, verifica se há erros de validação, se não houver define o usuário
+	 * logado como o cadastrante do ambiente e efetua a persistência
 	 * 
 	 * @param ambiente
 	 *            objeto ambiente populado
 	 * @param brAmbiente
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @throws UnprocessableEntityException
-	 *             disparada se houver erros de validao
+	 *             disparada se houver erros de validação
 	 */
 	public void persistirAmbiente(Ambiente ambiente, BindingResult brAmbiente) throws UnprocessableEntityException {
 		if (ambiente.getDescricao().isEmpty())
-			brAmbiente.addError(new FieldError("ambiente", "descricao", "A descrio no pode estar vazia"));
+			brAmbiente.addError(new FieldError("ambiente", "descricao", "A descrição não pode estar vazia"));
 		if (brAmbiente.hasFieldErrors())
 			throw new UnprocessableEntityException();
 		ambiente.setCadastrante((Usuario) SecurityContextHolder.getContext().getAuthentication());
 		ambienteDao.persistir(ambiente);
+		ocupacaoService.registrarAmbiente(ambiente.getId());
 	}
 
 	/**
-	 * Mtodo que atualiza um ambiente cadastrado na base de dados. Recebe um objeto
-	 * ambiente populado, verifica se h erros de validao, se no houver, efetua a
-	 * atualizao
+	 * Método que atualiza um ambiente cadastrado na base de dados. Recebe um objeto
+	 * ambiente populado, verifica se há erros de validação, se não houver, efetua a
+	 * atualização
 	 * 
 	 * @param ambiente
 	 *            objeto populado com os novos valores a serem atualizados
 	 * @param brAmbiente
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @return objeto ambiente populado com o registro que foi atualizado
 	 * @throws EntityNotFound
-	 *             disparada se o registro a ser editado no for encontrado
+	 *             disparada se o registro a ser editado não for encontrado
 	 * @throws UnprocessableEntityException
-	 *             disparada se houver erros de validao
+	 *             disparada se houver erros de validação
 	 * 
 	 */
 	@Transactional(value = TxType.REQUIRED)
 	public Ambiente atualizar(Ambiente ambiente, BindingResult brAmbiente)
 			throws EntityNotFound, UnprocessableEntityException {
-		Ambiente ambienteAntigo = ambienteDao.buscar(ambiente.getId());
+		Ambiente ambienteAntigo = ambienteDao.buscar(ambiente.getId(), Ambiente.EDICAO);
 		if (ambienteAntigo == null)
 			throw new EntityNotFound();
 		if (brAmbiente.hasFieldErrors())
@@ -105,15 +155,14 @@ public class AmbienteService {
 		if (ambiente.getDescricao() != null)
 			ambienteAntigo.setDescricao(ambiente.getDescricao());
 		ambienteDao.atualizar(ambienteAntigo);
-		Hibernate.initialize(ambienteAntigo.getCadastrante());
 		return ambienteAntigo;
 	}
 
 	/**
-	 * Mtodo que exclui fisicamente um ambiente cadastrado na base de dados.
-	 * Verifica se existe ambiente referente ao id passado e se h chaves
+	 * Método que exclui fisicamente um ambiente cadastrado na base de dados.
+	 * Verifica se existe ambiente referente ao id passado e se há chaves
 	 * estrangeiras nos registros de itens apontando para o ambiente, se o ambiente
-	 * existir e no houver chaves estrangeiras efetua a excluso
+	 * existir e não houver chaves estrangeiras efetua a exclusão
 	 * 
 	 * @param id
 	 *            id do ambiente a ser excluido
@@ -121,14 +170,16 @@ public class AmbienteService {
 	 *             disparada se houver chaves estrangeiras apontando para este
 	 *             ambiente
 	 * @throws EntityNotFound
-	 *             disparada se o registro a ser excluido no for encontrado
+	 *             disparada se o registro a ser excluido não for encontrado
 	 */
+	@Transactional(value = TxType.REQUIRED)
 	public void deletarAmbiente(Long id) throws UnprocessableEntityException, EntityNotFound {
 		Ambiente ambiente = ambienteDao.buscar(id);
 		if (ambiente == null)
 			throw new EntityNotFound();
-		if (!ambiente.getItens().isEmpty())
+		if (ambienteDao.possuiItens(id))
 			throw new UnprocessableEntityException();
-		ambienteDao.deletar(id);
+		ambienteDao.deletar(ambiente);
+		ocupacaoService.removerAmbiente(id);
 	}
 }
@@ -0,0 +1,227 @@
+package br.com.lupus.services;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BindingResult;
+
+import br.com.lupus.dao.UsuarioDao;
+import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.exceptions.ServiceUnavailableException;
+import br.com.lupus.exceptions.UnprocessableEntityException;
+import br.com.lupus.models.Permissao;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.utils.SenhaUtils;
+
+/**
+ * Classe que verifica as credenciais do login. A verificação da senha (BCrypt) é
+ * feita em um pool de threads dedicado e limitado, de forma que uma rajada de
+ * logins não ocupe as threads das requisições nem as conexões com a base de
+ * dados; quando a fila do pool está cheia o login é descartado com 503. As
+ * credenciais lidas da base de dados são mantidas por VALIDADE_CACHE,
+ * indexadas pelo email, e invalidadas a cada alteração ou desativação do usuário
+ *
+ * @author Mateus A.S
+ */
+@Service
+public class AutenticacaoService {
+
+	/** Quantidade de threads dedicadas à verificação de senhas */
+	public static final int THREADS = Integer.parseInt(System.getProperty("instock.autenticacao.threads",
+			String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+	/** Quantidade máxima de logins aguardando uma thread, os excedentes são descartados */
+	public static final int CAPACIDADE_FILA = Integer
+			.parseInt(System.getProperty("instock.autenticacao.fila", String.valueOf(THREADS * 16)));
+
+	/** Segundos informados no cabeçalho Retry-After quando o login é descartado */
+	public static final int TENTAR_APOS = 1;
+
+	/** Tempo máximo, em milissegundos, que uma credencial permanece em cache */
+	public static final long VALIDADE_CACHE = 30 * 1000;
+
+	/** Quantidade máxima de credenciais em cache */
+	public static final int LIMITE_CACHE = 10000;
+
+	/**
+	 * Senha criptografada verificada quando o email não existe ou o usuário está
+	 * desativado, de forma que a resposta leva o mesmo tempo que a de uma senha
+	 * incorreta e não revela quais emails estão cadastrados
+	 */
+	private static final String SENHA_FICTICIA = SenhaUtils.criptografar("senha ficticia");
+
+	@Autowired
+	private UsuarioDao usuarioDao;
+
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(CAPACIDADE_FILA), new FabricaThreads());
+
+	/** Credenciais lidas da base de dados, indexadas pelo email em minúsculas */
+	private final Map<String, Credencial> credenciais = new ConcurrentHashMap<>();
+
+	/** Incrementada a cada invalidação, impede que uma leitura anterior a ela volte ao cache */
+	private final AtomicLong geracao = new AtomicLong();
+
+	/**
+	 * Método que valida o email e a senha e agenda a verificação das credenciais no
+	 * pool de autenticação
+	 *
+	 * @param usuario
+	 *            objeto populado com o email e a senha
+	 * @param brUsuario
+	 *            objeto populado com possíveis erros de validação
+	 * @return usuário autenticado, populado com id, nome, email e permissão. É
+	 *         concluído com EntityNotFound se não existir usuário ativo com o email
+	 *         e senha passados
+	 * @throws UnprocessableEntityException
+	 *             exception disparada se há erros de validação no email ou na senha
+	 * @throws ServiceUnavailableException
+	 *             exception disparada se a fila do pool de autenticação estiver
+	 *             cheia
+	 */
+	public CompletableFuture<Usuario> autenticar(Usuario usuario, BindingResult brUsuario)
+			throws UnprocessableEntityException, ServiceUnavailableException {
+		if (brUsuario.hasFieldErrors("email") || brUsuario.hasFieldErrors("senha"))
+			throw new UnprocessableEntityException();
+		String email = usuario.getEmail();
+		String senha = usuario.getSenha();
+		try {
+			return CompletableFuture.supplyAsync(() -> verificar(email, senha), executor);
+		} catch (RejectedExecutionException e) {
+			throw new ServiceUnavailableException(TENTAR_APOS);
+		}
+	}
+
+	/**
+	 * Método que descarta a credencial em cache do email informado. Deve ser
+	 * chamado após a alteração do usuário ter sido gravada
+	 *
+	 * @param email
+	 *            email do usuário alterado
+	 */
+	public void invalidar(String email) {
+		geracao.incrementAndGet();
+		if (email != null)
+			credenciais.remove(chave(email));
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+
+	private Usuario verificar(String email, String senha) {
+		Credencial credencial = email == null ? null : buscarCredencial(email);
+		if (credencial == null || !credencial.ativo) {
+			SenhaUtils.verificar(senha == null ? "" : senha, SENHA_FICTICIA);
+			throw new CompletionException(new EntityNotFound());
+		}
+		if (!SenhaUtils.verificar(senha, credencial.senhaCriptografada))
+			throw new CompletionException(new EntityNotFound());
+		if (SenhaUtils.isObsoleta(credencial.senhaCriptografada))
+			recriptografar(credencial, senha);
+		return new Usuario(credencial.id, credencial.nome, credencial.email, null, credencial.permissao, null, true);
+	}
+
+	private Credencial buscarCredencial(String email) {
+		String chave = chave(email);
+		long agora = System.currentTimeMillis();
+		Credencial credencial = credenciais.get(chave);
+		if (credencial != null && credencial.validade > agora)
+			return credencial;
+		long geracaoLida = geracao.get();
+		Usuario usuario = usuarioDao.buscar(email);
+		if (usuario == null)
+			return null;
+		credencial = new Credencial(usuario, agora + VALIDADE_CACHE);
+		if (credenciais.size() >= LIMITE_CACHE) {
+			credenciais.values().removeIf(c -> c.validade <= agora);
+			if (credenciais.size() >= LIMITE_CACHE)
+				credenciais.clear();
+		}
+		credenciais.put(chave, credencial);
+		// Uma invalidação ocorrida durante a leitura pode ter sido feita antes do put
+		if (geracao.get() != geracaoLida)
+			credenciais.remove(chave, credencial);
+		return credencial;
+	}
+
+	/**
+	 * Substitui a senha em MD5 (ou BCrypt com custo menor que o atual) pela senha em
+	 * BCrypt com o custo atual, aproveitando a senha em texto plano do login
+	 */
+	private void recriptografar(Credencial credencial, String senha) {
+		try {
+			if (usuarioDao.atualizarSenha(credencial.id, credencial.senhaCriptografada,
+					SenhaUtils.criptografar(senha)))
+				invalidar(credencial.email);
+		} catch (RuntimeException e) {
+			// A senha continua válida, será recriptografada no próximo login
+			e.printStackTrace();
+		}
+	}
+
+	private static String chave(String email) {
+		return email.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Dados do usuário necessários ao login e à emissão dos tokens
+	 */
+	private static class Credencial {
+
+		private final Long id;
+
+		private final String nome;
+
+		private final String email;
+
+		private final Permissao permissao;
+
+		private final boolean ativo;
+
+		private final String senhaCriptografada;
+
+		private final long validade;
+
+		private Credencial(Usuario usuario, long validade) {
+			this.id = usuario.getId();
+			this.nome = usuario.getNome();
+			this.email = usuario.getEmail();
+			this.permissao = usuario.getPermissao();
+			this.ativo = Boolean.TRUE.equals(usuario.getAtivo());
+			this.senhaCriptografada = usuario.getSenhaCriptografada();
+			this.validade = validade;
+		}
+	}
+
+	/**
+	 * Cria as threads do pool de autenticação, como daemon para não impedir o
+	 * encerramento da aplicação
+	 */
+	private static class FabricaThreads implements ThreadFactory {
+
+		private final AtomicInteger contador = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable tarefa) {
+			Thread thread = new Thread(tarefa, "autenticacao-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
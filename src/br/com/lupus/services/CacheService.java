@@ -0,0 +1,77 @@
+package br.com.lupus.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Classe com os métodos auxiliares referentes ao cache de segundo nível do
+ * Hibernate
+ * 
+ * @author Mateus A.S
+ */
+@Service
+public class CacheService {
+
+	/** Regiões de entidades definidas no ehcache.xml */
+	private static final String[] REGIOES_ENTIDADES = { "tipoItem", "tipoItemTag", "ambiente", "usuario" };
+
+	/** Regiões de consultas definidas no ehcache.xml */
+	private static final String[] REGIOES_CONSULTAS = { "usuarioPorEmail" };
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	/**
+	 * Método que retorna as estatísticas de acerto (hit), falha (miss), inserção
+	 * (put) e quantidade de registros em memória de cada região do cache, utilizadas
+	 * para dimensionar as regiões. As estatísticas só são coletadas enquanto
+	 * habilitadas (ver habilitarEstatisticas)
+	 * 
+	 * @return mapa com as estatísticas de cada região, indexado pelo nome da região
+	 */
+	public Map<String, Map<String, Long>> buscarEstatisticas() {
+		Statistics estatisticas = sessionFactory.getStatistics();
+		Map<String, Map<String, Long>> regioes = new LinkedHashMap<>();
+		for (String regiao : REGIOES_ENTIDADES)
+			regioes.put(regiao, toMap(estatisticas.getDomainDataRegionStatistics(regiao)));
+		for (String regiao : REGIOES_CONSULTAS)
+			regioes.put(regiao, toMap(estatisticas.getQueryRegionStatistics(regiao)));
+		return regioes;
+	}
+
+	/**
+	 * Método que liga ou desliga a coleta das estatísticas do Hibernate, desligada
+	 * por padrão (propriedade de sistema instock.hibernate.estatisticas) pelo custo
+	 * adicionado a cada sessão
+	 * 
+	 * @param habilitadas
+	 *            true para coletar as estatísticas
+	 */
+	public void habilitarEstatisticas(boolean habilitadas) {
+		sessionFactory.getStatistics().setStatisticsEnabled(habilitadas);
+	}
+
+	/**
+	 * Método que limpa todas as regiões do cache de segundo nível
+	 */
+	public void limpar() {
+		sessionFactory.getCache().evictAllRegions();
+	}
+
+	private Map<String, Long> toMap(CacheRegionStatistics estatisticas) {
+		Map<String, Long> map = new LinkedHashMap<>();
+		if (estatisticas == null)
+			return map;
+		map.put("hits", estatisticas.getHitCount());
+		map.put("misses", estatisticas.getMissCount());
+		map.put("puts", estatisticas.getPutCount());
+		map.put("emMemoria", estatisticas.getElementCountInMemory());
+		return map;
+	}
+}
@@ -0,0 +1,135 @@
+package br.com.lupus.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Service;
+
+import br.com.lupus.utils.LimiteAdaptativo;
+
+/**
+ * Classe que mantém os compartimentos (bulkheads) dos controllers, cada um com
+ * um limite adaptativo de requisições simultâneas. Quando a base de dados fica
+ * lenta, o limite do compartimento afetado diminui e as requisições excedentes
+ * são recusadas, sem ocupar as threads e conexões usadas pelos demais
+ * compartimentos. Os limites são definidos pelas propriedades de sistema
+ * instock.compartimento.(inicial|minimo|maximo), que podem ser sobrescritas por
+ * compartimento (ex.: instock.compartimento.ambiente.maximo)
+ *
+ * @author Mateus A.S
+ */
+@Service
+public class CompartimentoService {
+
+	/** Segundos informados no cabeçalho Retry-After quando a requisição é recusada */
+	public static final int TENTAR_APOS = 1;
+
+	private static final int INICIAL = Integer.parseInt(System.getProperty("instock.compartimento.inicial", "20"));
+
+	private static final int MINIMO = Integer.parseInt(System.getProperty("instock.compartimento.minimo", "2"));
+
+	private static final int MAXIMO = Integer.parseInt(System.getProperty("instock.compartimento.maximo", "200"));
+
+	private final Map<String, Estatisticas> compartimentos = new ConcurrentHashMap<>();
+
+	/**
+	 * Método que ocupa uma vaga do compartimento
+	 *
+	 * @param nome
+	 *            nome do compartimento
+	 * @return vaga ocupada, que deve ser liberada ao fim da requisição, ou nulo se
+	 *         o compartimento estiver cheio
+	 */
+	public Vaga ocupar(String nome) {
+		Estatisticas compartimento = compartimentos.computeIfAbsent(nome, Estatisticas::new);
+		if (!compartimento.limite.tentarOcupar()) {
+			compartimento.rejeitadas.increment();
+			return null;
+		}
+		compartimento.permitidas.increment();
+		return new Vaga(compartimento, System.nanoTime());
+	}
+
+	/**
+	 * Método que retorna o limite atual, as vagas ocupadas, a latência mínima e a
+	 * quantidade de requisições permitidas, recusadas e com falha de cada
+	 * compartimento
+	 *
+	 * @return mapa com as estatísticas, indexado pelo nome do compartimento
+	 */
+	public Map<String, Map<String, Object>> buscarEstatisticas() {
+		Map<String, Map<String, Object>> estatisticas = new TreeMap<>();
+		compartimentos.forEach((nome, compartimento) -> {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("limite", compartimento.limite.getLimite());
+			map.put("emUso", compartimento.limite.getEmUso());
+			map.put("latenciaMinimaMs",
+					TimeUnit.NANOSECONDS.toMicros(compartimento.limite.getLatenciaMinima()) / 1000.0);
+			map.put("permitidas", compartimento.permitidas.sum());
+			map.put("rejeitadas", compartimento.rejeitadas.sum());
+			map.put("falhas", compartimento.falhas.sum());
+			estatisticas.put(nome, map);
+		});
+		return estatisticas;
+	}
+
+	private static int propriedade(String nome, String sufixo, int padrao) {
+		return Integer.parseInt(
+				System.getProperty("instock.compartimento." + nome + "." + sufixo, String.valueOf(padrao)));
+	}
+
+	/**
+	 * Limite e contadores de um compartimento
+	 */
+	private static class Estatisticas {
+
+		private final LimiteAdaptativo limite;
+
+		private final LongAdder permitidas = new LongAdder();
+
+		private final LongAdder rejeitadas = new LongAdder();
+
+		private final LongAdder falhas = new LongAdder();
+
+		private Estatisticas(String nome) {
+			this.limite = new LimiteAdaptativo(propriedade(nome, "inicial", INICIAL), propriedade(nome, "minimo", MINIMO),
+					propriedade(nome, "maximo", MAXIMO));
+		}
+	}
+
+	/**
+	 * Vaga ocupada por uma requisição. Liberações repetidas são ignoradas
+	 */
+	public static class Vaga {
+
+		private final Estatisticas compartimento;
+
+		private final long inicio;
+
+		private final AtomicBoolean liberada = new AtomicBoolean();
+
+		private Vaga(Estatisticas compartimento, long inicio) {
+			this.compartimento = compartimento;
+			this.inicio = inicio;
+		}
+
+		/**
+		 * Método que libera a vaga e informa ao limite a latência da requisição
+		 *
+		 * @param falha
+		 *            true se a requisição falhou (erro ou resposta 5xx)
+		 */
+		public void liberar(boolean falha) {
+			if (!liberada.compareAndSet(false, true))
+				return;
+			if (falha)
+				compartimento.falhas.increment();
+			compartimento.limite.liberar(System.nanoTime() - inicio, falha);
+		}
+	}
+}
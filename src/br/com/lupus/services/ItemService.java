@@ -1,18 +1,35 @@
 package br.com.lupus.services;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.transaction.Transactional;
 import javax.transaction.Transactional.TxType;
 import javax.validation.Valid;
-import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import br.com.lupus.dao.AmbienteDao;
+import br.com.lupus.dao.DAO;
 import br.com.lupus.dao.ItemDao;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.dao.TipoItemDao;
 import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.exceptions.UnprocessableEntityException;
@@ -20,15 +37,23 @@ import br.com.lupus.models.Ambiente;
 import br.com.lupus.models.Item;
 import br.com.lupus.models.TipoItem;
 import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.ItemResumo;
+import br.com.lupus.models.dto.RelatorioImportacao;
+import br.com.lupus.models.serializer.Visao;
 
 /**
- * Classe com os mtodos auxiliares referentes ao CRUD de itens
+ * Classe com os métodos auxiliares referentes ao CRUD de itens
  * 
  * @author Mateus A.S
  */
 @Service
 public class ItemService {
 
+	/** Quantidade de linhas validadas e persistidas por transação na importação em lote */
+	private static final int TAMANHO_LOTE_IMPORTACAO = 500;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
 	@Autowired
 	private ItemDao itemDao;
 
@@ -38,113 +63,314 @@ public class ItemService {
 	@Autowired
 	private AmbienteDao ambienteDao;
 
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private LocalizacaoService localizacaoService;
+
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
 	/**
-	 * Mtodo que retorna uma lista com todos os itens cadastrados na base de dados
+	 * Método que retorna uma página de itens cadastrados na base de dados,
+	 * ordenada pelo id e iniciada após o cursor informado. Retorna até limite + 1
+	 * registros, o registro excedente indica a existência de uma próxima página
 	 * 
-	 * @return lista de itens cadastrados
+	 * @param cursor
+	 *            id do último registro da página anterior (nulo na primeira página)
+	 * @param limite
+	 *            quantidade de registros da página
+	 * @param ordenacao
+	 *            direção da ordenação pelo id
+	 * @return lista de itens resumidos (id e tipo) da página
 	 */
-	public List<Item> buscarItens() {
-		return itemDao.buscarTodos();
+	public List<ItemResumo> buscarItens(Long cursor, int limite, Ordenacao ordenacao) {
+		return itemDao.buscarResumos(cursor, limite + 1, ordenacao);
 	}
 
 	/**
-	 * Mtodo que retorna um item cadastrado na base de dados atravs do seu id
+	 * Método que percorre todos os itens cadastrados na base de dados, entregando um
+	 * a um ao consumidor sem carregar a lista inteira em memória
+	 * 
+	 * @param consumidor
+	 *            consumidor que recebe cada item lido
+	 */
+	public void exportarItens(Consumer<Item> consumidor) {
+		itemDao.percorrerTodos(consumidor);
+	}
+
+	/**
+	 * Método que retorna um item cadastrado na base de dados através do seu id
 	 * 
 	 * @param id
 	 *            id do item procurado
+	 * @param visao
+	 *            visão renderizada, define as associações carregadas na consulta
 	 * @return objeto item populado
 	 * @throws EntityNotFound
-	 *             disparada quando no existe item referenciado ao id passado
+	 *             disparada quando não existe item referenciado ao id passado
 	 */
 	@Transactional(value = TxType.REQUIRED)
-	public Item buscar(Long id) throws EntityNotFound {
-		Item item = itemDao.buscar(id);
+	public Item buscar(Long id, Visao visao) throws EntityNotFound {
+		Item item = itemDao.buscar(id, visao);
 		if (item == null)
 			throw new EntityNotFound();
-		Hibernate.initialize(item.getCadastrante());
-		Hibernate.initialize(item.getAmbienteAtual());
 		return item;
 	}
 
 	/**
-	 * Mtodo que persiste um item na base de dados. Recebe um objeto item populado,
-	 * verifica se h erros de validao, se no houver define o usurio logado como
-	 * o cadastrante do item e efetua a persistncia
+	 * Método que persiste um item na base de dados. Recebe um objeto item populado,
+	 * verifica se há erros de validação, se não houver define o usuário logado como
+	 * o cadastrante do item e efetua a persistência
 	 * 
 	 * @param item
 	 *            objeto item populado
 	 * @param brItem
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @throws UnprocessableEntityException
-	 *             disparada se houver erros de validao
+	 *             disparada se houver erros de validação
 	 */
+	@Transactional(value = TxType.REQUIRED)
 	public void cadastrar(Item item, BindingResult brItem) throws UnprocessableEntityException {
 		if (item.getAmbienteAtual().getId() == null)
-			brItem.addError(new FieldError("item", "ambienteAtual", "Id do ambiente no definido"));
+			brItem.addError(new FieldError("item", "ambienteAtual", "Id do ambiente não definido"));
 		if (item.getTipo().getId() == null)
-			brItem.addError(new FieldError("item", "tipo", "Id do tipo no definido"));
+			brItem.addError(new FieldError("item", "tipo", "Id do tipo não definido"));
 		if (brItem.hasFieldErrors())
 			throw new UnprocessableEntityException();
 		Ambiente ambienteAtual = ambienteDao.buscar(item.getAmbienteAtual().getId());
 		TipoItem tipoItem = tipoItemDao.buscar(item.getTipo().getId());
 		if (ambienteAtual == null)
-			brItem.addError(new FieldError("item", "ambienteAtual", "Ambiente no existente"));
+			brItem.addError(new FieldError("item", "ambienteAtual", "Ambiente não existente"));
 		if (tipoItem == null)
-			brItem.addError(new FieldError("item", "tipo", "Tipo no existente"));
+			brItem.addError(new FieldError("item", "tipo", "Tipo não existente"));
 		if (brItem.hasFieldErrors())
 			throw new UnprocessableEntityException();
 		item.setCadastrante((Usuario) SecurityContextHolder.getContext().getAuthentication());
 		itemDao.persistir(item);
+		localizacaoService.registrar(item.getId(), ambienteAtual.getId());
+		ocupacaoService.alterar(ambienteAtual.getId(), tipoItem.getId(), 1);
 	}
 
 	/**
-	 * Mtodo que atualiza um item cadastrado na base de dados. Recebe um objeto
-	 * item populado, verifica se h erros de validao, se no houver, efetua a
-	 * atualizao
+	 * Método que importa em lote os itens descritos no corpo de uma requisição, uma
+	 * linha por item, em NDJSON ({"tipo": {"id": 1}, "ambienteAtual": {"id": 2}}) ou
+	 * CSV (tipo_id,ambiente_id, com cabeçalho opcional). O corpo é lido como stream e
+	 * processado em lotes de TAMANHO_LOTE_IMPORTACAO linhas, cada lote validado e
+	 * persistido em uma transação própria. Os tipos e ambientes são verificados uma
+	 * única vez por id. Linhas inválidas não interrompem a importação, seus erros são
+	 * retornados no relatório
+	 * 
+	 * @param leitor
+	 *            leitor do corpo da requisição
+	 * @param csv
+	 *            true se o corpo estiver em CSV, false se estiver em NDJSON
+	 * @return relatório com a quantidade de itens importados e os erros de cada
+	 *         linha rejeitada
+	 * @throws IOException
+	 *             disparada se não for possível ler o corpo da requisição
+	 */
+	public RelatorioImportacao importar(BufferedReader leitor, boolean csv) throws IOException {
+		Usuario cadastrante = (Usuario) SecurityContextHolder.getContext().getAuthentication();
+		RelatorioImportacao relatorio = new RelatorioImportacao();
+		Map<Long, Boolean> tipos = new HashMap<>();
+		Map<Long, Boolean> ambientes = new HashMap<>();
+		List<LinhaImportacao> lote = new ArrayList<>(TAMANHO_LOTE_IMPORTACAO);
+		String conteudo;
+		int numero = 0;
+		while ((conteudo = leitor.readLine()) != null) {
+			numero++;
+			conteudo = conteudo.trim();
+			if (conteudo.isEmpty() || (csv && numero == 1 && !Character.isDigit(conteudo.charAt(0))))
+				continue;
+			LinhaImportacao linha = csv ? lerCsv(numero, conteudo) : lerNdjson(numero, conteudo);
+			if (linha == null) {
+				HashMap<String, String> erros = new HashMap<>();
+				erros.put("linha", "Formato inválido");
+				relatorio.registrarErro(numero, erros);
+				continue;
+			}
+			lote.add(linha);
+			if (lote.size() == TAMANHO_LOTE_IMPORTACAO) {
+				persistirLote(lote, tipos, ambientes, cadastrante, relatorio);
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty())
+			persistirLote(lote, tipos, ambientes, cadastrante, relatorio);
+		return relatorio;
+	}
+
+	/**
+	 * Valida e persiste um lote de linhas em uma única transação. Os ids de tipos e
+	 * ambientes ainda não conhecidos são verificados com uma consulta por entidade e
+	 * guardados nos mapas, que são compartilhados entre os lotes. Se a transação
+	 * falhar todas as linhas do lote são rejeitadas com a causa da falha, e os
+	 * demais lotes seguem sendo importados
+	 */
+	private void persistirLote(List<LinhaImportacao> lote, Map<Long, Boolean> tipos, Map<Long, Boolean> ambientes,
+			Usuario cadastrante, RelatorioImportacao relatorio) {
+		Map<Integer, HashMap<String, String>> errosLote = new LinkedHashMap<>();
+		try {
+			int persistidos = new TransactionTemplate(transactionManager).execute(status -> {
+				int validas = 0;
+				resolverIds(lote.stream().map(l -> l.tipoId), tipos, tipoItemDao);
+				resolverIds(lote.stream().map(l -> l.ambienteId), ambientes, ambienteDao);
+				for (LinhaImportacao linha : lote) {
+					HashMap<String, String> erros = new HashMap<>();
+					if (linha.ambienteId == null)
+						erros.put("ambienteAtual", "Id do ambiente não definido");
+					else if (!ambientes.get(linha.ambienteId))
+						erros.put("ambienteAtual", "Ambiente não existente");
+					if (linha.tipoId == null)
+						erros.put("tipo", "Id do tipo não definido");
+					else if (!tipos.get(linha.tipoId))
+						erros.put("tipo", "Tipo não existente");
+					if (!erros.isEmpty()) {
+						errosLote.put(linha.numero, erros);
+						continue;
+					}
+					Item item = new Item();
+					item.setTipo(tipoItemDao.referenciar(linha.tipoId));
+					item.setAmbienteAtual(ambienteDao.referenciar(linha.ambienteId));
+					item.setCadastrante(cadastrante);
+					itemDao.persistir(item);
+					localizacaoService.registrar(item.getId(), linha.ambienteId);
+					ocupacaoService.alterar(linha.ambienteId, linha.tipoId, 1);
+					validas++;
+				}
+				return validas;
+			});
+			relatorio.registrarImportados(persistidos);
+			errosLote.forEach(relatorio::registrarErro);
+		} catch (Exception e) {
+			e.printStackTrace();
+			Throwable causa = NestedExceptionUtils.getMostSpecificCause(e);
+			String descricao = causa.getMessage() == null ? causa.getClass().getSimpleName()
+					: causa.getClass().getSimpleName() + ": " + causa.getMessage();
+			for (LinhaImportacao linha : lote) {
+				HashMap<String, String> erros = new HashMap<>();
+				erros.put("linha", "Não foi possível persistir o lote desta linha");
+				erros.put("causa", descricao);
+				relatorio.registrarErro(linha.numero, erros);
+			}
+		}
+	}
+
+	/**
+	 * Consulta quais dos ids ainda não conhecidos existem na base, registrando o
+	 * resultado no mapa de ids conhecidos
+	 */
+	private void resolverIds(Stream<Long> ids, Map<Long, Boolean> conhecidos, DAO<?> dao) {
+		Set<Long> desconhecidos = ids.filter(id -> id != null && !conhecidos.containsKey(id))
+				.collect(Collectors.toSet());
+		if (desconhecidos.isEmpty())
+			return;
+		desconhecidos.forEach(id -> conhecidos.put(id, false));
+		dao.buscarIds(desconhecidos).forEach(id -> conhecidos.put(id, true));
+	}
+
+	private LinhaImportacao lerCsv(int numero, String conteudo) {
+		String[] colunas = conteudo.split(",", -1);
+		if (colunas.length != 2)
+			return null;
+		try {
+			return new LinhaImportacao(numero, lerId(colunas[0]), lerId(colunas[1]));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private Long lerId(String coluna) {
+		coluna = coluna.trim();
+		return coluna.isEmpty() ? null : Long.valueOf(coluna);
+	}
+
+	private LinhaImportacao lerNdjson(int numero, String conteudo) {
+		try {
+			JsonNode json = MAPPER.readTree(conteudo);
+			return new LinhaImportacao(numero, lerId(json.path("tipo")), lerId(json.path("ambienteAtual")));
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private Long lerId(JsonNode campo) {
+		JsonNode id = campo.isObject() ? campo.path("id") : campo;
+		return id.canConvertToLong() ? id.asLong() : null;
+	}
+
+	/**
+	 * Linha lida do corpo de uma importação
+	 */
+	private static class LinhaImportacao {
+
+		private final int numero;
+		private final Long tipoId;
+		private final Long ambienteId;
+
+		private LinhaImportacao(int numero, Long tipoId, Long ambienteId) {
+			this.numero = numero;
+			this.tipoId = tipoId;
+			this.ambienteId = ambienteId;
+		}
+	}
+
+	/**
+	 * Método que atualiza um item cadastrado na base de dados. Recebe um objeto
+	 * item populado, verifica se há erros de validação, se não houver, efetua a
+	 * atualização
 	 * 
 	 * @param item
 	 *            objeto populado com os novos valores a serem atualizados
 	 * @param brItem
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @return objeto item populado com o registro que foi atualizado
 	 * @throws UnprocessableEntityException
-	 *             disparada se houver erros de validao
+	 *             disparada se houver erros de validação
 	 * @throws EntityNotFound
-	 *             disparada se o registro a ser editado no for encontrado
+	 *             disparada se o registro a ser editado não for encontrado
 	 */
 	@Transactional(value = TxType.REQUIRED)
 	public Item atualizar(@Valid Item item, BindingResult brItem) throws UnprocessableEntityException, EntityNotFound {
-		Item itemAntigo = itemDao.buscar(item.getId());
+		Item itemAntigo = itemDao.buscar(item.getId(), Item.EDICAO);
 		if (itemAntigo == null)
 			throw new EntityNotFound();
 		if (item.getTipo() != null && item.getTipo().getId() != null) {
 			TipoItem tipoItem = tipoItemDao.buscar(item.getTipo().getId());
 			if (tipoItem == null)
-				brItem.addError(new FieldError("item", "tipo", "Tipo no existente"));
-			else
+				brItem.addError(new FieldError("item", "tipo", "Tipo não existente"));
+			else {
+				Long ambienteId = itemAntigo.getAmbienteAtual().getId();
+				ocupacaoService.alterar(ambienteId, itemAntigo.getTipo().getId(), -1);
+				ocupacaoService.alterar(ambienteId, tipoItem.getId(), 1);
 				itemAntigo.setTipo(tipoItem);
+			}
 		}
 		if (brItem.hasFieldErrors())
 			throw new UnprocessableEntityException();
 		itemDao.atualizar(itemAntigo);
-		Hibernate.initialize(itemAntigo.getAmbienteAtual());
 		return itemAntigo;
 	}
 
 	/**
-	 * Mtodo que exclui fisicamente um item cadastrado na base de dados. Verifica
+	 * Método que exclui fisicamente um item cadastrado na base de dados. Verifica
 	 * se existe registro de um item referente ao id passado, se o ambiente
-	 * existir efetua a excluso
+	 * existir efetua a exclusão
 	 * 
 	 * @param id
 	 *            id do item a ser excluido
 	 * @throws EntityNotFound
-	 *             disparada se o registro a ser excluido no for encontrado
+	 *             disparada se o registro a ser excluido não for encontrado
 	 */
+	@Transactional(value = TxType.REQUIRED)
 	public void deletarItem(Long id) throws EntityNotFound {
 		Item item = itemDao.buscar(id);
 		if (item == null)
 			throw new EntityNotFound();
 		itemDao.deletar(item);
+		localizacaoService.remover(id);
+		ocupacaoService.alterar(item.getAmbienteAtual().getId(), item.getTipo().getId(), -1);
 	}
 }
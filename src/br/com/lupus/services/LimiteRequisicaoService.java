@@ -0,0 +1,214 @@
+package br.com.lupus.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import br.com.lupus.utils.BaldeTokens;
+
+/**
+ * Classe que limita a taxa de requisições de cada cliente com um balde de tokens,
+ * indexado pelo id do usuário autenticado ou, nas rotas sem autenticação, pelo
+ * IP do cliente. Cada rota consome uma quantidade de tokens proporcional ao seu
+ * custo (listagens, exportações e operações em lote custam mais que buscas
+ * pelo id). As taxas e capacidades são definidas pelas propriedades de sistema
+ * instock.limite.*
+ *
+ * @author Mateus A.S
+ */
+@Service
+public class LimiteRequisicaoService {
+
+	/** Tokens repostos por segundo no balde de cada usuário autenticado */
+	public static final double TAXA = Double.parseDouble(System.getProperty("instock.limite.taxa", "50"));
+
+	/** Capacidade do balde de cada usuário autenticado */
+	public static final int CAPACIDADE = Integer.parseInt(System.getProperty("instock.limite.capacidade", "200"));
+
+	/** Tokens repostos por segundo no balde de cada IP não autenticado */
+	public static final double TAXA_ANONIMO = Double
+			.parseDouble(System.getProperty("instock.limite.anonimo.taxa", "10"));
+
+	/** Capacidade do balde de cada IP não autenticado */
+	public static final int CAPACIDADE_ANONIMO = Integer
+			.parseInt(System.getProperty("instock.limite.anonimo.capacidade", "60"));
+
+	/** Intervalo, em milissegundos, entre as remoções dos baldes cheios (sem uso recente) */
+	public static final long INTERVALO_LIMPEZA = 60 * 1000;
+
+	/** Quantidade de baldes a partir da qual os baldes cheios são removidos imediatamente */
+	private static final int LIMITE_BALDES = 100000;
+
+	/**
+	 * Custo das rotas, o primeiro padrão compatível com o método, o caminho e o
+	 * parâmetro (se houver) é utilizado. A precedência é dada pela ordem, e não pela
+	 * especificidade do AntPathMatcher, que em /api/v1/ambiente/exportar preferiria o
+	 * padrão da busca do ambiente, sem **, ao da exportação: os padrões de maior
+	 * custo ou mais específicos devem ficar antes dos mais gerais
+	 */
+	private static final Rota[] ROTAS = {
+			new Rota("POST", "/api/v1/jwt", 3),
+			new Rota("GET", "/api/v1/**/exportar", 20),
+			new Rota("POST", "/api/v1/snapshot/**", 20),
+			new Rota("POST", "/api/v1/item/lote", 10),
+			new Rota("PATCH", "/api/v1/item/movimenta/*", 10),
+			new Rota("GET", "/api/v1/**/contagens", 5),
+			new Rota("GET", "/api/v1/snapshot/verificacao", 20),
+			// Reconstrói os itens do ambiente a partir de uma fotografia
+			new Rota("GET", "/api/v1/ambiente/*/itens", "em", 20),
+			new Rota("GET", "/api/v1/ambiente/*/itens", 5),
+			// A visão de detalhe busca os itens do ambiente na mesma consulta, salvo se ?fields os excluir
+			new Rota("GET", "/api/v1/ambiente/*", 5),
+			new Rota("GET", "/api/v1/item", 5),
+			new Rota("GET", "/api/v1/ambiente", 5),
+			new Rota("GET", "/api/v1/item/tipos", 5),
+			new Rota("GET", "/api/v1/usuario", 5),
+			new Rota("GET", "/api/v1/movimentacao", 5) };
+
+	private static final int CUSTO_PADRAO = 1;
+
+	private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+	/** Baldes indexados pelo id do usuário (Long) ou pelo IP (String) */
+	private final Map<Object, BaldeTokens> baldes = new ConcurrentHashMap<>();
+
+	private final LongAdder permitidas = new LongAdder();
+
+	private final LongAdder rejeitadasUsuario = new LongAdder();
+
+	private final LongAdder rejeitadasAnonimo = new LongAdder();
+
+	/** Requisições rejeitadas indexadas pela rota (padrão ou "padrao") */
+	private final Map<String, LongAdder> rejeitadasPorRota = new ConcurrentHashMap<>();
+
+	/**
+	 * Método que consome do balde do cliente os tokens referentes à rota
+	 *
+	 * @param usuarioId
+	 *            id do usuário autenticado, ou nulo
+	 * @param ip
+	 *            IP do cliente, utilizado se não houver usuário autenticado
+	 * @param metodo
+	 *            método HTTP da requisição
+	 * @param caminho
+	 *            caminho da requisição, sem o contexto da aplicação
+	 * @param possuiParametro
+	 *            verifica se a requisição possui o parâmetro, consultado somente
+	 *            nas rotas que dependem de um parâmetro
+	 * @return 0 se a requisição foi permitida, senão os segundos que o cliente
+	 *         deve aguardar antes de tentar novamente
+	 */
+	public long consumir(Long usuarioId, String ip, String metodo, String caminho, Predicate<String> possuiParametro) {
+		Rota rota = buscarRota(metodo, caminho, possuiParametro);
+		long agora = System.nanoTime();
+		long espera = buscarBalde(usuarioId, ip, agora).consumir(custo(rota), agora);
+		if (espera == 0) {
+			permitidas.increment();
+			return 0;
+		}
+		(usuarioId != null ? rejeitadasUsuario : rejeitadasAnonimo).increment();
+		rejeitadasPorRota.computeIfAbsent(rota == null ? "padrao" : rota.toString(), r -> new LongAdder())
+				.increment();
+		return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera + TimeUnit.SECONDS.toNanos(1) - 1));
+	}
+
+	/**
+	 * Método que retorna a configuração dos limites e a quantidade de requisições
+	 * permitidas e rejeitadas desde o início da aplicação
+	 *
+	 * @return mapa com as estatísticas
+	 */
+	public Map<String, Object> buscarEstatisticas() {
+		Map<String, Object> estatisticas = new LinkedHashMap<>();
+		estatisticas.put("taxa", TAXA);
+		estatisticas.put("capacidade", CAPACIDADE);
+		estatisticas.put("taxaAnonimo", TAXA_ANONIMO);
+		estatisticas.put("capacidadeAnonimo", CAPACIDADE_ANONIMO);
+		estatisticas.put("baldes", baldes.size());
+		estatisticas.put("permitidas", permitidas.sum());
+		estatisticas.put("rejeitadasUsuario", rejeitadasUsuario.sum());
+		estatisticas.put("rejeitadasAnonimo", rejeitadasAnonimo.sum());
+		Map<String, Long> porRota = new LinkedHashMap<>();
+		rejeitadasPorRota.forEach((rota, rejeitadas) -> porRota.put(rota, rejeitadas.sum()));
+		estatisticas.put("rejeitadasPorRota", porRota);
+		return estatisticas;
+	}
+
+	/**
+	 * Método que remove os baldes cheios, cujos clientes não fizeram requisições
+	 * recentemente. Um novo balde é criado cheio na próxima requisição
+	 */
+	@Scheduled(fixedDelay = INTERVALO_LIMPEZA, initialDelay = INTERVALO_LIMPEZA)
+	public void limpar() {
+		long agora = System.nanoTime();
+		baldes.values().removeIf(balde -> balde.isCheio(agora));
+	}
+
+	private BaldeTokens buscarBalde(Long usuarioId, String ip, long agora) {
+		Object chave = usuarioId != null ? usuarioId : ip;
+		BaldeTokens balde = baldes.get(chave);
+		if (balde != null)
+			return balde;
+		if (baldes.size() >= LIMITE_BALDES)
+			baldes.values().removeIf(b -> b.isCheio(agora));
+		return baldes.computeIfAbsent(chave, c -> usuarioId != null ? new BaldeTokens(TAXA, CAPACIDADE)
+				: new BaldeTokens(TAXA_ANONIMO, CAPACIDADE_ANONIMO));
+	}
+
+	/**
+	 * @return custo, em tokens, da requisição com o método, o caminho e os parâmetros
+	 */
+	static int custo(String metodo, String caminho, Predicate<String> possuiParametro) {
+		return custo(buscarRota(metodo, caminho, possuiParametro));
+	}
+
+	private static int custo(Rota rota) {
+		return rota == null ? CUSTO_PADRAO : rota.custo;
+	}
+
+	private static Rota buscarRota(String metodo, String caminho, Predicate<String> possuiParametro) {
+		for (Rota rota : ROTAS)
+			if (rota.metodo.equals(metodo) && MATCHER.match(rota.padrao, caminho)
+					&& (rota.parametro == null || possuiParametro.test(rota.parametro)))
+				return rota;
+		return null;
+	}
+
+	/**
+	 * Custo, em tokens, das requisições compatíveis com o método e o padrão
+	 */
+	private static class Rota {
+
+		private final String metodo;
+
+		private final String padrao;
+
+		/** Parâmetro que a requisição deve possuir, ou nulo */
+		private final String parametro;
+
+		private final int custo;
+
+		private Rota(String metodo, String padrao, int custo) {
+			this(metodo, padrao, null, custo);
+		}
+
+		private Rota(String metodo, String padrao, String parametro, int custo) {
+			this.metodo = metodo;
+			this.padrao = padrao;
+			this.parametro = parametro;
+			this.custo = custo;
+		}
+
+		@Override
+		public String toString() {
+			return metodo + " " + padrao + (parametro == null ? "" : "?" + parametro);
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package br.com.lupus.services;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.dao.AmbienteDao;
+import br.com.lupus.dao.ItemDao;
+import br.com.lupus.dao.MovimentacaoDao;
+import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.dto.DivergenciaLocalizacao;
+import br.com.lupus.utils.LongLongMap;
+import br.com.lupus.utils.LongSet;
+
+/**
+ * Classe que mantém em memória a localização de todos os itens, respondendo em
+ * qual ambiente um item está e quais itens estão em um ambiente sem consultar o
+ * banco. O índice é carregado na inicialização e atualizado pelos services que
+ * cadastram, movimentam e excluem itens, sempre após o commit da transação.
+ * Alterações feitas diretamente no banco ou por outra instância da aplicação
+ * só são refletidas ao recarregar o índice
+ *
+ * @author Mateus A.S
+ */
+@Service
+public class LocalizacaoService {
+
+	/** Valor que representa a ausência de um id nas estruturas primitivas */
+	private static final long AUSENTE = 0;
+
+	@Autowired
+	private ItemDao itemDao;
+
+	@Autowired
+	private AmbienteDao ambienteDao;
+
+	@Autowired
+	private MovimentacaoDao movimentacaoDao;
+
+	@Autowired
+	private SnapshotLocalizacaoService snapshotService;
+
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+	/** Id do ambiente atual indexado pelo id do item */
+	private LongLongMap ambientePorItem;
+
+	/** Ids dos itens presentes em cada ambiente, indexados pelo id do ambiente */
+	private Map<Long, LongSet> itensPorAmbiente;
+
+	private volatile boolean carregado;
+
+	/**
+	 * Método que carrega o índice na inicialização da aplicação. Se o banco não
+	 * estiver disponível o índice é carregado na primeira consulta
+	 */
+	@PostConstruct
+	public void inicializar() {
+		try {
+			recarregar();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Método que descarta o índice atual e o reconstrói a partir da base de dados,
+	 * lendo apenas o id e o ambiente de cada item por streaming
+	 */
+	public void recarregar() {
+		trava.writeLock().lock();
+		try {
+			LongLongMap novoAmbientePorItem = new LongLongMap(1024);
+			Map<Long, LongSet> novosItensPorAmbiente = new HashMap<>();
+			itemDao.percorrerLocalizacoes((item, ambiente) -> {
+				novoAmbientePorItem.put(item, ambiente, AUSENTE);
+				novosItensPorAmbiente.computeIfAbsent(ambiente, a -> new LongSet(16)).add(item);
+			});
+			ambientePorItem = novoAmbientePorItem;
+			itensPorAmbiente = novosItensPorAmbiente;
+			carregado = true;
+		} finally {
+			trava.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Método que retorna o id do ambiente em que o item se encontra
+	 *
+	 * @param itemId
+	 *            id do item procurado
+	 * @return id do ambiente atual do item
+	 * @throws EntityNotFound
+	 *             disparada se o item não existir
+	 */
+	public Long buscarAmbiente(Long itemId) throws EntityNotFound {
+		garantirCarregado();
+		long ambiente;
+		trava.readLock().lock();
+		try {
+			ambiente = itemId == AUSENTE ? AUSENTE : ambientePorItem.get(itemId, AUSENTE);
+		} finally {
+			trava.readLock().unlock();
+		}
+		if (ambiente == AUSENTE)
+			throw new EntityNotFound();
+		return ambiente;
+	}
+
+	/**
+	 * Método que retorna os ids dos itens que se encontram no ambiente, sem ordem
+	 * definida. Somente um ambiente sem itens é procurado na base de dados (cache de
+	 * segundo nível), para diferenciar um ambiente vazio de um inexistente
+	 *
+	 * @param ambienteId
+	 *            id do ambiente procurado
+	 * @return ids dos itens presentes no ambiente
+	 * @throws EntityNotFound
+	 *             disparada se o ambiente não existir
+	 */
+	public long[] buscarItens(Long ambienteId) throws EntityNotFound {
+		garantirCarregado();
+		trava.readLock().lock();
+		try {
+			LongSet itens = itensPorAmbiente.get(ambienteId);
+			if (itens != null && itens.size() > 0)
+				return itens.toArray();
+		} finally {
+			trava.readLock().unlock();
+		}
+		if (ambienteDao.buscar(ambienteId) == null)
+			throw new EntityNotFound();
+		return new long[0];
+	}
+
+	/**
+	 * Método que retorna o id do ambiente em que o item se encontrava no instante
+	 * informado: o destino da última movimentação do item até o instante ou, se não
+	 * houver, a origem da primeira movimentação após ele. Cada busca lê uma única
+	 * entrada do índice de movimentações do item. Um item nunca movimentado está no
+	 * ambiente atual
+	 *
+	 * @param itemId
+	 *            id do item procurado
+	 * @param em
+	 *            instante consultado
+	 * @return id do ambiente do item no instante
+	 * @throws EntityNotFound
+	 *             disparada se o item não existir ou tiver sido cadastrado após o
+	 *             instante
+	 */
+	public Long buscarAmbiente(Long itemId, Date em) throws EntityNotFound {
+		Item item = itemDao.buscar(itemId);
+		if (item == null || (item.getDataCadastro() != null && item.getDataCadastro().after(em)))
+			throw new EntityNotFound();
+		Long ambiente = movimentacaoDao.buscarDestinoAte(itemId, em);
+		if (ambiente == null)
+			ambiente = movimentacaoDao.buscarOrigemApos(itemId, em);
+		return ambiente != null ? ambiente : item.getAmbienteAtual().getId();
+	}
+
+	/**
+	 * Método que retorna os ids dos itens que se encontravam no ambiente no instante
+	 * informado, sem ordem definida. Os itens do ambiente são reconstruídos a partir
+	 * da fotografia mais próxima do instante (ver SnapshotLocalizacaoService.reconstruir,
+	 * inclusive suas limitações quanto a itens excluídos). Instantes futuros são
+	 * respondidos pelo índice atual
+	 *
+	 * @param ambienteId
+	 *            id do ambiente procurado
+	 * @param em
+	 *            instante consultado
+	 * @return ids dos itens presentes no ambiente no instante
+	 * @throws EntityNotFound
+	 *             disparada se o ambiente não existir
+	 */
+	public long[] buscarItens(Long ambienteId, Date em) throws EntityNotFound {
+		if (em.getTime() >= System.currentTimeMillis())
+			return buscarItens(ambienteId);
+		long[] itens = snapshotService.reconstruir(ambienteId, em).toArray();
+		if (itens.length == 0 && ambienteDao.buscar(ambienteId) == null)
+			throw new EntityNotFound();
+		return itens;
+	}
+
+	/**
+	 * Método que reconstrói o ambiente atual dos itens a partir das movimentações,
+	 * corrigindo os itens apontados pela verificação (ver
+	 * SnapshotLocalizacaoService.verificar). Cada item é corrigido em uma transação
+	 * própria, somente se ainda estiver no ambiente lido pela verificação, junto
+	 * da ocupação e do índice em memória
+	 *
+	 * @return divergências corrigidas
+	 */
+	public List<DivergenciaLocalizacao> corrigirDivergencias() {
+		List<DivergenciaLocalizacao> corrigidas = new ArrayList<>();
+		TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+		for (DivergenciaLocalizacao divergencia : snapshotService.verificar()) {
+			Boolean corrigida = transacao.execute(status -> {
+				Item item = itemDao.buscar(divergencia.getItem());
+				if (item == null || !itemDao.mover(item.getId(), ambienteDao.referenciar(divergencia.getAtual()),
+						ambienteDao.referenciar(divergencia.getEsperado())))
+					return false;
+				ocupacaoService.mover(item.getTipo().getId(), divergencia.getAtual(), divergencia.getEsperado());
+				registrar(item.getId(), divergencia.getEsperado());
+				return true;
+			});
+			if (corrigida)
+				corrigidas.add(divergencia);
+		}
+		return corrigidas;
+	}
+
+	/**
+	 * Método que registra o item no ambiente informado, retirando-o do ambiente em
+	 * que estava. Dentro de uma transação o índice só é alterado após o commit
+	 *
+	 * @param itemId
+	 *            id do item cadastrado ou movimentado
+	 * @param ambienteId
+	 *            id do ambiente em que o item passou a se encontrar
+	 */
+	public void registrar(Long itemId, Long ambienteId) {
+		aposCommit(() -> aplicar(itemId, ambienteId));
+	}
+
+	/**
+	 * Método que retira o item do índice. Dentro de uma transação o índice só é
+	 * alterado após o commit
+	 *
+	 * @param itemId
+	 *            id do item excluido
+	 */
+	public void remover(Long itemId) {
+		aposCommit(() -> aplicar(itemId, AUSENTE));
+	}
+
+	private void garantirCarregado() {
+		if (carregado)
+			return;
+		trava.writeLock().lock();
+		try {
+			if (!carregado)
+				recarregar();
+		} finally {
+			trava.writeLock().unlock();
+		}
+	}
+
+	private void aplicar(long itemId, long ambienteId) {
+		if (!carregado)
+			return;
+		trava.writeLock().lock();
+		try {
+			long anterior = ambienteId == AUSENTE ? ambientePorItem.remove(itemId, AUSENTE)
+					: ambientePorItem.put(itemId, ambienteId, AUSENTE);
+			if (anterior != AUSENTE && itensPorAmbiente.containsKey(anterior))
+				itensPorAmbiente.get(anterior).remove(itemId);
+			if (ambienteId != AUSENTE)
+				itensPorAmbiente.computeIfAbsent(ambienteId, a -> new LongSet(16)).add(itemId);
+		} finally {
+			trava.writeLock().unlock();
+		}
+	}
+
+	private void aposCommit(Runnable alteracao) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			alteracao.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				alteracao.run();
+			}
+		});
+	}
+}
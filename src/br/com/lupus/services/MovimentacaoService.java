@@ -1,33 +1,56 @@
 package br.com.lupus.services;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 import javax.transaction.Transactional;
 import javax.transaction.Transactional.TxType;
 
-import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import br.com.lupus.dao.AmbienteDao;
+import br.com.lupus.dao.CursorMovimentacao;
+import br.com.lupus.dao.FiltroMovimentacao;
 import br.com.lupus.dao.ItemDao;
 import br.com.lupus.dao.MovimentacaoDao;
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.exceptions.ConflictException;
 import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.exceptions.UnprocessableEntityException;
 import br.com.lupus.models.Ambiente;
 import br.com.lupus.models.Item;
 import br.com.lupus.models.Movimentacao;
 import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.ResultadoMovimentacaoLote;
 
 /**
- * Classe com os mtodos auxiliares referentes ao CRUD de movimentaes
+ * Classe com os métodos auxiliares referentes ao CRUD de movimentações
  * 
  * @author Mateus A.S
  */
 @Service
 public class MovimentacaoService {
 
+	/** Quantidade máxima de itens movimentados em uma única requisição */
+	public static final int LIMITE_LOTE_MOVIMENTACAO = 1000;
+
+	/** Quantidade máxima de tentativas de mover um item disputado por outra movimentação */
+	public static final int TENTATIVAS_MOVIMENTACAO = 5;
+
+	/** Espera, em milissegundos, antes da segunda tentativa de movimentação */
+	public static final long ESPERA_INICIAL_MOVIMENTACAO = 10;
+
+	private static final String MOTIVO_DISPUTA = "O item está sendo movimentado por outra requisição, tente novamente";
+
 	@Autowired
 	private MovimentacaoDao movimentacaoDao;
 
@@ -37,39 +60,177 @@ public class MovimentacaoService {
 	@Autowired
 	private ItemDao itemDao;
 
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private LocalizacaoService localizacaoService;
+
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
 	/**
-	 * Mtodo que persiste uma movimentao na base de dados. Recebe o id de um item
-	 * e de um ambiente, se o ambiente e o item existirem, popula uma movimentao e
-	 * persiste ela. Automaticamente o banco atualiza o ambiente para qual o item
-	 * aponta.
+	 * Método que persiste uma movimentação na base de dados. Recebe o id de um item
+	 * e de um ambiente, se o ambiente e o item existirem, move o item com um UPDATE
+	 * condicionado ao ambiente lido e persiste a movimentação na mesma transação.
+	 * Se outra movimentação alterar o item entre a leitura e o UPDATE, o item é lido
+	 * novamente e a operação repetida, aguardando um intervalo crescente entre as
+	 * TENTATIVAS_MOVIMENTACAO tentativas. Cada tentativa roda em sua própria
+	 * transação para enxergar o ambiente gravado pela movimentação concorrente.
 	 * 
 	 * @param itemId
 	 *            id do item a ser movimentado
 	 * @param ambienteId
-	 *            id do ambiente a qual o item est sendo redirecionado
+	 *            id do ambiente a qual o item está sendo redirecionado
 	 * @throws EntityNotFound
-	 *             disparada se uma das entidades no for encontrada
+	 *             disparada se uma das entidades não for encontrada
 	 * @throws ConflictException
 	 *             disparada se o item estiver sendo movido para o local em que ele
-	 *             j se encontra
+	 *             já se encontra ou se as tentativas se esgotarem
 	 */
-	@Transactional(value = TxType.REQUIRED)
+	@Transactional(value = TxType.NOT_SUPPORTED)
 	public Movimentacao movimentar(Long itemId, Long ambienteId) throws EntityNotFound, ConflictException {
-		Item item = itemDao.buscar(itemId);
 		Ambiente ambiente = ambienteDao.buscar(ambienteId);
-		;
-		if (item == null || ambiente == null)
+		if (ambiente == null)
 			throw new EntityNotFound();
-		Hibernate.initialize(item.getAmbienteAtual());
-		if (item.getAmbienteAtual().getId() == ambienteId)
-			throw new ConflictException();
-		Movimentacao movimentacao = new Movimentacao();
-		movimentacao.setAmbienteAnterior(item.getAmbienteAtual());
-		movimentacao.setAmbientePosterior(ambiente);
-		movimentacao.setItemMovimentado(item);
-		movimentacao.setMovimentador((Usuario) SecurityContextHolder.getContext().getAuthentication());
-		movimentacao.setDataMovimentacao(new Date());
-		movimentacaoDao.persistir(movimentacao);
-		return movimentacao;
+		Usuario movimentador = (Usuario) SecurityContextHolder.getContext().getAuthentication();
+		TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+		for (int tentativa = 1;; tentativa++) {
+			Item item = itemDao.buscar(itemId);
+			if (item == null)
+				throw new EntityNotFound();
+			Long origemId = item.getAmbienteAtual().getId();
+			if (origemId.equals(ambienteId))
+				throw new ConflictException();
+			Movimentacao movimentacao = transacao.execute(status -> {
+				if (!itemDao.mover(itemId, item.getAmbienteAtual(), ambiente))
+					return null;
+				Movimentacao nova = new Movimentacao();
+				nova.setAmbienteAnterior(ambienteDao.buscar(origemId));
+				nova.setAmbientePosterior(ambiente);
+				nova.setItemMovimentado(item);
+				nova.setMovimentador(movimentador);
+				nova.setDataMovimentacao(new Date());
+				movimentacaoDao.persistir(nova);
+				ocupacaoService.mover(item.getTipo().getId(), origemId, ambienteId);
+				return nova;
+			});
+			if (movimentacao != null) {
+				localizacaoService.registrar(itemId, ambienteId);
+				return movimentacao;
+			}
+			if (tentativa == TENTATIVAS_MOVIMENTACAO)
+				throw new ConflictException(MOTIVO_DISPUTA);
+			aguardar(tentativa);
+		}
+	}
+
+	/**
+	 * Método que aguarda antes de uma nova tentativa de movimentação. O intervalo
+	 * dobra a cada tentativa e recebe uma parcela aleatória, para que as
+	 * requisições concorrentes não voltem a colidir no mesmo instante
+	 * 
+	 * @param tentativa
+	 *            número da tentativa que acabou de falhar
+	 * @throws ConflictException
+	 *             disparada se a thread for interrompida durante a espera
+	 */
+	private void aguardar(int tentativa) throws ConflictException {
+		long espera = ESPERA_INICIAL_MOVIMENTACAO << (tentativa - 1);
+		try {
+			Thread.sleep(espera + ThreadLocalRandom.current().nextLong(espera));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConflictException(MOTIVO_DISPUTA);
+		}
+	}
+
+	/**
+	 * Método que movimenta vários itens para um mesmo ambiente em uma única
+	 * transação. Os itens são carregados e bloqueados em uma única consulta, os que já se
+	 * encontram no ambiente são ignorados, o ambiente de todos os demais é
+	 * atualizado em um único UPDATE e as movimentações são inseridas em lote
+	 * 
+	 * @param itensIds
+	 *            ids dos itens a serem movimentados
+	 * @param ambienteId
+	 *            id do ambiente a qual os itens estão sendo redirecionados
+	 * @return resultado com as movimentações registradas, os itens ignorados e os
+	 *         ids não encontrados
+	 * @throws EntityNotFound
+	 *             disparada se o ambiente não for encontrado
+	 * @throws UnprocessableEntityException
+	 *             disparada se a lista de itens estiver vazia ou exceder
+	 *             LIMITE_LOTE_MOVIMENTACAO itens
+	 */
+	@Transactional(value = TxType.REQUIRED)
+	public ResultadoMovimentacaoLote movimentarLote(List<Long> itensIds, Long ambienteId)
+			throws EntityNotFound, UnprocessableEntityException {
+		Set<Long> ids = new LinkedHashSet<>(itensIds);
+		ids.remove(null);
+		if (ids.isEmpty() || ids.size() > LIMITE_LOTE_MOVIMENTACAO)
+			throw new UnprocessableEntityException();
+		Ambiente ambiente = ambienteDao.buscar(ambienteId);
+		if (ambiente == null)
+			throw new EntityNotFound();
+		Usuario movimentador = (Usuario) SecurityContextHolder.getContext().getAuthentication();
+		Date data = new Date();
+		ResultadoMovimentacaoLote resultado = new ResultadoMovimentacaoLote();
+		List<Long> movidos = new ArrayList<>();
+		for (Item item : itemDao.buscarParaMovimentar(ids)) {
+			ids.remove(item.getId());
+			if (item.getAmbienteAtual().getId().equals(ambienteId)) {
+				resultado.getIgnorados().add(item.getId());
+				continue;
+			}
+			Movimentacao movimentacao = new Movimentacao();
+			movimentacao.setAmbienteAnterior(item.getAmbienteAtual());
+			movimentacao.setAmbientePosterior(ambiente);
+			movimentacao.setItemMovimentado(item);
+			movimentacao.setMovimentador(movimentador);
+			movimentacao.setDataMovimentacao(data);
+			resultado.getMovimentacoes().add(movimentacao);
+			movidos.add(item.getId());
+			ocupacaoService.mover(item.getTipo().getId(), item.getAmbienteAtual().getId(), ambienteId);
+		}
+		resultado.getNaoEncontrados().addAll(ids);
+		itemDao.atualizarAmbiente(movidos, ambiente);
+		movidos.forEach(id -> localizacaoService.registrar(id, ambienteId));
+		for (Movimentacao movimentacao : resultado.getMovimentacoes())
+			movimentacaoDao.persistir(movimentacao);
+		return resultado;
+	}
+
+	/**
+	 * Método que retorna uma página do histórico de movimentações, ordenada pela
+	 * data e pelo id e iniciada após o cursor informado. Retorna até limite + 1
+	 * registros, o registro excedente indica a existência de uma próxima página
+	 * 
+	 * @param filtro
+	 *            filtros de item, ambiente (origem ou destino), movimentador e
+	 *            período
+	 * @param cursor
+	 *            posição da última movimentação da página anterior (nulo na
+	 *            primeira página)
+	 * @param limite
+	 *            quantidade de registros da página
+	 * @param ordenacao
+	 *            direção da ordenação pela data
+	 * @return lista de movimentações da página
+	 */
+	public List<Movimentacao> buscarHistorico(FiltroMovimentacao filtro, CursorMovimentacao cursor, int limite,
+			Ordenacao ordenacao) {
+		return movimentacaoDao.buscarHistorico(filtro, cursor, limite + 1, ordenacao);
+	}
+
+	/**
+	 * Método que percorre todas as movimentações cadastrados na base de dados, entregando um
+	 * a um ao consumidor sem carregar a lista inteira em memória
+	 * 
+	 * @param consumidor
+	 *            consumidor que recebe cada movimentação lido
+	 */
+	public void exportarMovimentacoes(Consumer<Movimentacao> consumidor) {
+		movimentacaoDao.percorrerTodos(consumidor);
 	}
 }
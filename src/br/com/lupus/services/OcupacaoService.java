@@ -0,0 +1,415 @@
+package br.com.lupus.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.dao.ItemDao;
+import br.com.lupus.dao.OcupacaoDao;
+import br.com.lupus.models.dto.Contagem;
+import br.com.lupus.models.dto.ContagemCruzada;
+
+/**
+ * Classe que mantém a quantidade de itens de cada tipo em cada ambiente, gravada
+ * na tabela de ocupação e espelhada em memória. Os services que cadastram,
+ * movimentam e excluem itens informam as variações, que são acumuladas por
+ * transação, somadas à tabela imediatamente antes do commit (na mesma transação
+ * que alterou os itens) e aplicadas à memória após o commit. As contagens são
+ * respondidas pela memória, sem consultar o banco. Alterações feitas diretamente
+ * no banco ou por outra instância da aplicação são corrigidas pela reconciliação
+ * periódica
+ *
+ * @author Mateus A.S
+ */
+@Service
+public class OcupacaoService {
+
+	/** Intervalo, em milissegundos, entre o fim de uma reconciliação e o início da próxima */
+	public static final long INTERVALO_RECONCILIACAO = 10 * 60 * 1000;
+
+	@Autowired
+	private OcupacaoDao ocupacaoDao;
+
+	@Autowired
+	private ItemDao itemDao;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/** Protege as estruturas em memória */
+	private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+	/**
+	 * Compartilhada pelas transações entre a soma na tabela e a aplicação na
+	 * memória, exclusiva durante a recarga. Garante que cada variação esteja ou na
+	 * leitura da recarga ou seja aplicada depois dela, nunca nas duas
+	 */
+	private final ReentrantReadWriteLock travaCommits = new ReentrantReadWriteLock();
+
+	/** Total de cada tipo (somente os diferentes de zero) indexado pelo ambiente */
+	private Map<Long, Map<Long, Long>> ocupacao;
+
+	/** Total de itens de cada ambiente, inclusive dos vazios */
+	private Map<Long, Long> totalPorAmbiente;
+
+	/** Total de itens de cada tipo, inclusive dos sem itens */
+	private Map<Long, Long> totalPorTipo;
+
+	private volatile boolean carregado;
+
+	/**
+	 * Método que reconcilia a tabela e carrega a memória na inicialização da
+	 * aplicação. Se o banco não estiver disponível a memória é carregada na
+	 * primeira consulta
+	 */
+	@PostConstruct
+	public void inicializar() {
+		try {
+			reconciliar();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Método que corrige as divergências entre a tabela de ocupação e os itens
+	 * cadastrados e recarrega a memória. A contagem dos itens e a leitura da
+	 * tabela são feitas na mesma leitura consistente, a diferença é somada ao
+	 * total gravado, de forma que as variações confirmadas por outras transações
+	 * durante a reconciliação não são perdidas
+	 */
+	@Scheduled(fixedDelay = INTERVALO_RECONCILIACAO, initialDelay = INTERVALO_RECONCILIACAO)
+	public void reconciliar() {
+		TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+		transacao.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		transacao.execute(status -> {
+			Map<Long, Map<Long, Long>> divergencias = new TreeMap<>();
+			for (ContagemCruzada contagem : itemDao.contarPorAmbienteETipo(null, null))
+				somar(divergencias, contagem.getAmbiente(), contagem.getTipo(), contagem.getTotal());
+			for (ContagemCruzada contagem : ocupacaoDao.buscarTodas())
+				somar(divergencias, contagem.getAmbiente(), contagem.getTipo(), -contagem.getTotal());
+			divergencias.forEach((ambiente, tipos) -> tipos
+					.forEach((tipo, variacao) -> ocupacaoDao.somar(ambiente, tipo, variacao)));
+			return null;
+		});
+		recarregar();
+	}
+
+	/**
+	 * Método que descarta a memória atual e a reconstrói a partir da tabela de
+	 * ocupação. Os commits que alteram a ocupação aguardam o fim da recarga
+	 */
+	public void recarregar() {
+		travaCommits.writeLock().lock();
+		try {
+			Map<Long, Map<Long, Long>> novaOcupacao = new TreeMap<>();
+			Map<Long, Long> novoTotalPorAmbiente = new TreeMap<>();
+			Map<Long, Long> novoTotalPorTipo = new TreeMap<>();
+			TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+			transacao.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+			transacao.setReadOnly(true);
+			transacao.execute(status -> {
+				ocupacaoDao.buscarAmbientes().forEach(ambiente -> novoTotalPorAmbiente.put(ambiente, 0L));
+				ocupacaoDao.buscarTipos().forEach(tipo -> novoTotalPorTipo.put(tipo, 0L));
+				for (ContagemCruzada contagem : ocupacaoDao.buscarTodas())
+					if (contagem.getTotal() != 0)
+						somar(novaOcupacao, novoTotalPorAmbiente, novoTotalPorTipo, contagem.getAmbiente(),
+								contagem.getTipo(), contagem.getTotal());
+				return null;
+			});
+			trava.writeLock().lock();
+			try {
+				ocupacao = novaOcupacao;
+				totalPorAmbiente = novoTotalPorAmbiente;
+				totalPorTipo = novoTotalPorTipo;
+				carregado = true;
+			} finally {
+				trava.writeLock().unlock();
+			}
+		} finally {
+			travaCommits.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Método que retorna a quantidade de itens de cada ambiente, inclusive dos
+	 * ambientes vazios, ordenada pelo id do ambiente
+	 *
+	 * @return lista com o id e o total de itens de cada ambiente
+	 */
+	public List<Contagem> contarPorAmbiente() {
+		garantirCarregado();
+		trava.readLock().lock();
+		try {
+			return listar(totalPorAmbiente);
+		} finally {
+			trava.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Método que retorna a quantidade de itens de cada tipo, inclusive dos tipos
+	 * sem itens, ordenada pelo id do tipo
+	 *
+	 * @return lista com o id e o total de itens de cada tipo
+	 */
+	public List<Contagem> contarPorTipo() {
+		garantirCarregado();
+		trava.readLock().lock();
+		try {
+			return listar(totalPorTipo);
+		} finally {
+			trava.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Método que retorna a matriz ambiente x tipo, ordenada pelo ambiente e pelo
+	 * tipo. Combinações sem itens não são retornadas
+	 *
+	 * @param ambientes
+	 *            ids dos ambientes considerados (nulo ou vazio para todos)
+	 * @param tipos
+	 *            ids dos tipos considerados (nulo ou vazio para todos)
+	 * @return lista com o total de itens de cada combinação existente
+	 */
+	public List<ContagemCruzada> contarCruzado(Collection<Long> ambientes, Collection<Long> tipos) {
+		boolean filtraAmbientes = ambientes != null && !ambientes.isEmpty();
+		boolean filtraTipos = tipos != null && !tipos.isEmpty();
+		garantirCarregado();
+		List<ContagemCruzada> contagens = new ArrayList<>();
+		trava.readLock().lock();
+		try {
+			ocupacao.forEach((ambiente, totais) -> {
+				if (filtraAmbientes && !ambientes.contains(ambiente))
+					return;
+				totais.forEach((tipo, total) -> {
+					if (!filtraTipos || tipos.contains(tipo))
+						contagens.add(new ContagemCruzada(ambiente, tipo, total));
+				});
+			});
+		} finally {
+			trava.readLock().unlock();
+		}
+		return contagens;
+	}
+
+	/**
+	 * Método que registra a variação da quantidade de itens de um tipo em um
+	 * ambiente. As variações são acumuladas na transação e gravadas somente no
+	 * commit, uma soma por combinação. Fora de uma transação é aberta uma própria
+	 *
+	 * @param ambienteId
+	 *            id do ambiente
+	 * @param tipoId
+	 *            id do tipo de item
+	 * @param variacao
+	 *            quantidade de itens adicionados (positiva) ou retirados
+	 *            (negativa)
+	 */
+	public void alterar(Long ambienteId, Long tipoId, long variacao) {
+		emTransacao(() -> variacoes().somar(ambienteId, tipoId, variacao));
+	}
+
+	/**
+	 * Método que registra a movimentação de um item entre dois ambientes
+	 *
+	 * @param tipoId
+	 *            id do tipo do item movimentado
+	 * @param origemId
+	 *            id do ambiente em que o item se encontrava
+	 * @param destinoId
+	 *            id do ambiente em que o item passou a se encontrar
+	 */
+	public void mover(Long tipoId, Long origemId, Long destinoId) {
+		alterar(origemId, tipoId, -1);
+		alterar(destinoId, tipoId, 1);
+	}
+
+	/**
+	 * Método que registra um ambiente recém cadastrado, que passa a ser contado
+	 * com zero itens. A memória só é alterada após o commit
+	 *
+	 * @param ambienteId
+	 *            id do ambiente cadastrado
+	 */
+	public void registrarAmbiente(Long ambienteId) {
+		emTransacao(() -> variacoes().aposCommit(() -> totalPorAmbiente.putIfAbsent(ambienteId, 0L)));
+	}
+
+	/**
+	 * Método que registra um tipo recém cadastrado, que passa a ser contado com
+	 * zero itens. A memória só é alterada após o commit
+	 *
+	 * @param tipoId
+	 *            id do tipo cadastrado
+	 */
+	public void registrarTipo(Long tipoId) {
+		emTransacao(() -> variacoes().aposCommit(() -> totalPorTipo.putIfAbsent(tipoId, 0L)));
+	}
+
+	/**
+	 * Método que retira um ambiente excluido da tabela e da memória. Deve ser
+	 * chamado na transação que exclui o ambiente
+	 *
+	 * @param ambienteId
+	 *            id do ambiente excluido
+	 */
+	public void removerAmbiente(Long ambienteId) {
+		emTransacao(() -> {
+			ocupacaoDao.removerAmbiente(ambienteId);
+			variacoes().aposCommit(() -> {
+				totalPorAmbiente.remove(ambienteId);
+				ocupacao.remove(ambienteId);
+			});
+		});
+	}
+
+	/**
+	 * Método que retira um tipo excluido da tabela e da memória. Deve ser chamado
+	 * na transação que exclui o tipo
+	 *
+	 * @param tipoId
+	 *            id do tipo excluido
+	 */
+	public void removerTipo(Long tipoId) {
+		emTransacao(() -> {
+			ocupacaoDao.removerTipo(tipoId);
+			variacoes().aposCommit(() -> {
+				totalPorTipo.remove(tipoId);
+				ocupacao.values().forEach(totais -> totais.remove(tipoId));
+			});
+		});
+	}
+
+	private void garantirCarregado() {
+		if (!carregado)
+			recarregar();
+	}
+
+	/**
+	 * Executa a operação na transação atual ou, se não houver, em uma transação
+	 * própria, de forma que as alterações sempre passam pelo commit
+	 */
+	private void emTransacao(Runnable operacao) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			operacao.run();
+			return;
+		}
+		new TransactionTemplate(transactionManager).execute(status -> {
+			operacao.run();
+			return null;
+		});
+	}
+
+	/**
+	 * @return variações da transação atual, registradas na primeira chamada
+	 */
+	private Variacoes variacoes() {
+		Variacoes variacoes = (Variacoes) TransactionSynchronizationManager.getResource(this);
+		if (variacoes == null) {
+			variacoes = new Variacoes();
+			TransactionSynchronizationManager.bindResource(this, variacoes);
+			TransactionSynchronizationManager.registerSynchronization(variacoes);
+		}
+		return variacoes;
+	}
+
+	private static List<Contagem> listar(Map<Long, Long> totais) {
+		List<Contagem> contagens = new ArrayList<>(totais.size());
+		totais.forEach((id, total) -> contagens.add(new Contagem(id, total)));
+		return contagens;
+	}
+
+	/**
+	 * Soma a variação à combinação da matriz, retirando as combinações zeradas
+	 */
+	private static void somar(Map<Long, Map<Long, Long>> matriz, Long ambiente, Long tipo, long variacao) {
+		Map<Long, Long> totais = matriz.computeIfAbsent(ambiente, a -> new TreeMap<>());
+		if (totais.merge(tipo, variacao, Long::sum) == 0)
+			totais.remove(tipo);
+		if (totais.isEmpty())
+			matriz.remove(ambiente);
+	}
+
+	/**
+	 * Soma a variação à combinação da matriz e aos totais do ambiente e do tipo
+	 */
+	private static void somar(Map<Long, Map<Long, Long>> matriz, Map<Long, Long> porAmbiente,
+			Map<Long, Long> porTipo, Long ambiente, Long tipo, long variacao) {
+		somar(matriz, ambiente, tipo, variacao);
+		porAmbiente.merge(ambiente, variacao, Long::sum);
+		porTipo.merge(tipo, variacao, Long::sum);
+	}
+
+	/**
+	 * Variações e demais alterações da memória acumuladas por uma transação. As
+	 * combinações são gravadas em ordem de ambiente e tipo, para que transações
+	 * concorrentes bloqueiem as linhas da tabela sempre na mesma ordem. A trava
+	 * dos commits é mantida do início do commit até a aplicação na memória
+	 */
+	private class Variacoes extends TransactionSynchronizationAdapter {
+
+		private final Map<Long, Map<Long, Long>> variacoes = new TreeMap<>();
+
+		/** Alterações da memória aplicadas após as variações */
+		private final List<Runnable> alteracoes = new ArrayList<>();
+
+		private boolean travado;
+
+		void somar(Long ambiente, Long tipo, long variacao) {
+			OcupacaoService.somar(variacoes, ambiente, tipo, variacao);
+		}
+
+		void aposCommit(Runnable alteracao) {
+			alteracoes.add(alteracao);
+		}
+
+		@Override
+		public void beforeCommit(boolean readOnly) {
+			if (variacoes.isEmpty() && alteracoes.isEmpty())
+				return;
+			travaCommits.readLock().lock();
+			travado = true;
+			variacoes.forEach((ambiente, tipos) -> tipos
+					.forEach((tipo, variacao) -> ocupacaoDao.somar(ambiente, tipo, variacao)));
+		}
+
+		@Override
+		public void afterCommit() {
+			if (!travado || !carregado)
+				return;
+			trava.writeLock().lock();
+			try {
+				variacoes.forEach((ambiente, tipos) -> tipos.forEach((tipo, variacao) -> OcupacaoService
+						.somar(ocupacao, totalPorAmbiente, totalPorTipo, ambiente, tipo, variacao)));
+				alteracoes.forEach(Runnable::run);
+			} finally {
+				trava.writeLock().unlock();
+			}
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(OcupacaoService.this);
+			if (travado) {
+				travado = false;
+				travaCommits.readLock().unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package br.com.lupus.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import br.com.lupus.utils.FiltroBloom;
+import br.com.lupus.utils.JwtUtils;
+
+/**
+ * Classe que mantém em memória os usuários cujos tokens emitidos até um instante
+ * foram revogados, por desativação ou alteração do usuário. A consulta feita a
+ * cada requisição passa primeiro por um filtro de Bloom, que descarta sem acessar
+ * o mapa os usuários nunca revogados, e é confirmada no mapa exato. Cada
+ * revogação é mantida pela validade do token de renovação, após ela todo token
+ * emitido antes da revogação já expirou. As revogações são locais à instância,
+ * nas demais o usuário desativado perde o acesso quando o token de acesso expira,
+ * já que a renovação consulta o usuário na base de dados.
+ * 	Mantém também os tokens de renovação já trocados, pelo identificador, até a
+ * expiração de cada um, de forma que cada token de renovação é aceito uma única
+ * vez (por instância)
+ *
+ * @author Mateus A.S
+ */
+@Service
+public class RevogacaoService {
+
+	/** Intervalo, em milissegundos, entre as limpezas das revogações vencidas */
+	public static final long INTERVALO_LIMPEZA = 60 * 60 * 1000;
+
+	private static final int CAPACIDADE_MINIMA_FILTRO = 1024;
+
+	private static final double TAXA_FALSOS_POSITIVOS = 0.01;
+
+	/** Instante, em milissegundos, da última revogação indexado pelo id do usuário */
+	private final Map<Long, Long> revogacoes = new ConcurrentHashMap<>();
+
+	/** Instante, em milissegundos, da expiração dos tokens de renovação já trocados, indexado pelo identificador */
+	private final Map<String, Long> renovacoesUtilizadas = new ConcurrentHashMap<>();
+
+	/**
+	 * Recebe as inclusões no lugar e só é substituído quando redimensionado ou na
+	 * limpeza, de forma que a consulta não bloqueia e cada revogação custa os bits
+	 * da chave, não uma cópia do array
+	 */
+	private volatile FiltroBloom filtro = new FiltroBloom(CAPACIDADE_MINIMA_FILTRO, TAXA_FALSOS_POSITIVOS);
+
+	/**
+	 * Método que revoga todos os tokens emitidos para o usuário até o instante atual.
+	 * Deve ser chamado após a alteração do usuário ser gravada. O instante da
+	 * revogação é o milissegundo seguinte ao atual, e o método só retorna quando o
+	 * relógio o alcança: os tokens emitidos antes do retorno, inclusive no mesmo
+	 * milissegundo, são revogados, e os emitidos depois, já com os dados novos, não
+	 *
+	 * @param usuarioId
+	 *            id do usuário
+	 */
+	public synchronized void revogar(Long usuarioId) {
+		long instante = System.currentTimeMillis() + 1;
+		revogacoes.put(usuarioId, instante);
+		if (revogacoes.size() > filtro.getCapacidade())
+			filtro = criarFiltro();
+		else
+			filtro.adicionar(usuarioId);
+		while (System.currentTimeMillis() < instante)
+			Thread.yield();
+	}
+
+	/**
+	 * Método que verifica se o token emitido para o usuário no instante informado foi
+	 * revogado, sem consultar a base de dados
+	 *
+	 * @param usuarioId
+	 *            id do usuário do token
+	 * @param emissao
+	 *            instante, em milissegundos, em que o token foi emitido
+	 * @return true se o token foi emitido antes da última revogação do usuário
+	 */
+	public boolean isRevogado(Long usuarioId, long emissao) {
+		if (usuarioId == null || !filtro.talvezContenha(usuarioId))
+			return false;
+		Long revogacao = revogacoes.get(usuarioId);
+		return revogacao != null && emissao < revogacao;
+	}
+
+	/**
+	 * Método que marca o token de renovação como trocado. Entre requisições
+	 * concorrentes com o mesmo token somente a primeira consegue marcá-lo
+	 *
+	 * @param identificador
+	 *            identificador do token de renovação
+	 * @param expiracao
+	 *            instante, em milissegundos, em que o token expira, até quando a
+	 *            marcação é mantida
+	 * @return true se o token ainda não havia sido trocado
+	 */
+	public boolean utilizarRenovacao(String identificador, long expiracao) {
+		long manterAte = expiracao > 0 ? expiracao : System.currentTimeMillis() + JwtUtils.VALIDADE_RENOVACAO;
+		return renovacoesUtilizadas.putIfAbsent(identificador, manterAte) == null;
+	}
+
+	/**
+	 * Método que descarta as revogações mais antigas que a validade do token de
+	 * renovação, reconstrói o filtro com as restantes e descarta os tokens de
+	 * renovação trocados que já expiraram
+	 */
+	@Scheduled(fixedDelay = INTERVALO_LIMPEZA, initialDelay = INTERVALO_LIMPEZA)
+	public void limpar() {
+		limpar(System.currentTimeMillis());
+	}
+
+	synchronized void limpar(long agora) {
+		long limite = agora - JwtUtils.VALIDADE_RENOVACAO;
+		revogacoes.values().removeIf(revogacao -> revogacao < limite);
+		renovacoesUtilizadas.values().removeIf(expiracao -> expiracao <= agora);
+		filtro = criarFiltro();
+	}
+
+	private FiltroBloom criarFiltro() {
+		FiltroBloom novo = new FiltroBloom(Math.max(CAPACIDADE_MINIMA_FILTRO, revogacoes.size() * 2),
+				TAXA_FALSOS_POSITIVOS);
+		revogacoes.keySet().forEach(novo::adicionar);
+		return novo;
+	}
+}
@@ -0,0 +1,206 @@
+package br.com.lupus.services;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.dao.ItemDao;
+import br.com.lupus.dao.MovimentacaoDao;
+import br.com.lupus.dao.SnapshotLocalizacaoDao;
+import br.com.lupus.models.dto.DivergenciaLocalizacao;
+import br.com.lupus.models.dto.SnapshotLocalizacao;
+import br.com.lupus.utils.LongLongMap;
+import br.com.lupus.utils.LongSet;
+import br.com.lupus.utils.SnapshotUtils;
+
+/**
+ * Classe que grava periodicamente uma fotografia compactada da localização de
+ * todos os itens (ver SnapshotUtils), junto do maior id de movimentação existente
+ * no momento da leitura. A reconstrução da localização em qualquer instante e a
+ * verificação do ambiente atual gravado nos itens partem da fotografia mais
+ * próxima e reproduzem somente as movimentações feitas a partir dela, sem
+ * percorrer todo o histórico. Como os ids das movimentações são reservados em
+ * blocos por instância, o maior id não delimita as movimentações posteriores à
+ * fotografia, o período reproduzido é delimitado pela data da movimentação
+ *
+ * @author Mateus A.S
+ */
+@Service
+public class SnapshotLocalizacaoService {
+
+	/** Idade, em milissegundos, a partir da qual uma nova fotografia é gravada */
+	public static final long INTERVALO_SNAPSHOT = 24 * 60 * 60 * 1000;
+
+	/** Intervalo, em milissegundos, entre as verificações da idade da última fotografia */
+	public static final long INTERVALO_VERIFICACAO = 60 * 60 * 1000;
+
+	/**
+	 * Margem, em milissegundos, somada ao período reproduzido a partir de uma
+	 * fotografia. A data da movimentação é definida antes do commit, então uma
+	 * movimentação confirmada após a leitura da fotografia pode ter data anterior à
+	 * dela
+	 */
+	public static final long MARGEM_REPRODUCAO = 5 * 60 * 1000;
+
+	/** Valor que representa a ausência de um id nas estruturas primitivas */
+	private static final long AUSENTE = 0;
+
+	@Autowired
+	private SnapshotLocalizacaoDao snapshotDao;
+
+	@Autowired
+	private ItemDao itemDao;
+
+	@Autowired
+	private MovimentacaoDao movimentacaoDao;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Método que grava uma nova fotografia se a última tiver sido gravada há mais
+	 * de INTERVALO_SNAPSHOT. A verificação é frequente para que reinícios da
+	 * aplicação não adiem a fotografia indefinidamente
+	 */
+	@Scheduled(fixedDelay = INTERVALO_VERIFICACAO, initialDelay = 60 * 1000)
+	public void gerarSeNecessario() {
+		SnapshotLocalizacao ultimo = snapshotDao.buscarUltimo();
+		if (ultimo == null || System.currentTimeMillis() - ultimo.getData().getTime() >= INTERVALO_SNAPSHOT)
+			gerar();
+	}
+
+	/**
+	 * Método que grava a fotografia da localização atual de todos os itens. O maior
+	 * id de movimentação e a localização dos itens são lidos na mesma leitura
+	 * consistente, lendo somente o id e o ambiente de cada item por streaming
+	 *
+	 * @return dados da fotografia gravada
+	 */
+	public SnapshotLocalizacao gerar() {
+		TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+		transacao.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		return transacao.execute(status -> {
+			Long ultimaMovimentacao = snapshotDao.buscarUltimaMovimentacao();
+			// Lida após a primeira consulta da transação, que fixa a leitura consistente:
+			// toda movimentação refletida na fotografia foi confirmada antes desta data
+			Date data = new Date();
+			LongLongMap localizacoes = carregarAtuais();
+			snapshotDao.persistir(data, ultimaMovimentacao, localizacoes.size(), SnapshotUtils.compactar(localizacoes));
+			return new SnapshotLocalizacao(null, data, ultimaMovimentacao, localizacoes.size());
+		});
+	}
+
+	/**
+	 * Método que compara o ambiente atual gravado em cada item com o ambiente obtido
+	 * pela reprodução das movimentações a partir da última fotografia (ou de todo o
+	 * histórico, se não houver fotografia). A fotografia, as movimentações e os
+	 * itens são lidos na mesma leitura consistente. Itens sem movimentação desde a
+	 * fotografia em que não estão presentes não são verificados
+	 *
+	 * @return itens cujo ambiente atual diverge das movimentações
+	 */
+	public List<DivergenciaLocalizacao> verificar() {
+		TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+		transacao.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		transacao.setReadOnly(true);
+		return transacao.execute(status -> {
+			SnapshotLocalizacao ultimo = snapshotDao.buscarUltimo();
+			LongLongMap esperadas = ultimo == null ? new LongLongMap(1024) : carregar(ultimo);
+			Date inicio = new Date(ultimo == null ? 0 : ultimo.getData().getTime() - MARGEM_REPRODUCAO);
+			movimentacaoDao.percorrerDestinos(inicio, null, (item, ambiente) -> esperadas.put(item, ambiente, AUSENTE));
+			List<DivergenciaLocalizacao> divergencias = new ArrayList<>();
+			itemDao.percorrerLocalizacoes((item, atual) -> {
+				long esperado = esperadas.get(item, AUSENTE);
+				if (esperado != AUSENTE && esperado != atual)
+					divergencias.add(new DivergenciaLocalizacao(item, esperado, atual));
+			});
+			return divergencias;
+		});
+	}
+
+	/**
+	 * Método que reconstrói os itens que se encontravam no ambiente no instante
+	 * informado. Parte da fotografia mais próxima do instante (ou da localização
+	 * atual, se estiver mais próxima), da qual somente os itens do ambiente são
+	 * mantidos em memória, e reproduz as movimentações com origem ou destino no
+	 * ambiente feitas entre as duas datas: para frente, pelo destino de cada
+	 * movimentação, ou para trás, pela origem, descartando os itens cadastrados após
+	 * o instante (itens sem data de cadastro são considerados existentes).
+	 * Limitações: itens cadastrados após a fotografia anterior e nunca movimentados
+	 * até o instante não são conhecidos pela reconstrução para frente, e a exclusão
+	 * de itens não é registrada, de forma que itens excluídos entre a fotografia
+	 * anterior e o instante continuam no resultado para frente e itens excluídos
+	 * após o instante não aparecem no resultado para trás
+	 *
+	 * @param ambienteId
+	 *            id do ambiente procurado
+	 * @param em
+	 *            instante a ser reconstruído
+	 * @return ids dos itens presentes no ambiente no instante
+	 */
+	public LongSet reconstruir(Long ambienteId, Date em) {
+		long ambiente = ambienteId;
+		long instante = em.getTime();
+		SnapshotLocalizacao anterior = snapshotDao.buscarAnterior(em);
+		SnapshotLocalizacao posterior = snapshotDao.buscarPosterior(em);
+		long distanciaAnterior = anterior == null ? Long.MAX_VALUE : instante - anterior.getData().getTime();
+		long distanciaPosterior = (posterior == null ? System.currentTimeMillis() : posterior.getData().getTime())
+				- instante;
+		if (distanciaAnterior <= distanciaPosterior) {
+			LongSet itens = carregar(anterior, ambiente);
+			movimentacaoDao.percorrerDestinos(ambienteId, new Date(anterior.getData().getTime() - MARGEM_REPRODUCAO),
+					em, (item, destino) -> aplicar(itens, ambiente, item, destino));
+			return itens;
+		}
+		LongSet itens = posterior == null ? carregarAtuais(ambienteId) : carregar(posterior, ambiente);
+		Date fim = posterior == null ? null : new Date(posterior.getData().getTime() + MARGEM_REPRODUCAO);
+		movimentacaoDao.percorrerOrigens(ambienteId, em, fim, (item, origem) -> aplicar(itens, ambiente, item, origem));
+		itemDao.percorrerCadastradosApos(em, (item, atual) -> itens.remove(item));
+		return itens;
+	}
+
+	/**
+	 * Método que lê o conteúdo da fotografia
+	 *
+	 * @param snapshot
+	 *            fotografia a ser lida
+	 * @return id do ambiente de cada item na fotografia, indexado pelo id do item
+	 */
+	public LongLongMap carregar(SnapshotLocalizacao snapshot) {
+		return SnapshotUtils.descompactar(snapshotDao.buscarConteudo(snapshot.getId()));
+	}
+
+	private LongSet carregar(SnapshotLocalizacao snapshot, long ambiente) {
+		return SnapshotUtils.descompactar(snapshotDao.buscarConteudo(snapshot.getId()), ambiente);
+	}
+
+	private LongLongMap carregarAtuais() {
+		LongLongMap localizacoes = new LongLongMap(1024);
+		itemDao.percorrerLocalizacoes((item, ambiente) -> localizacoes.put(item, ambiente, AUSENTE));
+		return localizacoes;
+	}
+
+	private LongSet carregarAtuais(Long ambienteId) {
+		LongSet itens = new LongSet(16);
+		itemDao.percorrerLocalizacoes(ambienteId, (item, ambiente) -> itens.add(item));
+		return itens;
+	}
+
+	/**
+	 * Inclui o item no conjunto se o ambiente em que ele passou a se encontrar for o
+	 * ambiente reconstruído, senão o retira
+	 */
+	private static void aplicar(LongSet itens, long ambiente, long item, long ambienteItem) {
+		if (ambienteItem == ambiente)
+			itens.add(item);
+		else
+			itens.remove(item);
+	}
+}
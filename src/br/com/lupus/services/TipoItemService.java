@@ -1,18 +1,19 @@
 package br.com.lupus.services;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import javax.transaction.Transactional;
 import javax.transaction.Transactional.TxType;
 import javax.validation.Valid;
-import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.dao.TipoItemDao;
 import br.com.lupus.dao.TipoItemTagDao;
 import br.com.lupus.exceptions.EntityNotFound;
@@ -20,9 +21,13 @@ import br.com.lupus.exceptions.UnprocessableEntityException;
 import br.com.lupus.models.TipoItem;
 import br.com.lupus.models.TipoItemTag;
 import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.Contagem;
+import br.com.lupus.models.dto.ContagemCruzada;
+import br.com.lupus.models.dto.TipoItemResumo;
+import br.com.lupus.models.serializer.Visao;
 
 /**
- * Classe com os mtodos auxiliares referentes ao CRUD de tipo-itens
+ * Classe com os métodos auxiliares referentes ao CRUD de tipo-itens
  * 
  * @author Mateus A.S
  */
@@ -35,52 +40,83 @@ public class TipoItemService {
 	@Autowired
 	private TipoItemTagDao tagDao;
 
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
+	/**
+	 * Método que retorna uma página de tipo-itens cadastrados na base de dados,
+	 * ordenada pelo id e iniciada após o cursor informado. Retorna até limite + 1
+	 * registros, o registro excedente indica a existência de uma próxima página
+	 * 
+	 * @param cursor
+	 *            id do último registro da página anterior (nulo na primeira página)
+	 * @param limite
+	 *            quantidade de registros da página
+	 * @param ordenacao
+	 *            direção da ordenação pelo id
+	 * @return lista de tipo-itens resumidos da página
+	 */
+	public List<TipoItemResumo> buscarTipos(Long cursor, int limite, Ordenacao ordenacao) {
+		return tipoItemDao.buscarResumos(cursor, limite + 1, ordenacao);
+	}
+
 	/**
-	 * Mtodo que retorna uma lista com todos os tipos-itens cadastrados na base de
-	 * dados
+	 * Método que retorna a quantidade de itens de cada tipo-item cadastrado,
+	 * inclusive dos tipos sem itens, respondida pela ocupação mantida em memória
 	 * 
-	 * @return lista de tipo-itens cadastrados
+	 * @return lista com o id e o total de itens de cada tipo-item
 	 */
-	public List<TipoItem> buscarTipos() {
-		return tipoItemDao.buscarTodos();
+	public List<Contagem> contarItens() {
+		return ocupacaoService.contarPorTipo();
 	}
 
 	/**
-	 * Mtodo que retorna um tipo-item cadastrado na base de dados atravs do seu id
+	 * Método que retorna a matriz ambiente x tipo, com a quantidade de itens de
+	 * cada tipo em cada ambiente, respondida pela ocupação mantida em memória
+	 * 
+	 * @param ambientes
+	 *            ids dos ambientes considerados (vazio para todos os ambientes)
+	 * @return lista com o total de itens de cada combinação existente
+	 */
+	public List<ContagemCruzada> contarItensPorAmbiente(Collection<Long> ambientes) {
+		return ocupacaoService.contarCruzado(ambientes, null);
+	}
+
+	/**
+	 * Método que retorna um tipo-item cadastrado na base de dados através do seu id
 	 * 
 	 * @param id
 	 *            id do tipo-item procurado
+	 * @param visao
+	 *            visão renderizada, define as associações carregadas na consulta
 	 * @return objeto tipo-item populado
 	 * @throws EntityNotFound
-	 *             disparada quando no existe tipo-item referenciado ao id passado
+	 *             disparada quando não existe tipo-item referenciado ao id passado
 	 */
 	@Transactional(value = TxType.REQUIRED)
-	public TipoItem buscaTipo(Long id) throws EntityNotFound {
-		TipoItem tipoItem = tipoItemDao.buscar(id);
+	public TipoItem buscaTipo(Long id, Visao visao) throws EntityNotFound {
+		TipoItem tipoItem = tipoItemDao.buscar(id, visao);
 		if (tipoItem == null)
 			throw new EntityNotFound();
-		Hibernate.initialize(tipoItem.getCadastrante());
-		Hibernate.initialize(tipoItem.getTagsAnexadas());
-		Hibernate.initialize(tipoItem.getItensAnexados());
 		return tipoItem;
 	}
 
 	/**
-	 * Mtodo que persiste um tipo-item na base de dados. Recebe um objeto TipoItem
-	 * populado, verifica se h erros de validao no tipo e nas suas tags (se
-	 * houver no item dispara uma exceo, se houver na tag a descarta) define o
-	 * usurio logado como o cadastrante do tipo-item e efetua a persistncia
+	 * Método que persiste um tipo-item na base de dados. Recebe um objeto TipoItem
+	 * populado, verifica se há erros de validação no tipo e nas suas tags (se
+	 * houver no item dispara uma exceção, se houver na tag a descarta) define o
+	 * usuário logado como o cadastrante do tipo-item e efetua a persistência
 	 * 
 	 * @param tipoItem
 	 *            objeto tipoItem populado
 	 * @param brTipo
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @throws UnprocessableEntityException
-	 *             disparada se houver erros de validao
+	 *             disparada se houver erros de validação
 	 */
 	public void persistirTipo(TipoItem tipoItem, BindingResult brTipo) throws UnprocessableEntityException {
 		if (tipoItem.getNome() == null)
-			brTipo.addError(new FieldError("tipoItem", "nome", "O nome no pode estar vazio"));
+			brTipo.addError(new FieldError("tipoItem", "nome", "O nome não pode estar vazio"));
 		if (brTipo.hasFieldErrors())
 			throw new UnprocessableEntityException();
 		if (tipoItem.getTagsAnexadas() != null) {
@@ -99,22 +135,23 @@ public class TipoItemService {
 		}
 		tipoItem.setCadastrante((Usuario) SecurityContextHolder.getContext().getAuthentication());
 		tipoItemDao.persistir(tipoItem);
+		ocupacaoService.registrarTipo(tipoItem.getId());
 	}
 
 	/**
-	 * Mtodo que atualiza um tipo-item cadastrado na base de dados. Recebe um
-	 * objeto TipoItem populado, verifica se h erros de validao, se no houver,
-	 * efetua a atualizao
+	 * Método que atualiza um tipo-item cadastrado na base de dados. Recebe um
+	 * objeto TipoItem populado, verifica se há erros de validação, se não houver,
+	 * efetua a atualização
 	 * 
 	 * @param tipoItem
 	 *            objeto populado com os novos valores a serem atualizados
 	 * @param brTipo
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @return objeto TipoItem populado com o registro que foi atualizado
 	 * @throws EntityNotFound
-	 *             disparada se o registro a ser editado no for encontrado
+	 *             disparada se o registro a ser editado não for encontrado
 	 * @throws UnprocessableEntityException
-	 *             disparada se houver erros de validao
+	 *             disparada se houver erros de validação
 	 * 
 	 */
 	@Transactional(value = TxType.REQUIRED)
@@ -128,28 +165,25 @@ public class TipoItemService {
 		if (tipoItem.getNome() != null)
 			tipoItemAntigo.setNome(tipoItem.getNome());
 		tipoItemDao.atualizar(tipoItemAntigo);
-		Hibernate.initialize(tipoItemAntigo.getTagsAnexadas());
-		Hibernate.initialize(tipoItemAntigo.getItensAnexados());
-		Hibernate.initialize(tipoItemAntigo.getCadastrante());
 		return tipoItemAntigo;
 	}
 
 	/**
-	 * Mtodo que persiste uma tag na base de dados. Recebe um objeto TipoItemTag
+	 * Método que persiste uma tag na base de dados. Recebe um objeto TipoItemTag
 	 * populado, verifica se o TipoItem referenciado existe, e se existir verifica
-	 * possveis erros de validao, se no hover erros efetua a persistncia
+	 * possíveis erros de validação, se não hover erros efetua a persistência
 	 * 
 	 * @param id
 	 *            id do TipoItem referente a tag
 	 * @param tag
 	 *            objeto tag populado
 	 * @param brTag
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @throws EntityNotFound
-	 *             dispara se no existir registro de TipoItem referente ao id
+	 *             dispara se não existir registro de TipoItem referente ao id
 	 *             passado
 	 * @throws UnprocessableEntityException
-	 *             dispara se hover erros de validao
+	 *             dispara se hover erros de validação
 	 */
 	public void persistirTag(Long id, TipoItemTag tag, BindingResult brTag)
 			throws EntityNotFound, UnprocessableEntityException {
@@ -163,16 +197,16 @@ public class TipoItemService {
 	}
 
 	/**
-	 * Mtodo que persiste uma lista de tags na base de dados. Recebe uma lista de objetos TipoItemTag
+	 * Método que persiste uma lista de tags na base de dados. Recebe uma lista de objetos TipoItemTag
 	 * populados, verifica se o TipoItem referenciado existe, se existir percorre a lista persistindo
-	 * todas quais no contm erros de validao.
+	 * todas quais não contém erros de validação.
 	 * 
 	 * @param id
 	 *            id do TipoItem referente a lista de tags
 	 * @param tags
 	 *            lista de objetos tag populados
 	 * @throws EntityNotFound
-	 *             dispara se no existir registro de TipoItem referente ao id
+	 *             dispara se não existir registro de TipoItem referente ao id
 	 *             passado
 	 */
 	public void persistirTags(Long id, List<TipoItemTag> tags) throws EntityNotFound {
@@ -190,10 +224,10 @@ public class TipoItemService {
 	}
 
 	/**
-	 * Mtodo que exclui fisicamente um tipo-item cadastrado na base de dados.
-	 * Verifica se existe tipo-item referente ao id passado e se h chaves
+	 * Método que exclui fisicamente um tipo-item cadastrado na base de dados.
+	 * Verifica se existe tipo-item referente ao id passado e se há chaves
 	 * estrangeiras nos registros de itens apontando para o tipo-item, se o
-	 * tipo-item existir e no houver chaves estrangeiras efetua a excluso
+	 * tipo-item existir e não houver chaves estrangeiras efetua a exclusão
 	 * 
 	 * @param id
 	 *            id do tipo-item a ser excluido
@@ -201,14 +235,16 @@ public class TipoItemService {
 	 *             disparada se houver chaves estrangeiras apontando para este
 	 *             tipo-item
 	 * @throws EntityNotFound
-	 *             disparada se o registro a ser excluido no for encontrado
+	 *             disparada se o registro a ser excluido não for encontrado
 	 */
+	@Transactional(value = TxType.REQUIRED)
 	public void deletarTipo(Long id) throws EntityNotFound, UnprocessableEntityException {
 		TipoItem tipoItem = tipoItemDao.buscar(id);
 		if (tipoItem == null)
 			throw new EntityNotFound();
-		if (tipoItem.getItensAnexados() != null)
+		if (tipoItemDao.possuiItens(id))
 			throw new UnprocessableEntityException();
 		tipoItemDao.deletar(tipoItem);
+		ocupacaoService.removerTipo(id);
 	}
 }
@@ -8,7 +8,7 @@ import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.models.TipoItemTag;
 
 /**
- * Classe com os mtodos auxiliares referentes ao CRUD de tags
+ * Classe com os métodos auxiliares referentes ao CRUD de tags
  * 
  * @author Mateus A.S
  */
@@ -19,12 +19,12 @@ public class TipoItemTagService {
 	private TipoItemTagDao tipoItemTagDao;
 
 	/**
-	 * Mtodo que exclui fisicamente uma tag cadastrada na base de dados. Verifica
-	 * se a tag referente ao id passado existe, se sim efetua a excluso
+	 * Método que exclui fisicamente uma tag cadastrada na base de dados. Verifica
+	 * se a tag referente ao id passado existe, se sim efetua a exclusão
 	 * 
 	 * @param id
 	 *            id da tag a ser excluida
-	 * @throws EntityNotFound disparada se no existir tag referente ao id passado
+	 * @throws EntityNotFound disparada se não existir tag referente ao id passado
 	 */
 	public void deletar(Long id) throws EntityNotFound {
 		TipoItemTag tag = tipoItemTagDao.buscar(id);
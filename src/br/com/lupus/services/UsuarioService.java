@@ -7,13 +7,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
+
+import br.com.lupus.dao.Ordenacao;
 import br.com.lupus.dao.UsuarioDao;
 import br.com.lupus.exceptions.EntityNotFound;
 import br.com.lupus.exceptions.UnprocessableEntityException;
 import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.UsuarioResumo;
+import br.com.lupus.utils.JwtUtils;
+import br.com.lupus.utils.JwtUtils.TokenVerificado;
+import br.com.lupus.utils.SenhaUtils;
 
 /**
- * Classe com os mtodos auxiliares referentes ao CRUD de usurios
+ * Classe com os métodos auxiliares referentes ao CRUD de usuários
  * 
  * @author Mateus A.S
  */
@@ -22,47 +29,48 @@ public class UsuarioService {
 	@Autowired
 	private UsuarioDao usuarioDao;
 
+	@Autowired
+	private RevogacaoService revogacaoService;
+
+	@Autowired
+	private AutenticacaoService autenticacaoService;
+
 	/**
-	 * Mtodo que valida se existe um usurio com email e senha iguais aos passados.
-	 * Vlida se h algum erro de validao referente ao email e a senha, e se no,
-	 * procura na base de dados se o usurio existe
+	 * Método que valida o token de renovação, o invalida (rotação: cada token de
+	 * renovação é trocado uma única vez por um novo par de tokens) e retorna o
+	 * usuário para o qual os novos tokens serão emitidos, lido da base de dados para
+	 * que a renovação reflita as alterações feitas no usuário. A reutilização de um
+	 * token já trocado indica que ele pode ter sido copiado, e revoga todos os
+	 * tokens do usuário, inclusive os emitidos na troca anterior
 	 * 
-	 * @param usuario
-	 *            objeto populado com o email e a senha procurados
-	 * @param brUsuario
-	 *            objeto populado com possveis erros de validao
-	 * @return usuario procurado populado com todas as informaes necessrias
-	 * @throws ValidationException
-	 *             exception disparada se h erros de validao em um dos dois
-	 *             campos (email ou senha)
-	 * @throws EntityNotFound
-	 *             exception disparada se no existir usurio com o email e senha
-	 *             passados
+	 * @param tokenRenovacao
+	 *            token de renovação recebido do cliente
+	 * @return usuário ativo referente ao token
+	 * @throws JWTVerificationException
+	 *             exception disparada se o token for inválido, estiver expirado,
+	 *             revogado ou já tiver sido trocado, ou se o usuário não existir ou
+	 *             estiver desativado
 	 */
-	public Usuario getEmailSenha(Usuario usuario, BindingResult brUsuario) throws UnprocessableEntityException, EntityNotFound {
-
-		if (brUsuario.hasFieldErrors("email") || brUsuario.hasFieldErrors("senha")) {
-
-			throw new UnprocessableEntityException();
-		} else {
-
-			Usuario usuarioAutenticado = usuarioDao.buscar(usuario.getEmail(), usuario.getSenhaCriptografada());
-			if (usuarioAutenticado == null) {
-
-				throw new EntityNotFound();
-			} else {
-
-				return usuarioAutenticado;
-			}
+	public Usuario renovar(String tokenRenovacao) throws JWTVerificationException {
+		TokenVerificado token = JwtUtils.verificarTokenRenovacao(tokenRenovacao);
+		if (revogacaoService.isRevogado(token.getId(), token.getEmissao()))
+			throw new JWTVerificationException("Token de renovação revogado");
+		if (!revogacaoService.utilizarRenovacao(token.getIdentificador(), token.getExpiracao())) {
+			revogacaoService.revogar(token.getId());
+			throw new JWTVerificationException("Token de renovação já utilizado");
 		}
+		Usuario usuario = usuarioDao.buscar(token.getId());
+		if (usuario == null || !Boolean.TRUE.equals(usuario.getAtivo()))
+			throw new JWTVerificationException("Usuário inexistente ou desativado");
+		return usuario;
 	}
 
 	/**
-	 * Mtodo que busca um usurio pelo seu ID
+	 * Método que busca um usuário pelo seu ID
 	 * 
 	 * @param id
-	 *            nmero de identificao usado na procura
-	 * @return usurio referente ao id
+	 *            número de identificação usado na procura
+	 * @return usuário referente ao id
 	 * @throws EntityNotFound
 	 */
 	public Usuario buscar(Long id) throws EntityNotFound {
@@ -74,72 +82,81 @@ public class UsuarioService {
 	}
 
 	/**
-	 * Mtodo que retorna todos os usurios cadastrados no sistema
+	 * Método que retorna uma página de usuários cadastrados na base de dados,
+	 * ordenada pelo id e iniciada após o cursor informado. Retorna até limite + 1
+	 * registros, o registro excedente indica a existência de uma próxima página
 	 * 
-	 * @return lista de usurios cadastrados
+	 * @param cursor
+	 *            id do último registro da página anterior (nulo na primeira página)
+	 * @param limite
+	 *            quantidade de registros da página
+	 * @param ordenacao
+	 *            direção da ordenação pelo id
+	 * @return lista de usuários resumidos da página
 	 */
-	public List<Usuario> buscarTodos() {
+	public List<UsuarioResumo> buscarTodos(Long cursor, int limite, Ordenacao ordenacao) {
 
-		return usuarioDao.buscarTodos();
+		return usuarioDao.buscarResumos(cursor, limite + 1, ordenacao);
 	}
 
 	/**
-	 * Mtodo que cadastra um usurio na base de dados. Recebe um usurio, verifica
-	 * se o email j foi cadastrado, se os campos esto nulos e possveis erros de
-	 * validao. Caso no haja erros de validao, cadastra o usurio na base de
+	 * Método que cadastra um usuário na base de dados. Recebe um usuário, verifica
+	 * se o email já foi cadastrado, se os campos estão nulos e possíveis erros de
+	 * validação. Caso não haja erros de validação, cadastra o usuário na base de
 	 * dados.
 	 * 
 	 * @param usuario
-	 *            usurio a ser cadastrado
+	 *            usuário a ser cadastrado
 	 * @param brUsuario
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @throws UnprocessableEntityException
-	 *             exception disparada quando h erros de validao
+	 *             exception disparada quando há erros de validação
 	 */
 	public void persistir(Usuario usuario, BindingResult brUsuario) throws UnprocessableEntityException {
 		usuario.setAtivo(true);
 		if (usuarioDao.buscar(usuario.getEmail()) != null)
-			brUsuario.addError(new FieldError("usuario", "email", "endereo de email j cadastrado"));
+			brUsuario.addError(new FieldError("usuario", "email", "endereço de email já cadastrado"));
 
 		if (usuario.getEmail() == null)
-			brUsuario.addError(new FieldError("usuario", "email", "endereo de email no pode estar nulo"));
+			brUsuario.addError(new FieldError("usuario", "email", "endereço de email não pode estar nulo"));
 
 		if (usuario.getPermissao() == null)
-			brUsuario.addError(new FieldError("usuario", "permissao", "permisso no pode estar nula"));
+			brUsuario.addError(new FieldError("usuario", "permissao", "permissão não pode estar nula"));
 
 		if (usuario.getDataNascimento() == null)
-			brUsuario.addError(new FieldError("usuario", "dataNascimento", "data de nascimento no pode estar nula"));
+			brUsuario.addError(new FieldError("usuario", "dataNascimento", "data de nascimento não pode estar nula"));
 
 		if (usuario.getNome() == null)
-			brUsuario.addError(new FieldError("usuario", "nome", "nome no pode estar nulo"));
+			brUsuario.addError(new FieldError("usuario", "nome", "nome não pode estar nulo"));
 
 		if (usuario.getSenha() == null)
-			brUsuario.addError(new FieldError("usuario", "senha", "senha no pode estar nula"));
+			brUsuario.addError(new FieldError("usuario", "senha", "senha não pode estar nula"));
 
 		if (brUsuario.hasFieldErrors()) {
 			throw new UnprocessableEntityException();
 		} else {
+			usuario.setSenhaCriptografada(SenhaUtils.criptografar(usuario.getSenha()));
 			usuarioDao.persistir(usuario);
 		}
 	}
 
 	/**
-	 * Mtodo que edita um usurio cadastrado na base de dados. Recebe um usurio,
-	 * verifica se o email j foi cadastrado e possveis erros de validao. Caso
-	 * existam campos nulos, popula o campo com o antigo valor. Caso no haja erros
-	 * de validao, edita o usurio na base de dados.
+	 * Método que edita um usuário cadastrado na base de dados. Recebe um usuário,
+	 * verifica se o email já foi cadastrado e possíveis erros de validação. Caso
+	 * existam campos nulos, popula o campo com o antigo valor. Caso não haja erros
+	 * de validação, edita o usuário na base de dados.
 	 * 
 	 * @param usuario
-	 *            usurio a ser editado
+	 *            usuário a ser editado
 	 * @param brUsuario
-	 *            objeto populado com os possveis erros de validao
+	 *            objeto populado com os possíveis erros de validação
 	 * @throws UnprocessableEntityException
-	 *             exception disparada quando h erros de validao
+	 *             exception disparada quando há erros de validação
 	 */
 	public Usuario atualizar(Usuario usuario, BindingResult brUsuario) throws UnprocessableEntityException, EntityNotFoundException {
 		Usuario usuarioAntigo = usuarioDao.buscar(usuario.getEmail());
 		if (usuarioAntigo != null && usuarioAntigo.getId() != usuario.getId()) {
-			brUsuario.addError(new FieldError("usuario", "email", "endereo de email j cadastrado"));
+			brUsuario.addError(new FieldError("usuario", "email", "endereço de email já cadastrado"));
 		}
 		if (brUsuario.hasFieldErrors()) {
 			throw new UnprocessableEntityException();
@@ -147,6 +164,7 @@ public class UsuarioService {
 			usuarioAntigo = usuarioDao.buscar(usuario.getId());
 			if (usuarioAntigo == null)
 				throw new EntityNotFoundException();
+			String emailAntigo = usuarioAntigo.getEmail();
 			if (usuario.getAtivo() != null)
 				usuarioAntigo.setAtivo(usuario.getAtivo());
 			if (usuario.getPermissao() != null)
@@ -158,21 +176,25 @@ public class UsuarioService {
 			if (usuario.getNome() != null)
 				usuarioAntigo.setNome(usuario.getNome());
 			if (usuario.getSenha() != null)
-				usuarioAntigo.setSenha(usuario.getSenha());
+				usuarioAntigo.setSenhaCriptografada(SenhaUtils.criptografar(usuario.getSenha()));
 			usuarioDao.atualizar(usuarioAntigo);
+			// Os tokens emitidos e a credencial em cache carregam os dados antigos do usuário
+			revogacaoService.revogar(usuarioAntigo.getId());
+			autenticacaoService.invalidar(emailAntigo);
+			autenticacaoService.invalidar(usuarioAntigo.getEmail());
 		}
 		return usuarioAntigo;
 	}
 
 	/**
-	 * Mtodo que desativa um usurio cadastrado na base de dados, ou seja, define
+	 * Método que desativa um usuário cadastrado na base de dados, ou seja, define
 	 * seu status ativo como falso
 	 * 
 	 * @param id
-	 *            id do usurio a ser desativado
-	 * @return usurio desativado
+	 *            id do usuário a ser desativado
+	 * @return usuário desativado
 	 * @throws EntityNotFound
-	 *             exception disparada quando o id no corresponde a nenhum usurio
+	 *             exception disparada quando o id não corresponde a nenhum usuário
 	 */
 	public Usuario desativar(Long id) throws EntityNotFound {
 		Usuario usuarioAntigo = usuarioDao.buscar(id);
@@ -181,6 +203,8 @@ public class UsuarioService {
 		} else {
 			usuarioAntigo.setAtivo(false);
 			usuarioDao.atualizar(usuarioAntigo);
+			revogacaoService.revogar(usuarioAntigo.getId());
+			autenticacaoService.invalidar(usuarioAntigo.getEmail());
 			return usuarioAntigo;
 		}
 	}
@@ -0,0 +1,74 @@
+package br.com.lupus.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens sem bloqueio, implementado pelo algoritmo de taxa de células
+ * genérico (GCRA): em vez da quantidade de tokens e do instante da última
+ * reposição, guarda apenas o instante teórico em que o balde estará cheio, de
+ * forma que o consumo é feito com um único compareAndSet. O comportamento é o
+ * mesmo de um balde com a capacidade informada reposto à taxa informada
+ *
+ * @author Mateus A.S
+ */
+public class BaldeTokens {
+
+	/** Nanossegundos para a reposição de um token */
+	private final long intervalo;
+
+	/** Nanossegundos para a reposição do balde vazio */
+	private final long tolerancia;
+
+	private final int capacidade;
+
+	/** Instante, em System.nanoTime, em que o balde estará cheio */
+	private final AtomicLong cheioEm;
+
+	/**
+	 * Cria um balde cheio
+	 *
+	 * @param taxa
+	 *            tokens repostos por segundo
+	 * @param capacidade
+	 *            quantidade máxima de tokens no balde (rajada permitida)
+	 */
+	public BaldeTokens(double taxa, int capacidade) {
+		this.intervalo = Math.max(1, (long) (1_000_000_000L / taxa));
+		this.tolerancia = intervalo * capacidade;
+		this.capacidade = capacidade;
+		this.cheioEm = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * Método que consome tokens do balde, se houver tokens suficientes
+	 *
+	 * @param custo
+	 *            quantidade de tokens a ser consumida, custos maiores que a
+	 *            capacidade consomem o balde cheio
+	 * @param agora
+	 *            instante atual, em System.nanoTime
+	 * @return 0 se os tokens foram consumidos, senão os nanossegundos até que
+	 *         haja tokens suficientes
+	 */
+	public long consumir(int custo, long agora) {
+		long incremento = intervalo * Math.min(custo, capacidade);
+		while (true) {
+			long atual = cheioEm.get();
+			long novo = (atual - agora > 0 ? atual : agora) + incremento;
+			long excesso = novo - agora - tolerancia;
+			if (excesso > 0)
+				return excesso;
+			if (cheioEm.compareAndSet(atual, novo))
+				return 0;
+		}
+	}
+
+	/**
+	 * @param agora
+	 *            instante atual, em System.nanoTime
+	 * @return true se o balde está cheio, ou seja, não foi utilizado recentemente
+	 */
+	public boolean isCheio(long agora) {
+		return cheioEm.get() - agora <= 0;
+	}
+}
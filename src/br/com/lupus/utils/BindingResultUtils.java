@@ -6,7 +6,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
 /**
- * 	Classe auxiliar com mtodos que passam os erros de um objeto BindingResult para um HashMap 
+ * 	Classe auxiliar com métodos que passam os erros de um objeto BindingResult para um HashMap 
  * 
  * @author Mateus A.S
  */
@@ -16,7 +16,7 @@ public class BindingResultUtils {
 	 * 	Passa os erros de campo (fieldErros) para um HashMap se esse campo estiver
 	 * presente na lista de campos a ser avaliado
 	 * 
-	 * @param br BindingResult de referncia
+	 * @param br BindingResult de referência
 	 * @param fields campos avaliados
 	 * @return HashMap contendo os erros dos campos presentes na lista de campos
 	 */
@@ -33,7 +33,7 @@ public class BindingResultUtils {
 	/**
 	 * 	Passa todos os erros de campos de um BindingResult para um HashMap
 	 * 
-	 * @param br BindingResult de referncia
+	 * @param br BindingResult de referência
 	 * @return HashMap contendo os erros dos campos de um BindingResult
 	 */
 	public static HashMap<String, String> toHashMap(BindingResult br){
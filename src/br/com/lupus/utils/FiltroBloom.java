@@ -0,0 +1,90 @@
+package br.com.lupus.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 	Filtro de Bloom de chaves long guardado em um array de bits. Responde se uma chave
+ * certamente não foi adicionada ou se talvez tenha sido, com a taxa de falsos positivos
+ * definida na criação enquanto a quantidade de chaves não ultrapassar a capacidade.
+ * Os bits são somente ligados, com OR atômico, de forma que consultas concorrentes
+ * com as inclusões não precisam de sincronização: a chave passa a ser encontrada
+ * quando a inclusão termina
+ *
+ * @author Mateus A.S
+ */
+public class FiltroBloom {
+
+	private final AtomicLongArray bits;
+
+	private final int mascara;
+
+	private final int quantidadeHashes;
+
+	private final int capacidade;
+
+	/**
+	 * 	Construtor que dimensiona o array de bits e a quantidade de hashes para a
+	 * capacidade e a taxa de falsos positivos
+	 *
+	 * @param capacidade quantidade esperada de chaves
+	 * @param taxaFalsosPositivos taxa de falsos positivos aceita (entre 0 e 1)
+	 */
+	public FiltroBloom(int capacidade, double taxaFalsosPositivos) {
+		this.capacidade = Math.max(capacidade, 1);
+		double ideal = -this.capacidade * Math.log(taxaFalsosPositivos) / (Math.log(2) * Math.log(2));
+		int quantidadeBits = LongLongMap.potenciaDeDois((int) Math.max(Math.ceil(ideal), 64));
+		bits = new AtomicLongArray(quantidadeBits >>> 6);
+		mascara = quantidadeBits - 1;
+		quantidadeHashes = (int) Math.max(1, Math.round((double) quantidadeBits / this.capacidade * Math.log(2)));
+	}
+
+	/**
+	 * 	Adiciona a chave ao filtro
+	 *
+	 * @param chave chave a ser adicionada
+	 */
+	public void adicionar(long chave) {
+		long h = misturar(chave);
+		int h1 = (int) h;
+		int h2 = (int) (h >>> 32) | 1;
+		for (int i = 0; i < quantidadeHashes; i++) {
+			int posicao = (h1 + i * h2) & mascara;
+			long bit = 1L << posicao;
+			bits.getAndAccumulate(posicao >>> 6, bit, (atual, novo) -> atual | novo);
+		}
+	}
+
+	/**
+	 * 	Verifica se a chave pode ter sido adicionada ao filtro
+	 *
+	 * @param chave chave procurada
+	 * @return false se a chave certamente não foi adicionada, true se talvez tenha sido
+	 */
+	public boolean talvezContenha(long chave) {
+		long h = misturar(chave);
+		int h1 = (int) h;
+		int h2 = (int) (h >>> 32) | 1;
+		for (int i = 0; i < quantidadeHashes; i++) {
+			int posicao = (h1 + i * h2) & mascara;
+			if ((bits.get(posicao >>> 6) & (1L << posicao)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return quantidade de chaves para a qual o filtro foi dimensionado
+	 */
+	public int getCapacidade() {
+		return capacidade;
+	}
+
+	private static long misturar(long chave) {
+		chave ^= chave >>> 33;
+		chave *= 0xFF51AFD7ED558CCDL;
+		chave ^= chave >>> 33;
+		chave *= 0xC4CEB9FE1A85EC53L;
+		chave ^= chave >>> 33;
+		return chave;
+	}
+}
@@ -0,0 +1,105 @@
+package br.com.lupus.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import br.com.lupus.models.serializer.Projecao;
+
+/**
+ * 	Classe auxiliar com os métodos utilizados pelos end-points que escrevem a resposta
+ * por streaming, registro a registro, direto no corpo da resposta
+ * 
+ * @author Mateus A.S
+ */
+public class JsonStreamUtils {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	/**
+	 * 	Escreve no corpo da resposta um array JSON com os registros entregues pela
+	 * exportação, com os campos definidos pela projeção. Se a exportação falhar antes
+	 * de qualquer byte ser enviado a resposta é descartada e a exception resulta em
+	 * 500; se falhar depois, o array não é fechado, de forma que o cliente recebe um
+	 * JSON inválido em vez de um array válido e incompleto
+	 * 
+	 * @param response resposta da requisição
+	 * @param projecao projeção com os campos escritos de cada registro
+	 * @param exportacao percorre os registros, entregando cada um ao consumidor recebido
+	 * @throws IOException disparada se não for possível escrever no corpo da resposta
+	 */
+	public static <T> void exportar(HttpServletResponse response, Projecao projecao,
+			Consumer<Consumer<T>> exportacao) throws IOException {
+		JsonGenerator gerador = criarGerador(response);
+		boolean concluida = false;
+		try {
+			gerador.writeStartArray();
+			exportacao.accept(escritor(gerador, projecao));
+			gerador.writeEndArray();
+			concluida = true;
+		} finally {
+			if (concluida)
+				gerador.close();
+			else if (response.isCommitted())
+				fecharIncompleto(gerador);
+			else
+				response.reset();
+		}
+	}
+
+	/**
+	 * 	Define o content-type da resposta e cria um JsonGenerator que escreve direto
+	 * no corpo da resposta. O gerador não completa os arrays e objetos abertos ao ser
+	 * fechado
+	 * 
+	 * @param response resposta da requisição
+	 * @return JsonGenerator apontando para o corpo da resposta
+	 * @throws IOException disparada se não for possível abrir o corpo da resposta
+	 */
+	public static JsonGenerator criarGerador(HttpServletResponse response) throws IOException {
+		response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+		return MAPPER.getFactory().createGenerator(response.getOutputStream())
+				.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+	}
+
+	/**
+	 * 	Retorna um consumidor que escreve cada registro recebido como um elemento JSON
+	 * no gerador, com os campos definidos pela projeção
+	 * 
+	 * @param gerador JsonGenerator em que os registros serão escritos
+	 * @param projecao projeção com os campos escritos de cada registro
+	 * @return consumidor que serializa os registros
+	 */
+	public static <T> Consumer<T> escritor(JsonGenerator gerador, Projecao projecao) {
+		ObjectWriter writer = MAPPER.writer().withAttribute(Projecao.ATRIBUTO, projecao)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		return registro -> {
+			try {
+				writer.writeValue(gerador, registro);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+
+	/**
+	 * 	Envia o que já foi escrito, sem fechar o array, preservando a exception da
+	 * exportação
+	 */
+	private static void fecharIncompleto(JsonGenerator gerador) {
+		try {
+			gerador.close();
+		} catch (IOException e) {
+			// O cliente pode ter desconectado, a falha da exportação é a relevante
+		}
+	}
+}
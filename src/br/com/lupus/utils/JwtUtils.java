@@ -2,7 +2,12 @@ package br.com.lupus.utils;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
@@ -12,66 +17,232 @@ import br.com.lupus.models.Permissao;
 import br.com.lupus.models.Usuario;
 
 /**
- * Classe auxiliar com os mtodos de auxilio a implementao do padro JWT para autenticao
+ * Classe auxiliar com os métodos de auxilio a implementação do padrão JWT para autenticação
  * 
  * @author Mateus A.S
  */
 public class JwtUtils {
 
+	/** Validade, em milissegundos, do token de acesso */
+	public static final long VALIDADE_ACESSO = 15 * 60 * 1000;
+
+	/** Validade, em milissegundos, do token de renovação */
+	public static final long VALIDADE_RENOVACAO = 7 * 24 * 60 * 60 * 1000L;
+
+	/** Valores da claim tipo, que impede o uso do token de renovação como token de acesso */
+	private static final String TIPO_ACESSO = "acesso";
+
+	private static final String TIPO_RENOVACAO = "renovacao";
+
+	/** Tempo máximo, em milissegundos, que um token verificado permanece em cache */
+	public static final long VALIDADE_CACHE = 5 * 60 * 1000;
+
+	/** Quantidade máxima de tokens verificados em cache */
+	public static final int LIMITE_CACHE = 10000;
+
+	private static final String SEGREDO = "H[w=Ym`j*\".xTZ&b?-Gnw`e(\"=V.F,G5j[`U4'xfcYb@F:c9ptu,9AKeBJ3NqG4/yMjP=$8@s$TpJC:7Jax=nQ*eU5JPvzUn='Fk";
+
+	/** Algoritmo e verificador criados uma única vez, ambos podem ser compartilhados entre threads */
+	private static final Algorithm ALGORITMO = criarAlgoritmo();
+
+	private static final JWTVerifier VERIFICADOR = JWT.require(ALGORITMO).withClaim("tipo", TIPO_ACESSO).build();
+
+	private static final JWTVerifier VERIFICADOR_RENOVACAO = JWT.require(ALGORITMO).withClaim("tipo", TIPO_RENOVACAO)
+			.build();
+
+	/** Tokens já verificados, indexados pela assinatura */
+	private static final Map<String, TokenVerificado> VERIFICADOS = new ConcurrentHashMap<>();
+
 	/**
-	 * 	Mtodo que extrai um token de um usurio, qual ser utilizado para autenticar o usurio a cada requisio
+	 * 	Método que extrai um token de acesso de um usuário, qual será utilizado para autenticar o usuário a
+	 * cada requisição. O token expira após VALIDADE_ACESSO
 	 *  
-	 * @param usuario usuario populado com as informaes a serem extraidas para um token de acesso
-	 * @return token extraido das informaes do usurio
-	 * @throws IllegalArgumentException disparada quando um dos campos utilizados para criar o token (id, nome, email e permissao) est nulo
-	 * @throws JWTCreationException disparada quando os campos criados no podem criar um token
+	 * @param usuario usuario populado com as informações a serem extraidas para um token de acesso
+	 * @return token extraido das informações do usuário
+	 * @throws IllegalArgumentException disparada quando um dos campos utilizados para criar o token (id, nome, email e permissao) está nulo
+	 * @throws JWTCreationException disparada quando os campos criados não podem criar um token
 	 */
 	public static String getToken(Usuario usuario)
 			throws IllegalArgumentException, JWTCreationException, UnsupportedEncodingException {
 
+		long emissao = System.currentTimeMillis();
 		String token = "";
 		token = JWT.create()
 				// Dados gerais
-				.withIssuer("~Instock!~").withIssuedAt(new Date()).withSubject("Authentic")
+				.withIssuer("~Instock!~").withIssuedAt(new Date(emissao)).withSubject("Authentic")
+				.withExpiresAt(new Date(emissao + VALIDADE_ACESSO))
 				// PAYLOAD
+				.withClaim("tipo", TIPO_ACESSO)
+				.withClaim("emissao", emissao)
 				.withClaim("id", usuario.getId())
 				.withClaim("nome", usuario.getNome())
 				.withClaim("email", usuario.getEmail())
 				.withClaim("permissao", usuario.getPermissao().toString())
 				// ASSINATURA
 				// criptografia usada HMAC512
-				.sign(Algorithm.HMAC512(
-						"H[w=Ym`j*\".xTZ&b?-Gnw`e(\"=V.F,G5j[`U4'xfcYb@F:c9ptu,9AKeBJ3NqG4/yMjP=$8@s$TpJC:7Jax=nQ*eU5JPvzUn='Fk"));
+				.sign(ALGORITMO);
 
 		return token;
 	}
 
 	/**
-	 * Mtodo utilizado para extrair um objeto usuario de um token que foi criado por essa aplicao
+	 * 	Método que extrai um token de renovação de um usuário, trocado por um novo par de tokens quando o
+	 * token de acesso expira. Carrega somente o id do usuário e um identificador único (jti), com o qual
+	 * o token é invalidado ao ser trocado, e expira após VALIDADE_RENOVACAO
 	 * 
-	 * @param token token com as informaes para criar o objeto usuario
-	 * @return usuario populado com as informaes presentes no token
+	 * @param usuario usuario para o qual o token é emitido
+	 * @return token de renovação
+	 * @throws JWTCreationException disparada quando os campos criados não podem criar um token
 	 */
-	public static Usuario getUsuarioToken(String token) {
-		Usuario usuario = new Usuario();
-		DecodedJWT decodeJwt = JWT.decode(token);
-		usuario.setId(decodeJwt.getClaim("id").asLong());
-		usuario.setNome(decodeJwt.getClaim("nome").asString());
-		usuario.setEmail(decodeJwt.getClaim("email").asString());
-		usuario.setPermissao(Permissao.valueOf(decodeJwt.getClaim("permissao").asString()));
-		return usuario;
+	public static String getTokenRenovacao(Usuario usuario) throws JWTCreationException {
+		long emissao = System.currentTimeMillis();
+		return JWT.create()
+				.withIssuer("~Instock!~").withIssuedAt(new Date(emissao)).withSubject("Authentic")
+				.withExpiresAt(new Date(emissao + VALIDADE_RENOVACAO))
+				.withJWTId(UUID.randomUUID().toString())
+				.withClaim("tipo", TIPO_RENOVACAO)
+				.withClaim("emissao", emissao)
+				.withClaim("id", usuario.getId())
+				.sign(ALGORITMO);
 	}
 
 	/**
-	 * Mtodo que valida a assinatura utilizada no token
+	 * 	Método que valida a assinatura e a expiração do token de acesso, decodificando o token uma única
+	 * vez. Os tokens verificados ficam em cache pela assinatura por até VALIDADE_CACHE (ou até a
+	 * expiração do token, se anterior), de forma que as requisições seguintes com o mesmo token não
+	 * recalculam o HMAC. O token inteiro é comparado com o verificado antes de ser aceito pelo cache
 	 * 
 	 * @param token token a ser validado
-	 * @throws JWTVerificationException disparada se a assinatura for invlida
+	 * @return dados do token verificado
+	 * @throws JWTVerificationException disparada se a assinatura for inválida, o token estiver expirado
+	 * ou não for um token de acesso
+	 */
+	public static TokenVerificado verificarToken(String token) throws JWTVerificationException {
+		String assinatura = token.substring(token.lastIndexOf('.') + 1);
+		long agora = System.currentTimeMillis();
+		TokenVerificado verificado = VERIFICADOS.get(assinatura);
+		if (verificado == null || verificado.validoAte <= agora || !verificado.token.equals(token)) {
+			verificado = new TokenVerificado(token, VERIFICADOR.verify(token), agora + VALIDADE_CACHE);
+			armazenar(assinatura, verificado, agora);
+		}
+		return verificado;
+	}
+
+	/**
+	 * 	Método que valida a assinatura e a expiração do token de renovação
+	 * 
+	 * @param token token de renovação a ser validado
+	 * @return dados do token verificado
+	 * @throws JWTVerificationException disparada se a assinatura for inválida, o token estiver expirado
+	 * ou não for um token de renovação
+	 */
+	public static TokenVerificado verificarTokenRenovacao(String token) throws JWTVerificationException {
+		if (token == null)
+			throw new JWTVerificationException("Token de renovação ausente");
+		return new TokenVerificado(token, VERIFICADOR_RENOVACAO.verify(token), System.currentTimeMillis());
+	}
+
+	/**
+	 * 	Guarda o token verificado no cache. Com o cache cheio os tokens expirados são
+	 * descartados e, se ainda assim não houver espaço, o cache é esvaziado
 	 */
-	public static void validarToken(String token) throws JWTVerificationException, IllegalArgumentException, UnsupportedEncodingException {
-		JWT.require(Algorithm.HMAC512(
-				"H[w=Ym`j*\".xTZ&b?-Gnw`e(\"=V.F,G5j[`U4'xfcYb@F:c9ptu,9AKeBJ3NqG4/yMjP=$8@s$TpJC:7Jax=nQ*eU5JPvzUn='Fk"))
-				.build().verify(token);
+	private static void armazenar(String assinatura, TokenVerificado verificado, long agora) {
+		if (VERIFICADOS.size() >= LIMITE_CACHE) {
+			VERIFICADOS.values().removeIf(t -> t.validoAte <= agora);
+			if (VERIFICADOS.size() >= LIMITE_CACHE)
+				VERIFICADOS.clear();
+		}
+		VERIFICADOS.put(assinatura, verificado);
+	}
+
+	private static Algorithm criarAlgoritmo() {
+		try {
+			return Algorithm.HMAC512(SEGREDO);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
+	/**
+	 * 	Dados de um token já verificado
+	 */
+	public static final class TokenVerificado {
+
+		private final String token;
+
+		private final Long id;
+
+		private final String nome;
+
+		private final String email;
+
+		private final Permissao permissao;
+
+		/** Instante, em milissegundos, em que o token foi emitido */
+		private final long emissao;
+
+		/** Instante, em milissegundos, a partir do qual o token deve ser verificado novamente */
+		private final long validoAte;
+
+		/** Identificador único do token (jti) ou, nos tokens emitidos sem ele, a assinatura */
+		private final String identificador;
+
+		/** Instante, em milissegundos, em que o token expira (0 se não expira) */
+		private final long expiracao;
+
+		private TokenVerificado(String token, DecodedJWT decodificado, long limite) {
+			this.token = token;
+			this.identificador = decodificado.getId() != null ? decodificado.getId() : decodificado.getSignature();
+			this.id = decodificado.getClaim("id").asLong();
+			this.nome = decodificado.getClaim("nome").asString();
+			this.email = decodificado.getClaim("email").asString();
+			String permissao = decodificado.getClaim("permissao").asString();
+			this.permissao = permissao == null ? null : Permissao.valueOf(permissao);
+			Long emissao = decodificado.getClaim("emissao").asLong();
+			this.emissao = emissao == null ? 0 : emissao;
+			Date expiraEm = decodificado.getExpiresAt();
+			this.expiracao = expiraEm == null ? 0 : expiraEm.getTime();
+			this.validoAte = expiraEm == null ? limite : Math.min(limite, expiraEm.getTime());
+		}
+
+		/**
+		 * @return id do usuário do token
+		 */
+		public Long getId() {
+			return id;
+		}
+
+		/**
+		 * @return instante, em milissegundos, em que o token foi emitido
+		 */
+		public long getEmissao() {
+			return emissao;
+		}
+
+		/**
+		 * @return identificador único do token (jti) ou, nos tokens emitidos sem ele, a assinatura
+		 */
+		public String getIdentificador() {
+			return identificador;
+		}
+
+		/**
+		 * @return instante, em milissegundos, em que o token expira (0 se não expira)
+		 */
+		public long getExpiracao() {
+			return expiracao;
+		}
+
+		/**
+		 * @return usuario populado com as informações presentes no token, um novo objeto a cada chamada
+		 */
+		public Usuario criarUsuario() {
+			Usuario usuario = new Usuario();
+			usuario.setId(id);
+			usuario.setNome(nome);
+			usuario.setEmail(email);
+			usuario.setPermissao(permissao);
+			return usuario;
+		}
+	}
 }
@@ -0,0 +1,179 @@
+package br.com.lupus.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de requisições simultâneas ajustado pela latência observada, no estilo
+ * do TCP Vegas: a menor latência média estima o tempo de resposta sem fila, e a
+ * razão entre ela e a latência média atual estima quantas requisições estão
+ * aguardando (na base de dados, no pool de conexões). Com fila pequena o limite
+ * cresce de 1 em 1, com fila grande diminui proporcionalmente ao excesso, e em
+ * janelas com falha (erro ou resposta 5xx) é reduzido multiplicativamente
+ * (AIMD). As amostras são agregadas em janelas, uma latência isolada não altera o
+ * limite. A entrada é feita sem bloqueio, somente o registro das amostras é
+ * sincronizado
+ *
+ * @author Mateus A.S
+ */
+public class LimiteAdaptativo {
+
+	/** Fator aplicado ao limite nas janelas com falha */
+	private static final double REDUCAO_FALHA = 0.9;
+
+	/** Duração mínima, em nanossegundos, de uma janela */
+	static final long DURACAO_JANELA = 100 * 1000 * 1000L;
+
+	/** Quantidade mínima de amostras de uma janela */
+	static final int AMOSTRAS_JANELA = 10;
+
+	/** Quantidade de janelas após a qual a latência sem fila é medida novamente */
+	private static final int JANELAS_SONDAGEM = 600;
+
+	private final int minimo;
+
+	private final int maximo;
+
+	/** Limite atual, lido sem sincronização na entrada */
+	private volatile int limite;
+
+	private final AtomicInteger emUso = new AtomicInteger();
+
+	/** Menor latência média de uma janela, em nanossegundos (0 antes da primeira janela) */
+	private long latenciaMinima;
+
+	private int janelas;
+
+	// Janela atual
+
+	private long inicioJanela = System.nanoTime();
+
+	private long somaLatencias;
+
+	private int amostras;
+
+	/** Amostras sem falha, as únicas consideradas na latência média */
+	private int sucessos;
+
+	private boolean falhou;
+
+	private int maiorOcupacao;
+
+	/**
+	 * @param inicial
+	 *            limite inicial
+	 * @param minimo
+	 *            menor limite permitido
+	 * @param maximo
+	 *            maior limite permitido
+	 */
+	public LimiteAdaptativo(int inicial, int minimo, int maximo) {
+		this.minimo = minimo;
+		this.maximo = maximo;
+		this.limite = Math.max(minimo, Math.min(maximo, inicial));
+	}
+
+	/**
+	 * Método que ocupa uma vaga, se o limite não tiver sido atingido
+	 *
+	 * @return true se a vaga foi ocupada, nesse caso liberar deve ser chamado ao
+	 *         fim da requisição
+	 */
+	public boolean tentarOcupar() {
+		while (true) {
+			int atual = emUso.get();
+			if (atual >= limite)
+				return false;
+			if (emUso.compareAndSet(atual, atual + 1))
+				return true;
+		}
+	}
+
+	/**
+	 * Método que libera a vaga ocupada e ajusta o limite com a latência da
+	 * requisição
+	 *
+	 * @param latencia
+	 *            latência da requisição, em nanossegundos
+	 * @param falha
+	 *            true se a requisição falhou (erro ou resposta 5xx)
+	 */
+	public void liberar(long latencia, boolean falha) {
+		liberar(latencia, falha, System.nanoTime());
+	}
+
+	/**
+	 * @param agora
+	 *            instante da liberação, em System.nanoTime, que encerra a janela
+	 *            quando ela já tiver a duração mínima
+	 */
+	void liberar(long latencia, boolean falha, long agora) {
+		int ocupadas = emUso.getAndDecrement();
+		ajustar(latencia, falha, ocupadas, agora);
+	}
+
+	private synchronized void ajustar(long latencia, boolean falha, int ocupadas, long agora) {
+		if (falha)
+			falhou = true;
+		else if (latencia > 0) {
+			somaLatencias += latencia;
+			sucessos++;
+		}
+		amostras++;
+		maiorOcupacao = Math.max(maiorOcupacao, ocupadas);
+		if (amostras < AMOSTRAS_JANELA || agora - inicioJanela < DURACAO_JANELA)
+			return;
+		int atual = limite;
+		if (falhou) {
+			limite = Math.max(minimo, (int) (atual * REDUCAO_FALHA));
+		} else if (sucessos > 0) {
+			long media = somaLatencias / sucessos;
+			if (latenciaMinima == 0 || ++janelas >= JANELAS_SONDAGEM) {
+				// A latência sem fila pode ter mudado (ex.: base de dados mais lenta)
+				janelas = 0;
+				latenciaMinima = media;
+			} else if (media < latenciaMinima) {
+				latenciaMinima = media;
+			}
+			double fila = atual * (1 - (double) latenciaMinima / media);
+			// Limiares proporcionais ao log do limite, como no Vegas
+			double alfa = 3 * Math.max(1, Math.log10(atual));
+			double beta = 6 * Math.max(1, Math.log10(atual));
+			if (fila < alfa) {
+				// Só cresce se o limite estiver sendo utilizado
+				if (maiorOcupacao * 2 >= atual)
+					limite = Math.min(maximo, atual + 1);
+			} else if (fila > beta) {
+				limite = Math.max(minimo, atual - (int) Math.ceil((fila - beta) / 2));
+			}
+		}
+		inicioJanela = agora;
+		somaLatencias = 0;
+		amostras = 0;
+		sucessos = 0;
+		falhou = false;
+		maiorOcupacao = 0;
+	}
+
+	/**
+	 * @return quantidade máxima de vagas ocupadas ao mesmo tempo, reavaliada ao fim
+	 *         de cada janela
+	 */
+	public int getLimite() {
+		return limite;
+	}
+
+	/**
+	 * @return quantidade de vagas ocupadas no momento, pode ultrapassar o limite
+	 *         logo após uma redução, até que as requisições em andamento terminem
+	 */
+	public int getEmUso() {
+		return emUso.get();
+	}
+
+	/**
+	 * @return latência sem fila estimada, em nanossegundos
+	 */
+	public synchronized long getLatenciaMinima() {
+		return latenciaMinima;
+	}
+}
@@ -0,0 +1,192 @@
+package br.com.lupus.utils;
+
+import java.util.Arrays;
+
+/**
+ * 	Mapa de long para long com endereçamento aberto (sondagem linear) guardado em
+ * dois arrays primitivos, sem objetos por entrada. A chave 0 é reservada para
+ * marcar posições vazias, o que atende ids gerados pelo banco (sempre positivos).
+ * Não é thread-safe, o acesso concorrente deve ser sincronizado por quem o utiliza
+ *
+ * @author Mateus A.S
+ */
+public class LongLongMap {
+
+	private static final float FATOR_CARGA = 0.75f;
+
+	private long[] chaves;
+
+	private long[] valores;
+
+	private int tamanho;
+
+	private int limite;
+
+	/**
+	 * 	Construtor que dimensiona os arrays para a quantidade esperada de entradas
+	 *
+	 * @param capacidade quantidade esperada de entradas
+	 */
+	public LongLongMap(int capacidade) {
+		alocar(potenciaDeDois((int) Math.ceil(Math.max(capacidade, 8) / FATOR_CARGA)));
+	}
+
+	/**
+	 * 	Retorna o valor associado à chave
+	 *
+	 * @param chave chave procurada
+	 * @param ausente valor retornado se a chave não estiver no mapa
+	 * @return valor associado ou o valor ausente
+	 */
+	public long get(long chave, long ausente) {
+		if (chave == 0)
+			return ausente;
+		int mascara = chaves.length - 1;
+		for (int i = posicao(chave, mascara);; i = (i + 1) & mascara) {
+			if (chaves[i] == chave)
+				return valores[i];
+			if (chaves[i] == 0)
+				return ausente;
+		}
+	}
+
+	/**
+	 * 	Associa o valor à chave, substituindo o valor anterior
+	 *
+	 * @param chave chave a ser associada (diferente de 0)
+	 * @param valor valor associado
+	 * @param ausente valor retornado se a chave ainda não estava no mapa
+	 * @return valor anterior ou o valor ausente
+	 */
+	public long put(long chave, long valor, long ausente) {
+		if (chave == 0)
+			throw new IllegalArgumentException("A chave 0 é reservada");
+		int mascara = chaves.length - 1;
+		int i = posicao(chave, mascara);
+		while (chaves[i] != 0) {
+			if (chaves[i] == chave) {
+				long anterior = valores[i];
+				valores[i] = valor;
+				return anterior;
+			}
+			i = (i + 1) & mascara;
+		}
+		chaves[i] = chave;
+		valores[i] = valor;
+		if (++tamanho > limite)
+			redimensionar();
+		return ausente;
+	}
+
+	/**
+	 * 	Remove a chave do mapa. As entradas seguintes do mesmo agrupamento são
+	 * deslocadas para trás, dispensando marcadores de remoção
+	 *
+	 * @param chave chave a ser removida
+	 * @param ausente valor retornado se a chave não estava no mapa
+	 * @return valor removido ou o valor ausente
+	 */
+	public long remove(long chave, long ausente) {
+		if (chave == 0)
+			return ausente;
+		int mascara = chaves.length - 1;
+		int i = posicao(chave, mascara);
+		while (chaves[i] != chave) {
+			if (chaves[i] == 0)
+				return ausente;
+			i = (i + 1) & mascara;
+		}
+		long removido = valores[i];
+		int vazio = i;
+		for (int j = (i + 1) & mascara; chaves[j] != 0; j = (j + 1) & mascara) {
+			int ideal = posicao(chaves[j], mascara);
+			if (((j - ideal) & mascara) >= ((j - vazio) & mascara)) {
+				chaves[vazio] = chaves[j];
+				valores[vazio] = valores[j];
+				vazio = j;
+			}
+		}
+		chaves[vazio] = 0;
+		tamanho--;
+		return removido;
+	}
+
+	/**
+	 * 	Remove todas as entradas, mantendo a capacidade atual
+	 */
+	public void clear() {
+		Arrays.fill(chaves, 0);
+		tamanho = 0;
+	}
+
+	/**
+	 * 	Retorna todas as chaves do mapa, sem ordem definida
+	 *
+	 * @return chaves do mapa
+	 */
+	public long[] chaves() {
+		long[] todas = new long[tamanho];
+		int quantidade = 0;
+		for (int i = 0; i < chaves.length; i++)
+			if (chaves[i] != 0)
+				todas[quantidade++] = chaves[i];
+		return todas;
+	}
+
+	/**
+	 * 	Retorna as chaves associadas ao valor, sem ordem definida. Percorre todo o mapa
+	 *
+	 * @param valor valor procurado
+	 * @return chaves associadas ao valor
+	 */
+	public long[] chaves(long valor) {
+		long[] encontradas = new long[16];
+		int quantidade = 0;
+		for (int i = 0; i < chaves.length; i++) {
+			if (chaves[i] == 0 || valores[i] != valor)
+				continue;
+			if (quantidade == encontradas.length)
+				encontradas = Arrays.copyOf(encontradas, quantidade * 2);
+			encontradas[quantidade++] = chaves[i];
+		}
+		return Arrays.copyOf(encontradas, quantidade);
+	}
+
+	/**
+	 * @return quantidade de entradas no mapa
+	 */
+	public int size() {
+		return tamanho;
+	}
+
+	static int posicao(long chave, int mascara) {
+		long h = chave * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mascara;
+	}
+
+	static int potenciaDeDois(int valor) {
+		return Integer.highestOneBit(Math.max(valor - 1, 1)) << 1;
+	}
+
+	private void alocar(int capacidade) {
+		chaves = new long[capacidade];
+		valores = new long[capacidade];
+		limite = (int) (capacidade * FATOR_CARGA);
+	}
+
+	private void redimensionar() {
+		long[] chavesAntigas = chaves;
+		long[] valoresAntigos = valores;
+		alocar(chavesAntigas.length * 2);
+		int mascara = chaves.length - 1;
+		for (int j = 0; j < chavesAntigas.length; j++) {
+			if (chavesAntigas[j] == 0)
+				continue;
+			int i = posicao(chavesAntigas[j], mascara);
+			while (chaves[i] != 0)
+				i = (i + 1) & mascara;
+			chaves[i] = chavesAntigas[j];
+			valores[i] = valoresAntigos[j];
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package br.com.lupus.utils;
+
+/**
+ * 	Conjunto de longs com endereçamento aberto (sondagem linear) guardado em um único
+ * array primitivo. Assim como no LongLongMap o valor 0 é reservado para marcar
+ * posições vazias. Não é thread-safe
+ *
+ * @author Mateus A.S
+ */
+public class LongSet {
+
+	private static final float FATOR_CARGA = 0.75f;
+
+	private long[] valores;
+
+	private int tamanho;
+
+	private int limite;
+
+	/**
+	 * 	Construtor que dimensiona o array para a quantidade esperada de valores
+	 *
+	 * @param capacidade quantidade esperada de valores
+	 */
+	public LongSet(int capacidade) {
+		alocar(LongLongMap.potenciaDeDois((int) Math.ceil(Math.max(capacidade, 4) / FATOR_CARGA)));
+	}
+
+	/**
+	 * 	Adiciona o valor ao conjunto
+	 *
+	 * @param valor valor a ser adicionado (diferente de 0)
+	 * @return true se o valor ainda não estava no conjunto
+	 */
+	public boolean add(long valor) {
+		if (valor == 0)
+			throw new IllegalArgumentException("O valor 0 é reservado");
+		int mascara = valores.length - 1;
+		int i = LongLongMap.posicao(valor, mascara);
+		while (valores[i] != 0) {
+			if (valores[i] == valor)
+				return false;
+			i = (i + 1) & mascara;
+		}
+		valores[i] = valor;
+		if (++tamanho > limite)
+			redimensionar();
+		return true;
+	}
+
+	/**
+	 * 	Verifica se o valor está no conjunto
+	 *
+	 * @param valor valor procurado
+	 * @return true se o valor estiver no conjunto
+	 */
+	public boolean contains(long valor) {
+		int mascara = valores.length - 1;
+		for (int i = LongLongMap.posicao(valor, mascara);; i = (i + 1) & mascara) {
+			if (valores[i] == valor)
+				return valor != 0;
+			if (valores[i] == 0)
+				return false;
+		}
+	}
+
+	/**
+	 * 	Remove o valor do conjunto, deslocando para trás os valores seguintes do mesmo
+	 * agrupamento
+	 *
+	 * @param valor valor a ser removido
+	 * @return true se o valor estava no conjunto
+	 */
+	public boolean remove(long valor) {
+		if (valor == 0)
+			return false;
+		int mascara = valores.length - 1;
+		int i = LongLongMap.posicao(valor, mascara);
+		while (valores[i] != valor) {
+			if (valores[i] == 0)
+				return false;
+			i = (i + 1) & mascara;
+		}
+		int vazio = i;
+		for (int j = (i + 1) & mascara; valores[j] != 0; j = (j + 1) & mascara) {
+			int ideal = LongLongMap.posicao(valores[j], mascara);
+			if (((j - ideal) & mascara) >= ((j - vazio) & mascara)) {
+				valores[vazio] = valores[j];
+				vazio = j;
+			}
+		}
+		valores[vazio] = 0;
+		tamanho--;
+		return true;
+	}
+
+	/**
+	 * @return quantidade de valores no conjunto
+	 */
+	public int size() {
+		return tamanho;
+	}
+
+	/**
+	 * 	Copia os valores do conjunto para um novo array, sem ordem definida
+	 *
+	 * @return array com os valores do conjunto
+	 */
+	public long[] toArray() {
+		long[] copia = new long[tamanho];
+		int n = 0;
+		for (long valor : valores)
+			if (valor != 0)
+				copia[n++] = valor;
+		return copia;
+	}
+
+	private void alocar(int capacidade) {
+		valores = new long[capacidade];
+		limite = (int) (capacidade * FATOR_CARGA);
+	}
+
+	private void redimensionar() {
+		long[] antigos = valores;
+		alocar(antigos.length * 2);
+		int mascara = valores.length - 1;
+		for (long valor : antigos) {
+			if (valor == 0)
+				continue;
+			int i = LongLongMap.posicao(valor, mascara);
+			while (valores[i] != 0)
+				i = (i + 1) & mascara;
+			valores[i] = valor;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package br.com.lupus.utils;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.http.ResponseEntity;
+
+import br.com.lupus.models.serializer.Projecao;
+
+/**
+ * 	Classe auxiliar com os métodos utilizados pelos end-points de listagem paginada (keyset)
+ * 
+ * @author Mateus A.S
+ */
+public class PaginacaoUtils {
+
+	/** Nome do header que carrega o cursor da próxima página */
+	public static final String HEADER_PROXIMO_CURSOR = "x-proximo-cursor";
+
+	/** Quantidade de registros retornada quando o cliente não define um limite */
+	public static final int LIMITE_PADRAO = 50;
+
+	/** Quantidade máxima de registros retornada em uma única página */
+	public static final int LIMITE_MAXIMO = 500;
+
+	/**
+	 * 	Restringe o limite pedido pelo cliente ao intervalo [1, LIMITE_MAXIMO]
+	 * 
+	 * @param limite limite recebido na requisição
+	 * @return limite a ser utilizado na consulta
+	 */
+	public static int limitar(Integer limite) {
+		if (limite == null || limite < 1)
+			return LIMITE_PADRAO;
+		return Math.min(limite, LIMITE_MAXIMO);
+	}
+
+	/**
+	 * 	Monta a resposta de uma página. A consulta deve ter sido feita com limite + 1
+	 * registros, o registro excedente indica que existe uma próxima página e não é
+	 * retornado ao cliente, o cursor do último registro retornado (normalmente o id)
+	 * vai no header x-proximo-cursor.
+	 * 
+	 * @param registros registros buscados (até limite + 1)
+	 * @param limite limite de registros da página
+	 * @param getCursor função que extrai o cursor de um registro
+	 * @param projecao projeção com os campos escritos de cada registro
+	 * @return ResponseEntity com status 200 populado com a página
+	 */
+	public static <T> ResponseEntity<Object> pagina(List<T> registros, int limite, Function<T, ?> getCursor,
+			Projecao projecao) {
+		if (registros.size() <= limite)
+			return ResponseEntity.ok(projecao.aplicar(registros));
+		List<T> pagina = registros.subList(0, limite);
+		String proximoCursor = String.valueOf(getCursor.apply(pagina.get(limite - 1)));
+		return ResponseEntity.ok().header(HEADER_PROXIMO_CURSOR, proximoCursor).body(projecao.aplicar(pagina));
+	}
+}
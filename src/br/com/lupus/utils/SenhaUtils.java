@@ -0,0 +1,95 @@
+package br.com.lupus.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Classe auxiliar com os métodos de criptografia e verificação das senhas dos
+ * usuários. As senhas são guardadas com BCrypt, cujo custo (log2 das iterações)
+ * é definido pela propriedade de sistema instock.senha.custo. As senhas ainda
+ * guardadas em MD5 (cadastradas antes do BCrypt ou inseridas diretamente na base
+ * de dados) continuam sendo aceitas e devem ser recriptografadas no login
+ *
+ * @author Mateus A.S
+ */
+public class SenhaUtils {
+
+	/** Custo do BCrypt utilizado nas novas senhas */
+	public static final int CUSTO = Integer.parseInt(System.getProperty("instock.senha.custo", "10"));
+
+	private static final String PREFIXO_BCRYPT = "$2";
+
+	private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Método que criptografa a senha com BCrypt e um salt aleatório
+	 *
+	 * @param senha
+	 *            senha em texto plano
+	 * @return senha criptografada
+	 */
+	public static String criptografar(String senha) {
+		return BCrypt.hashpw(senha, BCrypt.gensalt(CUSTO));
+	}
+
+	/**
+	 * Método que verifica se a senha corresponde à senha criptografada, em BCrypt
+	 * ou MD5
+	 *
+	 * @param senha
+	 *            senha em texto plano
+	 * @param senhaCriptografada
+	 *            senha guardada na base de dados
+	 * @return true se a senha estiver correta
+	 */
+	public static boolean verificar(String senha, String senhaCriptografada) {
+		if (senha == null || senhaCriptografada == null)
+			return false;
+		if (senhaCriptografada.startsWith(PREFIXO_BCRYPT)) {
+			try {
+				return BCrypt.checkpw(senha, senhaCriptografada);
+			} catch (IllegalArgumentException e) {
+				return false;
+			}
+		}
+		return MessageDigest.isEqual(md5(senha).getBytes(StandardCharsets.US_ASCII),
+				senhaCriptografada.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Método que verifica se a senha criptografada deve ser substituída, por estar
+	 * em MD5 ou em BCrypt com custo menor que o atual
+	 *
+	 * @param senhaCriptografada
+	 *            senha guardada na base de dados
+	 * @return true se a senha deve ser criptografada novamente
+	 */
+	public static boolean isObsoleta(String senhaCriptografada) {
+		if (!senhaCriptografada.startsWith(PREFIXO_BCRYPT))
+			return true;
+		int fim = senhaCriptografada.indexOf('$', 4);
+		try {
+			return Integer.parseInt(senhaCriptografada.substring(4, fim)) < CUSTO;
+		} catch (RuntimeException e) {
+			return true;
+		}
+	}
+
+	private static String md5(String senha) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			// Todo JRE deve implementar MD5
+			throw new IllegalStateException(e);
+		}
+		byte[] resumo = md.digest(senha.getBytes(StandardCharsets.UTF_8));
+		StringBuilder sb = new StringBuilder(resumo.length * 2);
+		for (byte b : resumo)
+			sb.append(HEXADECIMAL[(b >> 4) & 0xF]).append(HEXADECIMAL[b & 0xF]);
+		return sb.toString();
+	}
+}
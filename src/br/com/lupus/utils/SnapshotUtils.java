@@ -0,0 +1,141 @@
+package br.com.lupus.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 	Classe auxiliar que codifica o conteúdo das fotografias de localização dos itens.
+ * Os pares (id do item, id do ambiente) são ordenados pelo id do item e gravados como
+ * a diferença para o id anterior seguida do id do ambiente, ambos em inteiros de
+ * tamanho variável (7 bits por byte), e o resultado é compactado com Deflate. Ids
+ * próximos custam um byte e os ambientes repetidos são absorvidos pela compactação
+ * 
+ * @author Mateus A.S
+ */
+public class SnapshotUtils {
+
+	/** Versão do formato, gravada sem compactação no primeiro byte do conteúdo */
+	public static final byte FORMATO = 1;
+
+	private static final int TAMANHO_BUFFER = 8192;
+
+	/**
+	 * 	Codifica a localização dos itens
+	 * 
+	 * @param localizacoes id do ambiente de cada item, indexado pelo id do item
+	 * @return conteúdo compactado
+	 */
+	public static byte[] compactar(LongLongMap localizacoes) {
+		long[] itens = localizacoes.chaves();
+		Arrays.sort(itens);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(itens.length / 2, 64));
+		bytes.write(FORMATO);
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try (OutputStream saida = new BufferedOutputStream(new DeflaterOutputStream(bytes, deflater, TAMANHO_BUFFER),
+				TAMANHO_BUFFER)) {
+			escreverVarint(saida, itens.length);
+			long anterior = 0;
+			for (long item : itens) {
+				escreverVarint(saida, item - anterior);
+				escreverVarint(saida, localizacoes.get(item, 0));
+				anterior = item;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			deflater.end();
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * 	Decodifica o conteúdo gerado por compactar
+	 * 
+	 * @param conteudo conteúdo compactado
+	 * @return id do ambiente de cada item, indexado pelo id do item
+	 * @throws IllegalArgumentException disparada se o conteúdo não estiver no formato atual
+	 */
+	public static LongLongMap descompactar(byte[] conteudo) {
+		LongLongMap[] localizacoes = new LongLongMap[1];
+		percorrer(conteudo, quantidade -> localizacoes[0] = new LongLongMap(quantidade),
+				(item, ambiente) -> localizacoes[0].put(item, ambiente, 0));
+		return localizacoes[0];
+	}
+
+	/**
+	 * 	Decodifica somente os itens de um ambiente do conteúdo gerado por compactar. Todo o
+	 * conteúdo é percorrido, mas somente os itens do ambiente são mantidos em memória
+	 * 
+	 * @param conteudo conteúdo compactado
+	 * @param ambiente id do ambiente
+	 * @return ids dos itens que se encontravam no ambiente
+	 * @throws IllegalArgumentException disparada se o conteúdo não estiver no formato atual
+	 */
+	public static LongSet descompactar(byte[] conteudo, long ambiente) {
+		LongSet itens = new LongSet(16);
+		percorrer(conteudo, quantidade -> {
+		}, (item, ambienteItem) -> {
+			if (ambienteItem == ambiente)
+				itens.add(item);
+		});
+		return itens;
+	}
+
+	private static void percorrer(byte[] conteudo, IntConsumer cabecalho, Par consumidor) {
+		if (conteudo == null || conteudo.length == 0 || conteudo[0] != FORMATO)
+			throw new IllegalArgumentException("Formato de fotografia desconhecido");
+		try (InputStream entrada = new BufferedInputStream(
+				new InflaterInputStream(new ByteArrayInputStream(conteudo, 1, conteudo.length - 1)), TAMANHO_BUFFER)) {
+			int quantidade = (int) lerVarint(entrada);
+			cabecalho.accept(quantidade);
+			long item = 0;
+			for (int i = 0; i < quantidade; i++) {
+				item += lerVarint(entrada);
+				consumidor.aceitar(item, lerVarint(entrada));
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Conteúdo de fotografia corrompido", e);
+		}
+	}
+
+	private static void escreverVarint(OutputStream saida, long valor) throws IOException {
+		while ((valor & ~0x7FL) != 0) {
+			saida.write((int) ((valor & 0x7F) | 0x80));
+			valor >>>= 7;
+		}
+		saida.write((int) valor);
+	}
+
+	private static long lerVarint(InputStream entrada) throws IOException {
+		long valor = 0;
+		for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+			int b = entrada.read();
+			if (b < 0)
+				throw new EOFException();
+			valor |= (long) (b & 0x7F) << deslocamento;
+			if ((b & 0x80) == 0)
+				return valor;
+		}
+		throw new IOException("Inteiro de tamanho variável inválido");
+	}
+
+	/**
+	 * 	Recebe cada par (id do item, id do ambiente) decodificado, sem conversão para Long
+	 */
+	private interface Par {
+
+		void aceitar(long item, long ambiente);
+	}
+}
@@ -0,0 +1,110 @@
+package br.com.lupus;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.Permissao;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.TipoItemTag;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Classe auxiliar que grava os registros utilizados pelos testes, cada chamada
+ * em sua própria transação. Os registros recebem nomes e emails únicos, já que
+ * a base de dados é compartilhada por todos os testes
+ * 
+ * @author Mateus A.S
+ */
+public class DadosTeste {
+
+	private static final AtomicInteger CONTADOR = new AtomicInteger();
+
+	private final SessionFactory sessionFactory;
+
+	private final TransactionTemplate transacao;
+
+	public DadosTeste(SessionFactory sessionFactory, PlatformTransactionManager transactionManager) {
+		this.sessionFactory = sessionFactory;
+		this.transacao = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * @return administrador ativo gravado
+	 */
+	public Usuario usuario() {
+		int numero = CONTADOR.incrementAndGet();
+		Usuario usuario = new Usuario(null, "usuario " + numero, "usuario" + numero + "@instock.com", new Date(0),
+				Permissao.ADMINISTRADOR, "123456", true);
+		usuario.setSenhaCriptografada("e10adc3949ba59abbe56e057f20f883e");
+		return gravar(usuario);
+	}
+
+	/**
+	 * @param cadastrante
+	 *            usuário gravado
+	 * @return ambiente gravado, sem itens
+	 */
+	public Ambiente ambiente(Usuario cadastrante) {
+		return gravar(new Ambiente(null, "ambiente " + CONTADOR.incrementAndGet(), cadastrante, null));
+	}
+
+	/**
+	 * @param cadastrante
+	 *            usuário gravado
+	 * @param tags
+	 *            quantidade de tags do tipo
+	 * @return tipo de item gravado com as tags
+	 */
+	public TipoItem tipo(Usuario cadastrante, int tags) {
+		return transacao.execute(status -> {
+			TipoItem tipo = new TipoItem(null, "tipo " + CONTADOR.incrementAndGet(), cadastrante, null);
+			getSessao().persist(tipo);
+			for (int i = 0; i < tags; i++)
+				getSessao().persist(new TipoItemTag(null, "cabecalho " + i, "corpo " + i, "texto", tipo));
+			return tipo;
+		});
+	}
+
+	/**
+	 * @param tipo
+	 *            tipo gravado
+	 * @param cadastrante
+	 *            usuário gravado
+	 * @param ambiente
+	 *            ambiente gravado
+	 * @param quantidade
+	 *            quantidade de itens
+	 * @return itens gravados, todos do tipo e no ambiente informados
+	 */
+	public List<Item> itens(TipoItem tipo, Usuario cadastrante, Ambiente ambiente, int quantidade) {
+		return transacao.execute(status -> {
+			List<Item> itens = new ArrayList<>();
+			for (int i = 0; i < quantidade; i++) {
+				Item item = new Item(null, tipo, cadastrante, ambiente);
+				getSessao().persist(item);
+				itens.add(item);
+			}
+			return itens;
+		});
+	}
+
+	private <T> T gravar(T registro) {
+		return transacao.execute(status -> {
+			getSessao().persist(registro);
+			return registro;
+		});
+	}
+
+	private Session getSessao() {
+		return sessionFactory.getCurrentSession();
+	}
+}
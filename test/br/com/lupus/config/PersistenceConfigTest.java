@@ -0,0 +1,53 @@
+package br.com.lupus.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Testes do agrupamento das inserções em lotes JDBC, que contam as instruções
+ * SQL preparadas na gravação de vários itens em uma transação
+ * 
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class PersistenceConfigTest {
+
+	/** Quantidade de itens gravados, quatro blocos de ids do gerador */
+	private static final int ITENS = 200;
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	public void insercoesSaoAgrupadasEmLotes() {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		TipoItem tipo = dados.tipo(usuario, 0);
+		Ambiente ambiente = dados.ambiente(usuario);
+		Statistics estatisticas = sessionFactory.getStatistics();
+		estatisticas.clear();
+		dados.itens(tipo, usuario, ambiente, ITENS);
+		assertEquals(ITENS, estatisticas.getEntityInsertCount());
+		int lotes = ITENS / Integer.parseInt(System.getProperty("instock.jdbc.batch_size", "50"));
+		// Sem lotes seria um INSERT preparado e executado por item
+		assertTrue(estatisticas.getPrepareStatementCount() <= lotes);
+	}
+}
@@ -0,0 +1,99 @@
+package br.com.lupus.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * <h1> Classe de configuração do Hibernate nos testes </h1>
+ * <p> Utiliza as mesmas propriedades da aplicação sobre um H2 em memória no modo
+ * de compatibilidade com o MySQL, com o esquema criado pelo Hibernate a partir dos
+ * modelos e as tabelas sem entidade criadas pelo instock_teste.sql</p>
+ * <p> Carrega os DAO's e os services, sem a camada web.</p>
+ * 
+ * @author Mateus A.S
+ */
+@Configuration
+@EnableTransactionManagement
+@ComponentScan(basePackages = { "br.com.lupus.dao", "br.com.lupus.services" })
+public class PersistenceTestConfig extends PersistenceConfig {
+
+	/**
+	 * 		Método que substitui o dialeto e a validação do esquema das propriedades da
+	 * aplicação. As estatísticas do Hibernate são ligadas, já que os testes contam as
+	 * instruções SQL executadas
+	 */
+	@Override
+	public Properties getHibernateProperties() {
+
+		Properties properties = super.getHibernateProperties();
+		properties.setProperty("hibernate.show_sql", "false");
+		properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		properties.setProperty("hibernate.hbm2ddl.auto", "create");
+		properties.setProperty("hibernate.hbm2ddl.import_files", "/instock_teste.sql");
+		properties.setProperty("hibernate.generate_statistics", "true");
+		return properties;
+	}
+
+	/**
+	 * 		Bean com o H2 em memória, mantido enquanto a JVM dos testes estiver ativa
+	 */
+	@Bean
+	@Override
+	public DataSource getDataSource() {
+
+		DriverManagerDataSource dataSource = new DriverManagerDataSource();
+		dataSource.setDriverClassName("org.h2.Driver");
+		dataSource.setUrl("jdbc:h2:mem:instock_db;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+		dataSource.setUsername("sa");
+		dataSource.setPassword("");
+		return new DelegatingDataSource(dataSource) {
+
+			@Override
+			public Connection getConnection() throws SQLException {
+				return envolver(Connection.class, super.getConnection());
+			}
+		};
+	}
+
+	/**
+	 * 		Envolve a conexão ignorando o fetch size negativo (Integer.MIN_VALUE), com que
+	 * as consultas de percurso pedem streaming ao driver do MySQL e que o H2 recusa
+	 */
+	private static <T> T envolver(Class<T> interfaceJdbc, T objeto) {
+
+		InvocationHandler handler = (proxy, metodo, argumentos) -> {
+			if (metodo.getName().equals("setFetchSize") && (Integer) argumentos[0] < 0)
+				return null;
+			Object retorno = invocar(objeto, metodo, argumentos);
+			if (retorno instanceof PreparedStatement)
+				return envolver(PreparedStatement.class, (PreparedStatement) retorno);
+			return retorno;
+		};
+		return interfaceJdbc.cast(Proxy.newProxyInstance(PersistenceTestConfig.class.getClassLoader(),
+				new Class<?>[] { interfaceJdbc }, handler));
+	}
+
+	private static Object invocar(Object objeto, Method metodo, Object[] argumentos) throws Throwable {
+
+		try {
+			return metodo.invoke(objeto, argumentos);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package br.com.lupus.config.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import br.com.lupus.services.CompartimentoService;
+
+/**
+ * Testes da ocupação e da liberação das vagas do compartimento nas requisições
+ * síncronas e assíncronas
+ *
+ * @author Mateus A.S
+ */
+public class CompartimentoInterceptorTest {
+
+	private CompartimentoService compartimentoService;
+
+	private CompartimentoInterceptor interceptor;
+
+	private HandlerMethod handler;
+
+	@Before
+	public void criar() throws Exception {
+		compartimentoService = new CompartimentoService();
+		interceptor = new CompartimentoInterceptor();
+		ReflectionTestUtils.setField(interceptor, "compartimentoService", compartimentoService);
+		handler = new HandlerMethod(new ControllerTeste(), ControllerTeste.class.getMethod("executar"));
+	}
+
+	@Test
+	public void requisicaoSincronaLiberaAVagaAoFim() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertTrue(interceptor.preHandle(request, response, handler));
+		assertEquals(1, estatistica("emUso"));
+
+		interceptor.afterCompletion(request, response, handler, null);
+		assertEquals(0, estatistica("emUso"));
+		assertEquals(0L, estatistica("falhas"));
+	}
+
+	@Test
+	public void requisicaoAssincronaLiberaAVagaSomenteAoCompletar() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertTrue(interceptor.preHandle(request, response, handler));
+		request.startAsync(request, response);
+		interceptor.afterConcurrentHandlingStarted(request, response, handler);
+		// A thread do container é liberada, mas o processamento continua
+		assertEquals(1, estatistica("emUso"));
+
+		// O despacho do resultado não ocupa outra vaga nem libera a ocupada
+		request.setDispatcherType(DispatcherType.ASYNC);
+		assertTrue(interceptor.preHandle(request, response, handler));
+		interceptor.afterCompletion(request, response, handler, null);
+		assertEquals(1, estatistica("emUso"));
+
+		response.setStatus(200);
+		((MockAsyncContext) request.getAsyncContext()).complete();
+		assertEquals(0, estatistica("emUso"));
+		assertEquals(0L, estatistica("falhas"));
+	}
+
+	@Test
+	public void expiracaoDaRequisicaoAssincronaLiberaAVagaComoFalha() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAsyncSupported(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertTrue(interceptor.preHandle(request, response, handler));
+		MockAsyncContext contexto = (MockAsyncContext) request.startAsync(request, response);
+		interceptor.afterConcurrentHandlingStarted(request, response, handler);
+
+		AsyncEvent evento = new AsyncEvent(contexto, request, response);
+		for (AsyncListener listener : contexto.getListeners())
+			listener.onTimeout(evento);
+		assertEquals(0, estatistica("emUso"));
+		assertEquals(1L, estatistica("falhas"));
+
+		// O complete que segue a expiração não libera a vaga novamente
+		contexto.complete();
+		assertEquals(0, estatistica("emUso"));
+		assertEquals(1L, estatistica("falhas"));
+	}
+
+	@Test
+	public void compartimentoCheioRecusaComRetryAfter() throws Exception {
+		int ocupadas = 0;
+		MockHttpServletResponse response;
+		do {
+			response = new MockHttpServletResponse();
+			ocupadas++;
+		} while (interceptor.preHandle(new MockHttpServletRequest(), response, handler));
+		assertEquals(ocupadas - 1, estatistica("limite"));
+		assertEquals(503, response.getStatus());
+		assertEquals(String.valueOf(CompartimentoService.TENTAR_APOS), response.getHeader(HttpHeaders.RETRY_AFTER));
+		assertFalse(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler));
+	}
+
+	private Object estatistica(String nome) {
+		Map<String, Object> estatisticas = compartimentoService.buscarEstatisticas().get("teste");
+		return estatisticas.get(nome);
+	}
+
+	@Compartimento("teste")
+	public static class ControllerTeste {
+
+		public void executar() {
+		}
+	}
+}
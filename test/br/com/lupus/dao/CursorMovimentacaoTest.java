@@ -0,0 +1,46 @@
+package br.com.lupus.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+import br.com.lupus.models.Movimentacao;
+
+/**
+ * Testes da codificação do cursor do histórico de movimentações
+ *
+ * @author Mateus A.S
+ */
+public class CursorMovimentacaoTest {
+
+	@Test
+	public void cursorVoltaComADataEOId() {
+		Movimentacao movimentacao = new Movimentacao(Long.MAX_VALUE, new Date(1500000000123L), null, null, null,
+				null);
+		String valor = CursorMovimentacao.de(movimentacao);
+		assertEquals("1500000000123_" + Long.MAX_VALUE, valor);
+		CursorMovimentacao cursor = CursorMovimentacao.de(valor);
+		assertEquals(new Date(1500000000123L), cursor.getData());
+		assertEquals(Long.valueOf(Long.MAX_VALUE), cursor.getId());
+	}
+
+	@Test
+	public void primeiraPaginaNaoTemCursor() {
+		assertNull(CursorMovimentacao.de((String) null));
+		assertNull(CursorMovimentacao.de(""));
+	}
+
+	@Test
+	public void cursorForaDoFormatoERejeitado() {
+		for (String valor : new String[] { "123", "abc_1", "123_abc", "_1", "123_", "1_2_3" })
+			try {
+				CursorMovimentacao.de(valor);
+				fail("Cursor aceito: " + valor);
+			} catch (IllegalArgumentException e) {
+			}
+	}
+}
@@ -0,0 +1,105 @@
+package br.com.lupus.dao.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.dao.AmbienteDao;
+import br.com.lupus.dao.ItemDao;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Testes da busca por id do AbstractJPA, que conta as instruções SQL preparadas
+ * em uma requisição que busca o mesmo registro várias vezes (como o cadastro e a
+ * movimentação de itens)
+ * 
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class AbstractJPATest {
+
+	/** Quantidade de buscas do mesmo registro na transação */
+	private static final int BUSCAS = 10;
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ItemDao itemDao;
+
+	@Autowired
+	private AmbienteDao ambienteDao;
+
+	private TransactionTemplate transacao;
+
+	private Ambiente ambiente;
+
+	private Item item;
+
+	@Before
+	public void popular() {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		transacao = new TransactionTemplate(transactionManager);
+		Usuario usuario = dados.usuario();
+		TipoItem tipo = dados.tipo(usuario, 0);
+		ambiente = dados.ambiente(usuario);
+		item = dados.itens(tipo, usuario, ambiente, 1).get(0);
+	}
+
+	@Test
+	public void buscasRepetidasNaTransacaoExecutamUmaConsulta() {
+		Statistics estatisticas = sessionFactory.getStatistics();
+		estatisticas.clear();
+		transacao.execute(status -> {
+			Item primeiro = itemDao.buscar(item.getId());
+			for (int i = 1; i < BUSCAS; i++)
+				assertSame(primeiro, itemDao.buscar(item.getId()));
+			return null;
+		});
+		assertEquals(1, estatisticas.getPrepareStatementCount());
+	}
+
+	@Test
+	public void consultaPorIdExecutaUmaConsultaPorBusca() {
+		// Busca anterior, por HQL: o resultado não passa pelo contexto de persistência
+		Statistics estatisticas = sessionFactory.getStatistics();
+		estatisticas.clear();
+		transacao.execute(status -> {
+			for (int i = 0; i < BUSCAS; i++)
+				sessionFactory.getCurrentSession().createNamedQuery("Item.buscarPorId", Item.class)
+						.setParameter("id", item.getId()).getSingleResult();
+			return null;
+		});
+		assertEquals(BUSCAS, estatisticas.getPrepareStatementCount());
+	}
+
+	@Test
+	public void buscaDeEntidadeEmCacheNaoExecutaConsulta() {
+		transacao.execute(status -> ambienteDao.buscar(ambiente.getId()));
+		Statistics estatisticas = sessionFactory.getStatistics();
+		estatisticas.clear();
+		for (int i = 0; i < BUSCAS; i++)
+			transacao.execute(status -> ambienteDao.buscar(ambiente.getId()));
+		assertEquals(0, estatisticas.getPrepareStatementCount());
+		assertEquals(BUSCAS, estatisticas.getSecondLevelCacheHitCount());
+	}
+}
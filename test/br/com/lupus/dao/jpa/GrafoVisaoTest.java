@@ -0,0 +1,126 @@
+package br.com.lupus.dao.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.persistence.AttributeNode;
+import javax.persistence.Subgraph;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.dao.TipoItemDao;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.serializer.Projecao;
+import br.com.lupus.models.serializer.Visao;
+
+/**
+ * Testes da compilação das visões em entity graphs: associações escritas
+ * somente com o id, restrições do cliente, ciclos, a coleção única no grafo e a
+ * inicialização das associações que ficam fora dele
+ *
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class GrafoVisaoTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private TipoItemDao tipoItemDao;
+
+	@Test
+	public void visaoDeDetalheCarregaAsAssociacoesEscritas() {
+		GrafoVisao<Ambiente> plano = compilar(Ambiente.class, Ambiente.DETALHE.getProjecao());
+		assertEquals("{cadastrante={}, itens={tipo={}}}", descrever(plano.getGrafo().getAttributeNodes()));
+	}
+
+	@Test
+	public void associacaoEscritaSomenteComOIdFicaForaDoGrafo() {
+		Projecao projecao = Projecao.de(Ambiente.class, "id", "cadastrante").e(Usuario.class, "id");
+		assertTrue(compilar(Ambiente.class, projecao).isVazio());
+		// Em uma coleção o id não dispensa a inicialização
+		projecao = Projecao.de(TipoItem.class, "id", "itensAnexados").e(Item.class, "id");
+		assertEquals("{itensAnexados={}}", descrever(compilar(TipoItem.class, projecao).getGrafo().getAttributeNodes()));
+	}
+
+	@Test
+	public void restricaoDoClienteRemoveAsAssociacoesNaoPedidas() {
+		assertTrue(compilar(Ambiente.class, Ambiente.DETALHE.restringir("id,descricao").getProjecao()).isVazio());
+		assertTrue(compilar(Ambiente.class, Ambiente.DETALHE.restringir("id,cadastrante.id").getProjecao()).isVazio());
+		assertEquals("{itens={}}", descrever(compilar(Ambiente.class,
+				Ambiente.DETALHE.restringir("itens.id").getProjecao()).getGrafo().getAttributeNodes()));
+		assertEquals("{cadastrante={}}", descrever(compilar(Ambiente.class,
+				Ambiente.DETALHE.restringir("cadastrante.nome").getProjecao()).getGrafo().getAttributeNodes()));
+	}
+
+	@Test
+	public void somenteAPrimeiraColecaoEntraNoGrafo() {
+		GrafoVisao<TipoItem> plano = compilar(TipoItem.class, TipoItem.DETALHE.getProjecao());
+		// O tipo das tags volta à raiz e não é seguido
+		assertEquals("{cadastrante={}, tagsAnexadas={}}", descrever(plano.getGrafo().getAttributeNodes()));
+	}
+
+	@Test
+	public void colecaoForaDoGrafoEInicializadaAposABusca() {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		TipoItem tipo = dados.tipo(usuario, 3);
+		dados.itens(tipo, usuario, dados.ambiente(usuario), 2);
+
+		Visao visao = TipoItem.DETALHE;
+		TipoItem buscado = new TransactionTemplate(transactionManager)
+				.execute(status -> tipoItemDao.buscar(tipo.getId(), visao));
+		// Fora da transação, como na serialização da resposta
+		assertTrue(Hibernate.isInitialized(buscado.getCadastrante()));
+		assertTrue(Hibernate.isInitialized(buscado.getTagsAnexadas()));
+		assertTrue(Hibernate.isInitialized(buscado.getItensAnexados()));
+		assertEquals(3, buscado.getTagsAnexadas().size());
+		assertEquals(2, buscado.getItensAnexados().size());
+
+		TipoItem resumo = new TransactionTemplate(transactionManager)
+				.execute(status -> tipoItemDao.buscar(tipo.getId(), TipoItem.DETALHE.restringir("id,nome")));
+		assertFalse(Hibernate.isInitialized(resumo.getTagsAnexadas()));
+	}
+
+	private <T> GrafoVisao<T> compilar(Class<T> classe, Projecao projecao) {
+		return new TransactionTemplate(transactionManager)
+				.execute(status -> GrafoVisao.compilar(sessionFactory.getCurrentSession(), classe, projecao));
+	}
+
+	/**
+	 * @return nós do grafo e seus subgrafos, em ordem alfabética (ex.: {itens={tipo={}}})
+	 */
+	private static String descrever(List<? extends AttributeNode<?>> nos) {
+		Map<String, String> descricao = new TreeMap<>();
+		for (AttributeNode<?> no : nos) {
+			String filhos = "{}";
+			for (Subgraph<?> subgrafo : no.getSubgraphs().values())
+				filhos = descrever(subgrafo.getAttributeNodes());
+			descricao.put(no.getAttributeName(), filhos);
+		}
+		return descricao.toString();
+	}
+}
@@ -0,0 +1,162 @@
+package br.com.lupus.dao.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.dao.CursorMovimentacao;
+import br.com.lupus.dao.FiltroMovimentacao;
+import br.com.lupus.dao.MovimentacaoDao;
+import br.com.lupus.dao.Ordenacao;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.Movimentacao;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Testes da paginação do histórico de movimentações por cursor: empates na
+ * data, as duas ordenações e a junção das consultas de origem e de destino do
+ * filtro por ambiente, percorrendo todas as páginas sem repetições nem lacunas
+ *
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class MovimentacaoJpaTest {
+
+	/** Minutos, a partir do início, de cada movimentação, com várias no mesmo instante */
+	private static final int[] MINUTOS = { 0, 0, 0, 1, 1, 2, 2, 2, 2, 2, 3, 4, 4, 5, 5, 5, 6, 7, 7, 7, 7, 8, 9, 9 };
+
+	private static final long INICIO = 1500000000000L;
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MovimentacaoDao movimentacaoDao;
+
+	private Usuario usuario;
+
+	private Ambiente a, b, c;
+
+	private Item item;
+
+	/** Movimentações gravadas que envolvem o ambiente a, na ordem do histórico */
+	private List<Movimentacao> doAmbiente = new ArrayList<>();
+
+	/** Todas as movimentações gravadas, na ordem do histórico */
+	private List<Movimentacao> todas = new ArrayList<>();
+
+	@Before
+	public void popular() {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		usuario = dados.usuario();
+		a = dados.ambiente(usuario);
+		b = dados.ambiente(usuario);
+		c = dados.ambiente(usuario);
+		item = dados.itens(dados.tipo(usuario, 0), usuario, a, 1).get(0);
+		// Saídas, entradas, uma movimentação de a para a (nas duas consultas) e outras que não envolvem a
+		Ambiente[][] trechos = { { a, b }, { b, a }, { c, a }, { a, c }, { a, a }, { b, c } };
+		new TransactionTemplate(transactionManager).execute(status -> {
+			// Gravadas fora da ordem das datas, para que o id não acompanhe a data
+			for (int i = MINUTOS.length - 1; i >= 0; i--) {
+				Ambiente[] trecho = trechos[i % trechos.length];
+				Movimentacao movimentacao = new Movimentacao(null, new Date(INICIO + MINUTOS[i] * 60000L), item,
+						trecho[0], trecho[1], usuario);
+				sessionFactory.getCurrentSession().persist(movimentacao);
+				todas.add(movimentacao);
+				if (trecho[0] == a || trecho[1] == a)
+					doAmbiente.add(movimentacao);
+			}
+			return null;
+		});
+		Comparator<Movimentacao> ordem = Comparator.comparing((Movimentacao m) -> m.getDataMovimentacao().getTime())
+				.thenComparing(Movimentacao::getId);
+		todas.sort(ordem);
+		doAmbiente.sort(ordem);
+	}
+
+	@Test
+	public void paginasDoAmbienteJuntamOrigensEDestinosSemRepeticoesNemLacunas() {
+		FiltroMovimentacao filtro = new FiltroMovimentacao(null, a.getId(), null, null, null);
+		for (int limite : new int[] { 1, 2, 3, 5, 7, 100 }) {
+			assertEquals("limite " + limite, ids(doAmbiente), percorrer(filtro, limite, Ordenacao.CRESCENTE));
+			List<Long> decrescente = ids(doAmbiente);
+			Collections.reverse(decrescente);
+			assertEquals("limite " + limite, decrescente, percorrer(filtro, limite, Ordenacao.DECRESCENTE));
+		}
+	}
+
+	@Test
+	public void paginasDeUmaConsultaDesempatamPeloId() {
+		FiltroMovimentacao filtro = new FiltroMovimentacao(null, null, usuario.getId(), null, null);
+		for (int limite : new int[] { 1, 2, 4, 100 }) {
+			assertEquals("limite " + limite, ids(todas), percorrer(filtro, limite, Ordenacao.CRESCENTE));
+			List<Long> decrescente = ids(todas);
+			Collections.reverse(decrescente);
+			assertEquals("limite " + limite, decrescente, percorrer(filtro, limite, Ordenacao.DECRESCENTE));
+		}
+	}
+
+	@Test
+	public void filtroDoItemComAmbienteUsaUmaConsulta() {
+		FiltroMovimentacao filtro = new FiltroMovimentacao(item.getId(), a.getId(), null, null, null);
+		assertEquals(ids(doAmbiente), percorrer(filtro, 3, Ordenacao.CRESCENTE));
+	}
+
+	@Test
+	public void periodoLimitaAsPaginas() {
+		Date de = new Date(INICIO + 2 * 60000L), ate = new Date(INICIO + 7 * 60000L);
+		FiltroMovimentacao filtro = new FiltroMovimentacao(null, a.getId(), null, de, ate);
+		List<Long> esperados = ids(doAmbiente.stream().filter(m -> !m.getDataMovimentacao().before(de)
+				&& m.getDataMovimentacao().before(ate)).collect(Collectors.toList()));
+		assertTrue(!esperados.isEmpty());
+		assertEquals(esperados, percorrer(filtro, 2, Ordenacao.CRESCENTE));
+	}
+
+	/**
+	 * Percorre todas as páginas como o controller: busca uma além do limite para
+	 * saber se há próxima página e monta o cursor da última movimentação exibida
+	 */
+	private List<Long> percorrer(FiltroMovimentacao filtro, int limite, Ordenacao ordenacao) {
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+		while (true) {
+			List<Movimentacao> pagina = movimentacaoDao.buscarHistorico(filtro, CursorMovimentacao.de(cursor),
+					limite + 1, ordenacao);
+			List<Movimentacao> exibidas = pagina.subList(0, Math.min(limite, pagina.size()));
+			exibidas.forEach(m -> ids.add(m.getId()));
+			if (pagina.size() <= limite)
+				break;
+			cursor = CursorMovimentacao.de(exibidas.get(exibidas.size() - 1));
+		}
+		assertEquals("movimentação repetida", ids.size(), new HashSet<>(ids).size());
+		return ids;
+	}
+
+	private static List<Long> ids(List<Movimentacao> movimentacoes) {
+		return movimentacoes.stream().map(Movimentacao::getId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,156 @@
+package br.com.lupus.models.serializer;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.Permissao;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Microbenchmark da serialização de uma página de itens com a visão de detalhe,
+ * comparando os acessores do PlanoSerializacao (LambdaMetafactory) com a leitura
+ * dos getters por reflexão, buscando o método a cada campo (implementação
+ * anterior) ou mantendo o método em cache
+ *
+ * @author Mateus A.S
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PlanoSerializacaoBenchmark {
+
+	/** Quantidade de itens da página, o limite padrão das listagens */
+	private static final int ITENS = 50;
+
+	private ValorProjetado pagina;
+
+	private ObjectMapper mapperPlano;
+
+	private ObjectMapper mapperReflexao;
+
+	private ObjectMapper mapperReflexaoEmCache;
+
+	@Setup
+	public void preparar() throws IOException {
+		Usuario usuario = new Usuario(1L, "usuario", "usuario@instock.com", null, Permissao.ADMINISTRADOR, null, true);
+		List<Item> itens = new ArrayList<>();
+		for (long i = 1; i <= ITENS; i++) {
+			TipoItem tipo = new TipoItem(i, "tipo " + i, usuario, null);
+			Ambiente ambiente = new Ambiente(i % 5, "ambiente " + i % 5, usuario, null);
+			itens.add(new Item(i, tipo, usuario, ambiente));
+		}
+		pagina = Item.DETALHE.aplicar(itens);
+		mapperPlano = new ObjectMapper();
+		mapperReflexao = criarMapper(new SerializerReflexao(false));
+		mapperReflexaoEmCache = criarMapper(new SerializerReflexao(true));
+		// As três implementações devem escrever o mesmo JSON
+		String json = planoSerializacao();
+		if (!json.equals(reflexao()) || !json.equals(reflexaoMetodoEmCache()))
+			throw new IllegalStateException("Serializações diferentes: " + json + " / " + reflexao());
+	}
+
+	@Benchmark
+	public String planoSerializacao() throws IOException {
+		return mapperPlano.writeValueAsString(pagina);
+	}
+
+	@Benchmark
+	public String reflexao() throws IOException {
+		return mapperReflexao.writeValueAsString(pagina);
+	}
+
+	@Benchmark
+	public String reflexaoMetodoEmCache() throws IOException {
+		return mapperReflexaoEmCache.writeValueAsString(pagina);
+	}
+
+	/**
+	 * Mapper que ignora o @JsonSerialize dos modelos e os serializa com o
+	 * serializer informado
+	 */
+	private static ObjectMapper criarMapper(SerializerReflexao serializer) {
+		SimpleModule modulo = new SimpleModule();
+		modulo.addSerializer(Model.class, serializer);
+		ObjectMapper mapper = new ObjectMapper();
+		mapper.disable(MapperFeature.USE_ANNOTATIONS);
+		mapper.registerModule(modulo);
+		return mapper;
+	}
+
+	/**
+	 * Serializer por reflexão, com a mesma projeção e a mesma troca de projeção
+	 * nos campos aninhados do Serializer
+	 */
+	private static class SerializerReflexao extends JsonSerializer<Model> {
+
+		private final boolean emCache;
+
+		private final Map<Class<?>, Map<String, Method>> metodos = new ConcurrentHashMap<>();
+
+		private SerializerReflexao(boolean emCache) {
+			this.emCache = emCache;
+		}
+
+		@Override
+		public void serialize(Model model, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+			Projecao projecao = (Projecao) provider.getAttribute(Projecao.ATRIBUTO);
+			gerador.writeStartObject();
+			for (String campo : projecao.campos(model.getClasseProjecao())) {
+				Object valor;
+				try {
+					valor = getter(model.getClass(), campo).invoke(model);
+				} catch (ReflectiveOperationException e) {
+					throw new IOException(e);
+				}
+				Projecao filho = projecao.filho(campo);
+				provider.setAttribute(Projecao.ATRIBUTO, filho);
+				gerador.writeFieldName(campo);
+				provider.defaultSerializeValue(valor, gerador);
+				provider.setAttribute(Projecao.ATRIBUTO, projecao);
+			}
+			gerador.writeEndObject();
+		}
+
+		private Method getter(Class<?> classe, String campo) throws NoSuchMethodException {
+			String nome = "get" + Character.toUpperCase(campo.charAt(0)) + campo.substring(1);
+			if (!emCache)
+				return classe.getMethod(nome);
+			Map<String, Method> metodosClasse = metodos.computeIfAbsent(classe, c -> new ConcurrentHashMap<>());
+			Method metodo = metodosClasse.get(campo);
+			if (metodo == null) {
+				metodo = classe.getMethod(nome);
+				metodosClasse.put(campo, metodo);
+			}
+			return metodo;
+		}
+	}
+}
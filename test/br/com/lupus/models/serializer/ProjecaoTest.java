@@ -0,0 +1,87 @@
+package br.com.lupus.models.serializer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Testes da restrição das projeções pelo parâmetro fields: campos de primeiro
+ * nível, caminhos aninhados, campos desconhecidos ou fora da projeção do
+ * end-point e restrições sucessivas
+ *
+ * @author Mateus A.S
+ */
+public class ProjecaoTest {
+
+	private static final Projecao DETALHE = Projecao.de(Ambiente.class, "id", "descricao", "cadastrante", "itens")
+			.e(Usuario.class, "id", "nome", "ativo").e(Item.class, "id", "tipo").e(TipoItem.class, "id", "nome");
+
+	@Test
+	public void semCamposRetornaAProjecaoDoEndPoint() {
+		assertSame(DETALHE, DETALHE.restringir(null));
+		assertSame(DETALHE, DETALHE.restringir(""));
+		assertSame(DETALHE, DETALHE.restringir("  "));
+		assertSame(DETALHE, DETALHE.restringir(" , ,"));
+	}
+
+	@Test
+	public void camposSaoEscritosNaOrdemDaProjecao() {
+		Projecao restrita = DETALHE.restringir(" descricao , id ");
+		assertArrayEquals(new String[] { "id", "descricao" }, restrita.campos(Ambiente.class));
+	}
+
+	@Test
+	public void camposDesconhecidosOuForaDaProjecaoSaoIgnorados() {
+		assertArrayEquals(new String[] { "id" }, DETALHE.restringir("id,naoExiste,senha").campos(Ambiente.class));
+		assertArrayEquals(new String[0], DETALHE.restringir("naoExiste").campos(Ambiente.class));
+		// Classes que a projeção não define não são escritas pelo Serializer
+		assertNull(DETALHE.restringir("id").campos(String.class));
+	}
+
+	@Test
+	public void caminhoAninhadoRestringeOCampoFilho() {
+		Projecao restrita = DETALHE.restringir("id,itens.id,cadastrante.nome");
+		assertArrayEquals(new String[] { "id", "cadastrante", "itens" }, restrita.campos(Ambiente.class));
+		assertArrayEquals(new String[] { "id" }, restrita.filho("itens").campos(Item.class));
+		assertArrayEquals(new String[] { "nome" }, restrita.filho("cadastrante").campos(Usuario.class));
+	}
+
+	@Test
+	public void caminhosAninhadosEmVariosNiveis() {
+		Projecao restrita = DETALHE.restringir("itens.tipo.nome,itens.id");
+		assertArrayEquals(new String[] { "itens" }, restrita.campos(Ambiente.class));
+		Projecao itens = restrita.filho("itens");
+		assertArrayEquals(new String[] { "id", "tipo" }, itens.campos(Item.class));
+		assertArrayEquals(new String[] { "nome" }, itens.filho("tipo").campos(TipoItem.class));
+	}
+
+	@Test
+	public void campoPedidoSemSubcamposEEscritoCompleto() {
+		Projecao restrita = DETALHE.restringir("itens.id,itens");
+		assertSame(DETALHE, restrita.filho("itens"));
+		assertArrayEquals(new String[] { "id", "tipo" }, restrita.filho("itens").campos(Item.class));
+		// Campos não restringidos usam a projeção do end-point
+		assertSame(DETALHE, restrita.filho("cadastrante"));
+	}
+
+	@Test
+	public void restricaoParteDaProjecaoDoEndPoint() {
+		Projecao restrita = DETALHE.restringir("id").restringir("descricao");
+		assertArrayEquals(new String[] { "descricao" }, restrita.campos(Ambiente.class));
+		assertSame(DETALHE, DETALHE.restringir("id").restringir(null));
+	}
+
+	@Test
+	public void mesmaClasseRetornaOMesmoArray() {
+		Projecao restrita = DETALHE.restringir("id,descricao");
+		assertSame(restrita.campos(Ambiente.class), restrita.campos(Ambiente.class));
+		assertSame(DETALHE.campos(Ambiente.class), DETALHE.campos(Ambiente.class));
+	}
+}
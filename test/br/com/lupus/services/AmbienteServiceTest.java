@@ -0,0 +1,185 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.dao.AmbienteDao;
+import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.exceptions.UnprocessableEntityException;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.Contagem;
+import br.com.lupus.models.dto.ContagemCruzada;
+
+/**
+ * Testes da exclusão de ambientes, validada por uma consulta de existência dos
+ * itens que não carrega a coleção, e das contagens de itens mantidas pela
+ * ocupação
+ *
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class AmbienteServiceTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private AmbienteService ambienteService;
+
+	@Autowired
+	private AmbienteDao ambienteDao;
+
+	@Autowired
+	private ItemService itemService;
+
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
+	private DadosTeste dados;
+
+	private Usuario usuario;
+
+	@Before
+	public void popular() {
+		dados = new DadosTeste(sessionFactory, transactionManager);
+		usuario = dados.usuario();
+		SecurityContextHolder.getContext().setAuthentication(usuario);
+	}
+
+	@After
+	public void limpar() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void possuiItensConsultaSomenteOsItensDoAmbiente() {
+		Ambiente vazio = dados.ambiente(usuario), ocupado = dados.ambiente(usuario);
+		dados.itens(dados.tipo(usuario, 0), usuario, ocupado, 3);
+		assertFalse(possuiItens(vazio));
+		assertTrue(possuiItens(ocupado));
+		assertFalse(new TransactionTemplate(transactionManager).execute(status -> ambienteDao.possuiItens(999999999L)));
+	}
+
+	@Test
+	public void ambienteComItensNaoEExcluidoNemTemOsItensCarregados() throws Exception {
+		Ambiente ambiente = dados.ambiente(usuario);
+		dados.itens(dados.tipo(usuario, 0), usuario, ambiente, 50);
+		Statistics estatisticas = sessionFactory.getStatistics();
+		sessionFactory.getCache().evictAllRegions();
+		estatisticas.clear();
+		try {
+			ambienteService.deletarAmbiente(ambiente.getId());
+			fail("Ambiente com itens excluído");
+		} catch (UnprocessableEntityException e) {
+		}
+		assertEquals(0, estatisticas.getCollectionLoadCount());
+		// Somente o próprio ambiente é carregado, os itens são apenas consultados
+		assertEquals(1, estatisticas.getEntityLoadCount());
+		assertTrue(possuiItens(ambiente));
+	}
+
+	@Test
+	public void ambienteVazioEExcluido() throws Exception {
+		Ambiente ambiente = dados.ambiente(usuario);
+		ambienteService.deletarAmbiente(ambiente.getId());
+		assertNull(new TransactionTemplate(transactionManager).execute(status -> ambienteDao.buscar(ambiente.getId())));
+	}
+
+	@Test(expected = EntityNotFound.class)
+	public void exclusaoDeInexistenteNaoEncontra() throws Exception {
+		ambienteService.deletarAmbiente(999999999L);
+	}
+
+	@Test
+	public void contagemIncluiAmbientesVaziosEAcompanhaAImportacao() throws Exception {
+		Ambiente ocupado = registrar(dados.ambiente(usuario)), vazio = registrar(dados.ambiente(usuario));
+		TipoItem tipo = registrar(dados.tipo(usuario, 0)), outro = registrar(dados.tipo(usuario, 0));
+		importar(tipo, ocupado, 3);
+		importar(outro, ocupado, 2);
+
+		List<Contagem> contagens = ambienteService.contarItens();
+		assertEquals(5, total(contagens, ocupado.getId()));
+		assertEquals(0, total(contagens, vazio.getId()));
+
+		// Matriz restrita ao tipo, combinações sem itens não são retornadas
+		List<ContagemCruzada> cruzadas = ambienteService.contarItensPorTipo(Collections.singleton(tipo.getId()));
+		assertEquals(3, total(cruzadas, ocupado.getId(), tipo.getId()));
+		assertEquals(0, total(cruzadas, ocupado.getId(), outro.getId()));
+		assertFalse(cruzadas.stream().anyMatch(contagem -> contagem.getAmbiente().equals(vazio.getId())));
+		// Sem tipos a matriz é completa
+		assertEquals(2, total(ambienteService.contarItensPorTipo(Collections.emptyList()), ocupado.getId(),
+				outro.getId()));
+
+		ambienteService.deletarAmbiente(vazio.getId());
+		assertEquals(-1, total(ambienteService.contarItens(), vazio.getId()));
+	}
+
+	private boolean possuiItens(Ambiente ambiente) {
+		return new TransactionTemplate(transactionManager).execute(status -> ambienteDao.possuiItens(ambiente.getId()));
+	}
+
+	private Ambiente registrar(Ambiente ambiente) {
+		ocupacaoService.registrarAmbiente(ambiente.getId());
+		return ambiente;
+	}
+
+	private TipoItem registrar(TipoItem tipo) {
+		ocupacaoService.registrarTipo(tipo.getId());
+		return tipo;
+	}
+
+	private void importar(TipoItem tipo, Ambiente ambiente, int quantidade) throws IOException {
+		StringBuilder linhas = new StringBuilder();
+		for (int i = 0; i < quantidade; i++)
+			linhas.append(tipo.getId()).append(',').append(ambiente.getId()).append('\n');
+		assertEquals(quantidade,
+				itemService.importar(new BufferedReader(new StringReader(linhas.toString())), true).getImportados());
+	}
+
+	/**
+	 * @return o total do id na contagem ou -1 se ele não for contado
+	 */
+	static long total(List<Contagem> contagens, Long id) {
+		return contagens.stream().filter(contagem -> contagem.getId().equals(id)).mapToLong(Contagem::getTotal)
+				.findFirst().orElse(-1);
+	}
+
+	/**
+	 * @return o total da combinação na matriz ou 0 se ela não for retornada
+	 */
+	static long total(List<ContagemCruzada> contagens, Long ambiente, Long tipo) {
+		return contagens.stream()
+				.filter(contagem -> contagem.getAmbiente().equals(ambiente) && contagem.getTipo().equals(tipo))
+				.mapToLong(ContagemCruzada::getTotal).findFirst().orElse(0);
+	}
+}
@@ -0,0 +1,173 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.controllers.AutenticacaoController;
+import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.exceptions.ServiceUnavailableException;
+import br.com.lupus.models.Permissao;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.utils.SenhaUtils;
+
+/**
+ * Testes do login: recriptografia das senhas em MD5, verificação da senha
+ * fictícia quando o email não existe ou o usuário está desativado e descarte
+ * com 503 quando a fila do pool de autenticação está cheia
+ *
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class AutenticacaoServiceTest {
+
+	/** Senha dos usuários gravados pelo DadosTeste, guardada em MD5 */
+	private static final String SENHA = "123456";
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private AutenticacaoService autenticacaoService;
+
+	private DadosTeste dados;
+
+	@Before
+	public void criar() {
+		dados = new DadosTeste(sessionFactory, transactionManager);
+	}
+
+	@Test
+	public void loginRecriptografaASenhaEmMd5() throws Exception {
+		Usuario usuario = dados.usuario();
+		assertEquals(usuario.getId(), autenticar(usuario.getEmail(), SENHA).getId());
+
+		String senhaGravada = senhaGravada(usuario);
+		assertTrue(senhaGravada, senhaGravada.startsWith("$2"));
+		assertTrue(SenhaUtils.verificar(SENHA, senhaGravada));
+		// A credencial em cache foi invalidada, o próximo login lê a senha em BCrypt
+		assertEquals(usuario.getId(), autenticar(usuario.getEmail(), SENHA).getId());
+		assertEquals(senhaGravada, senhaGravada(usuario));
+		esperarNaoEncontrado(usuario.getEmail(), "654321");
+	}
+
+	@Test
+	public void emailInexistenteEUsuarioDesativadoVerificamASenhaFicticia() throws Exception {
+		Usuario ativo = dados.usuario(), desativado = dados.usuario();
+		new TransactionTemplate(transactionManager).execute(status -> sessionFactory.getCurrentSession()
+				.createQuery("UPDATE Usuario u SET u.ativo = false WHERE u.id = :id")
+				.setParameter("id", desativado.getId()).executeUpdate());
+		// Recriptografa a senha em BCrypt, verificada nas tentativas com a senha incorreta
+		autenticar(ativo.getEmail(), SENHA);
+
+		long senhaIncorreta = Long.MAX_VALUE, emailInexistente = Long.MAX_VALUE, usuarioDesativado = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			senhaIncorreta = Math.min(senhaIncorreta, esperarNaoEncontrado(ativo.getEmail(), "654321"));
+			emailInexistente = Math.min(emailInexistente, esperarNaoEncontrado("inexistente@instock.com", SENHA));
+			usuarioDesativado = Math.min(usuarioDesativado, esperarNaoEncontrado(desativado.getEmail(), SENHA));
+		}
+		// Sem a senha fictícia as respostas levariam somente o tempo da consulta,
+		// ordens de grandeza abaixo da verificação de um BCrypt
+		assertTrue(emailInexistente + " < " + senhaIncorreta, emailInexistente * 4 >= senhaIncorreta);
+		assertTrue(usuarioDesativado + " < " + senhaIncorreta, usuarioDesativado * 4 >= senhaIncorreta);
+	}
+
+	@Test
+	public void filaCheiaDescartaOLoginCom503() throws Exception {
+		Usuario usuario = dados.usuario();
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(autenticacaoService,
+				"executor");
+		CountDownLatch liberar = new CountDownLatch(1);
+		Runnable bloqueio = () -> {
+			try {
+				liberar.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		try {
+			for (int i = 0; i < executor.getMaximumPoolSize(); i++)
+				executor.execute(bloqueio);
+			while (executor.getQueue().remainingCapacity() > 0)
+				executor.execute(bloqueio);
+
+			try {
+				autenticacaoService.autenticar(credenciais(usuario.getEmail(), SENHA), resultado(usuario));
+				fail("Login aceito com a fila cheia");
+			} catch (ServiceUnavailableException e) {
+				assertEquals(AutenticacaoService.TENTAR_APOS, e.getTentarApos());
+			}
+
+			AutenticacaoController controller = new AutenticacaoController();
+			ReflectionTestUtils.setField(controller, "autenticacaoService", autenticacaoService);
+			Usuario login = credenciais(usuario.getEmail(), SENHA);
+			ResponseEntity<Object> resposta = controller.autenticar(login, resultado(login)).get();
+			assertEquals(HttpStatus.SERVICE_UNAVAILABLE, resposta.getStatusCode());
+			assertEquals(String.valueOf(AutenticacaoService.TENTAR_APOS),
+					resposta.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		} finally {
+			liberar.countDown();
+		}
+		// Com a fila liberada o login volta a ser aceito
+		assertEquals(usuario.getId(), autenticar(usuario.getEmail(), SENHA).getId());
+	}
+
+	private Usuario autenticar(String email, String senha) throws Exception {
+		Usuario usuario = credenciais(email, senha);
+		return autenticacaoService.autenticar(usuario, resultado(usuario)).get();
+	}
+
+	/**
+	 * @return milissegundos até a rejeição do login
+	 */
+	private long esperarNaoEncontrado(String email, String senha) throws Exception {
+		long inicio = System.nanoTime();
+		try {
+			autenticar(email, senha);
+			fail("Login aceito para " + email);
+		} catch (ExecutionException e) {
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof EntityNotFound);
+		}
+		return (System.nanoTime() - inicio) / 1000000;
+	}
+
+	private String senhaGravada(Usuario usuario) {
+		return new TransactionTemplate(transactionManager).execute(status -> sessionFactory.getCurrentSession()
+				.createQuery("SELECT u.senhaCriptografada FROM Usuario u WHERE u.id = :id", String.class)
+				.setParameter("id", usuario.getId()).getSingleResult());
+	}
+
+	private static Usuario credenciais(String email, String senha) {
+		return new Usuario(null, null, email, new Date(0), Permissao.COMUM, senha, true);
+	}
+
+	private static BeanPropertyBindingResult resultado(Usuario usuario) {
+		return new BeanPropertyBindingResult(usuario, "usuario");
+	}
+}
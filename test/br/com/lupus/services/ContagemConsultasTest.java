@@ -0,0 +1,136 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.dao.Ordenacao;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.ItemResumo;
+import br.com.lupus.utils.PaginacaoUtils;
+
+/**
+ * Testes da quantidade de instruções SQL das listagens e buscas de detalhe. Cada
+ * end-point é reproduzido como no controller (chamada ao service e serialização
+ * da resposta fora da transação) com o cache de segundo nível vazio, e a
+ * quantidade de instruções deve ser a mesma com poucos e com muitos registros
+ * 
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class ContagemConsultasTest {
+
+	/** Quantidade de tipos, e de itens por tipo, da massa de dados maior */
+	private static final int MUITOS = 12;
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ItemService itemService;
+
+	@Autowired
+	private AmbienteService ambienteService;
+
+	@Autowired
+	private TipoItemService tipoItemService;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private DadosTeste dados;
+
+	private Usuario usuario;
+
+	@Before
+	public void popular() {
+		dados = new DadosTeste(sessionFactory, transactionManager);
+		usuario = dados.usuario();
+	}
+
+	@Test
+	public void listagemDeItensExecutaUmaConsulta() throws Exception {
+		Ambiente ambiente = dados.ambiente(usuario);
+		Long cursor = popularAmbiente(ambiente, 1, 1).get(0).getId() - 1;
+		popularAmbiente(ambiente, MUITOS, MUITOS);
+		// Páginas de 1 item e de todos os itens cadastrados
+		for (int limite : new int[] { 1, MUITOS * MUITOS + 1 })
+			assertInstrucoes(1, () -> PaginacaoUtils.pagina(itemService.buscarItens(cursor, limite, Ordenacao.CRESCENTE),
+					limite, ItemResumo::getId, Item.RESUMO.getProjecao()).getBody());
+	}
+
+	@Test
+	public void detalheDoAmbienteExecutaUmaConsulta() throws Exception {
+		Ambiente poucos = dados.ambiente(usuario);
+		popularAmbiente(poucos, 1, 1);
+		Ambiente muitos = dados.ambiente(usuario);
+		popularAmbiente(muitos, MUITOS, MUITOS);
+		for (Ambiente ambiente : new Ambiente[] { poucos, muitos })
+			assertInstrucoes(1,
+					() -> Ambiente.DETALHE.aplicar(ambienteService.buscarAmbiente(ambiente.getId(), Ambiente.DETALHE)));
+	}
+
+	@Test
+	public void detalheDoTipoExecutaDuasConsultas() throws Exception {
+		Ambiente ambiente = dados.ambiente(usuario);
+		TipoItem poucos = dados.tipo(usuario, 1);
+		dados.itens(poucos, usuario, ambiente, 1);
+		TipoItem muitos = dados.tipo(usuario, MUITOS);
+		dados.itens(muitos, usuario, ambiente, MUITOS * MUITOS);
+		// O tipo com o cadastrante e as tags e, em uma segunda consulta (subselect), os itens
+		for (TipoItem tipo : new TipoItem[] { poucos, muitos })
+			assertInstrucoes(2,
+					() -> TipoItem.DETALHE.aplicar(tipoItemService.buscaTipo(tipo.getId(), TipoItem.DETALHE)));
+	}
+
+	/**
+	 * Grava no ambiente a quantidade de itens informada de cada um dos novos tipos
+	 * 
+	 * @return itens gravados
+	 */
+	private List<Item> popularAmbiente(Ambiente ambiente, int tipos, int itensPorTipo) {
+		List<Item> itens = new ArrayList<>();
+		for (int i = 0; i < tipos; i++)
+			itens.addAll(dados.itens(dados.tipo(usuario, 0), usuario, ambiente, itensPorTipo));
+		return itens;
+	}
+
+	/**
+	 * Executa o end-point e serializa a resposta como o controller, partindo do
+	 * cache de segundo nível vazio, e verifica a quantidade de instruções SQL
+	 * 
+	 * @param esperadas
+	 *            quantidade de instruções SQL esperada
+	 * @param endPoint
+	 *            chamada ao service, retorna o corpo da resposta
+	 */
+	private void assertInstrucoes(long esperadas, Callable<Object> endPoint) throws Exception {
+		sessionFactory.getCache().evictAllRegions();
+		Statistics estatisticas = sessionFactory.getStatistics();
+		estatisticas.clear();
+		objectMapper.writeValueAsString(endPoint.call());
+		assertEquals(esperadas, estatisticas.getPrepareStatementCount());
+	}
+}
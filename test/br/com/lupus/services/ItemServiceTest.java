@@ -0,0 +1,197 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.RelatorioImportacao;
+
+/**
+ * Testes da importação de itens em CSV e NDJSON: cabeçalho opcional, ids
+ * informados diretamente ou em objetos, erros por linha e rejeição somente das
+ * linhas do lote cuja transação falhou
+ *
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class ItemServiceTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ItemService itemService;
+
+	private DadosTeste dados;
+
+	private Usuario usuario;
+
+	private Ambiente ambiente;
+
+	private TipoItem tipo;
+
+	@Before
+	public void criar() {
+		dados = new DadosTeste(sessionFactory, transactionManager);
+		usuario = dados.usuario();
+		ambiente = dados.ambiente(usuario);
+		tipo = dados.tipo(usuario, 0);
+		SecurityContextHolder.getContext().setAuthentication(usuario);
+	}
+
+	@After
+	public void limpar() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void csvComCabecalhoIgnoraAPrimeiraLinha() throws IOException {
+		RelatorioImportacao relatorio = importar(true, "tipo_id,ambiente_id", linhaCsv(), linhaCsv());
+		assertEquals(2, relatorio.getImportados());
+		assertTrue(relatorio.getErros().isEmpty());
+		assertEquals(2, contarItens(tipo));
+	}
+
+	@Test
+	public void csvSemCabecalhoImportaAPrimeiraLinha() throws IOException {
+		RelatorioImportacao relatorio = importar(true, linhaCsv(), "", " " + linhaCsv() + " ");
+		assertEquals(2, relatorio.getImportados());
+		assertTrue(relatorio.getErros().isEmpty());
+	}
+
+	@Test
+	public void csvRelataOsErrosDeCadaLinha() throws IOException {
+		RelatorioImportacao relatorio = importar(true, linhaCsv(), tipo.getId() + ",999999999",
+				"999999999," + ambiente.getId(), "," + ambiente.getId(), "a,b", "1,2,3", linhaCsv());
+		assertEquals(2, relatorio.getImportados());
+		assertEquals(5, relatorio.getErros().size());
+		assertErro(relatorio, 2, "ambienteAtual", "Ambiente não existente");
+		assertErro(relatorio, 3, "tipo", "Tipo não existente");
+		assertErro(relatorio, 4, "tipo", "Id do tipo não definido");
+		assertErro(relatorio, 5, "linha", "Formato inválido");
+		assertErro(relatorio, 6, "linha", "Formato inválido");
+	}
+
+	@Test
+	public void ndjsonAceitaIdsDiretosOuEmObjetos() throws IOException {
+		RelatorioImportacao relatorio = importar(false,
+				"{\"tipo\": {\"id\": " + tipo.getId() + "}, \"ambienteAtual\": {\"id\": " + ambiente.getId() + "}}",
+				"{\"tipo\": " + tipo.getId() + ", \"ambienteAtual\": " + ambiente.getId() + "}");
+		assertEquals(2, relatorio.getImportados());
+		assertTrue(relatorio.getErros().isEmpty());
+		assertEquals(2, contarItens(tipo));
+	}
+
+	@Test
+	public void ndjsonRelataOsErrosDeCadaLinha() throws IOException {
+		RelatorioImportacao relatorio = importar(false, "{\"tipo\": " + tipo.getId() + "}",
+				"{\"tipo\": {\"nome\": \"x\"}, \"ambienteAtual\": " + ambiente.getId() + "}", "{nao e json",
+				"{\"tipo\": " + tipo.getId() + ", \"ambienteAtual\": " + ambiente.getId() + "}");
+		assertEquals(1, relatorio.getImportados());
+		assertEquals(3, relatorio.getErros().size());
+		assertErro(relatorio, 1, "ambienteAtual", "Id do ambiente não definido");
+		assertErro(relatorio, 2, "tipo", "Id do tipo não definido");
+		assertErro(relatorio, 3, "linha", "Formato inválido");
+	}
+
+	@Test
+	public void falhaDoLoteRejeitaSomenteAsSuasLinhas() throws IOException {
+		TipoItem excluido = dados.tipo(usuario, 0);
+		List<String> linhas = new ArrayList<>();
+		for (int i = 1; i < 500; i++)
+			linhas.add(linhaCsv());
+		// Faz o primeiro lote conhecer o tipo que será excluído, sem gravar itens dele
+		linhas.add(excluido.getId() + ",999999999");
+		for (int i = 0; i < 100; i++)
+			linhas.add(i % 2 == 0 ? linhaCsv() : excluido.getId() + "," + ambiente.getId());
+		for (int i = 0; i < 10; i++)
+			linhas.add(linhaCsv());
+		// O tipo é excluído após o primeiro lote, o segundo o referencia como existente e falha
+		BufferedReader leitor = new BufferedReader(new StringReader(String.join("\n", linhas))) {
+
+			private int lidas;
+
+			@Override
+			public String readLine() throws IOException {
+				if (++lidas == 501)
+					excluirTipo(excluido);
+				return super.readLine();
+			}
+		};
+		RelatorioImportacao relatorio = itemService.importar(leitor, true);
+
+		// 499 linhas válidas do primeiro lote
+		assertEquals(499, relatorio.getImportados());
+		assertEquals(499, contarItens(tipo));
+		assertErro(relatorio, 500, "ambienteAtual", "Ambiente não existente");
+		// Todas as 110 linhas do segundo lote, inclusive as do tipo não excluído, com a causa da falha
+		assertEquals(1 + 110, relatorio.getErros().size());
+		for (int linha = 501; linha <= 610; linha++) {
+			Map<String, String> erros = erros(relatorio, linha);
+			assertEquals("Não foi possível persistir o lote desta linha", erros.get("linha"));
+			assertTrue(erros.get("causa"), erros.get("causa").toUpperCase().contains("TIPO_ITEM"));
+		}
+	}
+
+	private String linhaCsv() {
+		return tipo.getId() + "," + ambiente.getId();
+	}
+
+	private RelatorioImportacao importar(boolean csv, String... linhas) throws IOException {
+		return itemService.importar(new BufferedReader(new StringReader(String.join("\n", linhas))), csv);
+	}
+
+	private long contarItens(TipoItem tipoItem) {
+		return new TransactionTemplate(transactionManager).execute(status -> sessionFactory.getCurrentSession()
+				.createQuery("SELECT COUNT(i) FROM Item i WHERE i.tipo.id = :tipo", Long.class)
+				.setParameter("tipo", tipoItem.getId()).getSingleResult());
+	}
+
+	private void excluirTipo(TipoItem tipoItem) {
+		new TransactionTemplate(transactionManager).execute(status -> sessionFactory.getCurrentSession()
+				.createNativeQuery("DELETE FROM tipo_item WHERE id = :id").setParameter("id", tipoItem.getId())
+				.executeUpdate());
+	}
+
+	/**
+	 * As linhas em formato inválido são relatadas durante a leitura, as demais ao
+	 * fim do lote, por isso os erros são buscados pelo número da linha
+	 */
+	private static void assertErro(RelatorioImportacao relatorio, int linha, String campo, String mensagem) {
+		assertEquals(mensagem, erros(relatorio, linha).get(campo));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, String> erros(RelatorioImportacao relatorio, int linha) {
+		return relatorio.getErros().stream().filter(erro -> erro.get("linha").equals(linha))
+				.map(erro -> (Map<String, String>) erro.get("erros")).findFirst()
+				.orElseThrow(() -> new AssertionError("Linha " + linha + " sem erros"));
+	}
+}
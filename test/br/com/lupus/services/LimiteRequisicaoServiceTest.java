@@ -0,0 +1,84 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+/**
+ * Testes da resolução do custo das rotas, em que o primeiro padrão compatível é
+ * utilizado, e da espera informada no cabeçalho Retry-After
+ *
+ * @author Mateus A.S
+ */
+public class LimiteRequisicaoServiceTest {
+
+	private static final Predicate<String> SEM_PARAMETROS = parametro -> false;
+
+	@Test
+	public void exportacaoPrevaleceSobreABuscaPeloId() {
+		assertEquals(20, custo("GET", "/api/v1/ambiente/exportar"));
+		assertEquals(20, custo("GET", "/api/v1/item/exportar"));
+		assertEquals(20, custo("GET", "/api/v1/movimentacao/exportar"));
+		assertEquals(5, custo("GET", "/api/v1/ambiente/3"));
+	}
+
+	@Test
+	public void contagensPrevalecemSobreABuscaPeloId() {
+		assertEquals(5, custo("GET", "/api/v1/ambiente/contagens"));
+		assertEquals(5, custo("GET", "/api/v1/item/contagens"));
+	}
+
+	@Test
+	public void itensNoInstanteCustamMaisQueOsItensAtuais() {
+		assertEquals(5, custo("GET", "/api/v1/ambiente/3/itens"));
+		assertEquals(20, LimiteRequisicaoService.custo("GET", "/api/v1/ambiente/3/itens", "em"::equals));
+		// Outros parâmetros não alteram o custo
+		assertEquals(5, LimiteRequisicaoService.custo("GET", "/api/v1/ambiente/3/itens", "fields"::equals));
+	}
+
+	@Test
+	public void metodoFazParteDaRota() {
+		assertEquals(3, custo("POST", "/api/v1/jwt"));
+		assertEquals(1, custo("GET", "/api/v1/jwt"));
+		assertEquals(10, custo("POST", "/api/v1/item/lote"));
+		assertEquals(10, custo("PATCH", "/api/v1/item/movimenta/3"));
+		assertEquals(20, custo("POST", "/api/v1/snapshot"));
+		assertEquals(20, custo("GET", "/api/v1/snapshot/verificacao"));
+	}
+
+	@Test
+	public void rotasSemPadraoTemOCustoPadrao() {
+		assertEquals(1, custo("GET", "/api/v1/item/3"));
+		assertEquals(1, custo("PUT", "/api/v1/ambiente/3"));
+		assertEquals(1, custo("GET", "/api/v1/metricas/limite"));
+	}
+
+	@Test
+	public void esperaEArredondadaParaCimaEmSegundos() {
+		LimiteRequisicaoService limiteService = new LimiteRequisicaoService();
+		int permitidas = 0;
+		long espera;
+		while ((espera = limiteService.consumir(null, "10.0.0.1", "GET", "/api/v1/metricas/limite", SEM_PARAMETROS)) == 0)
+			permitidas++;
+		// Tokens repostos durante o laço também são consumidos
+		assertTrue(permitidas >= LimiteRequisicaoService.CAPACIDADE_ANONIMO);
+		// Um token é reposto em 1/TAXA_ANONIMO segundos, menos de um segundo
+		assertEquals(1, espera);
+
+		// A exportação aguarda a reposição de 20 tokens
+		long esperaExportacao = limiteService.consumir(null, "10.0.0.1", "GET", "/api/v1/item/exportar",
+				SEM_PARAMETROS);
+		assertEquals((long) Math.ceil(20 / LimiteRequisicaoService.TAXA_ANONIMO), esperaExportacao);
+
+		// Cada cliente tem o seu balde
+		assertEquals(0, limiteService.consumir(null, "10.0.0.2", "GET", "/api/v1/metricas/limite", SEM_PARAMETROS));
+		assertEquals(0, limiteService.consumir(1L, "10.0.0.1", "GET", "/api/v1/metricas/limite", SEM_PARAMETROS));
+	}
+
+	private static int custo(String metodo, String caminho) {
+		return LimiteRequisicaoService.custo(metodo, caminho, SEM_PARAMETROS);
+	}
+}
@@ -0,0 +1,143 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Testes das consultas de localização em um instante passado: itens cadastrados
+ * após o instante e reconstrução dos itens de um ambiente a partir da fotografia
+ * anterior (para frente) e da posterior (para trás)
+ * 
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class LocalizacaoServiceTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private LocalizacaoService localizacaoService;
+
+	@Autowired
+	private MovimentacaoService movimentacaoService;
+
+	@Autowired
+	private SnapshotLocalizacaoService snapshotService;
+
+	@Test
+	public void itensCadastradosAposOInstanteNaoSaoRetornados() throws Exception {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		TipoItem tipo = dados.tipo(usuario, 0);
+		Ambiente ambiente = dados.ambiente(usuario);
+		Item anterior = dados.itens(tipo, usuario, ambiente, 1).get(0);
+		Thread.sleep(20);
+		Date em = new Date();
+		Thread.sleep(20);
+		Item posterior = dados.itens(tipo, usuario, ambiente, 1).get(0);
+		localizacaoService.registrar(anterior.getId(), ambiente.getId());
+		localizacaoService.registrar(posterior.getId(), ambiente.getId());
+
+		long[] atuais = localizacaoService.buscarItens(ambiente.getId());
+		Arrays.sort(atuais);
+		assertArrayEquals(new long[] { anterior.getId(), posterior.getId() }, atuais);
+		assertArrayEquals(new long[] { anterior.getId() }, localizacaoService.buscarItens(ambiente.getId(), em));
+		assertEquals(ambiente.getId(), localizacaoService.buscarAmbiente(anterior.getId(), em));
+	}
+
+	@Test(expected = EntityNotFound.class)
+	public void itemCadastradoAposOInstanteNaoEEncontrado() throws Exception {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		Ambiente ambiente = dados.ambiente(usuario);
+		Date em = new Date();
+		Thread.sleep(20);
+		Item item = dados.itens(dados.tipo(usuario, 0), usuario, ambiente, 1).get(0);
+		localizacaoService.buscarAmbiente(item.getId(), em);
+	}
+
+	@Test
+	public void reconstroiOAmbienteParaFrenteAPartirDaFotografiaAnterior() throws Exception {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		SecurityContextHolder.getContext().setAuthentication(usuario);
+		TipoItem tipo = dados.tipo(usuario, 0);
+		Ambiente a = dados.ambiente(usuario);
+		Ambiente b = dados.ambiente(usuario);
+		List<Item> itensA = dados.itens(tipo, usuario, a, 2);
+		Item z = dados.itens(tipo, usuario, b, 1).get(0);
+		Long x = itensA.get(0).getId(), y = itensA.get(1).getId();
+		snapshotService.gerar();
+		Thread.sleep(20);
+		movimentacaoService.movimentar(x, b.getId());
+		Thread.sleep(20);
+		Date saidaX = new Date();
+		Thread.sleep(20);
+		movimentacaoService.movimentar(z.getId(), a.getId());
+		Thread.sleep(20);
+		Date entradaZ = new Date();
+		// O instante fica mais próximo da fotografia que do momento atual
+		Thread.sleep(300);
+
+		assertArrayEquals(new long[] { y }, ordenados(localizacaoService.buscarItens(a.getId(), saidaX)));
+		assertArrayEquals(new long[] { y, z.getId() }, ordenados(localizacaoService.buscarItens(a.getId(), entradaZ)));
+		assertArrayEquals(new long[] { x }, ordenados(localizacaoService.buscarItens(b.getId(), entradaZ)));
+	}
+
+	@Test
+	public void reconstroiOAmbienteParaTrasAPartirDaFotografiaPosterior() throws Exception {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		SecurityContextHolder.getContext().setAuthentication(usuario);
+		TipoItem tipo = dados.tipo(usuario, 0);
+		Ambiente a = dados.ambiente(usuario);
+		Ambiente b = dados.ambiente(usuario);
+		List<Item> itensA = dados.itens(tipo, usuario, a, 2);
+		Long x = itensA.get(0).getId(), y = itensA.get(1).getId();
+		Long z = dados.itens(tipo, usuario, b, 1).get(0).getId();
+		// Afasta o instante de fotografias gravadas por outros testes
+		Thread.sleep(300);
+		Date em = new Date();
+		Thread.sleep(20);
+		// Cadastrado após o instante, está na fotografia mas não deve ser retornado
+		dados.itens(tipo, usuario, a, 1);
+		movimentacaoService.movimentar(x, b.getId());
+		movimentacaoService.movimentar(z, a.getId());
+		Thread.sleep(20);
+		snapshotService.gerar();
+
+		assertArrayEquals(new long[] { x, y }, ordenados(localizacaoService.buscarItens(a.getId(), em)));
+		assertArrayEquals(new long[] { z }, ordenados(localizacaoService.buscarItens(b.getId(), em)));
+	}
+
+	private static long[] ordenados(long[] ids) {
+		Arrays.sort(ids);
+		return ids;
+	}
+}
@@ -0,0 +1,244 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.exceptions.ConflictException;
+import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.exceptions.UnprocessableEntityException;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.Movimentacao;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.ContagemCruzada;
+import br.com.lupus.models.dto.ResultadoMovimentacaoLote;
+
+/**
+ * Testes da movimentação de itens. No teste de estresse várias threads movem os
+ * mesmos poucos itens entre ambientes ao mesmo tempo, e ao final o histórico de
+ * cada item deve formar uma cadeia contínua (a origem de cada movimentação é o
+ * destino da anterior) terminada no ambiente atual do item. A movimentação em
+ * lote é testada com itens movidos, já no destino e inexistentes, e no limite
+ * de itens por requisição
+ * 
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class MovimentacaoServiceTest {
+
+	private static final int THREADS = 8;
+
+	private static final int MOVIMENTACOES_POR_THREAD = 40;
+
+	private static final int ITENS = 3;
+
+	private static final int AMBIENTES = 4;
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MovimentacaoService movimentacaoService;
+
+	@Autowired
+	private LocalizacaoService localizacaoService;
+
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
+	@After
+	public void limpar() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void movimentacoesConcorrentesMantemHistoricoEncadeado() throws Exception {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		TipoItem tipo = dados.tipo(usuario, 0);
+		List<Long> ambientes = new ArrayList<>();
+		for (int i = 0; i < AMBIENTES; i++)
+			ambientes.add(dados.ambiente(usuario).getId());
+		Ambiente inicial = new Ambiente();
+		inicial.setId(ambientes.get(0));
+		List<Item> itens = dados.itens(tipo, usuario, inicial, ITENS);
+
+		AtomicInteger movidas = new AtomicInteger();
+		AtomicInteger conflitos = new AtomicInteger();
+		CountDownLatch largada = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> tarefas = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			tarefas.add(executor.submit(() -> {
+				SecurityContextHolder.getContext().setAuthentication(usuario);
+				largada.await();
+				ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+				for (int i = 0; i < MOVIMENTACOES_POR_THREAD; i++) {
+					Long item = itens.get(aleatorio.nextInt(ITENS)).getId();
+					Long destino = ambientes.get(aleatorio.nextInt(AMBIENTES));
+					try {
+						movimentacaoService.movimentar(item, destino);
+						movidas.incrementAndGet();
+					} catch (ConflictException e) {
+						// Item já no destino ou tentativas esgotadas, nenhuma movimentação gravada
+						conflitos.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		largada.countDown();
+		for (Future<?> tarefa : tarefas)
+			tarefa.get();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		int gravadas = 0;
+		for (Item item : itens)
+			gravadas += verificarCadeia(item.getId(), ambientes.get(0));
+		assertEquals(movidas.get(), gravadas);
+		assertEquals(THREADS * MOVIMENTACOES_POR_THREAD, movidas.get() + conflitos.get());
+		assertTrue(movidas.get() > 0);
+	}
+
+	@Test
+	public void loteSeparaMovidosIgnoradosENaoEncontrados() throws Exception {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		TipoItem tipo = dados.tipo(usuario, 0);
+		Ambiente origem = dados.ambiente(usuario), destino = dados.ambiente(usuario);
+		List<Item> aMover = dados.itens(tipo, usuario, origem, 3);
+		Item noDestino = dados.itens(tipo, usuario, destino, 1).get(0);
+		SecurityContextHolder.getContext().setAuthentication(usuario);
+
+		List<Long> ids = new ArrayList<>();
+		ids.add(aMover.get(0).getId());
+		ids.add(999999998L);
+		ids.add(noDestino.getId());
+		ids.add(null);
+		ids.add(aMover.get(1).getId());
+		// Ids repetidos são movimentados uma única vez
+		ids.add(aMover.get(0).getId());
+		ids.add(aMover.get(2).getId());
+		ids.add(999999999L);
+		ResultadoMovimentacaoLote resultado = movimentacaoService.movimentarLote(ids, destino.getId());
+
+		List<Long> movidos = aMover.stream().map(Item::getId).collect(Collectors.toList());
+		assertEquals(movidos, resultado.getMovimentacoes().stream().map(m -> m.getItemMovimentado().getId())
+				.sorted().collect(Collectors.toList()));
+		for (Movimentacao movimentacao : resultado.getMovimentacoes()) {
+			assertEquals(origem.getId(), movimentacao.getAmbienteAnterior().getId());
+			assertEquals(destino.getId(), movimentacao.getAmbientePosterior().getId());
+		}
+		assertEquals(Collections.singletonList(noDestino.getId()), resultado.getIgnorados());
+		assertEquals(Arrays.asList(999999998L, 999999999L), resultado.getNaoEncontrados());
+
+		for (Long item : movidos) {
+			assertEquals(1, verificarCadeia(item, origem.getId()));
+			assertEquals(destino.getId(), localizacaoService.buscarAmbiente(item));
+		}
+		assertEquals(0, verificarCadeia(noDestino.getId(), destino.getId()));
+		// Itens gravados sem passar pelos services não contam na ocupação, somente os movidos
+		long total = 0;
+		for (ContagemCruzada contagem : ocupacaoService.contarCruzado(Collections.singleton(destino.getId()),
+				Collections.singleton(tipo.getId())))
+			total += contagem.getTotal();
+		assertEquals(3, total);
+	}
+
+	@Test
+	public void loteRespeitaOLimiteDeItens() throws Exception {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		Ambiente destino = dados.ambiente(usuario);
+		SecurityContextHolder.getContext().setAuthentication(usuario);
+		long base = 1_000_000_000L;
+
+		List<Long> limite = LongStream.range(base, base + MovimentacaoService.LIMITE_LOTE_MOVIMENTACAO).boxed()
+				.collect(Collectors.toList());
+		// Repetidos não contam para o limite
+		limite.add(base);
+		ResultadoMovimentacaoLote resultado = movimentacaoService.movimentarLote(limite, destino.getId());
+		assertEquals(MovimentacaoService.LIMITE_LOTE_MOVIMENTACAO, resultado.getNaoEncontrados().size());
+		assertTrue(resultado.getMovimentacoes().isEmpty());
+
+		List<Long> excedente = LongStream.rangeClosed(base, base + MovimentacaoService.LIMITE_LOTE_MOVIMENTACAO)
+				.boxed().collect(Collectors.toList());
+		esperarRejeicao(excedente, destino.getId());
+		esperarRejeicao(Collections.emptyList(), destino.getId());
+		esperarRejeicao(Collections.singletonList(null), destino.getId());
+
+		try {
+			movimentacaoService.movimentarLote(Collections.singletonList(base), 999999999L);
+			fail("Ambiente inexistente aceito");
+		} catch (EntityNotFound e) {
+		}
+	}
+
+	private void esperarRejeicao(List<Long> ids, Long ambienteId) throws EntityNotFound {
+		try {
+			movimentacaoService.movimentarLote(ids, ambienteId);
+			fail("Lote com " + ids.size() + " ids aceito");
+		} catch (UnprocessableEntityException e) {
+		}
+	}
+
+	/**
+	 * Verifica que a origem de cada movimentação do item é o destino da anterior,
+	 * partindo do ambiente inicial, e que a última termina no ambiente atual
+	 * 
+	 * @return quantidade de movimentações do item
+	 */
+	private int verificarCadeia(Long itemId, Long ambienteInicial) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			List<Object[]> historico = sessionFactory.getCurrentSession()
+					.createQuery("SELECT m.ambienteAnterior.id, m.ambientePosterior.id FROM Movimentacao m "
+							+ "WHERE m.itemMovimentado.id = :item ORDER BY m.id", Object[].class)
+					.setParameter("item", itemId).getResultList();
+			Long atual = ambienteInicial;
+			for (Object[] movimentacao : historico) {
+				assertEquals("origem diferente do destino anterior, item " + itemId, atual, movimentacao[0]);
+				assertTrue(!movimentacao[0].equals(movimentacao[1]));
+				atual = (Long) movimentacao[1];
+			}
+			Long gravado = sessionFactory.getCurrentSession()
+					.createQuery("SELECT i.ambienteAtual.id FROM Item i WHERE i.id = :item", Long.class)
+					.setParameter("item", itemId).getSingleResult();
+			assertEquals("ambiente atual diferente do último destino, item " + itemId, atual, gravado);
+			return historico.size();
+		});
+	}
+}
@@ -0,0 +1,177 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.dao.OcupacaoDao;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.Contagem;
+import br.com.lupus.models.dto.ContagemCruzada;
+
+/**
+ * Testes da ocupação mantida por variações: gravação no commit, descarte no
+ * rollback, reconciliação com os itens e recargas concorrentes com os commits
+ *
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class OcupacaoServiceTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
+	@Autowired
+	private OcupacaoDao ocupacaoDao;
+
+	@Test
+	public void variacoesSaoGravadasEAplicadasNoCommit() {
+		Combinacao c = new Combinacao();
+		new TransactionTemplate(transactionManager).execute(status -> {
+			ocupacaoService.alterar(c.ambiente, c.tipo, 2);
+			ocupacaoService.alterar(c.ambiente, c.tipo, 3);
+			// Acumuladas até o commit
+			assertEquals(0, totalEmMemoria(c));
+			return null;
+		});
+		assertEquals(5, totalEmMemoria(c));
+		assertEquals(5, totalNaTabela(c));
+
+		// Fora de uma transação é aberta uma própria
+		ocupacaoService.alterar(c.ambiente, c.tipo, -1);
+		assertEquals(4, totalEmMemoria(c));
+		assertEquals(4, totalNaTabela(c));
+	}
+
+	@Test
+	public void rollbackDescartaAsVariacoes() {
+		// Carrega a memória antes de gravar o ambiente, que só passa a ser contado ao ser registrado
+		ocupacaoService.contarPorAmbiente();
+		Combinacao c = new Combinacao();
+		new TransactionTemplate(transactionManager).execute(status -> {
+			ocupacaoService.alterar(c.ambiente, c.tipo, 5);
+			ocupacaoService.registrarAmbiente(c.ambiente);
+			status.setRollbackOnly();
+			return null;
+		});
+		assertEquals(0, totalEmMemoria(c));
+		assertEquals(0, totalNaTabela(c));
+		assertFalse(contem(ocupacaoService.contarPorAmbiente(), c.ambiente));
+
+		ocupacaoService.registrarAmbiente(c.ambiente);
+		assertTrue(contem(ocupacaoService.contarPorAmbiente(), c.ambiente));
+	}
+
+	@Test
+	public void reconciliacaoCorrigeATabelaEAMemoria() {
+		Combinacao c = new Combinacao();
+		// Itens gravados sem passar pelos services não alteram a ocupação
+		c.dados.itens(c.tipoItem, c.usuario, c.ambienteItem, 3);
+		// Total gravado diretamente na tabela, sem passar pela memória
+		new TransactionTemplate(transactionManager).execute(status -> {
+			ocupacaoDao.somar(c.ambiente, c.tipo, 7);
+			return null;
+		});
+		assertEquals(7, totalNaTabela(c));
+
+		ocupacaoService.reconciliar();
+		assertEquals(3, totalNaTabela(c));
+		assertEquals(3, totalEmMemoria(c));
+	}
+
+	@Test
+	public void recargasConcorrentesNaoPerdemVariacoes() throws Exception {
+		Combinacao c = new Combinacao();
+		int threads = 4, transacoes = 50;
+		AtomicBoolean concluido = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		Future<?> recargas = executor.submit(() -> {
+			while (!concluido.get())
+				ocupacaoService.recarregar();
+		});
+		List<Future<?>> tarefas = new ArrayList<>();
+		for (int t = 0; t < threads; t++)
+			tarefas.add(executor.submit(() -> {
+				for (int i = 0; i < transacoes; i++)
+					ocupacaoService.alterar(c.ambiente, c.tipo, 1);
+			}));
+		for (Future<?> tarefa : tarefas)
+			tarefa.get();
+		concluido.set(true);
+		recargas.get();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		assertEquals(threads * transacoes, totalNaTabela(c));
+		assertEquals(threads * transacoes, totalEmMemoria(c));
+	}
+
+	private long totalEmMemoria(Combinacao c) {
+		long total = 0;
+		for (ContagemCruzada contagem : ocupacaoService.contarCruzado(Collections.singleton(c.ambiente),
+				Collections.singleton(c.tipo)))
+			total += contagem.getTotal();
+		return total;
+	}
+
+	private long totalNaTabela(Combinacao c) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			long total = 0;
+			for (ContagemCruzada contagem : ocupacaoDao.buscarTodas())
+				if (contagem.getAmbiente().equals(c.ambiente) && contagem.getTipo().equals(c.tipo))
+					total += contagem.getTotal();
+			return total;
+		});
+	}
+
+	private static boolean contem(List<Contagem> contagens, Long id) {
+		return contagens.stream().anyMatch(contagem -> contagem.getId().equals(id));
+	}
+
+	/**
+	 * Ambiente e tipo novos, exclusivos do teste
+	 */
+	private class Combinacao {
+
+		private final DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+
+		private final Usuario usuario = dados.usuario();
+
+		private final Ambiente ambienteItem = dados.ambiente(usuario);
+
+		private final TipoItem tipoItem = dados.tipo(usuario, 0);
+
+		private final Long ambiente = ambienteItem.getId();
+
+		private final Long tipo = tipoItem.getId();
+	}
+}
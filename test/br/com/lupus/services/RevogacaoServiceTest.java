@@ -0,0 +1,85 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import br.com.lupus.utils.JwtUtils;
+
+/**
+ * Testes das revogações em memória: limite entre os tokens revogados e os
+ * emitidos após a revogação, crescimento do filtro e descarte na limpeza
+ *
+ * @author Mateus A.S
+ */
+public class RevogacaoServiceTest {
+
+	@Test
+	public void usuarioNuncaRevogadoNaoTemTokensRevogados() {
+		RevogacaoService revogacaoService = new RevogacaoService();
+		revogacaoService.revogar(1L);
+		assertFalse(revogacaoService.isRevogado(2L, 0));
+		assertFalse(revogacaoService.isRevogado(null, 0));
+	}
+
+	@Test
+	public void tokensEmitidosAteORetornoSaoRevogadosEOsSeguintesNao() {
+		RevogacaoService revogacaoService = new RevogacaoService();
+		long antes = System.currentTimeMillis();
+		revogacaoService.revogar(1L);
+		long depois = System.currentTimeMillis();
+		// Emitido no mesmo milissegundo em que a revogação começou
+		assertTrue(revogacaoService.isRevogado(1L, antes));
+		// Emitido imediatamente após o retorno, com os dados já gravados
+		assertFalse(revogacaoService.isRevogado(1L, depois));
+	}
+
+	@Test
+	public void novaRevogacaoAlcancaOsTokensEmitidosAposAAnterior() {
+		RevogacaoService revogacaoService = new RevogacaoService();
+		revogacaoService.revogar(1L);
+		long emissao = System.currentTimeMillis();
+		assertFalse(revogacaoService.isRevogado(1L, emissao));
+		revogacaoService.revogar(1L);
+		assertTrue(revogacaoService.isRevogado(1L, emissao));
+	}
+
+	@Test
+	public void revogacoesAlemDaCapacidadeDoFiltroSaoMantidas() {
+		RevogacaoService revogacaoService = new RevogacaoService();
+		long emissao = System.currentTimeMillis();
+		// Acima da capacidade mínima o filtro é reconstruído com as revogações anteriores
+		for (long usuario = 1; usuario <= 1100; usuario++)
+			revogacaoService.revogar(usuario);
+		for (long usuario = 1; usuario <= 1100; usuario++)
+			assertTrue(revogacaoService.isRevogado(usuario, emissao));
+	}
+
+	@Test
+	public void limpezaDescartaSomenteAsRevogacoesVencidas() {
+		RevogacaoService revogacaoService = new RevogacaoService();
+		long emissao = System.currentTimeMillis();
+		revogacaoService.revogar(1L);
+
+		revogacaoService.limpar(System.currentTimeMillis());
+		assertTrue(revogacaoService.isRevogado(1L, emissao));
+
+		// Após a validade do token de renovação todo token emitido antes da revogação já expirou
+		revogacaoService.limpar(System.currentTimeMillis() + JwtUtils.VALIDADE_RENOVACAO + 2);
+		assertFalse(revogacaoService.isRevogado(1L, emissao));
+	}
+
+	@Test
+	public void renovacaoTrocadaEMantidaAteExpirar() {
+		RevogacaoService revogacaoService = new RevogacaoService();
+		long expiracao = System.currentTimeMillis() + 60000;
+		assertTrue(revogacaoService.utilizarRenovacao("a", expiracao));
+		assertFalse(revogacaoService.utilizarRenovacao("a", expiracao));
+
+		revogacaoService.limpar(expiracao - 1);
+		assertFalse(revogacaoService.utilizarRenovacao("a", expiracao));
+		revogacaoService.limpar(expiracao);
+		assertTrue(revogacaoService.utilizarRenovacao("a", expiracao));
+	}
+}
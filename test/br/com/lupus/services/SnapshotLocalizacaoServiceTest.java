@@ -0,0 +1,87 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Item;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.DivergenciaLocalizacao;
+
+/**
+ * Testes da verificação do ambiente atual gravado nos itens contra a fotografia
+ * e as movimentações, e da correção das divergências encontradas
+ *
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class SnapshotLocalizacaoServiceTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private SnapshotLocalizacaoService snapshotService;
+
+	@Autowired
+	private LocalizacaoService localizacaoService;
+
+	@Test
+	public void verificacaoApontaEReconstrucaoCorrigeODivergente() throws Exception {
+		DadosTeste dados = new DadosTeste(sessionFactory, transactionManager);
+		Usuario usuario = dados.usuario();
+		Ambiente correto = dados.ambiente(usuario);
+		Ambiente errado = dados.ambiente(usuario);
+		List<Item> itens = dados.itens(dados.tipo(usuario, 0), usuario, correto, 2);
+		Long divergente = itens.get(0).getId(), intacto = itens.get(1).getId();
+		snapshotService.gerar();
+		// Alteração feita diretamente no banco, sem movimentação
+		new TransactionTemplate(transactionManager).execute(status -> sessionFactory.getCurrentSession()
+				.createNativeQuery("UPDATE item SET ambiente_atual_id = :ambiente WHERE id = :id")
+				.setParameter("ambiente", errado.getId()).setParameter("id", divergente).executeUpdate());
+
+		DivergenciaLocalizacao divergencia = buscar(snapshotService.verificar(), divergente);
+		assertNotNull(divergencia);
+		assertEquals(correto.getId(), divergencia.getEsperado());
+		assertEquals(errado.getId(), divergencia.getAtual());
+		assertFalse(contem(snapshotService.verificar(), intacto));
+
+		assertNotNull(buscar(localizacaoService.corrigirDivergencias(), divergente));
+		assertEquals(correto.getId(), ambienteGravado(divergente));
+		assertFalse(contem(snapshotService.verificar(), divergente));
+		assertEquals(correto.getId(), localizacaoService.buscarAmbiente(divergente));
+	}
+
+	private Long ambienteGravado(Long item) {
+		return new TransactionTemplate(transactionManager).execute(status -> sessionFactory.getCurrentSession()
+				.createQuery("SELECT i.ambienteAtual.id FROM Item i WHERE i.id = :id", Long.class)
+				.setParameter("id", item).getSingleResult());
+	}
+
+	private static boolean contem(List<DivergenciaLocalizacao> divergencias, Long item) {
+		return buscar(divergencias, item) != null;
+	}
+
+	private static DivergenciaLocalizacao buscar(List<DivergenciaLocalizacao> divergencias, Long item) {
+		return divergencias.stream().filter(divergencia -> divergencia.getItem().equals(item)).findFirst()
+				.orElse(null);
+	}
+}
@@ -0,0 +1,153 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.dao.TipoItemDao;
+import br.com.lupus.exceptions.EntityNotFound;
+import br.com.lupus.exceptions.UnprocessableEntityException;
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.TipoItem;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.models.dto.Contagem;
+import br.com.lupus.models.dto.ContagemCruzada;
+
+/**
+ * Testes da exclusão de tipos de item, validada por uma consulta de existência
+ * dos itens que não carrega a coleção, e das contagens de itens mantidas pela
+ * ocupação
+ *
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class TipoItemServiceTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private TipoItemService tipoItemService;
+
+	@Autowired
+	private TipoItemDao tipoItemDao;
+
+	@Autowired
+	private ItemService itemService;
+
+	@Autowired
+	private OcupacaoService ocupacaoService;
+
+	private DadosTeste dados;
+
+	private Usuario usuario;
+
+	@Before
+	public void popular() {
+		dados = new DadosTeste(sessionFactory, transactionManager);
+		usuario = dados.usuario();
+		SecurityContextHolder.getContext().setAuthentication(usuario);
+	}
+
+	@After
+	public void limpar() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void possuiItensConsultaSomenteOsItensDoTipo() {
+		TipoItem vazio = dados.tipo(usuario, 0), ocupado = dados.tipo(usuario, 0);
+		dados.itens(ocupado, usuario, dados.ambiente(usuario), 3);
+		assertFalse(possuiItens(vazio));
+		assertTrue(possuiItens(ocupado));
+		assertFalse(new TransactionTemplate(transactionManager).execute(status -> tipoItemDao.possuiItens(999999999L)));
+	}
+
+	@Test
+	public void tipoComItensNaoEExcluidoNemTemOsItensCarregados() throws Exception {
+		TipoItem tipo = dados.tipo(usuario, 0);
+		dados.itens(tipo, usuario, dados.ambiente(usuario), 50);
+		Statistics estatisticas = sessionFactory.getStatistics();
+		sessionFactory.getCache().evictAllRegions();
+		estatisticas.clear();
+		try {
+			tipoItemService.deletarTipo(tipo.getId());
+			fail("Tipo com itens excluído");
+		} catch (UnprocessableEntityException e) {
+		}
+		assertEquals(0, estatisticas.getCollectionLoadCount());
+		// Somente o próprio tipo é carregado, os itens são apenas consultados
+		assertEquals(1, estatisticas.getEntityLoadCount());
+		assertTrue(possuiItens(tipo));
+	}
+
+	@Test
+	public void tipoSemItensEExcluidoComAsTags() throws Exception {
+		TipoItem tipo = dados.tipo(usuario, 2);
+		tipoItemService.deletarTipo(tipo.getId());
+		assertNull(new TransactionTemplate(transactionManager).execute(status -> tipoItemDao.buscar(tipo.getId())));
+	}
+
+	@Test(expected = EntityNotFound.class)
+	public void exclusaoDeInexistenteNaoEncontra() throws Exception {
+		tipoItemService.deletarTipo(999999999L);
+	}
+
+	@Test
+	public void contagemIncluiTiposSemItensEAcompanhaAImportacao() throws Exception {
+		Ambiente ambiente = dados.ambiente(usuario), outro = dados.ambiente(usuario);
+		ocupacaoService.registrarAmbiente(ambiente.getId());
+		ocupacaoService.registrarAmbiente(outro.getId());
+		TipoItem ocupado = dados.tipo(usuario, 0), vazio = dados.tipo(usuario, 0);
+		ocupacaoService.registrarTipo(ocupado.getId());
+		ocupacaoService.registrarTipo(vazio.getId());
+		String linha = ocupado.getId() + "," + ambiente.getId() + "\n";
+		String linhas = linha + linha + linha + ocupado.getId() + "," + outro.getId();
+		assertEquals(4, itemService.importar(new BufferedReader(new StringReader(linhas)), true).getImportados());
+
+		List<Contagem> contagens = tipoItemService.contarItens();
+		assertEquals(4, AmbienteServiceTest.total(contagens, ocupado.getId()));
+		assertEquals(0, AmbienteServiceTest.total(contagens, vazio.getId()));
+
+		// Matriz restrita ao ambiente
+		List<ContagemCruzada> cruzadas = tipoItemService
+				.contarItensPorAmbiente(Collections.singleton(ambiente.getId()));
+		assertEquals(3, AmbienteServiceTest.total(cruzadas, ambiente.getId(), ocupado.getId()));
+		assertEquals(0, AmbienteServiceTest.total(cruzadas, outro.getId(), ocupado.getId()));
+		assertEquals(1, AmbienteServiceTest.total(tipoItemService.contarItensPorAmbiente(null), outro.getId(),
+				ocupado.getId()));
+
+		tipoItemService.deletarTipo(vazio.getId());
+		assertEquals(-1, AmbienteServiceTest.total(tipoItemService.contarItens(), vazio.getId()));
+	}
+
+	private boolean possuiItens(TipoItem tipo) {
+		return new TransactionTemplate(transactionManager).execute(status -> tipoItemDao.possuiItens(tipo.getId()));
+	}
+}
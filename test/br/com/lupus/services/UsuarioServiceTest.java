@@ -0,0 +1,59 @@
+package br.com.lupus.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+
+import br.com.lupus.DadosTeste;
+import br.com.lupus.config.PersistenceTestConfig;
+import br.com.lupus.models.Usuario;
+import br.com.lupus.utils.JwtUtils;
+
+/**
+ * Testes da rotação dos tokens de renovação
+ * 
+ * @author Mateus A.S
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = PersistenceTestConfig.class)
+public class UsuarioServiceTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Test
+	public void tokenDeRenovacaoReutilizadoRevogaOsTokensDoUsuario() throws Exception {
+		Usuario usuario = new DadosTeste(sessionFactory, transactionManager).usuario();
+		String tokenRenovacao = JwtUtils.getTokenRenovacao(usuario);
+
+		assertEquals(usuario.getId(), usuarioService.renovar(tokenRenovacao).getId());
+		String novoTokenRenovacao = JwtUtils.getTokenRenovacao(usuario);
+
+		try {
+			usuarioService.renovar(tokenRenovacao);
+			fail("Token de renovação trocado aceito novamente");
+		} catch (JWTVerificationException e) {
+		}
+		// A reutilização indica que o token pode ter sido copiado, o par emitido na troca também é revogado
+		try {
+			usuarioService.renovar(novoTokenRenovacao);
+			fail("Token de renovação emitido antes da revogação aceito");
+		} catch (JWTVerificationException e) {
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package br.com.lupus.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Testes do balde de tokens (GCRA): rajada até a capacidade, reposição à taxa,
+ * espera informada na rejeição e custos maiores que a capacidade
+ *
+ * @author Mateus A.S
+ */
+public class BaldeTokensTest {
+
+	/** 10 tokens por segundo, um a cada 100ms */
+	private static final long INTERVALO = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	public void rajadaConsomeAteACapacidade() {
+		BaldeTokens balde = new BaldeTokens(10, 5);
+		long agora = System.nanoTime();
+		for (int i = 0; i < 5; i++)
+			assertEquals(0, balde.consumir(1, agora));
+		// A espera é o tempo de reposição de um token
+		assertEquals(INTERVALO, balde.consumir(1, agora));
+		assertEquals(INTERVALO / 2, balde.consumir(1, agora + INTERVALO / 2));
+	}
+
+	@Test
+	public void rejeicaoNaoConsomeTokens() {
+		BaldeTokens balde = new BaldeTokens(10, 5);
+		long agora = System.nanoTime();
+		assertEquals(0, balde.consumir(5, agora));
+		for (int i = 0; i < 10; i++)
+			assertEquals(INTERVALO, balde.consumir(1, agora));
+		assertEquals(0, balde.consumir(1, agora + INTERVALO));
+	}
+
+	@Test
+	public void tokensSaoRepostosATaxa() {
+		BaldeTokens balde = new BaldeTokens(10, 5);
+		long agora = System.nanoTime();
+		assertEquals(0, balde.consumir(5, agora));
+		// Após 300ms há 3 tokens, o quarto só após mais 100ms
+		long depois = agora + 3 * INTERVALO;
+		assertEquals(0, balde.consumir(3, depois));
+		assertEquals(INTERVALO, balde.consumir(1, depois));
+		assertEquals(0, balde.consumir(1, depois + INTERVALO));
+	}
+
+	@Test
+	public void reposicaoNaoUltrapassaACapacidade() {
+		BaldeTokens balde = new BaldeTokens(10, 5);
+		long agora = System.nanoTime();
+		// Uma hora parado ainda permite somente a rajada da capacidade
+		long depois = agora + TimeUnit.HOURS.toNanos(1);
+		assertEquals(0, balde.consumir(5, depois));
+		assertEquals(INTERVALO, balde.consumir(1, depois));
+	}
+
+	@Test
+	public void esperaDoCustoMaiorQueOsTokensDisponiveis() {
+		BaldeTokens balde = new BaldeTokens(10, 5);
+		long agora = System.nanoTime();
+		assertEquals(0, balde.consumir(3, agora));
+		// Restam 2 tokens, faltam 2 para o custo 4
+		assertEquals(2 * INTERVALO, balde.consumir(4, agora));
+	}
+
+	@Test
+	public void custoMaiorQueACapacidadeConsomeOBaldeCheio() {
+		BaldeTokens balde = new BaldeTokens(10, 5);
+		long agora = System.nanoTime();
+		assertEquals(0, balde.consumir(20, agora));
+		assertEquals(5 * INTERVALO, balde.consumir(20, agora));
+		assertEquals(0, balde.consumir(20, agora + 5 * INTERVALO));
+	}
+
+	@Test
+	public void baldeFicaCheioAposAReposicao() {
+		BaldeTokens balde = new BaldeTokens(10, 5);
+		long agora = System.nanoTime();
+		assertTrue(balde.isCheio(agora));
+		balde.consumir(2, agora);
+		assertFalse(balde.isCheio(agora + INTERVALO));
+		assertTrue(balde.isCheio(agora + 2 * INTERVALO));
+	}
+}
@@ -0,0 +1,76 @@
+package br.com.lupus.utils;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Testes do filtro de Bloom: ausência de falsos negativos, taxa de falsos
+ * positivos dentro da capacidade e inclusões concorrentes
+ *
+ * @author Mateus A.S
+ */
+public class FiltroBloomTest {
+
+	@Test
+	public void filtroVazioNaoContemNenhumaChave() {
+		FiltroBloom filtro = new FiltroBloom(1024, 0.01);
+		for (long chave = 1; chave <= 10000; chave++)
+			assertFalse(filtro.talvezContenha(chave));
+	}
+
+	@Test
+	public void chavesAdicionadasSaoSempreEncontradas() {
+		Random aleatorio = new Random(42);
+		FiltroBloom filtro = new FiltroBloom(1000, 0.01);
+		long[] chaves = new long[5000];
+		// Acima da capacidade a taxa de falsos positivos sobe, mas não há falsos negativos
+		for (int i = 0; i < chaves.length; i++) {
+			chaves[i] = aleatorio.nextLong();
+			filtro.adicionar(chaves[i]);
+		}
+		for (long chave : chaves)
+			assertTrue(filtro.talvezContenha(chave));
+	}
+
+	@Test
+	public void falsosPositivosFicamProximosDaTaxaDentroDaCapacidade() {
+		FiltroBloom filtro = new FiltroBloom(10000, 0.01);
+		for (long chave = 1; chave <= 10000; chave++)
+			filtro.adicionar(chave);
+		int falsosPositivos = 0, consultas = 100000;
+		for (long chave = 1_000_000; chave < 1_000_000 + consultas; chave++)
+			if (filtro.talvezContenha(chave))
+				falsosPositivos++;
+		assertTrue("Falsos positivos: " + falsosPositivos, falsosPositivos < consultas * 0.02);
+	}
+
+	@Test
+	public void inclusoesConcorrentesNaoPerdemBits() throws Exception {
+		FiltroBloom filtro = new FiltroBloom(1024, 0.01);
+		int threads = 4, porThread = 2000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> tarefas = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			long inicio = t * (long) porThread + 1;
+			// Chaves de threads distintas disputam as mesmas palavras do array
+			tarefas.add(executor.submit(() -> {
+				for (long chave = inicio; chave < inicio + porThread; chave++)
+					filtro.adicionar(chave);
+			}));
+		}
+		for (Future<?> tarefa : tarefas)
+			tarefa.get();
+		executor.shutdown();
+		for (long chave = 1; chave <= threads * porThread; chave++)
+			assertTrue(filtro.talvezContenha(chave));
+	}
+}
@@ -0,0 +1,84 @@
+package br.com.lupus.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.lupus.models.Ambiente;
+import br.com.lupus.models.Permissao;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Testes da exportação por streaming: uma falha durante a escrita não pode
+ * resultar em um array JSON válido
+ *
+ * @author Mateus A.S
+ */
+public class JsonStreamUtilsTest {
+
+	private static final Usuario USUARIO = new Usuario(1L, "usuario", "usuario@instock.com", null,
+			Permissao.ADMINISTRADOR, null, true);
+
+	@Test
+	public void exportacaoConcluidaEscreveArrayCompleto() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		JsonStreamUtils.exportar(response, Ambiente.RESUMO.restringir("id,nome").getProjecao(),
+				(Consumer<Ambiente> escritor) -> {
+					for (long i = 1; i <= 3; i++)
+						escritor.accept(new Ambiente(i, "ambiente " + i, USUARIO, null));
+				});
+		assertEquals(3, new ObjectMapper().readTree(response.getContentAsString()).size());
+	}
+
+	@Test
+	public void falhaAposOEnvioDeixaOArrayAberto() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		// Obriga o envio do corpo antes da falha (o gerador envia a cada 8 KB)
+		response.setBufferSize(64);
+		try {
+			JsonStreamUtils.exportar(response, Ambiente.RESUMO.restringir("id,nome").getProjecao(),
+					(Consumer<Ambiente> escritor) -> {
+						for (long i = 1; i <= 1000; i++)
+							escritor.accept(new Ambiente(i, "ambiente " + i, USUARIO, null));
+						throw new IllegalStateException("falha na leitura");
+					});
+			fail("A falha da exportação não foi propagada");
+		} catch (IllegalStateException e) {
+		}
+		assertTrue(response.isCommitted());
+		String corpo = response.getContentAsString();
+		assertTrue(corpo.startsWith("[{"));
+		assertFalse(corpo.endsWith("]"));
+		try {
+			new ObjectMapper().readTree(corpo);
+			fail("Exportação incompleta escrita como JSON válido");
+		} catch (JsonProcessingException e) {
+		}
+	}
+
+	@Test
+	public void falhaAntesDoEnvioDescartaAResposta() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			JsonStreamUtils.exportar(response, Ambiente.RESUMO.restringir("id,nome").getProjecao(),
+					(Consumer<Ambiente> escritor) -> {
+						escritor.accept(new Ambiente(1L, "ambiente", USUARIO, null));
+						throw new IllegalStateException("falha na leitura");
+					});
+			fail("A falha da exportação não foi propagada");
+		} catch (IllegalStateException e) {
+		}
+		assertFalse(response.isCommitted());
+		assertEquals("", response.getContentAsString());
+	}
+}
@@ -0,0 +1,96 @@
+package br.com.lupus.utils;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import br.com.lupus.models.Permissao;
+import br.com.lupus.models.Usuario;
+
+/**
+ * Microbenchmark da verificação do token de acesso feita a cada requisição pelo
+ * JWTFilter, do token ao usuário autenticado. Compara a implementação anterior
+ * (algoritmo e verificador criados a cada requisição e token decodificado duas
+ * vezes), a verificação com o verificador compartilhado e sem cache, e o
+ * JwtUtils.verificarToken com o token já em cache. As variantes sem JwtUtils
+ * utilizam um segredo próprio do mesmo tamanho, o custo do HMAC512 é o mesmo
+ *
+ * @author Mateus A.S
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtUtilsBenchmark {
+
+	private String segredo;
+
+	private JWTVerifier verificador;
+
+	/** Token assinado com o segredo do benchmark */
+	private String token;
+
+	/** Token emitido pelo JwtUtils */
+	private String tokenAplicacao;
+
+	@Setup
+	public void preparar() throws UnsupportedEncodingException {
+		char[] caracteres = new char[100];
+		Arrays.fill(caracteres, 'x');
+		segredo = new String(caracteres);
+		Algorithm algoritmo = Algorithm.HMAC512(segredo);
+		verificador = JWT.require(algoritmo).withClaim("tipo", "acesso").build();
+		long emissao = System.currentTimeMillis();
+		token = JWT.create().withIssuer("~Instock!~").withIssuedAt(new Date(emissao)).withSubject("Authentic")
+				.withExpiresAt(new Date(emissao + JwtUtils.VALIDADE_ACESSO)).withClaim("tipo", "acesso")
+				.withClaim("emissao", emissao).withClaim("id", 1L).withClaim("nome", "usuario")
+				.withClaim("email", "usuario@instock.com").withClaim("permissao", Permissao.ADMINISTRADOR.toString())
+				.sign(algoritmo);
+		tokenAplicacao = JwtUtils.getToken(
+				new Usuario(1L, "usuario", "usuario@instock.com", null, Permissao.ADMINISTRADOR, null, true));
+	}
+
+	@Benchmark
+	public Usuario verificadorPorRequisicao() throws UnsupportedEncodingException {
+		JWT.require(Algorithm.HMAC512(segredo)).build().verify(token);
+		return criarUsuario(JWT.decode(token));
+	}
+
+	@Benchmark
+	public Usuario verificadorCompartilhado() {
+		return criarUsuario(verificador.verify(token));
+	}
+
+	@Benchmark
+	public Usuario verificarTokenEmCache() {
+		return JwtUtils.verificarToken(tokenAplicacao).criarUsuario();
+	}
+
+	private static Usuario criarUsuario(DecodedJWT decodificado) {
+		Usuario usuario = new Usuario();
+		usuario.setId(decodificado.getClaim("id").asLong());
+		usuario.setNome(decodificado.getClaim("nome").asString());
+		usuario.setEmail(decodificado.getClaim("email").asString());
+		usuario.setPermissao(Permissao.valueOf(decodificado.getClaim("permissao").asString()));
+		return usuario;
+	}
+}
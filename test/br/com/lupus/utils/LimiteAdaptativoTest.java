@@ -0,0 +1,146 @@
+package br.com.lupus.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Testes do limite adaptativo: ocupação das vagas, crescimento com fila
+ * pequena, redução proporcional com fila grande, redução multiplicativa nas
+ * janelas com falha e agregação das amostras em janelas
+ *
+ * @author Mateus A.S
+ */
+public class LimiteAdaptativoTest {
+
+	private static final long LATENCIA = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * Instante simulado, anterior à criação do limite e avançado a cada janela em
+	 * duas vezes a duração mínima, para que somente a última liberação a encerre
+	 */
+	private long agora = System.nanoTime();
+
+	@Test
+	public void vagasSaoOcupadasAteOLimite() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 10);
+		assertTrue(limite.tentarOcupar());
+		assertTrue(limite.tentarOcupar());
+		assertFalse(limite.tentarOcupar());
+		assertEquals(2, limite.getEmUso());
+		limite.liberar(LATENCIA, false);
+		assertEquals(1, limite.getEmUso());
+		assertTrue(limite.tentarOcupar());
+	}
+
+	@Test
+	public void limiteInicialRespeitaOMinimoEOMaximo() {
+		assertEquals(5, new LimiteAdaptativo(1, 5, 10).getLimite());
+		assertEquals(10, new LimiteAdaptativo(50, 5, 10).getLimite());
+	}
+
+	@Test
+	public void latenciaEstavelComOLimiteUtilizadoAumentaOLimite() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(10, 1, 100);
+		// A primeira janela define a latência sem fila
+		janela(limite, 10, LATENCIA, false);
+		assertEquals(11, limite.getLimite());
+		assertEquals(LATENCIA, limite.getLatenciaMinima());
+		janela(limite, 11, LATENCIA, false);
+		assertEquals(12, limite.getLimite());
+	}
+
+	@Test
+	public void limitePoucoUtilizadoNaoAumenta() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(40, 1, 100);
+		// Requisições uma de cada vez, o limite nunca é atingido
+		for (int i = 0; i < LimiteAdaptativo.AMOSTRAS_JANELA; i++) {
+			assertTrue(limite.tentarOcupar());
+			limite.liberar(LATENCIA, false, agora + 2 * LimiteAdaptativo.DURACAO_JANELA);
+		}
+		assertEquals(40, limite.getLimite());
+	}
+
+	@Test
+	public void filaGrandeReduzOLimiteProporcionalmente() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 1, 100);
+		janela(limite, 20, LATENCIA, false);
+		assertEquals(21, limite.getLimite());
+		// Latência 10x a mínima: 90% das requisições estão na fila
+		janela(limite, 21, 10 * LATENCIA, false);
+		// fila = 21 * 0.9 = 18.9, beta = 6 * log10(21) = 7.93, redução = ceil((18.9 - 7.93) / 2)
+		assertEquals(21 - 6, limite.getLimite());
+		assertEquals(LATENCIA, limite.getLatenciaMinima());
+	}
+
+	@Test
+	public void filaEntreOsLimiaresMantemOLimite() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 1, 100);
+		janela(limite, 20, LATENCIA, false);
+		// fila = 21 * (1 - 10 / 14) = 6, entre alfa (3.97) e beta (7.93)
+		janela(limite, 21, 14 * LATENCIA / 10, false);
+		assertEquals(21, limite.getLimite());
+	}
+
+	@Test
+	public void falhaNaJanelaReduzOLimiteMultiplicativamente() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(50, 2, 100);
+		janela(limite, 50, LATENCIA, true);
+		assertEquals(45, limite.getLimite());
+		janela(limite, 45, LATENCIA, true);
+		assertEquals(40, limite.getLimite());
+		// Falhas não entram na latência sem fila
+		assertEquals(0, limite.getLatenciaMinima());
+	}
+
+	@Test
+	public void reducaoNaoUltrapassaOMinimo() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 15, 100);
+		// 20, 18, 16 e 15 em vez de 14
+		for (int i = 0; i < 5; i++)
+			janela(limite, limite.getLimite(), LATENCIA, true);
+		assertEquals(15, limite.getLimite());
+	}
+
+	@Test
+	public void umaFalhaIsoladaReduzSomenteAoFimDaJanela() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 1, 100);
+		for (int i = 0; i < 20; i++)
+			assertTrue(limite.tentarOcupar());
+		limite.liberar(LATENCIA, true, agora);
+		// Antes da duração mínima e da quantidade mínima de amostras a janela continua aberta
+		for (int i = 1; i < 20; i++)
+			limite.liberar(LATENCIA, false, agora);
+		assertEquals(20, limite.getLimite());
+		assertTrue(limite.tentarOcupar());
+		limite.liberar(LATENCIA, false, agora + 2 * LimiteAdaptativo.DURACAO_JANELA);
+		assertEquals(18, limite.getLimite());
+	}
+
+	@Test
+	public void janelaExigeAQuantidadeMinimaDeAmostras() {
+		LimiteAdaptativo limite = new LimiteAdaptativo(20, 1, 100);
+		for (int i = 0; i < LimiteAdaptativo.AMOSTRAS_JANELA - 1; i++) {
+			assertTrue(limite.tentarOcupar());
+			limite.liberar(LATENCIA, true, agora + TimeUnit.SECONDS.toNanos(10));
+		}
+		assertEquals(20, limite.getLimite());
+	}
+
+	/**
+	 * Ocupa as vagas e as libera com a latência informada, encerrando uma janela
+	 * na última liberação
+	 */
+	private void janela(LimiteAdaptativo limite, int ocupadas, long latencia, boolean falha) {
+		for (int i = 0; i < ocupadas; i++)
+			assertTrue(limite.tentarOcupar());
+		for (int i = 1; i < ocupadas; i++)
+			limite.liberar(latencia, falha, agora);
+		agora += 2 * LimiteAdaptativo.DURACAO_JANELA;
+		limite.liberar(latencia, falha, agora);
+	}
+}
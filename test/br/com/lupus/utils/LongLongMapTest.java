@@ -0,0 +1,137 @@
+package br.com.lupus.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Testes do LongLongMap: chave reservada, sondagem que passa do fim do array
+ * para o início, remoção com deslocamento para trás e redimensionamento
+ *
+ * @author Mateus A.S
+ */
+public class LongLongMapTest {
+
+	private static final long AUSENTE = -1;
+
+	@Test
+	public void chaveZeroNaoEEncontradaNemRemovida() {
+		LongLongMap mapa = new LongLongMap(8);
+		mapa.put(1, 10, AUSENTE);
+		assertEquals(AUSENTE, mapa.get(0, AUSENTE));
+		assertEquals(AUSENTE, mapa.remove(0, AUSENTE));
+		assertEquals(1, mapa.size());
+		assertEquals(10, mapa.get(1, AUSENTE));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void chaveZeroNaoEAceita() {
+		new LongLongMap(8).put(0, 10, AUSENTE);
+	}
+
+	@Test
+	public void sondagemContinuaNoInicioDoArray() {
+		// Capacidade 8 aloca 16 posições
+		LongLongMap mapa = new LongLongMap(8);
+		long[] chaves = chavesNaPosicao(15, 15, 3);
+		for (long chave : chaves)
+			mapa.put(chave, chave * 10, AUSENTE);
+		for (long chave : chaves)
+			assertEquals(chave * 10, mapa.get(chave, AUSENTE));
+
+		// A primeira ocupa a última posição, as seguintes estão nas posições 0 e 1
+		assertEquals(chaves[0] * 10, mapa.remove(chaves[0], AUSENTE));
+		assertEquals(AUSENTE, mapa.get(chaves[0], AUSENTE));
+		assertEquals(chaves[1] * 10, mapa.get(chaves[1], AUSENTE));
+		assertEquals(chaves[2] * 10, mapa.get(chaves[2], AUSENTE));
+		assertEquals(2, mapa.size());
+	}
+
+	@Test
+	public void remocaoDeslocaAsEntradasDoMesmoAgrupamento() {
+		LongLongMap mapa = new LongLongMap(8);
+		long[] agrupadas = chavesNaPosicao(3, 15, 3);
+		long outra = chavesNaPosicao(4, 15, 1)[0];
+		// A chave da posição 4 fica após as três da posição 3
+		for (long chave : agrupadas)
+			mapa.put(chave, 1, AUSENTE);
+		mapa.put(outra, 2, AUSENTE);
+
+		mapa.remove(agrupadas[0], AUSENTE);
+		mapa.remove(agrupadas[1], AUSENTE);
+		assertEquals(1, mapa.get(agrupadas[2], AUSENTE));
+		assertEquals(2, mapa.get(outra, AUSENTE));
+		assertEquals(AUSENTE, mapa.remove(agrupadas[1], AUSENTE));
+		assertEquals(2, mapa.size());
+	}
+
+	@Test
+	public void redimensionamentoMantemTodasAsEntradas() {
+		LongLongMap mapa = new LongLongMap(8);
+		for (long chave = 1; chave <= 10000; chave++)
+			assertEquals(AUSENTE, mapa.put(chave, chave % 7, AUSENTE));
+		assertEquals(10000, mapa.size());
+		for (long chave = 1; chave <= 10000; chave++)
+			assertEquals(chave % 7, mapa.get(chave, AUSENTE));
+		assertEquals(AUSENTE, mapa.get(10001, AUSENTE));
+	}
+
+	@Test
+	public void chavesRetornaTodasAsChavesOuAsDoValor() {
+		LongLongMap mapa = new LongLongMap(8);
+		for (long chave = 1; chave <= 100; chave++)
+			mapa.put(chave, chave % 2 == 0 ? 20 : 30, AUSENTE);
+		long[] todas = mapa.chaves();
+		Arrays.sort(todas);
+		assertEquals(100, todas.length);
+		assertEquals(1, todas[0]);
+		assertEquals(100, todas[99]);
+
+		long[] pares = mapa.chaves(20);
+		Arrays.sort(pares);
+		assertEquals(50, pares.length);
+		for (long chave : pares)
+			assertEquals(0, chave % 2);
+		assertArrayEquals(new long[0], mapa.chaves(40));
+	}
+
+	@Test
+	public void operacoesAleatoriasEquivalemAoHashMap() {
+		Random aleatorio = new Random(42);
+		LongLongMap mapa = new LongLongMap(8);
+		Map<Long, Long> esperado = new HashMap<>();
+		for (int i = 0; i < 200000; i++) {
+			// Poucas chaves para que inclusões e remoções se alternem nos mesmos agrupamentos
+			long chave = 1 + aleatorio.nextInt(2000);
+			if (aleatorio.nextBoolean()) {
+				long valor = aleatorio.nextInt(50);
+				Long anterior = esperado.put(chave, valor);
+				assertEquals(anterior == null ? AUSENTE : anterior, mapa.put(chave, valor, AUSENTE));
+			} else {
+				Long anterior = esperado.remove(chave);
+				assertEquals(anterior == null ? AUSENTE : anterior, mapa.remove(chave, AUSENTE));
+			}
+		}
+		assertEquals(esperado.size(), mapa.size());
+		for (long chave = 1; chave <= 2000; chave++)
+			assertEquals(esperado.getOrDefault(chave, AUSENTE).longValue(), mapa.get(chave, AUSENTE));
+	}
+
+	/**
+	 * @return as primeiras chaves positivas cuja posição ideal na tabela é a informada
+	 */
+	static long[] chavesNaPosicao(int posicao, int mascara, int quantidade) {
+		long[] chaves = new long[quantidade];
+		int n = 0;
+		for (long chave = 1; n < quantidade; chave++)
+			if (LongLongMap.posicao(chave, mascara) == posicao)
+				chaves[n++] = chave;
+		return chaves;
+	}
+}
@@ -0,0 +1,84 @@
+package br.com.lupus.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Testes do LongSet: valor reservado, sondagem que passa do fim do array para o
+ * início, remoção com deslocamento para trás e redimensionamento
+ *
+ * @author Mateus A.S
+ */
+public class LongSetTest {
+
+	@Test
+	public void valorZeroNaoEEncontradoNemRemovido() {
+		LongSet conjunto = new LongSet(4);
+		conjunto.add(1);
+		assertFalse(conjunto.contains(0));
+		assertFalse(conjunto.remove(0));
+		assertEquals(1, conjunto.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void valorZeroNaoEAceito() {
+		new LongSet(4).add(0);
+	}
+
+	@Test
+	public void sondagemContinuaNoInicioDoArray() {
+		// Capacidade 4 aloca 8 posições
+		LongSet conjunto = new LongSet(4);
+		long[] valores = LongLongMapTest.chavesNaPosicao(7, 7, 3);
+		for (long valor : valores)
+			assertTrue(conjunto.add(valor));
+		assertFalse(conjunto.add(valores[2]));
+
+		assertTrue(conjunto.remove(valores[0]));
+		assertFalse(conjunto.contains(valores[0]));
+		assertTrue(conjunto.contains(valores[1]));
+		assertTrue(conjunto.contains(valores[2]));
+		assertFalse(conjunto.remove(valores[0]));
+		assertEquals(2, conjunto.size());
+	}
+
+	@Test
+	public void redimensionamentoMantemTodosOsValores() {
+		LongSet conjunto = new LongSet(4);
+		for (long valor = 1; valor <= 10000; valor++)
+			conjunto.add(valor);
+		assertEquals(10000, conjunto.size());
+		long[] valores = conjunto.toArray();
+		Arrays.sort(valores);
+		assertEquals(10000, valores.length);
+		assertEquals(1, valores[0]);
+		assertEquals(10000, valores[9999]);
+	}
+
+	@Test
+	public void operacoesAleatoriasEquivalemAoHashSet() {
+		Random aleatorio = new Random(42);
+		LongSet conjunto = new LongSet(4);
+		Set<Long> esperado = new HashSet<>();
+		for (int i = 0; i < 200000; i++) {
+			long valor = 1 + aleatorio.nextInt(2000);
+			if (aleatorio.nextBoolean())
+				assertEquals(esperado.add(valor), conjunto.add(valor));
+			else
+				assertEquals(esperado.remove(valor), conjunto.remove(valor));
+		}
+		assertEquals(esperado.size(), conjunto.size());
+		long[] valores = conjunto.toArray();
+		Arrays.sort(valores);
+		assertArrayEquals(esperado.stream().mapToLong(Long::longValue).sorted().toArray(), valores);
+	}
+}
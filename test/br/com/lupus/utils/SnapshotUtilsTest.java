@@ -0,0 +1,100 @@
+package br.com.lupus.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Testes da codificação das fotografias de localização: ida e volta com
+ * conjuntos vazios, ids grandes e esparsos, byte de formato e conteúdo corrompido
+ *
+ * @author Mateus A.S
+ */
+public class SnapshotUtilsTest {
+
+	@Test
+	public void fotografiaVaziaVoltaVazia() {
+		byte[] conteudo = SnapshotUtils.compactar(new LongLongMap(8));
+		assertEquals(SnapshotUtils.FORMATO, conteudo[0]);
+		assertEquals(0, SnapshotUtils.descompactar(conteudo).size());
+		assertEquals(0, SnapshotUtils.descompactar(conteudo, 1).size());
+	}
+
+	@Test
+	public void idsGrandesEEsparsosVoltamIguais() {
+		LongLongMap localizacoes = new LongLongMap(8);
+		localizacoes.put(1, 1, 0);
+		localizacoes.put(127, 128, 0);
+		localizacoes.put(128, Integer.MAX_VALUE + 1L, 0);
+		localizacoes.put(1L << 40, 3, 0);
+		localizacoes.put(Long.MAX_VALUE - 1, Long.MAX_VALUE, 0);
+		localizacoes.put(Long.MAX_VALUE, 3, 0);
+		verificarIdaEVolta(localizacoes);
+	}
+
+	@Test
+	public void localizacoesAleatoriasVoltamIguais() {
+		Random aleatorio = new Random(42);
+		LongLongMap localizacoes = new LongLongMap(8);
+		long item = 0;
+		for (int i = 0; i < 50000; i++) {
+			// Saltos de tamanhos variados, como ids reservados em blocos por instância
+			item += 1 + (aleatorio.nextInt(10) == 0 ? aleatorio.nextInt(100000) : aleatorio.nextInt(3));
+			localizacoes.put(item, 1 + aleatorio.nextInt(200), 0);
+		}
+		verificarIdaEVolta(localizacoes);
+	}
+
+	@Test
+	public void descompactacaoPorAmbienteMantemSomenteOsItensDoAmbiente() {
+		LongLongMap localizacoes = new LongLongMap(8);
+		for (long item = 1; item <= 1000; item++)
+			localizacoes.put(item, item % 3 == 0 ? 7 : 8, 0);
+		long[] itens = SnapshotUtils.descompactar(SnapshotUtils.compactar(localizacoes), 7).toArray();
+		Arrays.sort(itens);
+		long[] esperados = localizacoes.chaves(7);
+		Arrays.sort(esperados);
+		assertArrayEquals(esperados, itens);
+		assertEquals(333, itens.length);
+	}
+
+	@Test
+	public void formatoDesconhecidoERejeitado() {
+		byte[] conteudo = SnapshotUtils.compactar(new LongLongMap(8));
+		conteudo[0] = SnapshotUtils.FORMATO + 1;
+		esperarRejeicao(conteudo);
+		esperarRejeicao(new byte[0]);
+		esperarRejeicao(null);
+	}
+
+	@Test
+	public void conteudoTruncadoERejeitado() {
+		LongLongMap localizacoes = new LongLongMap(8);
+		for (long item = 1; item <= 1000; item++)
+			localizacoes.put(item, item, 0);
+		byte[] conteudo = SnapshotUtils.compactar(localizacoes);
+		esperarRejeicao(Arrays.copyOf(conteudo, conteudo.length / 2));
+	}
+
+	private static void verificarIdaEVolta(LongLongMap localizacoes) {
+		byte[] conteudo = SnapshotUtils.compactar(localizacoes);
+		assertEquals(SnapshotUtils.FORMATO, conteudo[0]);
+		LongLongMap lidas = SnapshotUtils.descompactar(conteudo);
+		assertEquals(localizacoes.size(), lidas.size());
+		for (long item : localizacoes.chaves())
+			assertEquals(localizacoes.get(item, 0), lidas.get(item, 0));
+	}
+
+	private static void esperarRejeicao(byte[] conteudo) {
+		try {
+			SnapshotUtils.descompactar(conteudo);
+			fail("Conteúdo inválido aceito");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}
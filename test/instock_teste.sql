@@ -0,0 +1,2 @@
+CREATE TABLE ocupacao(ambiente_id BIGINT NOT NULL, tipo_id BIGINT NOT NULL, total BIGINT NOT NULL, PRIMARY KEY(ambiente_id, tipo_id));
+CREATE TABLE snapshot_localizacao(id BIGINT NOT NULL AUTO_INCREMENT, data_snapshot DATETIME NOT NULL, ultima_movimentacao_id BIGINT NOT NULL, quantidade_itens INT NOT NULL, conteudo LONGBLOB NOT NULL, PRIMARY KEY(id));